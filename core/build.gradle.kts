@@ -5,3 +5,8 @@ plugins {
 dependencies {
   // no external deps for core yet
 }
+
+tasks.test {
+  // keep the read status tests mark out of the user's ~/.jvn/read
+  systemProperty("jvn.readStateDir", layout.buildDirectory.dir("tmp/jvn-read").get().asFile.path)
+}
@@ -13,4 +13,6 @@ public interface AudioFacade {
   default void resumeBgm() {}
   default void seekBgmSeconds(double seconds) {}
   default void crossfadeBgm(String trackId, long ms, boolean loop) {}
+  /** Resolve and decode a track ahead of playback; called from background threads. */
+  default void preload(String trackId) {}
 }
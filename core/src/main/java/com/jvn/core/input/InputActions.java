@@ -6,6 +6,8 @@ package com.jvn.core.input;
 public final class InputActions {
   public static final String ADVANCE = "advance";
   public static final String SKIP_TOGGLE = "skip_toggle";
+  public static final String SKIP_TO_STOP = "skip_to_stop";
+  public static final String ROLLBACK = "rollback";
   public static final String AUTO_TOGGLE = "auto_toggle";
   public static final String HIDE_UI = "hide_ui";
   public static final String HISTORY = "history";
@@ -33,6 +35,8 @@ public final class InputActions {
         .add(ADVANCE, InputCode.mouse(1));
     p.add(SKIP_TOGGLE, InputCode.key("CONTROL"))
         .add(SKIP_TOGGLE, InputCode.key("COMMAND"));
+    p.add(SKIP_TO_STOP, InputCode.key("TAB"));
+    p.add(ROLLBACK, InputCode.key("PAGE_UP"));
     p.add(AUTO_TOGGLE, InputCode.key("A"));
     p.add(HIDE_UI, InputCode.key("H"));
     p.add(HISTORY, InputCode.key("B"));
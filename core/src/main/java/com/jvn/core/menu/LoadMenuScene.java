@@ -8,7 +8,7 @@ import com.jvn.core.vn.VnScene;
 import com.jvn.core.vn.VnScenario;
 import com.jvn.core.vn.save.VnSaveData;
 import com.jvn.core.vn.save.VnSaveManager;
-import com.jvn.core.vn.script.VnScriptParser;
+import com.jvn.core.vn.script.VnScenarioCache;
 import com.jvn.core.engine.Engine;
 import com.jvn.core.audio.AudioFacade;
 import org.slf4j.Logger;
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Comparator;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -195,8 +196,7 @@ public class LoadMenuScene implements Scene {
     try {
       AssetCatalog assets = new AssetCatalog();
       try (InputStream in = assets.open(AssetType.SCRIPT, scriptName)) {
-        VnScriptParser parser = new VnScriptParser();
-        return parser.parse(in);
+        return new VnScenarioCache().load(in, Objects.toString(assets.url(AssetType.SCRIPT, scriptName), scriptName));
       }
     } catch (Exception ignored) {
       return DemoScenario.createSimpleDemo();
@@ -8,7 +8,7 @@ import com.jvn.core.vn.VnScene;
 import com.jvn.core.vn.VnScenario;
 import com.jvn.core.vn.VnSettings;
 import com.jvn.core.vn.save.VnSaveManager;
-import com.jvn.core.vn.script.VnScriptParser;
+import com.jvn.core.vn.script.VnScenarioCache;
 import com.jvn.core.engine.Engine;
 import com.jvn.core.audio.AudioFacade;
 import org.slf4j.Logger;
@@ -73,6 +73,7 @@ public class MainMenuScene implements Scene {
     s.setAutoPlayDelay(settingsModel.getAutoPlayDelay());
     s.setSkipUnreadText(settingsModel.isSkipUnreadText());
     s.setSkipAfterChoices(settingsModel.isSkipAfterChoices());
+    s.setKeepFullHistory(settingsModel.isKeepFullHistory());
     s.setPhysicsFixedStepMs(settingsModel.getPhysicsFixedStepMs());
     s.setPhysicsMaxSubSteps(settingsModel.getPhysicsMaxSubSteps());
     s.setPhysicsDefaultFriction(settingsModel.getPhysicsDefaultFriction());
@@ -93,8 +94,7 @@ public class MainMenuScene implements Scene {
     try {
       AssetCatalog assets = new AssetCatalog();
       try (InputStream in = assets.open(AssetType.SCRIPT, scriptName)) {
-        VnScriptParser parser = new VnScriptParser();
-        return parser.parse(in);
+        return new VnScenarioCache().load(in, java.util.Objects.toString(assets.url(AssetType.SCRIPT, scriptName), scriptName));
       }
     } catch (Exception e) {
       LOG.warn("Failed to load script '{}', falling back to DemoScenario: {}", scriptName, e.toString());
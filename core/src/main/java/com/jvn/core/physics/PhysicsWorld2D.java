@@ -47,6 +47,14 @@ public class PhysicsWorld2D {
   public void setBounds(Rect bounds) { this.bounds = bounds; }
   public void addStaticRect(Rect r) { if (r != null) staticRects.add(r); }
   public void clearStaticRects() { staticRects.clear(); }
+  /** Removes the given rects (by identity) in one pass over the static list. */
+  public void removeStaticRects(java.util.Collection<Rect> rects) {
+    if (rects == null || rects.isEmpty()) return;
+    Set<Rect> gone = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+    gone.addAll(rects);
+    staticRects.removeIf(gone::contains);
+  }
+  public int getStaticRectCount() { return staticRects.size(); }
   public void setSensorListener(PhysicsSensorListener l) { this.sensorListener = l; }
   public void setCollisionListener(CollisionListener l) { this.collisionListener = l; }
 
@@ -33,6 +33,18 @@ public class RigidBody2D {
     return b;
   }
 
+  /** Restores the default motion and material settings, keeping the shape, so a body can be reused. */
+  public void reset() {
+    vx = 0;
+    vy = 0;
+    mass = 1.0;
+    isStatic = false;
+    restitution = 0.2;
+    sensor = false;
+    linearDamping = 0.0;
+    friction = 0.2;
+  }
+
   public ShapeType getShapeType() { return shapeType; }
   public Rect getAabb() { return aabb; }
   public Circle getCircle() { return circle; }
@@ -1,18 +1,76 @@
 package com.jvn.core.rpg;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 public class Equipment implements Serializable {
+  private static final long serialVersionUID = -177835228829341732L;
+
+  /** Notified after a slot changes. */
+  public interface Listener {
+    void onSlotChanged(Equipment equipment, String slot, String oldItemId, String newItemId);
+  }
+
   private final Map<String, String> slots = new HashMap<>();
+  private RpgStats boundStats; // saved with the equipment, so the stats binding is restored on load
+  private HashMap<String, Item> boundItems;
+  private transient Listener listener;
+
+  /** Read-only view; change slots with {@link #set} or {@link #clear} so listeners hear about it. */
+  public Map<String, String> getSlots() { return Collections.unmodifiableMap(slots); }
 
-  public Map<String, String> getSlots() { return slots; }
+  /** Replaces the listener, including a {@link #bindStats} binding. */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+    boundStats = null;
+    boundItems = null;
+  }
 
   public void set(String slot, String itemId) {
     if (slot == null || slot.isBlank()) return;
-    if (itemId == null || itemId.isBlank()) slots.remove(slot);
-    else slots.put(slot, itemId);
+    String old = itemId == null || itemId.isBlank() ? slots.remove(slot) : slots.put(slot, itemId);
+    String now = slots.get(slot);
+    if (listener != null && !Objects.equals(old, now)) listener.onSlotChanged(this, slot, old, now);
+  }
+
+  public void clear() {
+    for (String slot : new ArrayList<>(slots.keySet())) set(slot, null);
+  }
+
+  /**
+   * Keeps {@code stats} in step with this equipment: each slot contributes an {@code equip:<slot>} modifier from its
+   * item's {@code attack}, {@code defense} and {@code speed} modifiers, updated only when that slot changes.
+   */
+  public void bindStats(RpgStats stats, Map<String, Item> items) {
+    if (stats == null || items == null) { setListener(null); return; }
+    for (String source : new ArrayList<>(stats.getModifiers().keySet())) {
+      if (source.startsWith("equip:")) stats.removeModifier(source);
+    }
+    boundStats = stats;
+    boundItems = new HashMap<>(items);
+    listener = binding();
+    for (Map.Entry<String, String> e : slots.entrySet()) applySlot(stats, boundItems, e.getKey(), e.getValue());
+  }
+
+  private Listener binding() {
+    return (eq, slot, oldItemId, newItemId) -> applySlot(boundStats, boundItems, slot, newItemId);
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    if (boundStats != null && boundItems != null) listener = binding();
+  }
+
+  private static void applySlot(RpgStats stats, Map<String, Item> items, String slot, String itemId) {
+    Item item = itemId == null ? null : items.get(itemId);
+    if (item == null) stats.removeModifier("equip:" + slot);
+    else stats.setModifier("equip:" + slot, item.getModifier("attack"), item.getModifier("defense"), item.getModifier("speed"));
   }
 
   public String get(String slot) { return slots.get(slot); }
@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Item implements Serializable {
+  private static final long serialVersionUID = 3886521846267402448L;
+
   public enum Type { CONSUMABLE, EQUIPMENT, KEY }
 
   private String id;
@@ -23,5 +25,9 @@ public class Item implements Serializable {
   public void setType(Type type) { this.type = type == null ? Type.CONSUMABLE : type; }
 
   public Map<String, Double> getModifiers() { return modifiers; }
+  public double getModifier(String stat) {
+    Double v = modifiers.get(stat);
+    return v == null ? 0 : v;
+  }
   public void setModifiers(Map<String, Double> modifiers) { this.modifiers = modifiers == null ? new HashMap<>() : modifiers; }
 }
@@ -1,8 +1,22 @@
 package com.jvn.core.rpg;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Actor stats. Attack, defense and speed are derived from the base value, a flat bonus and named modifiers (equipment
+ * slots, buffs); the totals are recomputed when an input changes rather than on every read.
+ */
 public class RpgStats implements Serializable {
+  private static final long serialVersionUID = -7554293305299885340L;
+
+  /** Stat contribution from one source. */
+  public record Modifier(double attack, double defense, double speed) implements Serializable {}
+
   private double maxHp;
   private double hp;
   private double maxMp;
@@ -13,6 +27,14 @@ public class RpgStats implements Serializable {
   private double attackBonus;
   private double defenseBonus;
   private double speedBonus;
+  private LinkedHashMap<String, Modifier> modifiers = new LinkedHashMap<>();
+  private transient double modAttack;
+  private transient double modDefense;
+  private transient double modSpeed;
+  private transient double totalAttack;
+  private transient double totalDefense;
+  private transient double totalSpeed;
+  private transient int revision;
 
   public double getMaxHp() { return maxHp; }
   public void setMaxHp(double maxHp) { this.maxHp = maxHp; if (hp > maxHp) hp = maxHp; }
@@ -23,24 +45,51 @@ public class RpgStats implements Serializable {
   public double getMp() { return mp; }
   public void setMp(double mp) { this.mp = clampToMax(mp, maxMp); }
 
-  public double getAttack() { return attack + attackBonus; }
+  public double getAttack() { return totalAttack; }
   public double getBaseAttack() { return attack; }
-  public void setAttack(double attack) { this.attack = attack; }
+  public void setAttack(double attack) { this.attack = attack; derive(); }
 
-  public double getDefense() { return defense + defenseBonus; }
+  public double getDefense() { return totalDefense; }
   public double getBaseDefense() { return defense; }
-  public void setDefense(double defense) { this.defense = defense; }
+  public void setDefense(double defense) { this.defense = defense; derive(); }
 
-  public double getSpeed() { return speed + speedBonus; }
+  public double getSpeed() { return totalSpeed; }
   public double getBaseSpeed() { return speed; }
-  public void setSpeed(double speed) { this.speed = speed; }
+  public void setSpeed(double speed) { this.speed = speed; derive(); }
 
   public double getAttackBonus() { return attackBonus; }
-  public void setAttackBonus(double attackBonus) { this.attackBonus = attackBonus; }
+  public void setAttackBonus(double attackBonus) { this.attackBonus = attackBonus; derive(); }
   public double getDefenseBonus() { return defenseBonus; }
-  public void setDefenseBonus(double defenseBonus) { this.defenseBonus = defenseBonus; }
+  public void setDefenseBonus(double defenseBonus) { this.defenseBonus = defenseBonus; derive(); }
   public double getSpeedBonus() { return speedBonus; }
-  public void setSpeedBonus(double speedBonus) { this.speedBonus = speedBonus; }
+  public void setSpeedBonus(double speedBonus) { this.speedBonus = speedBonus; derive(); }
+
+  /** Adds or replaces the modifier from {@code source}; all zeros removes it. Returns the modifier in place. */
+  public Modifier setModifier(String source, double attack, double defense, double speed) {
+    if (source == null) return null;
+    if (attack == 0 && defense == 0 && speed == 0) {
+      removeModifier(source);
+      return null;
+    }
+    Modifier m = new Modifier(attack, defense, speed);
+    modifiers.put(source, m);
+    sumModifiers();
+    return m;
+  }
+  public Modifier getModifier(String source) { return source == null ? null : modifiers.get(source); }
+  public boolean removeModifier(String source) {
+    if (source == null || modifiers.remove(source) == null) return false;
+    sumModifiers();
+    return true;
+  }
+  /** Removes {@code source} only while {@code expected} is still its modifier. */
+  public boolean removeModifier(String source, Modifier expected) {
+    if (source == null || expected == null || modifiers.get(source) != expected) return false;
+    return removeModifier(source);
+  }
+  public Map<String, Modifier> getModifiers() { return Collections.unmodifiableMap(modifiers); }
+  /** Bumped whenever a derived stat may have changed. */
+  public int getRevision() { return revision; }
 
   public boolean isDead() { return maxHp > 0 && hp <= 0; }
 
@@ -50,9 +99,35 @@ public class RpgStats implements Serializable {
     c.maxMp = maxMp; c.mp = mp;
     c.attack = attack; c.defense = defense; c.speed = speed;
     c.attackBonus = attackBonus; c.defenseBonus = defenseBonus; c.speedBonus = speedBonus;
+    c.modifiers.putAll(modifiers);
+    c.sumModifiers();
     return c;
   }
 
+  private void sumModifiers() {
+    double a = 0, d = 0, s = 0;
+    for (Modifier m : modifiers.values()) {
+      a += m.attack();
+      d += m.defense();
+      s += m.speed();
+    }
+    modAttack = a; modDefense = d; modSpeed = s;
+    derive();
+  }
+
+  private void derive() {
+    totalAttack = attack + attackBonus + modAttack;
+    totalDefense = defense + defenseBonus + modDefense;
+    totalSpeed = speed + speedBonus + modSpeed;
+    revision++;
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    if (modifiers == null) modifiers = new LinkedHashMap<>(); // saves from before modifiers existed
+    sumModifiers();
+  }
+
   private double clampToMax(double v, double max) {
     if (max > 0 && v > max) return max;
     return v;
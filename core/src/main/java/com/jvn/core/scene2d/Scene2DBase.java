@@ -52,6 +52,7 @@ public class Scene2DBase implements Scene2D {
         if (ox != 0 || oy != 0) b.translate(ox, oy);
       }
       b.translate(e.getX(), e.getY());
+      if (e instanceof TileMap2D tm) cullTileMap(tm, width, height);
       if (e.getRotationDeg() != 0) b.rotateDeg(e.getRotationDeg());
       if (e.getScaleX() != 1.0 || e.getScaleY() != 1.0) b.scale(e.getScaleX(), e.getScaleY());
       e.render(b);
@@ -59,5 +60,18 @@ public class Scene2DBase implements Scene2D {
     }
     b.pop();
   }
-}
 
+  /** Hands a tile map the part of the view it occupies, in its own coordinates, so it draws only visible chunks. */
+  private void cullTileMap(TileMap2D tm, double width, double height) {
+    if (tm.getRotationDeg() != 0 || tm.getScaleX() != 1.0 || tm.getScaleY() != 1.0 || width <= 0 || height <= 0) {
+      tm.clearViewRect();
+      return;
+    }
+    double zoom = camera != null && camera.getZoom() > 0 ? camera.getZoom() : 1.0;
+    double cx = camera != null ? camera.getX() : 0;
+    double cy = camera != null ? camera.getY() : 0;
+    double ox = cx * (1.0 - tm.getParallaxX()) + tm.getX();
+    double oy = cy * (1.0 - tm.getParallaxY()) + tm.getY();
+    tm.setViewRect(cx / zoom - ox, cy / zoom - oy, (cx + width) / zoom - ox, (cy + height) / zoom - oy);
+  }
+}
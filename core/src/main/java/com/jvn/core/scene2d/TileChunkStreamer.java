@@ -0,0 +1,79 @@
+package com.jvn.core.scene2d;
+
+/**
+ * Keeps only the chunks of a {@link TileLayerFile} near the view loaded into a {@link TileMap2D}. Chunks within
+ * {@code margin} chunks of the view are decoded as it approaches; chunks are cleared again once they are a further
+ * chunk away, so walking back and forth across a chunk border does not reload it every frame.
+ */
+public class TileChunkStreamer {
+  private final TileLayerFile file;
+  private final TileMap2D map;
+  private final boolean[] loaded;
+  private final int[] loadedList;
+  private int loadedCount;
+  private final int[] scratch;
+  private int margin = 1;
+  private int lastX0 = Integer.MIN_VALUE, lastY0, lastX1, lastY1;
+
+  public TileChunkStreamer(TileLayerFile file, TileMap2D map) {
+    this.file = file;
+    this.map = map;
+    int n = file.getChunksX() * file.getChunksY();
+    this.loaded = new boolean[n];
+    this.loadedList = new int[n];
+    this.scratch = new int[file.getChunkSize() * file.getChunkSize()];
+  }
+
+  public TileMap2D getMap() { return map; }
+  public TileLayerFile getFile() { return file; }
+  /** Chunks loaded beyond the edge of the view in every direction. */
+  public void setMargin(int chunks) { this.margin = Math.max(0, chunks); lastX0 = Integer.MIN_VALUE; }
+  public int getMargin() { return margin; }
+  public int getLoadedChunks() { return loadedCount; }
+  public boolean isLoaded(int cx, int cy) {
+    return cx >= 0 && cy >= 0 && cx < file.getChunksX() && cy < file.getChunksY() && loaded[cy * file.getChunksX() + cx];
+  }
+
+  /** Streams around the visible world rectangle. */
+  public void update(double left, double top, double right, double bottom) {
+    double spanW = file.getChunkSize() * map.getTileW();
+    double spanH = file.getChunkSize() * map.getTileH();
+    if (spanW <= 0 || spanH <= 0) return;
+    int x0 = (int) Math.floor((left - map.getX()) / spanW) - margin;
+    int y0 = (int) Math.floor((top - map.getY()) / spanH) - margin;
+    int x1 = (int) Math.floor((right - map.getX()) / spanW) + margin;
+    int y1 = (int) Math.floor((bottom - map.getY()) / spanH) + margin;
+    if (x0 == lastX0 && y0 == lastY0 && x1 == lastX1 && y1 == lastY1) return;
+    lastX0 = x0; lastY0 = y0; lastX1 = x1; lastY1 = y1;
+
+    int cw = file.getChunksX();
+    for (int i = loadedCount - 1; i >= 0; i--) {
+      int c = loadedList[i];
+      int cx = c % cw;
+      int cy = c / cw;
+      if (cx < x0 - 1 || cx > x1 + 1 || cy < y0 - 1 || cy > y1 + 1) {
+        clearChunk(cx, cy);
+        loaded[c] = false;
+        loadedList[i] = loadedList[--loadedCount];
+      }
+    }
+    for (int cy = Math.max(0, y0); cy <= Math.min(file.getChunksY() - 1, y1); cy++) {
+      for (int cx = Math.max(0, x0); cx <= Math.min(cw - 1, x1); cx++) {
+        int c = cy * cw + cx;
+        if (loaded[c]) continue;
+        file.loadChunk(cx, cy, map, scratch);
+        loaded[c] = true;
+        loadedList[loadedCount++] = c;
+      }
+    }
+  }
+
+  private void clearChunk(int cx, int cy) {
+    int size = file.getChunkSize();
+    int xEnd = Math.min(map.getCols(), (cx + 1) * size);
+    int yEnd = Math.min(map.getRows(), (cy + 1) * size);
+    for (int y = cy * size; y < yEnd; y++) {
+      for (int x = cx * size; x < xEnd; x++) map.setTile(x, y, -1);
+    }
+  }
+}
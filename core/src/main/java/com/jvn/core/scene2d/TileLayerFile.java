@@ -0,0 +1,245 @@
+package com.jvn.core.scene2d;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary tile layer ({@code .jtl}): a header, an index of chunk offsets, then every chunk run-length encoded on its
+ * own. Chunks decode independently straight from the buffer, so a memory-mapped file can be loaded whole or streamed
+ * chunk by chunk around the camera with {@link TileChunkStreamer}.
+ *
+ * <p>Layout (big-endian): magic {@code "JTL1"}, version byte, cols, rows and chunk size as ints, then one int offset
+ * per chunk (row-major, relative to the end of the index) plus a final end offset. A chunk is a sequence of
+ * (run length, tile index + 1) varint pairs covering its cells row by row; 0 is an empty cell.
+ */
+public final class TileLayerFile {
+  public static final int MAGIC = 0x4A544C31; // "JTL1"
+  public static final int VERSION = 1;
+  public static final int DEFAULT_CHUNK_SIZE = 32;
+
+  private final ByteBuffer buf;
+  private final int cols;
+  private final int rows;
+  private final int chunkSize;
+  private final int chunksX;
+  private final int chunksY;
+  private final int indexPos;
+  private final int dataPos;
+
+  private TileLayerFile(ByteBuffer buf) {
+    this.buf = buf;
+    if (buf.remaining() < 17 || buf.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a JTL tile layer");
+    int version = buf.get(4) & 0xFF;
+    if (version != VERSION) throw new IllegalArgumentException("Unsupported JTL version " + version);
+    this.cols = buf.getInt(5);
+    this.rows = buf.getInt(9);
+    this.chunkSize = buf.getInt(13);
+    if (cols <= 0 || rows <= 0 || chunkSize <= 0) throw new IllegalArgumentException("Corrupt JTL header");
+    this.chunksX = (cols + chunkSize - 1) / chunkSize;
+    this.chunksY = (rows + chunkSize - 1) / chunkSize;
+    this.indexPos = 17;
+    this.dataPos = indexPos + (chunksX * chunksY + 1) * 4;
+    if (buf.limit() < dataPos || dataPos + buf.getInt(dataPos - 4) > buf.limit()) throw new IllegalArgumentException("Truncated JTL tile layer");
+  }
+
+  /** Wraps bytes already in memory, including a {@link java.nio.MappedByteBuffer}. */
+  public static TileLayerFile open(ByteBuffer buf) { return new TileLayerFile(buf.slice()); }
+
+  public static TileLayerFile read(InputStream in) throws IOException { return open(ByteBuffer.wrap(in.readAllBytes())); }
+
+  /** Memory-maps a layer file; chunks are paged in by the OS as they are decoded. */
+  public static TileLayerFile map(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      return open(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+    }
+  }
+
+  /** True when {@code head} starts with the layer magic, to tell binary layers from CSV. */
+  public static boolean isTileLayer(byte[] head) {
+    return head != null && head.length >= 4 && ByteBuffer.wrap(head).getInt(0) == MAGIC;
+  }
+
+  public int getCols() { return cols; }
+  public int getRows() { return rows; }
+  public int getChunkSize() { return chunkSize; }
+  public int getChunksX() { return chunksX; }
+  public int getChunksY() { return chunksY; }
+
+  /**
+   * Decodes one chunk into {@code out} (at least chunkSize² cells, row-major, -1 for empty). Cells of edge chunks that
+   * fall outside the map are left as -1.
+   */
+  public void readChunk(int cx, int cy, int[] out) {
+    int n = chunkSize * chunkSize;
+    if (cx < 0 || cy < 0 || cx >= chunksX || cy >= chunksY) { Arrays.fill(out, 0, n, -1); return; }
+    int chunk = cy * chunksX + cx;
+    int pos = dataPos + buf.getInt(indexPos + chunk * 4);
+    int end = dataPos + buf.getInt(indexPos + chunk * 4 + 4);
+    int i = 0;
+    int[] cursor = { pos };
+    while (cursor[0] < end && i < n) {
+      int run = readVarInt(cursor);
+      int value = readVarInt(cursor) - 1;
+      int stop = Math.min(n, i + run);
+      while (i < stop) out[i++] = value;
+    }
+    while (i < n) out[i++] = -1;
+  }
+
+  /** Copies one chunk into the matching cells of {@code tm}. */
+  public void loadChunk(int cx, int cy, TileMap2D tm, int[] scratch) {
+    readChunk(cx, cy, scratch);
+    int x0 = cx * chunkSize;
+    int y0 = cy * chunkSize;
+    int w = Math.min(chunkSize, cols - x0);
+    int h = Math.min(chunkSize, rows - y0);
+    if (isUniform(scratch, w, h)) {
+      // lets the map share one chunk instance for runs of sky or solid ground
+      tm.fillRect(x0, y0, w, h, scratch[0]);
+      return;
+    }
+    for (int y = 0; y < chunkSize; y++) {
+      int ty = y0 + y;
+      if (ty >= rows) break;
+      for (int x = 0; x < chunkSize; x++) {
+        int tx = x0 + x;
+        if (tx >= cols) break;
+        tm.setTile(tx, ty, scratch[y * chunkSize + x]);
+      }
+    }
+  }
+
+  /**
+   * Decodes the tile rectangle at ({@code x}, {@code y}) into {@code out} ({@code w * h} cells, row-major), decoding
+   * only the chunks it overlaps. Cells outside the map are -1. Reads never move the buffer position, so several
+   * threads may decode from one file at once.
+   */
+  public void readRect(int x, int y, int w, int h, int[] out) {
+    Arrays.fill(out, 0, w * h, -1);
+    int x1 = Math.min(cols, x + w);
+    int y1 = Math.min(rows, y + h);
+    int cx0 = Math.max(0, x) / chunkSize;
+    int cy0 = Math.max(0, y) / chunkSize;
+    if (x1 <= 0 || y1 <= 0) return;
+    int[] scratch = new int[chunkSize * chunkSize];
+    for (int cy = cy0; cy <= (y1 - 1) / chunkSize; cy++) {
+      for (int cx = cx0; cx <= (x1 - 1) / chunkSize; cx++) {
+        readChunk(cx, cy, scratch);
+        int ox0 = Math.max(x, cx * chunkSize);
+        int ox1 = Math.min(x1, (cx + 1) * chunkSize);
+        int oy0 = Math.max(y, cy * chunkSize);
+        int oy1 = Math.min(y1, (cy + 1) * chunkSize);
+        for (int ty = oy0; ty < oy1; ty++) {
+          System.arraycopy(scratch, (ty - cy * chunkSize) * chunkSize + (ox0 - cx * chunkSize), out, (ty - y) * w + (ox0 - x), ox1 - ox0);
+        }
+      }
+    }
+  }
+
+  private boolean isUniform(int[] cells, int w, int h) {
+    for (int y = 0; y < h; y++) {
+      for (int x = 0; x < w; x++) if (cells[y * chunkSize + x] != cells[0]) return false;
+    }
+    return true;
+  }
+
+  public void loadInto(TileMap2D tm) {
+    int[] scratch = new int[chunkSize * chunkSize];
+    for (int cy = 0; cy < chunksY; cy++) {
+      for (int cx = 0; cx < chunksX; cx++) loadChunk(cx, cy, tm, scratch);
+    }
+    tm.compact();
+  }
+
+  /** Decodes the whole layer into a {@code [rows][cols]} grid, for tools that edit it. */
+  public int[][] readAll() {
+    int[][] tiles = new int[rows][cols];
+    int[] scratch = new int[chunkSize * chunkSize];
+    for (int cy = 0; cy < chunksY; cy++) {
+      for (int cx = 0; cx < chunksX; cx++) {
+        readChunk(cx, cy, scratch);
+        for (int y = 0; y < chunkSize && cy * chunkSize + y < rows; y++) {
+          int w = Math.min(chunkSize, cols - cx * chunkSize);
+          System.arraycopy(scratch, y * chunkSize, tiles[cy * chunkSize + y], cx * chunkSize, w);
+        }
+      }
+    }
+    return tiles;
+  }
+
+  private int readVarInt(int[] cursor) {
+    int v = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = buf.get(cursor[0]++) & 0xFF;
+      v |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return v;
+    }
+    throw new IllegalArgumentException("Malformed varint in JTL tile layer");
+  }
+
+  /** Writes the tiles of {@code tm} as a binary layer. */
+  public static void write(TileMap2D tm, OutputStream out, int chunkSize) throws IOException {
+    int cols = tm.getCols();
+    int rows = tm.getRows();
+    int[][] tiles = new int[rows][cols];
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) tiles[y][x] = tm.getTile(x, y);
+    }
+    write(tiles, cols, rows, out, chunkSize);
+  }
+
+  /** Writes a {@code [rows][cols]} grid (-1 for empty; short rows count as empty) as a binary layer. */
+  public static void write(int[][] tiles, int cols, int rows, OutputStream out, int chunkSize) throws IOException {
+    if (cols <= 0 || rows <= 0) throw new IllegalArgumentException("Tile layer must have at least one cell");
+    if (chunkSize <= 0) chunkSize = DEFAULT_CHUNK_SIZE;
+    int chunksX = (cols + chunkSize - 1) / chunkSize;
+    int chunksY = (rows + chunkSize - 1) / chunkSize;
+    int[] offsets = new int[chunksX * chunksY + 1];
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    for (int cy = 0; cy < chunksY; cy++) {
+      for (int cx = 0; cx < chunksX; cx++) {
+        offsets[cy * chunksX + cx] = data.size();
+        int run = 0;
+        int prev = 0;
+        for (int y = 0; y < chunkSize; y++) {
+          for (int x = 0; x < chunkSize; x++) {
+            int v = cell(tiles, cx * chunkSize + x, cy * chunkSize + y, cols, rows) + 1;
+            if (run > 0 && v != prev) { writeVarInt(data, run); writeVarInt(data, prev); run = 0; }
+            prev = v;
+            run++;
+          }
+        }
+        // a trailing run of empty cells is implied by the end of the chunk
+        if (prev != 0) { writeVarInt(data, run); writeVarInt(data, prev); }
+      }
+    }
+    offsets[offsets.length - 1] = data.size();
+
+    ByteBuffer header = ByteBuffer.allocate(17 + offsets.length * 4);
+    header.putInt(MAGIC).put((byte) VERSION).putInt(cols).putInt(rows).putInt(chunkSize);
+    for (int o : offsets) header.putInt(o);
+    out.write(header.array());
+    data.writeTo(out);
+    out.flush();
+  }
+
+  private static int cell(int[][] tiles, int x, int y, int cols, int rows) {
+    if (x >= cols || y >= rows || y >= tiles.length || tiles[y] == null || x >= tiles[y].length) return -1;
+    return Math.max(-1, tiles[y][x]);
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int v) {
+    while ((v & ~0x7F) != 0) {
+      out.write((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out.write(v);
+  }
+}
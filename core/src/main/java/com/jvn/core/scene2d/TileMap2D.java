@@ -1,12 +1,96 @@
 package com.jvn.core.scene2d;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid of tile indices stored in 32x32 chunks. Chunks that are entirely one index (empty sky, solid rock) are shared
+ * instances holding no cells; other chunks keep their cells in bytes, shorts or ints depending on the largest index
+ * written, so a huge, mostly empty map costs little more than its chunk table. Rendering walks only the chunks inside
+ * the view rectangle set by the scene and skips empty ones.
+ */
 public class TileMap2D extends Entity2D {
+  public static final int CHUNK_BITS = 5;
+  public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+  private static final Chunk EMPTY = new Chunk(-1);
+
   private final SpriteSheet sheet;
   private final int cols;
   private final int rows;
-  private final int[][] tiles; // -1 for empty
+  private final int chunksX;
+  private final int chunksY;
+  private final Chunk[] chunks;
+  private final Map<Integer, Chunk> uniformChunks = new HashMap<>();
   private final double tileW;
   private final double tileH;
+  private final List<TileChangeListener> tileListeners = new ArrayList<>();
+  private boolean culled;
+  private double viewLeft, viewTop, viewRight, viewBottom;
+
+  public interface TileChangeListener {
+    void onTileChanged(TileMap2D map, int x, int y, int oldIndex, int newIndex);
+  }
+
+  public interface TileVisitor {
+    void visit(int x, int y, int index);
+  }
+
+  /** Cells of one chunk; without an array every cell holds {@code fill}. Arrays store index + 1 so empty is 0. */
+  private static final class Chunk {
+    final int fill;
+    byte[] bytes;
+    short[] shorts;
+    int[] ints;
+
+    Chunk(int fill) { this.fill = fill; }
+
+    boolean isUniform() { return bytes == null && shorts == null && ints == null; }
+
+    int get(int i) {
+      if (bytes != null) return (bytes[i] & 0xFF) - 1;
+      if (shorts != null) return (shorts[i] & 0xFFFF) - 1;
+      if (ints != null) return ints[i] - 1;
+      return fill;
+    }
+
+    void set(int i, int index) {
+      int v = index + 1;
+      if (bytes != null && v > 0xFF) widen(v);
+      else if (shorts != null && v > 0xFFFF) widen(v);
+      if (bytes != null) bytes[i] = (byte) v;
+      else if (shorts != null) shorts[i] = (short) v;
+      else ints[i] = v;
+    }
+
+    /** Moves the cells into the narrowest array that also fits {@code v}. */
+    void widen(int v) {
+      int[] cells = new int[CHUNK_CELLS];
+      for (int i = 0; i < CHUNK_CELLS; i++) cells[i] = get(i) + 1;
+      bytes = null;
+      shorts = null;
+      ints = null;
+      if (v <= 0xFF) {
+        bytes = new byte[CHUNK_CELLS];
+        for (int i = 0; i < CHUNK_CELLS; i++) bytes[i] = (byte) cells[i];
+      } else if (v <= 0xFFFF) {
+        shorts = new short[CHUNK_CELLS];
+        for (int i = 0; i < CHUNK_CELLS; i++) shorts[i] = (short) cells[i];
+      } else {
+        ints = cells;
+      }
+    }
+
+    int bytesUsed() {
+      if (bytes != null) return bytes.length;
+      if (shorts != null) return shorts.length * 2;
+      if (ints != null) return ints.length * 4;
+      return 0;
+    }
+  }
 
   public TileMap2D(SpriteSheet sheet, int cols, int rows, double drawTileW, double drawTileH) {
     this.sheet = sheet;
@@ -14,51 +98,175 @@ public class TileMap2D extends Entity2D {
     this.rows = Math.max(1, rows);
     this.tileW = drawTileW;
     this.tileH = drawTileH;
-    this.tiles = new int[rows][cols];
-    for (int y = 0; y < rows; y++) {
-      for (int x = 0; x < cols; x++) tiles[y][x] = -1;
-    }
+    this.chunksX = (this.cols + CHUNK_MASK) >> CHUNK_BITS;
+    this.chunksY = (this.rows + CHUNK_MASK) >> CHUNK_BITS;
+    this.chunks = new Chunk[chunksX * chunksY];
+    java.util.Arrays.fill(chunks, EMPTY);
   }
 
+  /** Sets one cell; any negative index means empty. */
   public void setTile(int x, int y, int index) {
     if (x < 0 || y < 0 || x >= cols || y >= rows) return;
-    tiles[y][x] = index;
+    if (index < 0) index = -1;
+    int ci = (y >> CHUNK_BITS) * chunksX + (x >> CHUNK_BITS);
+    int i = ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK);
+    Chunk c = chunks[ci];
+    int old = c.get(i);
+    if (old == index) return;
+    if (c.isUniform()) {
+      Chunk own = new Chunk(-1);
+      own.widen(Math.max(c.fill, index) + 1);
+      if (c.fill >= 0) for (int k = 0; k < CHUNK_CELLS; k++) own.set(k, c.fill);
+      chunks[ci] = c = own;
+    }
+    c.set(i, index);
+    for (int k = 0; k < tileListeners.size(); k++) tileListeners.get(k).onTileChanged(this, x, y, old, index);
+  }
+
+  /**
+   * Fills a rectangle of cells. Chunks it covers completely become shared uniform chunks, so filling large areas
+   * allocates nothing; listeners still hear about every cell that changed.
+   */
+  public void fillRect(int x, int y, int w, int h, int index) {
+    if (index < 0) index = -1;
+    int x0 = Math.max(0, x), y0 = Math.max(0, y);
+    int x1 = Math.min(cols, x + w), y1 = Math.min(rows, y + h);
+    if (x0 >= x1 || y0 >= y1) return;
+    for (int cy = y0 >> CHUNK_BITS; cy <= (y1 - 1) >> CHUNK_BITS; cy++) {
+      for (int cx = x0 >> CHUNK_BITS; cx <= (x1 - 1) >> CHUNK_BITS; cx++) {
+        int bx = cx << CHUNK_BITS, by = cy << CHUNK_BITS;
+        boolean whole = bx >= x0 && by >= y0 && bx + CHUNK_SIZE <= x1 && by + CHUNK_SIZE <= y1;
+        if (!whole) {
+          for (int ty = Math.max(by, y0); ty < Math.min(by + CHUNK_SIZE, y1); ty++) {
+            for (int tx = Math.max(bx, x0); tx < Math.min(bx + CHUNK_SIZE, x1); tx++) setTile(tx, ty, index);
+          }
+          continue;
+        }
+        int ci = cy * chunksX + cx;
+        Chunk old = chunks[ci];
+        if (old.isUniform() && old.fill == index) continue;
+        chunks[ci] = uniform(index);
+        if (tileListeners.isEmpty()) continue;
+        for (int i = 0; i < CHUNK_CELLS; i++) {
+          int was = old.get(i);
+          if (was == index) continue;
+          int tx = bx + (i & CHUNK_MASK), ty = by + (i >> CHUNK_BITS);
+          for (int k = 0; k < tileListeners.size(); k++) tileListeners.get(k).onTileChanged(this, tx, ty, was, index);
+        }
+      }
+    }
+  }
+
+  /** Swaps chunks whose cells all hold one index for the shared instance; call after bulk loads. */
+  public void compact() {
+    for (int ci = 0; ci < chunks.length; ci++) {
+      Chunk c = chunks[ci];
+      if (c.isUniform()) continue;
+      int first = c.get(0);
+      boolean same = true;
+      for (int i = 1; i < CHUNK_CELLS && same; i++) same = c.get(i) == first;
+      if (same) chunks[ci] = uniform(first);
+    }
   }
 
+  private Chunk uniform(int index) {
+    if (index < 0) return EMPTY;
+    return uniformChunks.computeIfAbsent(index, Chunk::new);
+  }
+
+  public void addTileChangeListener(TileChangeListener l) { if (l != null && !tileListeners.contains(l)) tileListeners.add(l); }
+  public void removeTileChangeListener(TileChangeListener l) { tileListeners.remove(l); }
+
   public int getTile(int x, int y) {
     if (x < 0 || y < 0 || x >= cols || y >= rows) return -1;
-    return tiles[y][x];
+    return chunks[(y >> CHUNK_BITS) * chunksX + (x >> CHUNK_BITS)].get(((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK));
   }
 
   public int getCols() { return cols; }
   public int getRows() { return rows; }
   public double getTileW() { return tileW; }
   public double getTileH() { return tileH; }
+  public int getChunksX() { return chunksX; }
+  public int getChunksY() { return chunksY; }
+  public boolean isChunkEmpty(int cx, int cy) {
+    if (cx < 0 || cy < 0 || cx >= chunksX || cy >= chunksY) return true;
+    return chunks[cy * chunksX + cx] == EMPTY;
+  }
+  /** Chunks holding their own cells; the rest share a uniform instance. */
+  public int getAllocatedChunks() {
+    int n = 0;
+    for (Chunk c : chunks) if (!c.isUniform()) n++;
+    return n;
+  }
+  /** Approximate heap used by cell storage, excluding the chunk table. */
+  public long getCellBytes() {
+    long n = 0;
+    for (Chunk c : chunks) n += c.bytesUsed();
+    return n;
+  }
+
+  /** Visits every non-empty cell in {@code [x0,x1) x [y0,y1)} in chunk order, skipping empty chunks wholesale. */
+  public void forEachTile(int x0, int y0, int x1, int y1, TileVisitor v) {
+    x0 = Math.max(0, x0); y0 = Math.max(0, y0);
+    x1 = Math.min(cols, x1); y1 = Math.min(rows, y1);
+    if (x0 >= x1 || y0 >= y1) return;
+    for (int cy = y0 >> CHUNK_BITS; cy <= (y1 - 1) >> CHUNK_BITS; cy++) {
+      for (int cx = x0 >> CHUNK_BITS; cx <= (x1 - 1) >> CHUNK_BITS; cx++) {
+        Chunk c = chunks[cy * chunksX + cx];
+        if (c == EMPTY) continue;
+        int bx = cx << CHUNK_BITS, by = cy << CHUNK_BITS;
+        int ty1 = Math.min(by + CHUNK_SIZE, y1), tx1 = Math.min(bx + CHUNK_SIZE, x1);
+        for (int ty = Math.max(by, y0); ty < ty1; ty++) {
+          int row = (ty - by) << CHUNK_BITS;
+          for (int tx = Math.max(bx, x0); tx < tx1; tx++) {
+            int idx = c.get(row + tx - bx);
+            if (idx >= 0) v.visit(tx, ty, idx);
+          }
+        }
+      }
+    }
+  }
+
+  /** Limits rendering to a rectangle in this map's local coordinates; the scene sets it from its camera each frame. */
+  public void setViewRect(double left, double top, double right, double bottom) {
+    culled = true;
+    viewLeft = left; viewTop = top; viewRight = right; viewBottom = bottom;
+  }
+  public void clearViewRect() { culled = false; }
 
   @Override
   public void render(Blitter2D b) {
-    for (int y = 0; y < rows; y++) {
-      for (int x = 0; x < cols; x++) {
-        int idx = tiles[y][x];
-        if (idx < 0) continue;
-        double dx = x * tileW;
-        double dy = y * tileH;
-        b.push();
-        b.translate(dx, dy);
-        sheet.drawTile(b, idx, 0, 0, tileW, tileH);
-        b.pop();
+    int x0 = 0, y0 = 0, x1 = cols, y1 = rows;
+    if (culled && tileW > 0 && tileH > 0) {
+      x0 = (int) Math.max(0, Math.floor(viewLeft / tileW));
+      y0 = (int) Math.max(0, Math.floor(viewTop / tileH));
+      x1 = (int) Math.min(cols, Math.floor(viewRight / tileW) + 1);
+      y1 = (int) Math.min(rows, Math.floor(viewBottom / tileH) + 1);
+      if (x0 >= x1 || y0 >= y1) return;
+    }
+    for (int cy = y0 >> CHUNK_BITS; cy <= (y1 - 1) >> CHUNK_BITS; cy++) {
+      for (int cx = x0 >> CHUNK_BITS; cx <= (x1 - 1) >> CHUNK_BITS; cx++) {
+        Chunk c = chunks[cy * chunksX + cx];
+        if (c == EMPTY) continue;
+        int bx = cx << CHUNK_BITS, by = cy << CHUNK_BITS;
+        int ty1 = Math.min(by + CHUNK_SIZE, y1), tx1 = Math.min(bx + CHUNK_SIZE, x1);
+        for (int ty = Math.max(by, y0); ty < ty1; ty++) {
+          int row = (ty - by) << CHUNK_BITS;
+          for (int tx = Math.max(bx, x0); tx < tx1; tx++) {
+            int idx = c.get(row + tx - bx);
+            if (idx < 0) continue;
+            b.push();
+            b.translate(tx * tileW, ty * tileH);
+            sheet.drawTile(b, idx, 0, 0, tileW, tileH);
+            b.pop();
+          }
+        }
       }
     }
   }
 
   public void buildStaticColliders(com.jvn.core.physics.PhysicsWorld2D world) {
     if (world == null) return;
-    for (int y = 0; y < rows; y++) {
-      for (int x = 0; x < cols; x++) {
-        if (tiles[y][x] >= 0) {
-          world.addStaticRect(new com.jvn.core.math.Rect(x * tileW, y * tileH, tileW, tileH));
-        }
-      }
-    }
+    forEachTile(0, 0, cols, rows, (x, y, idx) -> world.addStaticRect(new com.jvn.core.math.Rect(x * tileW, y * tileH, tileW, tileH)));
   }
 }
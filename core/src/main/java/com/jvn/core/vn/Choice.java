@@ -1,5 +1,7 @@
 package com.jvn.core.vn;
 
+import java.util.Map;
+
 /**
  * Represents a choice option in a branching visual novel scenario
  */
@@ -8,18 +10,26 @@ public class Choice {
   private final String targetLabel;
   private final boolean enabled;
   private final String condition;
+  private final VnCondition compiledCondition; // null when unconditional
 
   private Choice(Builder builder) {
     this.text = builder.text;
     this.targetLabel = builder.targetLabel;
     this.enabled = builder.enabled;
     this.condition = builder.condition;
+    this.compiledCondition = condition == null || condition.isBlank() ? null : VnCondition.compile(condition);
   }
 
   public String getText() { return text; }
   public String getTargetLabel() { return targetLabel; }
   public boolean isEnabled() { return enabled; }
   public String getCondition() { return condition; }
+  public VnCondition getCompiledCondition() { return compiledCondition; }
+
+  /** True when the choice is enabled and its condition holds for {@code vars}. */
+  public boolean isAvailable(Map<String, ?> vars) {
+    return enabled && (compiledCondition == null || compiledCondition.test(vars));
+  }
 
   public static Builder builder() { return new Builder(); }
 
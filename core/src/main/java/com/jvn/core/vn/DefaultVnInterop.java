@@ -2,6 +2,7 @@ package com.jvn.core.vn;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -97,7 +98,7 @@ public class DefaultVnInterop implements VnInterop {
     var vars = scene.getState().getVariables();
     switch (op) {
       case "set":
-        vars.put(key, parseScalar(val));
+        vars.put(key, VnCondition.parseScalar(val));
         break;
       case "inc":
         numberOp(vars, key, val, true);
@@ -130,28 +131,30 @@ public class DefaultVnInterop implements VnInterop {
 
   private boolean isWhole(double d) { return Math.abs(d - Math.rint(d)) < 1e-9; }
 
+  /** An {@code if <expr> goto <label>} payload; label is null when the payload is not a valid branch. */
+  private record CondBranch(VnCondition condition, String label) {}
+
   private boolean handleCond(String payload, VnScene scene) {
     if (payload == null) return false;
-    String[] toks = payload.trim().split("\\s+");
-    if (toks.length < 5) return false;
-    int i = 0;
-    String kw = toks[i++].toLowerCase();
-    if (!"if".equals(kw)) return false;
-    String var = toks[i++];
-    String op = toks[i++];
-    String value = toks[i++];
-    String gotoKw = toks[i++].toLowerCase();
-    if (!"goto".equals(gotoKw)) return false;
-    String label = toks.length > i ? toks[i] : null;
-    Object lhs = scene.getState().getVariable(var);
-    boolean ok = compare(lhs, op, value);
-    if (ok && label != null) {
-      scene.getState().jumpToLabel(label);
+    CondBranch branch = compileCond(payload); // the expression itself comes from VnCondition's cache
+    if (branch.label() == null) return false;
+    if (branch.condition().test(scene.getState().getVariables())) {
+      scene.getState().jumpToLabel(branch.label());
       return true;
     }
     return false;
   }
 
+  private static CondBranch compileCond(String payload) {
+    String[] toks = payload.trim().split("\\s+");
+    if (toks.length < 3 || !"if".equalsIgnoreCase(toks[0])) return new CondBranch(null, null);
+    int g = toks.length - 1;
+    while (g > 1 && !"goto".equalsIgnoreCase(toks[g])) g--;
+    if (g <= 1 || g + 1 >= toks.length) return new CondBranch(null, null);
+    String expr = String.join(" ", Arrays.copyOfRange(toks, 1, g));
+    return new CondBranch(VnCondition.compile(expr), toks[g + 1]);
+  }
+
   private void handleSettings(String payload, VnScene scene) {
     String[] toks = (payload == null ? "" : payload.trim()).split("\\s+");
     if (toks.length == 0) return;
@@ -284,26 +287,6 @@ public class DefaultVnInterop implements VnInterop {
     }
   }
 
-  private boolean compare(Object lhs, String op, String rhsRaw) {
-    Object rhs = parseScalar(rhsRaw);
-    if (lhs instanceof Number ln && rhs instanceof Number rn) {
-      double a = ln.doubleValue();
-      double b = rn.doubleValue();
-      if ("==".equals(op)) return a == b;
-      if ("!=".equals(op)) return a != b;
-      if (">".equals(op)) return a > b;
-      if ("<".equals(op)) return a < b;
-      if (">=".equals(op)) return a >= b;
-      if ("<=".equals(op)) return a <= b;
-      return false;
-    }
-    String a = lhs == null ? "" : lhs.toString();
-    String b = rhs == null ? "" : rhs.toString();
-    if ("==".equals(op)) return a.equals(b);
-    if ("!=".equals(op)) return !a.equals(b);
-    return false;
-  }
-
   private static Method findStaticMethod(Class<?> cls, String name, int arity) {
     for (Method m : cls.getMethods()) {
       if (!java.lang.reflect.Modifier.isStatic(m.getModifiers())) continue;
@@ -320,21 +303,11 @@ public class DefaultVnInterop implements VnInterop {
     List<Object> list = new ArrayList<>();
     // naive split on whitespace; later we may add quoted args support
     for (String tok : argsStr.split("\\s+")) {
-      list.add(parseScalar(tok));
+      list.add(VnCondition.parseScalar(tok));
     }
     return list.toArray();
   }
 
-  private static Object parseScalar(String s) {
-    if (s == null) return "";
-    String t = s.trim();
-    if (t.equalsIgnoreCase("true")) return Boolean.TRUE;
-    if (t.equalsIgnoreCase("false")) return Boolean.FALSE;
-    try { if (t.contains(".")) return Double.parseDouble(t); else return Integer.parseInt(t); }
-    catch (Exception ignored) {}
-    return t;
-  }
-
   private static Object[] coerceArgs(Class<?>[] types, Object[] args) {
     Object[] out = new Object[args.length];
     for (int i = 0; i < args.length; i++) {
@@ -0,0 +1,286 @@
+package com.jvn.core.vn;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map (a hash array mapped trie) whose updates copy only the path to the changed entry, so every
+ * version shares the rest of its structure with the previous one. {@link View} puts a mutable {@link Map} in front
+ * of it whose contents can be captured and restored in constant time, which is what VN rollback checkpoints keep.
+ */
+final class PersistentMap<K, V> {
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+  private static final Object NOT_FOUND = new Object();
+  private static final Object SUB = new Object(); // key slot marker: the value slot holds a child node
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() { return (PersistentMap<K, V>) EMPTY; }
+
+  int size() { return size; }
+
+  boolean containsKey(Object key) {
+    return root != null && root.find(0, hash(key), key) != NOT_FOUND;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(Object key) {
+    if (root == null) return null;
+    Object v = root.find(0, hash(key), key);
+    return v == NOT_FOUND ? null : (V) v;
+  }
+
+  /** This map with {@code key} mapped to {@code value}; {@code this} when the same value is already mapped. */
+  PersistentMap<K, V> with(K key, V value) {
+    boolean[] added = new boolean[1];
+    Node r = (root == null ? BitmapNode.EMPTY : root).assoc(0, hash(key), key, value, added);
+    if (r == root) return this;
+    return new PersistentMap<>(r, added[0] ? size + 1 : size);
+  }
+
+  PersistentMap<K, V> without(Object key) {
+    if (root == null) return this;
+    Node r = root.without(0, hash(key), key);
+    if (r == root) return this;
+    return r == null ? empty() : new PersistentMap<>(r, size - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    if (root != null) root.forEach((BiConsumer<Object, Object>) action);
+  }
+
+  private static int hash(Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static Object[] cloneAndSet(Object[] array, int i, Object value) {
+    Object[] a = array.clone();
+    a[i] = value;
+    return a;
+  }
+
+  private static Object[] removePair(Object[] array, int i) {
+    Object[] a = new Object[array.length - 2];
+    System.arraycopy(array, 0, a, 0, i);
+    System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+    return a;
+  }
+
+  private abstract static class Node {
+    abstract Object find(int shift, int hash, Object key);
+    abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+    /** Null once the last entry is gone. */
+    abstract Node without(int shift, int hash, Object key);
+    abstract void forEach(BiConsumer<Object, Object> action);
+  }
+
+  /** 32-way branch: {@code array} holds a key/value pair per set bit, or {@link #SUB} and a child node. */
+  private static final class BitmapNode extends Node {
+    static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+    final int bitmap;
+    final Object[] array;
+
+    BitmapNode(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    private static int bit(int hash, int shift) { return 1 << ((hash >>> shift) & 31); }
+    private int index(int bit) { return 2 * Integer.bitCount(bitmap & (bit - 1)); }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return NOT_FOUND;
+      int i = index(bit);
+      Object k = array[i];
+      if (k == SUB) return ((Node) array[i + 1]).find(shift + 5, hash, key);
+      return Objects.equals(k, key) ? array[i + 1] : NOT_FOUND;
+    }
+
+    @Override
+    Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+      int bit = bit(hash, shift);
+      int i = index(bit);
+      if ((bitmap & bit) == 0) {
+        added[0] = true;
+        Object[] a = new Object[array.length + 2];
+        System.arraycopy(array, 0, a, 0, i);
+        a[i] = key;
+        a[i + 1] = value;
+        System.arraycopy(array, i, a, i + 2, array.length - i);
+        return new BitmapNode(bitmap | bit, a);
+      }
+      Object k = array[i];
+      Object v = array[i + 1];
+      if (k == SUB) {
+        Node child = ((Node) v).assoc(shift + 5, hash, key, value, added);
+        return child == v ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, child));
+      }
+      if (Objects.equals(k, key)) {
+        return v == value ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, value));
+      }
+      added[0] = true;
+      Object[] a = array.clone();
+      a[i] = SUB;
+      a[i + 1] = pair(shift + 5, PersistentMap.hash(k), k, v, hash, key, value);
+      return new BitmapNode(bitmap, a);
+    }
+
+    private static Node pair(int shift, int h1, Object k1, Object v1, int h2, Object k2, Object v2) {
+      if (h1 == h2) return new CollisionNode(h1, new Object[]{ k1, v1, k2, v2 });
+      boolean[] ignored = new boolean[1];
+      return EMPTY.assoc(shift, h1, k1, v1, ignored).assoc(shift, h2, k2, v2, ignored);
+    }
+
+    @Override
+    Node without(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return this;
+      int i = index(bit);
+      Object k = array[i];
+      if (k == SUB) {
+        Node child = ((Node) array[i + 1]).without(shift + 5, hash, key);
+        if (child == array[i + 1]) return this;
+        if (child != null) return new BitmapNode(bitmap, cloneAndSet(array, i + 1, child));
+      } else if (!Objects.equals(k, key)) {
+        return this;
+      }
+      return bitmap == bit ? null : new BitmapNode(bitmap ^ bit, removePair(array, i));
+    }
+
+    @Override
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i] == SUB) ((Node) array[i + 1]).forEach(action);
+        else action.accept(array[i], array[i + 1]);
+      }
+    }
+  }
+
+  /** Keys whose full hashes are equal, as key/value pairs. */
+  private static final class CollisionNode extends Node {
+    final int hash;
+    final Object[] array;
+
+    CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (Objects.equals(array[i], key)) return i;
+      }
+      return -1;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int i = hash == this.hash ? indexOf(key) : -1;
+      return i < 0 ? NOT_FOUND : array[i + 1];
+    }
+
+    @Override
+    Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+      if (hash != this.hash) {
+        // nest under a branch at this level so the two hashes can diverge
+        return new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{ SUB, this }).assoc(shift, hash, key, value, added);
+      }
+      int i = indexOf(key);
+      if (i >= 0) return array[i + 1] == value ? this : new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+      added[0] = true;
+      Object[] a = Arrays.copyOf(array, array.length + 2);
+      a[array.length] = key;
+      a[array.length + 1] = value;
+      return new CollisionNode(hash, a);
+    }
+
+    @Override
+    Node without(int shift, int hash, Object key) {
+      int i = hash == this.hash ? indexOf(key) : -1;
+      if (i < 0) return this;
+      return array.length == 2 ? null : new CollisionNode(hash, removePair(array, i));
+    }
+
+    @Override
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < array.length; i += 2) action.accept(array[i], array[i + 1]);
+    }
+  }
+
+  /** Mutable map backed by a {@link PersistentMap}; {@link #snapshot()} and {@link #restore} are O(1). */
+  static final class View<K, V> extends AbstractMap<K, V> {
+    private PersistentMap<K, V> map = empty();
+
+    PersistentMap<K, V> snapshot() { return map; }
+    void restore(PersistentMap<K, V> snapshot) { this.map = snapshot; }
+
+    @Override public int size() { return map.size(); }
+    @Override public boolean containsKey(Object key) { return map.containsKey(key); }
+    @Override public V get(Object key) { return map.get(key); }
+
+    @Override
+    public V put(K key, V value) {
+      V old = map.get(key);
+      map = map.with(key, value);
+      return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+      V old = map.get(key);
+      map = map.without(key);
+      return old;
+    }
+
+    @Override
+    public void clear() { map = empty(); }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) { map.forEach(action); }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<>() {
+        @Override public int size() { return map.size(); }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          List<Entry<K, V>> entries = new ArrayList<>(map.size());
+          map.forEach((k, v) -> entries.add(new SimpleImmutableEntry<>(k, v)));
+          Iterator<Entry<K, V>> it = entries.iterator();
+          return new Iterator<>() {
+            private Entry<K, V> last;
+            @Override public boolean hasNext() { return it.hasNext(); }
+            @Override public Entry<K, V> next() { return last = it.next(); }
+
+            @Override
+            public void remove() {
+              if (last == null) throw new IllegalStateException();
+              View.this.remove(last.getKey());
+              last = null;
+            }
+          };
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.jvn.core.vn;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Loads the images and audio of the nodes ahead of the current one on a background pool, so backgrounds, sprites
+ * and tracks are already in their caches when playback reaches them. Lookahead follows jumps and every branch of a
+ * choice, nearest nodes first, up to {@code jvn.prefetchNodes} nodes (default 24).
+ *
+ * <p>The loaders are the owners' own cache fills (e.g. the renderer's image cache) and must be safe to call from
+ * pool threads.
+ */
+public class VnAssetPrefetcher {
+  private static final Logger LOG = LoggerFactory.getLogger(VnAssetPrefetcher.class);
+  public static final int DEFAULT_LOOKAHEAD = Integer.getInteger("jvn.prefetchNodes", 24);
+  private static final ExecutorService POOL = Executors.newFixedThreadPool(
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), r -> {
+        Thread t = new Thread(r, "vn-asset-prefetch");
+        t.setDaemon(true);
+        return t;
+      });
+
+  private final Consumer<String> images;
+  private final Consumer<String> audio;
+  private final int lookahead;
+  private final Set<String> queued = ConcurrentHashMap.newKeySet();
+  private VnScenario lastScenario;
+  private int lastIndex = -1;
+
+  /** Either loader may be null when its owner has nothing to warm. */
+  public VnAssetPrefetcher(Consumer<String> images, Consumer<String> audio) {
+    this(images, audio, DEFAULT_LOOKAHEAD);
+  }
+
+  public VnAssetPrefetcher(Consumer<String> images, Consumer<String> audio, int lookahead) {
+    this.images = images;
+    this.audio = audio;
+    this.lookahead = Math.max(1, lookahead);
+  }
+
+  /** Schedules the assets ahead of the state's current node; does nothing until the node changes. */
+  public void scan(VnState state) {
+    VnScenario scenario = state.getScenario();
+    int index = state.getCurrentNodeIndex();
+    if (scenario == null || (scenario == lastScenario && index == lastIndex)) return;
+    lastScenario = scenario;
+    lastIndex = index;
+    POOL.execute(() -> {
+      Assets assets = collect(scenario, index, lookahead);
+      if (images != null) for (String path : assets.images()) load("image:", path, images);
+      if (audio != null) for (String track : assets.audio()) load("audio:", track, audio);
+    });
+  }
+
+  private void load(String kind, String id, Consumer<String> loader) {
+    String key = kind + id;
+    if (!queued.add(key)) return; // already on its way
+    POOL.execute(() -> {
+      try {
+        loader.accept(id);
+      } catch (RuntimeException e) {
+        LOG.debug("Prefetch of {} failed: {}", key, e.toString());
+      } finally {
+        queued.remove(key);
+      }
+    });
+  }
+
+  /** Image paths and audio track ids of up to {@code limit} nodes reachable from {@code from}, nearest first. */
+  static Assets collect(VnScenario scenario, int from, int limit) {
+    Assets assets = new Assets(new LinkedHashSet<>(), new LinkedHashSet<>());
+    Set<Integer> seen = new HashSet<>();
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    queue.add(from);
+    while (!queue.isEmpty() && seen.size() < limit) {
+      int i = queue.poll();
+      if (!seen.add(i)) continue;
+      VnNode node = scenario.getNode(i);
+      if (node == null) continue;
+      addAssets(scenario, node, assets);
+      switch (node.getType()) {
+        case END:
+          break;
+        case JUMP:
+          queue.add(target(scenario, node.getJumpLabel(), i));
+          break;
+        case CHOICE:
+          for (Choice c : node.getChoices()) queue.add(target(scenario, c.getTargetLabel(), i));
+          break;
+        default:
+          queue.add(i + 1);
+      }
+    }
+    return assets;
+  }
+
+  private static int target(VnScenario scenario, String label, int index) {
+    Integer target = label != null ? scenario.getLabelIndex(label) : null;
+    return target != null ? target : index + 1;
+  }
+
+  private static void addAssets(VnScenario scenario, VnNode node, Assets assets) {
+    addBackground(scenario, node.getBackgroundId(), assets);
+    if (node.getTransition() != null) addBackground(scenario, node.getTransition().getTargetBackgroundId(), assets);
+    if (node.getCharacterToShow() != null) {
+      addExpression(scenario, node.getCharacterToShow(), node.getShowExpression() != null ? node.getShowExpression() : "neutral", assets);
+    }
+    DialogueLine dialogue = node.getDialogue();
+    if (dialogue != null && dialogue.getCharacterId() != null) {
+      addExpression(scenario, dialogue.getCharacterId(), dialogue.getExpression(), assets);
+    }
+    VnAudioCommand cmd = node.getAudioCommand();
+    if (cmd != null && cmd.getTrackId() != null) {
+      switch (cmd.getType()) {
+        case PLAY_BGM:
+        case PLAY_SFX:
+        case PLAY_VOICE:
+          assets.audio().add(cmd.getTrackId());
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static void addBackground(VnScenario scenario, String id, Assets assets) {
+    VnBackground bg = id != null ? scenario.getBackground(id) : null;
+    if (bg != null && bg.getImagePath() != null) assets.images().add(bg.getImagePath());
+  }
+
+  private static void addExpression(VnScenario scenario, String characterId, String expression, Assets assets) {
+    VnCharacter character = scenario.getCharacter(characterId);
+    String path = character != null ? character.getExpressionPath(expression) : null;
+    if (path != null) assets.images().add(path);
+  }
+
+  record Assets(Set<String> images, Set<String> audio) {}
+}
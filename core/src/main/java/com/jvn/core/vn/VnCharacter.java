@@ -1,5 +1,6 @@
 package com.jvn.core.vn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +23,7 @@ public class VnCharacter {
   public String getExpressionPath(String expression) {
     return expressions.getOrDefault(expression, expressions.get("neutral"));
   }
+  public Map<String, String> getExpressions() { return Collections.unmodifiableMap(expressions); }
   public boolean hasExpression(String expression) {
     return expressions.containsKey(expression);
   }
@@ -0,0 +1,331 @@
+package com.jvn.core.vn;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A choice condition ({@code > Text [if <expr>]}) or {@code [if <expr> goto <label>]} test, compiled once into a
+ * tree of evaluators over the VN variables. Compiled conditions are cached by source, so the parser, the scene, the
+ * renderer and interop share one instance per distinct expression.
+ *
+ * <p>Expressions support {@code ||}, {@code &&}, {@code !}, comparisons ({@code == != > < >= <=}), arithmetic
+ * ({@code + - * / %}), parentheses, numbers, {@code true}/{@code false}, quoted strings and variable names (which may
+ * contain dots, e.g. {@code flags.cave_open}, and {@code -} or {@code /} written without spaces, e.g. {@code route-a};
+ * spaced, they are arithmetic). A bare variable is true when set to something other than
+ * {@code false}, {@code 0} or an empty string. As in the original {@code var op value} form, a bare word on the right
+ * of a comparison is always compared as text ({@code mood == happy}); to compare against another variable, prefix it
+ * with {@code $} ({@code strength >= $required}). Text that does not parse falls back to that original three-token
+ * form.
+ */
+public final class VnCondition {
+  private static final int MAX_CACHED = 4096;
+  private static final Map<String, VnCondition> CACHE = new ConcurrentHashMap<>();
+  private static final VnCondition ALWAYS = new VnCondition("", new Const(Boolean.TRUE));
+
+  private static final int EQ = 0, NE = 1, GT = 2, LT = 3, GE = 4, LE = 5;
+
+  @FunctionalInterface
+  private interface Node { Object eval(Map<String, ?> vars); }
+
+  private record Const(Object value) implements Node {
+    public Object eval(Map<String, ?> vars) { return value; }
+  }
+
+  private record Var(String name) implements Node {
+    public Object eval(Map<String, ?> vars) { return vars.get(name); }
+  }
+
+  private final String source;
+  private final Node root;
+
+  private VnCondition(String source, Node root) {
+    this.source = source;
+    this.root = root;
+  }
+
+  /** Compiled form of {@code source}; blank or null sources always hold. */
+  public static VnCondition compile(String source) {
+    String key = source == null ? "" : source.trim();
+    if (key.isEmpty()) return ALWAYS;
+    VnCondition c = CACHE.get(key);
+    if (c != null) return c;
+    Node root;
+    try {
+      root = new Parser(key).parse();
+      String[] toks = key.split("\\s+");
+      if (toks.length == 3 && op(toks[1]) >= 0 && !toks[0].matches("[\\w$.]+")) {
+        // "var op value" whose var has operator characters keeps its original meaning when var is set, e.g. route-a == 1
+        Node parsed = root;
+        Node legacy = legacy(key);
+        String var = toks[0];
+        root = vars -> vars.containsKey(var) ? legacy.eval(vars) : parsed.eval(vars);
+      }
+    } catch (IllegalArgumentException e) {
+      root = legacy(key);
+    }
+    c = new VnCondition(key, root);
+    if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+    VnCondition prev = CACHE.putIfAbsent(key, c);
+    return prev != null ? prev : c;
+  }
+
+  public String getSource() { return source; }
+
+  public Object evaluate(Map<String, ?> vars) { return root.eval(vars == null ? Map.of() : vars); }
+
+  public boolean test(Map<String, ?> vars) { return truthy(evaluate(vars)); }
+
+  @Override
+  public String toString() { return source; }
+
+  static boolean truthy(Object v) {
+    if (v == null) return false;
+    if (v instanceof Boolean b) return b;
+    if (v instanceof Number n) return n.doubleValue() != 0;
+    String s = v.toString();
+    return !s.isEmpty() && !s.equalsIgnoreCase("false");
+  }
+
+  /** Numbers compare by value; anything else only supports {@code ==} and {@code !=}, as text. */
+  static boolean compare(Object lhs, int op, Object rhs) {
+    if (lhs instanceof Number ln && rhs instanceof Number rn) {
+      double a = ln.doubleValue();
+      double b = rn.doubleValue();
+      switch (op) {
+        case EQ: return a == b;
+        case NE: return a != b;
+        case GT: return a > b;
+        case LT: return a < b;
+        case GE: return a >= b;
+        case LE: return a <= b;
+        default: return false;
+      }
+    }
+    String a = lhs == null ? "" : lhs.toString();
+    String b = rhs == null ? "" : rhs.toString();
+    if (op == EQ) return a.equals(b);
+    if (op == NE) return !a.equals(b);
+    return false;
+  }
+
+  /** Literal token as the original conditions read it: boolean, number, else the text itself. */
+  static Object parseScalar(String s) {
+    if (s == null) return "";
+    String t = s.trim();
+    if (t.equalsIgnoreCase("true")) return Boolean.TRUE;
+    if (t.equalsIgnoreCase("false")) return Boolean.FALSE;
+    try { if (t.contains(".")) return Double.parseDouble(t); else return Integer.parseInt(t); }
+    catch (Exception ignored) {}
+    return t;
+  }
+
+  private static int op(String op) {
+    switch (op) {
+      case "==": return EQ;
+      case "!=": return NE;
+      case ">": return GT;
+      case "<": return LT;
+      case ">=": return GE;
+      case "<=": return LE;
+      default: return -1;
+    }
+  }
+
+  /** {@code var op value} with the rest ignored; fewer than three tokens always holds. */
+  private static Node legacy(String cond) {
+    String[] toks = cond.split("\\s+");
+    if (toks.length < 3) return new Const(Boolean.TRUE);
+    String var = toks[0];
+    int op = op(toks[1]);
+    Object rhs = parseScalar(toks[2]);
+    return vars -> compare(vars.get(var), op, rhs);
+  }
+
+  private static Object arithmetic(char op, Object x, Object y) {
+    if (x instanceof Number xn && y instanceof Number yn) {
+      // whole numbers stay whole, as [inc]/[dec] store them
+      if (x instanceof Integer && y instanceof Integer && op != '/' && !(op == '%' && yn.intValue() == 0)) {
+        long a = xn.longValue();
+        long b = yn.longValue();
+        long r = op == '+' ? a + b : op == '-' ? a - b : op == '*' ? a * b : a % b;
+        if (r >= Integer.MIN_VALUE && r <= Integer.MAX_VALUE) return (int) r;
+        return (double) r;
+      }
+      double a = xn.doubleValue();
+      double b = yn.doubleValue();
+      switch (op) {
+        case '+': return a + b;
+        case '-': return a - b;
+        case '*': return a * b;
+        case '/': return a / b;
+        default: return a % b;
+      }
+    }
+    if (op == '+' && (x instanceof String || y instanceof String)) {
+      return (x == null ? "" : x.toString()) + (y == null ? "" : y.toString());
+    }
+    return null;
+  }
+
+  /** Recursive-descent parser over the expression text; throws IllegalArgumentException on anything it rejects. */
+  private static final class Parser {
+    private final String s;
+    private int pos;
+
+    Parser(String s) { this.s = s; }
+
+    Node parse() {
+      Node n = or();
+      skipSpace();
+      if (pos < s.length()) throw error();
+      return n;
+    }
+
+    private Node or() {
+      Node left = and();
+      while (accept("||")) {
+        Node a = left;
+        Node b = and();
+        left = vars -> truthy(a.eval(vars)) || truthy(b.eval(vars));
+      }
+      return left;
+    }
+
+    private Node and() {
+      Node left = not();
+      while (accept("&&")) {
+        Node a = left;
+        Node b = not();
+        left = vars -> truthy(a.eval(vars)) && truthy(b.eval(vars));
+      }
+      return left;
+    }
+
+    private Node not() {
+      skipSpace();
+      if (pos < s.length() && s.charAt(pos) == '!' && !s.startsWith("!=", pos)) {
+        pos++;
+        Node a = not();
+        return vars -> !truthy(a.eval(vars));
+      }
+      return comparison();
+    }
+
+    private Node comparison() {
+      Node left = sum();
+      skipSpace();
+      String op = null;
+      for (String candidate : new String[]{ "==", "!=", ">=", "<=", ">", "<" }) {
+        if (s.startsWith(candidate, pos)) { op = candidate; break; }
+      }
+      if (op == null) return left;
+      pos += op.length();
+      Node right = sum();
+      if (right instanceof Var v) {
+        // a bare word on the right is a literal, as it always was; $name reads the variable
+        String name = v.name();
+        right = name.length() > 1 && name.charAt(0) == '$' ? new Var(name.substring(1)) : new Const(name);
+      }
+      int code = op(op);
+      Node a = left;
+      Node b = right;
+      return vars -> compare(a.eval(vars), code, b.eval(vars));
+    }
+
+    private Node sum() {
+      Node left = product();
+      while (true) {
+        skipSpace();
+        if (pos >= s.length()) return left;
+        char c = s.charAt(pos);
+        if (c != '+' && c != '-') return left;
+        pos++;
+        left = binary(c, left, product());
+      }
+    }
+
+    private Node product() {
+      Node left = unary();
+      while (true) {
+        skipSpace();
+        if (pos >= s.length()) return left;
+        char c = s.charAt(pos);
+        if (c != '*' && c != '/' && c != '%') return left;
+        pos++;
+        left = binary(c, left, unary());
+      }
+    }
+
+    private Node unary() {
+      skipSpace();
+      if (pos < s.length() && s.charAt(pos) == '-') {
+        pos++;
+        return binary('-', new Const(0), unary());
+      }
+      return primary();
+    }
+
+    private Node primary() {
+      skipSpace();
+      if (pos >= s.length()) throw error();
+      char c = s.charAt(pos);
+      if (c == '(') {
+        pos++;
+        Node n = or();
+        if (!accept(")")) throw error();
+        return n;
+      }
+      if (c == '"' || c == '\'') {
+        int end = s.indexOf(c, pos + 1);
+        if (end < 0) throw error();
+        String text = s.substring(pos + 1, end);
+        pos = end + 1;
+        return new Const(text);
+      }
+      if (Character.isDigit(c) || (c == '.' && pos + 1 < s.length() && Character.isDigit(s.charAt(pos + 1)))) {
+        int start = pos;
+        while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) pos++;
+        Object value = parseScalar(s.substring(start, pos));
+        if (!(value instanceof Number)) throw error();
+        return new Const(value);
+      }
+      if (Character.isLetter(c) || c == '_' || c == '$') {
+        int start = pos;
+        while (pos < s.length()) {
+          char d = s.charAt(pos);
+          // '-' and '/' glued between name characters stay in the name (route-a, a/b); spaced, they are arithmetic
+          boolean joiner = (d == '-' || d == '/') && pos + 1 < s.length() && isNameChar(s.charAt(pos + 1));
+          if (!isNameChar(d) && d != '.' && !joiner) break;
+          pos++;
+        }
+        String word = s.substring(start, pos);
+        if (word.equalsIgnoreCase("true")) return new Const(Boolean.TRUE);
+        if (word.equalsIgnoreCase("false")) return new Const(Boolean.FALSE);
+        return new Var(word);
+      }
+      throw error();
+    }
+
+    private static boolean isNameChar(char c) { return Character.isLetterOrDigit(c) || c == '_' || c == '$'; }
+
+    private static Node binary(char op, Node a, Node b) {
+      if (a instanceof Const x && b instanceof Const y) return new Const(arithmetic(op, x.value(), y.value()));
+      return vars -> arithmetic(op, a.eval(vars), b.eval(vars));
+    }
+
+    private boolean accept(String token) {
+      skipSpace();
+      if (!s.startsWith(token, pos)) return false;
+      pos += token.length();
+      return true;
+    }
+
+    private void skipSpace() {
+      while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error() {
+      return new IllegalArgumentException("Bad condition at " + pos + ": " + s);
+    }
+  }
+}
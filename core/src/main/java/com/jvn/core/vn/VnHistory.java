@@ -1,43 +1,289 @@
 package com.jvn.core.vn;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Manages dialogue history/backlog for review
+ *
+ * <p>The newest entries live in a fixed-size ring buffer; by default the oldest entries are dropped once it is full.
+ * With spilling on ({@link #VnHistory(int, Path)}), entries pushed out of the ring are appended to a file in deflated
+ * blocks of {@link #BLOCK_ENTRIES}, and {@link #getEntries()} pages those blocks back in only when the backlog
+ * scrolls that far. {@link #clear()} deletes the spill file. Lines in a block that can no longer be read (e.g. the
+ * file was deleted) come back as {@link #UNAVAILABLE} entries instead of failing the backlog.
  */
 public class VnHistory {
-  private final List<HistoryEntry> entries = new ArrayList<>();
-  private final int maxEntries;
+  private static final Logger LOG = LoggerFactory.getLogger(VnHistory.class);
+  /** Entries per compressed block in the spill file. */
+  static final int BLOCK_ENTRIES = 256;
+  private static final int CACHED_BLOCKS = 4;
+  /** Text of the entries that stand in for spilled lines that could not be read back. */
+  public static final String UNAVAILABLE = "(unavailable)";
+
+  private final HistoryEntry[] ring;
+  private int head; // oldest entry in the ring
+  private int count;
+  private int added; // entries ever added since the last clear, including dropped ones
+
+  private boolean spill;
+  private Path spillFile;
+  private final boolean tempSpillFile;
+  private final List<HistoryEntry> pending = new ArrayList<>(); // spilled but not yet written as a block
+  private long[] blockOffsets = new long[16];
+  private int[] blockLengths = new int[16];
+  private int blocks;
+  private long spillBytes;
+  private final LinkedHashMap<Integer, HistoryEntry[]> blockCache = new LinkedHashMap<>(8, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, HistoryEntry[]> eldest) { return size() > CACHED_BLOCKS; }
+  };
+  private final List<HistoryEntry> view = new Entries();
 
   public VnHistory() {
-    this(200); // Default to 200 entries
+    this(200);
   }
 
+  /** History of at most {@code maxEntries}; older entries are dropped. */
   public VnHistory(int maxEntries) {
-    this.maxEntries = maxEntries;
+    this(maxEntries, null, false);
+  }
+
+  /**
+   * Keeps {@code windowSize} entries in memory and spills older ones to {@code spillFile} (replaced if present), or to
+   * a temporary file when it is null.
+   */
+  public VnHistory(int windowSize, Path spillFile) {
+    this(windowSize, spillFile, true);
+  }
+
+  private VnHistory(int windowSize, Path spillFile, boolean spill) {
+    this.ring = new HistoryEntry[Math.max(1, windowSize)];
+    this.spill = spill;
+    this.spillFile = spillFile;
+    this.tempSpillFile = spill && spillFile == null;
   }
 
   public void addEntry(String speaker, String text) {
-    entries.add(new HistoryEntry(speaker, text, System.currentTimeMillis()));
-    
-    // Trim old entries if we exceed max
-    while (entries.size() > maxEntries) {
-      entries.remove(0);
+    HistoryEntry entry = new HistoryEntry(speaker, text, System.currentTimeMillis());
+    added++;
+    if (count < ring.length) {
+      ring[(head + count) % ring.length] = entry;
+      count++;
+      return;
+    }
+    HistoryEntry oldest = ring[head];
+    ring[head] = entry;
+    head = (head + 1) % ring.length;
+    if (spill) {
+      pending.add(oldest);
+      if (pending.size() == BLOCK_ENTRIES) writeBlock();
     }
   }
 
+  /** Every entry, oldest first; spilled entries are read back from disk on access. */
   public List<HistoryEntry> getEntries() {
-    return Collections.unmodifiableList(entries);
+    return view;
   }
 
   public void clear() {
-    entries.clear();
+    Arrays.fill(ring, null);
+    head = 0;
+    count = 0;
+    added = 0;
+    pending.clear();
+    blockCache.clear();
+    blocks = 0;
+    spillBytes = 0;
+    if (spillFile != null) {
+      try {
+        Files.deleteIfExists(spillFile);
+      } catch (IOException e) {
+        LOG.debug("Could not delete history spill file {}: {}", spillFile, e.toString());
+      }
+      if (tempSpillFile) spillFile = null;
+    }
   }
 
   public int size() {
-    return entries.size();
+    return getSpilledCount() + count;
+  }
+
+  /** Whether entries pushed out of the in-memory window are kept on disk rather than dropped. */
+  public boolean isSpilling() { return spill; }
+
+  /** Entries added since the last {@link #clear()}; unlike {@link #size()} it keeps growing once old ones are dropped. */
+  public int getAddedCount() { return added; }
+
+  /**
+   * Drops the entries added after the first {@code addedCount}, e.g. when the story is rolled back to a point where
+   * {@link #getAddedCount()} returned that.
+   */
+  public void truncate(int addedCount) {
+    int target = Math.max(0, addedCount);
+    if (target >= added) return;
+    // entries dropped from a full bounded window are already gone, so fewer than that may be left to remove
+    int keep = Math.max(0, size() - (added - target));
+    added = target;
+    while (size() > keep) {
+      if (count > 0) {
+        count--;
+        ring[(head + count) % ring.length] = null;
+      } else if (!pending.isEmpty()) {
+        pending.remove(pending.size() - 1);
+      } else {
+        unspillLastBlock();
+      }
+    }
+  }
+
+  /** Entries kept in the in-memory ring. */
+  public int getWindowSize() { return ring.length; }
+  /** Entries older than the in-memory window that can still be paged in. */
+  public int getSpilledCount() { return blocks * BLOCK_ENTRIES + pending.size(); }
+  /** Compressed bytes written to the spill file. */
+  public long getSpillBytes() { return spillBytes; }
+
+  private HistoryEntry get(int index) {
+    int spilled = getSpilledCount();
+    if (index >= spilled) return ring[(head + index - spilled) % ring.length];
+    int written = blocks * BLOCK_ENTRIES;
+    if (index >= written) return pending.get(index - written);
+    int block = index / BLOCK_ENTRIES;
+    HistoryEntry[] entries = blockCache.get(block);
+    if (entries == null) {
+      entries = readBlockOrPlaceholders(block);
+      blockCache.put(block, entries);
+    }
+    return entries[index - block * BLOCK_ENTRIES];
+  }
+
+  private void writeBlock() {
+    try {
+      if (spillFile == null) {
+        spillFile = Files.createTempFile("jvn-history", ".bin");
+        spillFile.toFile().deleteOnExit();
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+        for (HistoryEntry e : pending) {
+          writeString(out, e.getSpeaker());
+          writeString(out, e.getText());
+          out.writeLong(e.getTimestamp());
+        }
+      }
+      if (blocks == 0) {
+        Files.write(spillFile, bytes.toByteArray());
+      } else {
+        Files.write(spillFile, bytes.toByteArray(), StandardOpenOption.APPEND);
+      }
+      if (blocks == blockOffsets.length) {
+        blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+        blockLengths = Arrays.copyOf(blockLengths, blocks * 2);
+      }
+      blockOffsets[blocks] = spillBytes;
+      blockLengths[blocks] = bytes.size();
+      blocks++;
+      spillBytes += bytes.size();
+    } catch (IOException e) {
+      // keep the in-memory window working; the spilled backlog is lost
+      LOG.warn("Disabling history spill to {}: {}", spillFile, e.toString());
+      spill = false;
+      blocks = 0;
+      blockCache.clear();
+    }
+    pending.clear();
+  }
+
+  /** Moves the newest spilled block back into {@link #pending} and cuts it off the spill file. */
+  private void unspillLastBlock() {
+    int block = blocks - 1;
+    HistoryEntry[] entries = blockCache.remove(block);
+    if (entries == null) entries = readBlockOrPlaceholders(block);
+    try (FileChannel ch = FileChannel.open(spillFile, StandardOpenOption.WRITE)) {
+      ch.truncate(blockOffsets[block]);
+    } catch (IOException e) {
+      LOG.debug("Could not truncate history spill file {}: {}", spillFile, e.toString());
+    }
+    blocks--;
+    spillBytes = blockOffsets[block];
+    pending.addAll(Arrays.asList(entries));
+  }
+
+  private HistoryEntry[] readBlockOrPlaceholders(int block) {
+    try {
+      return readBlock(block);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Could not read history spill file {}: {}", spillFile, e.toString());
+      HistoryEntry[] entries = new HistoryEntry[BLOCK_ENTRIES];
+      Arrays.fill(entries, new HistoryEntry(null, UNAVAILABLE, 0L));
+      return entries;
+    }
+  }
+
+  private HistoryEntry[] readBlock(int block) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(blockLengths[block]);
+    try (FileChannel ch = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+      while (buf.hasRemaining()) {
+        if (ch.read(buf, blockOffsets[block] + buf.position()) < 0) throw new EOFException("Truncated history spill file");
+      }
+    }
+    HistoryEntry[] entries = new HistoryEntry[BLOCK_ENTRIES];
+    try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(buf.array())))) {
+      for (int i = 0; i < entries.length; i++) {
+        String speaker = readString(in);
+        String text = readString(in);
+        entries[i] = new HistoryEntry(speaker, text, in.readLong());
+      }
+    }
+    return entries;
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) { out.writeInt(-1); return; }
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int len = in.readInt();
+    if (len < 0) return null;
+    byte[] b = new byte[len];
+    in.readFully(b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+
+  /** Read-only list over the spilled blocks and the ring. */
+  private final class Entries extends AbstractList<HistoryEntry> {
+    @Override
+    public HistoryEntry get(int index) {
+      if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+      return VnHistory.this.get(index);
+    }
+
+    @Override
+    public int size() { return VnHistory.this.size(); }
   }
 
   public static class HistoryEntry {
@@ -0,0 +1,20 @@
+package com.jvn.core.vn;
+
+/**
+ * Node table of a paged {@link VnScenario}. Nodes are grouped into chunks along label boundaries and decoded on
+ * demand, so only the chunks of the route being played are held in memory.
+ */
+public interface VnNodeStore {
+  int size();
+
+  /** Node at {@code index}, decoding its chunk first if it is not resident; null when out of range. */
+  VnNode get(int index);
+
+  /** Starts decoding the chunk holding {@code index} in the background, unless it is resident or on its way. */
+  void prefetch(int index);
+
+  int getChunkCount();
+  int getResidentChunks();
+  /** Chunks decoded so far, including ones decoded again after eviction. */
+  int getLoads();
+}
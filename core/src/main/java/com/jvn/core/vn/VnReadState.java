@@ -0,0 +1,276 @@
+package com.jvn.core.vn;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which nodes of a scenario have been read, as a bitset indexed by node. The shared instance of a scenario
+ * ({@link #shared}) is backed by a memory-mapped file under {@code jvn.readStateDir} (default
+ * {@code ~/.jvn/read}), named after the scenario id and where its script was loaded from, so read status is written
+ * through as it is marked and carries over to every playthrough and save of that scenario. The file starts with the
+ * scenario's {@link VnScenario#getFingerprint fingerprint}; a {@code .labels} file next to it records a hash of each
+ * labelled section of the script. When the script is edited, the marks of sections whose nodes are unchanged move
+ * to where those sections now start, and only the marks of edited sections are cleared.
+ */
+public final class VnReadState {
+  private static final Logger LOG = LoggerFactory.getLogger(VnReadState.class);
+  private static final int MIN_WORDS = 16;
+  private static final Map<Path, VnReadState> SHARED = new ConcurrentHashMap<>();
+
+  /** A label and the nodes up to the next one; the nodes before the first label have the empty label. */
+  private record Section(String label, int start, int length, long hash) {}
+
+  private final Path file; // null when kept in memory only
+  private long fingerprint;
+  private Section[] sections; // of the script the bits were written for; null when unknown
+  private long[] bits;
+  private MappedByteBuffer mapped; // fingerprint word, then the bits
+
+  private VnReadState(Path file, long fingerprint, Section[] sections, long[] bits, MappedByteBuffer mapped) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.sections = sections;
+    this.bits = bits;
+    this.mapped = mapped;
+  }
+
+  /** Read state that is not persisted. */
+  public static VnReadState inMemory() {
+    return new VnReadState(null, 0, null, new long[MIN_WORDS], null);
+  }
+
+  /** The persisted read state of {@code scenario}, one instance per scenario id and source for the whole process. */
+  public static VnReadState shared(VnScenario scenario) {
+    String id = scenario.getId();
+    String name = (id == null ? "untitled" : id).replaceAll("[^A-Za-z0-9._-]", "_");
+    String source = scenario.getSource();
+    if (source != null) {
+      name += "-" + Long.toHexString(UUID.nameUUIDFromBytes(source.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits());
+    }
+    Path dir = Paths.get(System.getProperty("jvn.readStateDir", System.getProperty("user.home") + "/.jvn/read"));
+    VnReadState state = SHARED.computeIfAbsent(dir.resolve(name + ".bits").toAbsolutePath().normalize(), f -> open(f, scenario.getFingerprint(), scenario));
+    state.bind(scenario.getFingerprint(), scenario); // the scenario may have been reloaded after an edit
+    return state;
+  }
+
+  /**
+   * Read state mapped from {@code file}, created if missing and cleared if it was written for another
+   * {@code fingerprint}; falls back to memory when the file cannot be mapped.
+   */
+  public static VnReadState open(Path file, long fingerprint) {
+    return open(file, fingerprint, null);
+  }
+
+  /** As {@link #open(Path, long)}, keeping the marks of the sections of {@code scenario} that did not change. */
+  private static VnReadState open(Path file, long fingerprint, VnScenario scenario) {
+    try {
+      if (file.getParent() != null) Files.createDirectories(file.getParent());
+      long size = Files.exists(file) ? Files.size(file) : 0;
+      int words = (int) Math.max(MIN_WORDS, size / Long.BYTES - 1);
+      MappedByteBuffer mapped = map(file, words);
+      long[] bits = new long[words];
+      long written = 0;
+      if (size >= Long.BYTES) {
+        written = mapped.getLong(0);
+        for (int i = 0; i < words; i++) bits[i] = mapped.getLong(offset(i));
+      }
+      VnReadState state = new VnReadState(file, written, readSections(labelsFile(file)), bits, mapped);
+      if (written == fingerprint && state.sections == null && scenario != null) {
+        state.sections = sections(scenario); // written before section hashes were kept
+        writeSections(labelsFile(file), state.sections);
+      }
+      state.bind(fingerprint, scenario);
+      return state;
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Read state {} is not persisted: {}", file, e.toString());
+      return inMemory();
+    }
+  }
+
+  private static int offset(int word) { return (word + 1) * Long.BYTES; }
+
+  private static Path labelsFile(Path file) {
+    String name = file.getFileName().toString();
+    return file.resolveSibling((name.endsWith(".bits") ? name.substring(0, name.length() - 5) : name) + ".labels");
+  }
+
+  private static MappedByteBuffer map(Path file, int words) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) offset(words)); // grows the file as needed
+    }
+  }
+
+  /** Moves the marks over to a script with {@code fingerprint}, keeping those of its unchanged sections. */
+  private synchronized void bind(long fingerprint, VnScenario scenario) {
+    if (fingerprint == this.fingerprint) return;
+    Section[] now = scenario != null ? sections(scenario) : null;
+    long[] kept = carry(bits, sections, now);
+    if (count() > 0) {
+      LOG.info("Scenario changed since {} was written; keeping read status of {} of {} marked nodes",
+          file != null ? file : "its read state", bitCount(kept), count());
+    }
+    this.fingerprint = fingerprint;
+    this.sections = now;
+    if (kept.length > bits.length && mapped != null) {
+      try {
+        mapped = map(file, kept.length);
+      } catch (IOException e) {
+        LOG.warn("Read state {} is no longer persisted: {}", file, e.toString());
+        mapped = null;
+      }
+    }
+    bits = kept;
+    if (mapped == null) return;
+    for (int i = 0; i < bits.length; i++) mapped.putLong(offset(i), bits[i]);
+    mapped.putLong(0, fingerprint);
+    if (now != null) writeSections(labelsFile(file), now);
+  }
+
+  /** Sections of {@code scenario} in node order. */
+  private static Section[] sections(VnScenario scenario) {
+    int size = scenario.getNodes().size();
+    List<Map.Entry<String, Integer>> labels = new ArrayList<>(scenario.getLabels().entrySet());
+    labels.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+    Section[] out = new Section[labels.size() + 1];
+    int start = 0;
+    String label = "";
+    for (int i = 0; i <= labels.size(); i++) {
+      int end = i < labels.size() ? Math.max(start, Math.min(size, labels.get(i).getValue())) : size;
+      long h = VnScenario.mix(0xcbf29ce484222325L, end - start);
+      for (int n = start; n < end; n++) h = VnScenario.mixNode(h, scenario.getNode(n));
+      out[i] = new Section(label, start, end - start, h);
+      if (i < labels.size()) {
+        label = labels.get(i).getKey();
+        start = end;
+      }
+    }
+    return out;
+  }
+
+  /** The bits of {@code was} sections that {@code now} has unchanged, at their new positions; empty when unknown. */
+  private static long[] carry(long[] bits, Section[] was, Section[] now) {
+    if (was == null || now == null) return new long[bits.length];
+    Map<String, Section> old = new HashMap<>();
+    for (Section s : was) old.put(s.label(), s);
+    int words = bits.length;
+    for (Section s : now) words = Math.max(words, ((s.start() + s.length()) >>> 6) + 1);
+    long[] kept = new long[words];
+    for (Section s : now) {
+      Section o = old.get(s.label());
+      if (o == null || o.hash() != s.hash() || o.length() != s.length()) continue;
+      for (int k = 0; k < s.length(); k++) {
+        int from = o.start() + k;
+        if ((from >>> 6) < bits.length && (bits[from >>> 6] & (1L << from)) != 0) {
+          int to = s.start() + k;
+          kept[to >>> 6] |= 1L << to;
+        }
+      }
+    }
+    return kept;
+  }
+
+  private static Section[] readSections(Path file) {
+    if (!Files.isRegularFile(file)) return null;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      Section[] out = new Section[in.readInt()];
+      for (int i = 0; i < out.length; i++) out[i] = new Section(in.readUTF(), in.readInt(), in.readInt(), in.readLong());
+      return out;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Ignoring unreadable read state labels {}: {}", file, e.toString());
+      return null;
+    }
+  }
+
+  private static void writeSections(Path file, Section[] sections) {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(sections.length);
+      for (Section s : sections) {
+        out.writeUTF(s.label());
+        out.writeInt(s.start());
+        out.writeInt(s.length());
+        out.writeLong(s.hash());
+      }
+    } catch (IOException e) {
+      LOG.debug("Could not write read state labels {}: {}", file, e.toString());
+    }
+  }
+
+  private static int bitCount(long[] bits) {
+    int n = 0;
+    for (long word : bits) n += Long.bitCount(word);
+    return n;
+  }
+
+  public Path getFile() { return file; }
+  public boolean isPersistent() { return mapped != null; }
+
+  public synchronized boolean isRead(int node) {
+    if (node < 0) return false;
+    int w = node >>> 6;
+    return w < bits.length && (bits[w] & (1L << node)) != 0;
+  }
+
+  public synchronized void markRead(int node) {
+    if (node < 0) return;
+    int w = node >>> 6;
+    if (w >= bits.length) grow(w + 1);
+    long v = bits[w] | (1L << node);
+    if (v == bits[w]) return;
+    bits[w] = v;
+    if (mapped != null) mapped.putLong(offset(w), v);
+  }
+
+  public synchronized int count() { return bitCount(bits); }
+
+  /** Read nodes in ascending order. */
+  public synchronized Set<Integer> toSet() {
+    Set<Integer> set = new TreeSet<>();
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+      while (word != 0) {
+        set.add(w * 64 + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+    return set;
+  }
+
+  /** Forces marked bits out to the file, e.g. at a save point; the OS writes them back eventually regardless. */
+  public synchronized void flush() {
+    if (mapped != null) mapped.force();
+  }
+
+  private void grow(int words) {
+    int n = Math.max(words, bits.length * 2);
+    bits = Arrays.copyOf(bits, n);
+    if (mapped == null) return;
+    try {
+      mapped = map(file, n);
+    } catch (IOException e) {
+      LOG.warn("Read state {} is no longer persisted: {}", file, e.toString());
+      mapped = null;
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package com.jvn.core.vn;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Represents a complete visual novel scenario with script nodes and branches
@@ -14,23 +17,92 @@ public class VnScenario {
   private final Map<String, Integer> labels; // label -> node index
   private final Map<String, VnCharacter> characters;
   private final Map<String, VnBackground> backgrounds;
+  private final VnNodeStore store; // null unless paged
+  private long fingerprint; // 0 until computed
+  private String source; // where the script was loaded from; null when built in code
 
   private VnScenario(Builder builder) {
     this.id = builder.id;
-    this.nodes = new ArrayList<>(builder.nodes);
+    this.store = builder.store;
+    this.nodes = store != null ? new StoreView(store) : new ArrayList<>(builder.nodes);
     this.labels = new HashMap<>(builder.labels);
     this.characters = new HashMap<>(builder.characters);
     this.backgrounds = new HashMap<>(builder.backgrounds);
+    this.fingerprint = builder.fingerprint;
   }
 
   public String getId() { return id; }
+
+  /** Location the script was loaded from (e.g. its URL); keeps apart scenarios of different projects that share an id. */
+  public String getSource() { return source; }
+  public void setSource(String source) { this.source = source; }
+
   public List<VnNode> getNodes() { return nodes; }
   public VnNode getNode(int index) {
+    if (store != null) return store.get(index);
     return index >= 0 && index < nodes.size() ? nodes.get(index) : null;
   }
   public Integer getLabelIndex(String label) { return labels.get(label); }
+
+  /** True when nodes are decoded on demand from a {@link VnNodeStore} instead of held in memory. */
+  public boolean isPaged() { return store != null; }
+  public VnNodeStore getNodeStore() { return store; }
+
+  /** Starts loading the nodes around {@code index} ahead of use; a no-op unless the scenario is paged. */
+  public void prefetch(int index) {
+    if (store != null) store.prefetch(index);
+  }
+
+  public void prefetchLabel(String label) {
+    if (store == null) return;
+    Integer index = labels.get(label);
+    if (index != null) store.prefetch(index);
+  }
+  /**
+   * Hash of the node list: types, lines, choices and jumps, and the label table. It changes whenever a script edit
+   * could move or rewrite a node, so per-node data such as read status can tell it no longer applies. Computed on
+   * first use; paged scenarios carry the value from their compiled file.
+   */
+  public synchronized long getFingerprint() {
+    if (fingerprint == 0) fingerprint = computeFingerprint();
+    return fingerprint;
+  }
+
+  private long computeFingerprint() {
+    long h = mix(0xcbf29ce484222325L, nodes.size());
+    for (VnNode n : nodes) h = mixNode(h, n);
+    for (Map.Entry<String, Integer> e : new TreeMap<>(labels).entrySet()) {
+      h = mix(h, e.getKey());
+      h = mix(h, e.getValue());
+    }
+    return h != 0 ? h : 1;
+  }
+
+  /** Folds what the fingerprint covers of {@code n} into {@code h}. */
+  static long mixNode(long h, VnNode n) {
+    h = mix(h, n.getType().ordinal());
+    DialogueLine d = n.getDialogue();
+    if (d != null) {
+      h = mix(h, d.getSpeakerName());
+      h = mix(h, d.getText());
+    }
+    for (Choice c : n.getChoices()) {
+      h = mix(h, c.getText());
+      h = mix(h, c.getTargetLabel());
+    }
+    return mix(h, n.getJumpLabel());
+  }
+
+  static long mix(long h, Object value) {
+    h ^= value == null ? 0x9e3779b9L : value.hashCode();
+    return h * 0x100000001b3L;
+  }
+
   public VnCharacter getCharacter(String id) { return characters.get(id); }
   public VnBackground getBackground(String id) { return backgrounds.get(id); }
+  public Map<String, Integer> getLabels() { return Collections.unmodifiableMap(labels); }
+  public Map<String, VnCharacter> getCharacters() { return Collections.unmodifiableMap(characters); }
+  public Map<String, VnBackground> getBackgrounds() { return Collections.unmodifiableMap(backgrounds); }
 
   public static Builder builder(String id) { return new Builder(id); }
 
@@ -40,9 +112,23 @@ public class VnScenario {
     private final Map<String, Integer> labels = new HashMap<>();
     private final Map<String, VnCharacter> characters = new HashMap<>();
     private final Map<String, VnBackground> backgrounds = new HashMap<>();
+    private VnNodeStore store;
+    private long fingerprint;
 
     private Builder(String id) { this.id = id; }
 
+    /** Pages the nodes from {@code store}; nodes added with {@link #addNode} are then ignored. */
+    public Builder nodeStore(VnNodeStore store) {
+      this.store = store;
+      return this;
+    }
+
+    /** Fingerprint already known for these nodes, e.g. stored with a compiled scenario; 0 computes it. */
+    public Builder fingerprint(long fingerprint) {
+      this.fingerprint = fingerprint;
+      return this;
+    }
+
     public Builder addNode(VnNode node) {
       nodes.add(node);
       return this;
@@ -53,6 +139,11 @@ public class VnScenario {
       return this;
     }
 
+    public Builder addLabel(String label, int nodeIndex) {
+      labels.put(label, nodeIndex);
+      return this;
+    }
+
     public Builder addCharacter(VnCharacter character) {
       characters.put(character.getId(), character);
       return this;
@@ -65,4 +156,19 @@ public class VnScenario {
 
     public VnScenario build() { return new VnScenario(this); }
   }
+
+  /** Read-only list over a paged node table. */
+  private static final class StoreView extends AbstractList<VnNode> {
+    private final VnNodeStore store;
+
+    StoreView(VnNodeStore store) { this.store = store; }
+
+    @Override public VnNode get(int index) {
+      VnNode node = store.get(index);
+      if (node == null) throw new IndexOutOfBoundsException(index);
+      return node;
+    }
+
+    @Override public int size() { return store.size(); }
+  }
 }
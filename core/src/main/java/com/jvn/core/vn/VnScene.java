@@ -3,6 +3,8 @@ package com.jvn.core.vn;
 import com.jvn.core.audio.AudioFacade;
 import com.jvn.core.scene.Scene;
 
+import java.nio.file.Path;
+
 /**
  * Scene implementation for visual novel gameplay
  */
@@ -11,6 +13,7 @@ public class VnScene implements Scene {
   private VnScenario scenario;
   private long textRevealTimer;
   private AudioFacade audioFacade; // Optional audio support
+  private VnAssetPrefetcher audioPrefetcher;
   private VnQuickSaveManager quickSaveManager;
   private boolean waitingNode = false;
   private long waitRemainingMs = 0;
@@ -20,6 +23,13 @@ public class VnScene implements Scene {
   private long bgmFadeRemainingMs = 0;
   private long bgmFadeDurationMs = 0;
   private float bgmFadeStartVol = 1.0f;
+  private String bgmTrack; // track of the last PLAY_BGM, null once stopped
+  // Fast-forward: nodes only update state, audio is coalesced and applied at the destination
+  private static final int MAX_FAST_FORWARD_NODES = 100_000;
+  private boolean fastForward = false;
+  private int fastForwardNodes;
+  private VnAudioCommand pendingBgm;
+  private boolean currentNodeUnread; // whether the current node was unread before this visit
 
   public VnScene(VnScenario scenario) {
     this.scenario = scenario;
@@ -35,6 +45,7 @@ public class VnScene implements Scene {
 
   public void setAudioFacade(AudioFacade audio) {
     this.audioFacade = audio;
+    this.audioPrefetcher = audio != null ? new VnAssetPrefetcher(null, audio::preload) : null;
   }
 
   public AudioFacade getAudioFacade() {
@@ -49,11 +60,24 @@ public class VnScene implements Scene {
     return quickSaveManager;
   }
 
+  /**
+   * Keeps the whole backlog by spilling lines older than the in-memory window to {@code file} (a temporary file when
+   * null). Starts a new, empty backlog. The scene turns this on itself, with a temporary file, when it is entered with
+   * {@link VnSettings#isKeepFullHistory()} set; otherwise the backlog holds the last 200 lines.
+   */
+  public void setHistorySpill(Path file) {
+    state.setHistory(new VnHistory(state.getHistory().getWindowSize(), file));
+  }
+
   public void setInterop(VnInterop interop) { this.interop = interop; }
   public VnInterop getInterop() { return interop; }
 
   @Override
   public void onEnter() {
+    VnHistory history = state.getHistory();
+    if (state.getSettings().isKeepFullHistory() && !history.isSpilling() && history.size() == 0) {
+      setHistorySpill(null);
+    }
     // Process initial node
     processCurrentNode();
   }
@@ -105,7 +129,7 @@ public class VnScene implements Scene {
         int textLength = dialogue.getText().length();
         
         // Skip mode: instant text
-        if (state.isSkipMode() && (state.getSettings().isSkipUnreadText() || state.isNodeRead(state.getCurrentNodeIndex()))) {
+        if (state.isSkipMode() && (state.getSettings().isSkipUnreadText() || !currentNodeUnread)) {
           state.setTextRevealProgress(textLength);
           state.setWaitingForInput(false);
           // Auto-advance in skip mode
@@ -165,6 +189,76 @@ public class VnScene implements Scene {
     processCurrentNode();
   }
 
+  /**
+   * Fast-forward through read text to the next unread line, choice or end in a single call, so only the
+   * destination gets rendered. Passed nodes only update state: waits and transitions are dropped, sound effects and
+   * voices are not played, and only the BGM in effect at the destination is started. Unread lines are passed too
+   * when {@link VnSettings#isSkipUnreadText()} is on. Returns the number of nodes passed.
+   */
+  public int skipToNextStop() {
+    VnNode node = state.getCurrentNode();
+    if (node == null || node.getType() == VnNodeType.CHOICE || node.getType() == VnNodeType.END) return 0;
+    boolean skipUnread = state.getSettings().isSkipUnreadText();
+    fastForward = true;
+    fastForwardNodes = 0;
+    pendingBgm = null;
+    try {
+      do {
+        waitingNode = false;
+        state.advance();
+        processCurrentNode();
+      } while (fastForwardNodes < MAX_FAST_FORWARD_NODES && canFastForward(skipUnread));
+    } finally {
+      fastForward = false;
+    }
+    state.clearActiveTransition();
+    state.clearPreviousBackgroundIdDuringTransition();
+    applyPendingBgm();
+    if (audioPrefetcher != null) audioPrefetcher.scan(state);
+    return fastForwardNodes;
+  }
+
+  private boolean canFastForward(boolean skipUnread) {
+    if (waitingNode) return true;
+    VnNode node = state.getCurrentNode();
+    // choices, the end and interop commands that hold the scene always stop
+    return node != null && node.getType() == VnNodeType.DIALOGUE && (skipUnread || !currentNodeUnread);
+  }
+
+  private void applyPendingBgm() {
+    VnAudioCommand cmd = pendingBgm;
+    pendingBgm = null;
+    if (cmd == null || audioFacade == null) return;
+    if (cmd.getType() == VnAudioCommand.AudioCommandType.PLAY_BGM) {
+      if (cmd.getTrackId() != null && cmd.getTrackId().equals(bgmTrack) && !bgmFadeActive) return; // already playing
+      processAudioCommand(cmd);
+    } else if (bgmTrack != null || bgmFadeActive) {
+      // a stop or fade-out was the last word; the fade itself has already elapsed
+      bgmFadeActive = false;
+      bgmTrack = null;
+      audioFacade.stopBgm();
+      audioFacade.setBgmVolume(state.getSettings().getBgmVolume());
+    }
+  }
+
+  /**
+   * Roll back to the previous line or choice, restoring variables, characters, background, BGM and backlog as they
+   * were before it was shown, so a choice can be made again. Returns false when there is nothing to roll back to.
+   */
+  public boolean rollback() {
+    if (state.getRollbackDepth() < 2) return false;
+    state.popCheckpoint(); // the node on screen
+    VnState.Checkpoint previous = state.popCheckpoint(); // pushed again when the node is processed
+    waitingNode = false;
+    state.restore(previous);
+    // bring the music back to what was playing at that point
+    VnAudioCommand bgm = state.getBgm();
+    pendingBgm = bgm != null ? bgm : VnAudioCommand.builder(VnAudioCommand.AudioCommandType.STOP_BGM).build();
+    applyPendingBgm();
+    processCurrentNode();
+    return true;
+  }
+
   /**
    * Select a choice option
    */
@@ -174,11 +268,7 @@ public class VnScene implements Scene {
 
     if (choiceIndex >= 0 && choiceIndex < current.getChoices().size()) {
       Choice choice = current.getChoices().get(choiceIndex);
-      if (!choice.isEnabled()) return;
-      String cond = choice.getCondition();
-      if (cond != null && !cond.isEmpty()) {
-        if (!evalChoiceCondition(cond)) return;
-      }
+      if (!choice.isAvailable(state.getVariables())) return;
       if (choice.getTargetLabel() != null) {
         state.jumpToLabel(choice.getTargetLabel());
         processCurrentNode();
@@ -189,42 +279,6 @@ public class VnScene implements Scene {
     }
   }
 
-  private boolean evalChoiceCondition(String cond) {
-    String[] toks = cond.trim().split("\\s+");
-    if (toks.length < 3) return true;
-    String var = toks[0];
-    String op = toks[1];
-    String rhsRaw = toks[2];
-    Object lhs = state.getVariable(var);
-    Object rhs = parseScalar(rhsRaw);
-    if (lhs instanceof Number ln && rhs instanceof Number rn) {
-      double a = ln.doubleValue();
-      double b = rn.doubleValue();
-      if ("==".equals(op)) return a == b;
-      if ("!=".equals(op)) return a != b;
-      if (">".equals(op)) return a > b;
-      if ("<".equals(op)) return a < b;
-      if (">=".equals(op)) return a >= b;
-      if ("<=".equals(op)) return a <= b;
-      return false;
-    }
-    String a = lhs == null ? "" : lhs.toString();
-    String b = rhs == null ? "" : rhs.toString();
-    if ("==".equals(op)) return a.equals(b);
-    if ("!=".equals(op)) return !a.equals(b);
-    return false;
-  }
-
-  private static Object parseScalar(String s) {
-    if (s == null) return "";
-    String t = s.trim();
-    if (t.equalsIgnoreCase("true")) return Boolean.TRUE;
-    if (t.equalsIgnoreCase("false")) return Boolean.FALSE;
-    try { if (t.contains(".")) return Double.parseDouble(t); else return Integer.parseInt(t); }
-    catch (Exception ignored) {}
-    return t;
-  }
-
   private void processCurrentNode() {
     VnNode node = state.getCurrentNode();
     if (node == null) return;
@@ -234,8 +288,20 @@ public class VnScene implements Scene {
     textRevealTimer = 0;
     state.resetAutoPlayTimer();
 
+    // Lines and choices are the points the player can roll back to
+    if (node.getType() == VnNodeType.DIALOGUE || node.getType() == VnNodeType.CHOICE) {
+      state.pushCheckpoint();
+    }
+
     // Mark node as read
-    state.markNodeAsRead(state.getCurrentNodeIndex());
+    int index = state.getCurrentNodeIndex();
+    currentNodeUnread = !state.isNodeRead(index);
+    state.markNodeAsRead(index);
+    if (fastForward) {
+      fastForwardNodes++;
+    } else if (audioPrefetcher != null) {
+      audioPrefetcher.scan(state);
+    }
 
     // Process audio commands
     if (node.getAudioCommand() != null) {
@@ -244,7 +310,7 @@ public class VnScene implements Scene {
 
     // Process transitions
     if (node.getTransition() != null) {
-      state.setActiveTransition(node.getTransition());
+      if (!fastForward) state.setActiveTransition(node.getTransition());
       if (node.getTransition().getTargetBackgroundId() != null) {
         state.setCurrentBackgroundId(node.getTransition().getTargetBackgroundId());
       }
@@ -351,7 +417,27 @@ public class VnScene implements Scene {
   }
 
   private void processAudioCommand(VnAudioCommand cmd) {
+    // the story's BGM, recorded in rollback checkpoints even while fast-forward holds the actual change back
+    if (cmd.getType() == VnAudioCommand.AudioCommandType.PLAY_BGM) {
+      state.setBgm(cmd);
+    } else if (cmd.getType() == VnAudioCommand.AudioCommandType.STOP_BGM
+        || cmd.getType() == VnAudioCommand.AudioCommandType.FADE_OUT_BGM) {
+      state.setBgm(null);
+    }
     if (audioFacade == null) return;
+    if (fastForward) {
+      // keep only the last BGM change; sound effects and voices of passed lines are dropped
+      switch (cmd.getType()) {
+        case PLAY_BGM:
+        case STOP_BGM:
+        case FADE_OUT_BGM:
+          pendingBgm = cmd;
+          break;
+        default:
+          break;
+      }
+      return;
+    }
 
     switch (cmd.getType()) {
       case PLAY_BGM:
@@ -361,15 +447,18 @@ public class VnScene implements Scene {
           audioFacade.setBgmVolume(state.getSettings().getBgmVolume());
         }
         audioFacade.playBgm(cmd.getTrackId(), cmd.isLoop());
+        bgmTrack = cmd.getTrackId();
         audioFacade.setBgmVolume(state.getSettings().getBgmVolume());
         break;
       case STOP_BGM:
         // Cancel fade and stop immediately
         bgmFadeActive = false;
+        bgmTrack = null;
         audioFacade.stopBgm();
         break;
       case FADE_OUT_BGM:
         long dur = Math.max(0, cmd.getDurationMs());
+        bgmTrack = null;
         if (dur <= 0) {
           audioFacade.stopBgm();
         } else {
@@ -420,6 +509,7 @@ public class VnScene implements Scene {
         audioFacade.setVoiceVolume(s.getVoiceVolume());
       }
       // Normalize node processing after loading state so the scene reflects the saved node immediately
+      state.clearRollback();
       processCurrentNode();
     }
     return ok;
@@ -34,6 +34,7 @@ public class VnSettingsStore {
         try { s.setAutoPlayDelay(Long.parseLong(p.getProperty("auto_play_delay", Long.toString(s.getAutoPlayDelay())))); } catch (Exception ignored) {}
         try { s.setSkipUnreadText(Boolean.parseBoolean(p.getProperty("skip_unread_text", Boolean.toString(s.isSkipUnreadText())))); } catch (Exception ignored) {}
         try { s.setSkipAfterChoices(Boolean.parseBoolean(p.getProperty("skip_after_choices", Boolean.toString(s.isSkipAfterChoices())))); } catch (Exception ignored) {}
+        try { s.setKeepFullHistory(Boolean.parseBoolean(p.getProperty("keep_full_history", Boolean.toString(s.isKeepFullHistory())))); } catch (Exception ignored) {}
         try { s.setPhysicsFixedStepMs(Long.parseLong(p.getProperty("physics_fixed_step_ms", Long.toString(s.getPhysicsFixedStepMs())))); } catch (Exception ignored) {}
         try { s.setPhysicsMaxSubSteps(Integer.parseInt(p.getProperty("physics_max_substeps", Integer.toString(s.getPhysicsMaxSubSteps())))); } catch (Exception ignored) {}
         try { s.setPhysicsDefaultFriction(Double.parseDouble(p.getProperty("physics_default_friction", Double.toString(s.getPhysicsDefaultFriction())))); } catch (Exception ignored) {}
@@ -57,6 +58,7 @@ public class VnSettingsStore {
       p.setProperty("auto_play_delay", Long.toString(s.getAutoPlayDelay()));
       p.setProperty("skip_unread_text", Boolean.toString(s.isSkipUnreadText()));
       p.setProperty("skip_after_choices", Boolean.toString(s.isSkipAfterChoices()));
+      p.setProperty("keep_full_history", Boolean.toString(s.isKeepFullHistory()));
       p.setProperty("physics_fixed_step_ms", Long.toString(s.getPhysicsFixedStepMs()));
       p.setProperty("physics_max_substeps", Integer.toString(s.getPhysicsMaxSubSteps()));
       p.setProperty("physics_default_friction", Double.toString(s.getPhysicsDefaultFriction()));
@@ -1,7 +1,6 @@
 package com.jvn.core.vn;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayDeque;
 import java.util.Map;
 import java.util.Set;
 
@@ -9,19 +8,24 @@ import java.util.Set;
  * Manages the current state of a visual novel playthrough
  */
 public class VnState {
+  /** Rollback checkpoints kept per playthrough; older ones are dropped. */
+  public static final int ROLLBACK_LIMIT = Integer.getInteger("jvn.rollbackSteps", 5000);
+
   private VnScenario scenario;
   private int currentNodeIndex;
   private String currentBackgroundId;
-  private final Map<CharacterPosition, CharacterSlot> visibleCharacters;
-  private final Map<String, Object> variables; // For future flag/variable system
+  private VnAudioCommand bgm; // last PLAY_BGM in effect, null once stopped
+  // persistent maps, so rollback checkpoints share everything but the entries changed between them
+  private final PersistentMap.View<CharacterPosition, CharacterSlot> visibleCharacters;
+  private final PersistentMap.View<String, Object> variables;
   private boolean waitingForInput;
   private int textRevealProgress; // For text animation
-  private final VnHistory history;
+  private VnHistory history;
   private final VnSettings settings;
   private boolean skipMode = false;
   private boolean autoPlayMode = false;
   private long autoPlayTimer = 0;
-  private final Set<Integer> readNodes; // Track which nodes have been read
+  private VnReadState readState = VnReadState.inMemory(); // Track which nodes have been read
   private VnTransition activeTransition;
   private long transitionStartTime;
   private String previousBackgroundIdDuringTransition;
@@ -31,27 +35,34 @@ public class VnState {
   private String hudMessage;
   private long hudMessageExpireAt;
   private Object rpgState = new com.jvn.core.rpg.RpgState(); // Optional RPG state payload (serializable)
+  private final ArrayDeque<Checkpoint> rollback = new ArrayDeque<>();
 
   public VnState() {
     this.currentNodeIndex = 0;
-    this.visibleCharacters = new HashMap<>();
-    this.variables = new HashMap<>();
+    this.visibleCharacters = new PersistentMap.View<>();
+    this.variables = new PersistentMap.View<>();
     this.waitingForInput = false;
     this.textRevealProgress = 0;
     this.history = new VnHistory();
     this.settings = new VnSettings();
-    this.readNodes = new HashSet<>();
   }
 
   public VnScenario getScenario() { return scenario; }
   public void setScenario(VnScenario scenario) {
     this.scenario = scenario;
     this.currentNodeIndex = 0;
+    if (scenario != null) this.readState = VnReadState.shared(scenario);
   }
 
   public int getCurrentNodeIndex() { return currentNodeIndex; }
-  public void setCurrentNodeIndex(int index) { this.currentNodeIndex = index; }
-  public void advance() { currentNodeIndex++; }
+  public void setCurrentNodeIndex(int index) {
+    this.currentNodeIndex = index;
+    prefetchBranches();
+  }
+  public void advance() {
+    currentNodeIndex++;
+    prefetchBranches();
+  }
 
   public VnNode getCurrentNode() {
     return scenario != null ? scenario.getNode(currentNodeIndex) : null;
@@ -59,6 +70,8 @@ public class VnState {
 
   public String getCurrentBackgroundId() { return currentBackgroundId; }
   public void setCurrentBackgroundId(String id) { this.currentBackgroundId = id; }
+  public VnAudioCommand getBgm() { return bgm; }
+  public void setBgm(VnAudioCommand bgm) { this.bgm = bgm; }
 
   public Map<CharacterPosition, CharacterSlot> getVisibleCharacters() {
     return visibleCharacters;
@@ -76,6 +89,9 @@ public class VnState {
     visibleCharacters.clear();
   }
 
+  /** Changes identity whenever the visible characters change, so render caches can compare it cheaply. */
+  public Object getCharactersVersion() { return visibleCharacters.snapshot(); }
+
   public boolean isWaitingForInput() { return waitingForInput; }
   public void setWaitingForInput(boolean waiting) { this.waitingForInput = waiting; }
 
@@ -91,10 +107,26 @@ public class VnState {
       Integer index = scenario.getLabelIndex(label);
       if (index != null) {
         currentNodeIndex = index;
+        prefetchBranches();
       }
     }
   }
 
+  /**
+   * On a paged scenario, starts loading the chunks the current node can lead to (the next node and its jump and
+   * choice targets), so they are decoded by the time the story moves on.
+   */
+  private void prefetchBranches() {
+    if (scenario == null || !scenario.isPaged()) return;
+    VnNode node = scenario.getNode(currentNodeIndex);
+    if (node == null) return;
+    scenario.prefetch(currentNodeIndex + 1);
+    if (node.getJumpLabel() != null) scenario.prefetchLabel(node.getJumpLabel());
+    for (Choice c : node.getChoices()) {
+      if (c.getTargetLabel() != null) scenario.prefetchLabel(c.getTargetLabel());
+    }
+  }
+
   public boolean isScenarioComplete() {
     if (scenario == null) return true;
     VnNode node = getCurrentNode();
@@ -102,6 +134,13 @@ public class VnState {
   }
 
   public VnHistory getHistory() { return history; }
+
+  /** Replaces the backlog; the previous one is cleared, which deletes its spill file. */
+  public void setHistory(VnHistory history) {
+    if (history == this.history) return;
+    this.history.clear();
+    this.history = history;
+  }
   public VnSettings getSettings() { return settings; }
 
   public boolean isSkipMode() { return skipMode; }
@@ -115,8 +154,10 @@ public class VnState {
   public void incrementAutoPlayTimer(long delta) { this.autoPlayTimer += delta; }
   public void resetAutoPlayTimer() { this.autoPlayTimer = 0; }
 
-  public boolean isNodeRead(int nodeIndex) { return readNodes.contains(nodeIndex); }
-  public void markNodeAsRead(int nodeIndex) { readNodes.add(nodeIndex); }
+  public boolean isNodeRead(int nodeIndex) { return readState.isRead(nodeIndex); }
+  public void markNodeAsRead(int nodeIndex) { readState.markRead(nodeIndex); }
+  /** Read status of the current scenario, shared by every playthrough of it. */
+  public VnReadState getReadState() { return readState; }
 
   public VnTransition getActiveTransition() { return activeTransition; }
   public void setActiveTransition(VnTransition transition) { 
@@ -166,10 +207,63 @@ public class VnState {
   public Object getRpgState() { return rpgState; }
   public void setRpgState(Object rpgState) { this.rpgState = rpgState; }
 
-  public Set<Integer> getReadNodes() { return new HashSet<>(readNodes); }
+  /** Position, background, BGM, variables, characters and backlog as of now; O(1) and shares unchanged entries. */
+  public Checkpoint checkpoint() {
+    return new Checkpoint(currentNodeIndex, currentBackgroundId, bgm, variables.snapshot(), visibleCharacters.snapshot(),
+      history.getAddedCount());
+  }
+
+  /** Puts the story back to {@code checkpoint}; the caller re-processes the node it points at. */
+  public void restore(Checkpoint checkpoint) {
+    this.currentNodeIndex = checkpoint.nodeIndex;
+    this.currentBackgroundId = checkpoint.backgroundId;
+    this.bgm = checkpoint.bgm;
+    this.variables.restore(checkpoint.variables);
+    this.visibleCharacters.restore(checkpoint.characters);
+    this.history.truncate(checkpoint.historyAdded);
+    this.activeTransition = null;
+    this.previousBackgroundIdDuringTransition = null;
+    this.waitingForInput = false;
+    this.textRevealProgress = 0;
+    prefetchBranches();
+  }
+
+  public void pushCheckpoint() {
+    rollback.addLast(checkpoint());
+    if (rollback.size() > ROLLBACK_LIMIT) rollback.removeFirst();
+  }
+  public Checkpoint popCheckpoint() { return rollback.pollLast(); }
+  public int getRollbackDepth() { return rollback.size(); }
+  public void clearRollback() { rollback.clear(); }
+
+  public Set<Integer> getReadNodes() { return readState.toSet(); }
+  /** Marks {@code read} as read; read status is global, so nodes already read stay read. */
   public void setReadNodes(Set<Integer> read) {
-    this.readNodes.clear();
-    if (read != null) this.readNodes.addAll(read);
+    if (read != null) for (int node : read) readState.markRead(node);
+  }
+
+  /** Immutable rollback point, see {@link #checkpoint()}. */
+  public static final class Checkpoint {
+    private final int nodeIndex;
+    private final String backgroundId;
+    private final VnAudioCommand bgm;
+    private final PersistentMap<String, Object> variables;
+    private final PersistentMap<CharacterPosition, CharacterSlot> characters;
+    private final int historyAdded;
+
+    private Checkpoint(int nodeIndex, String backgroundId, VnAudioCommand bgm, PersistentMap<String, Object> variables,
+                       PersistentMap<CharacterPosition, CharacterSlot> characters, int historyAdded) {
+      this.nodeIndex = nodeIndex;
+      this.backgroundId = backgroundId;
+      this.bgm = bgm;
+      this.variables = variables;
+      this.characters = characters;
+      this.historyAdded = historyAdded;
+    }
+
+    public int getNodeIndex() { return nodeIndex; }
+    public String getBackgroundId() { return backgroundId; }
+    public VnAudioCommand getBgm() { return bgm; }
   }
 
   public static class CharacterSlot {
@@ -16,7 +16,7 @@ public class VnSaveData implements Serializable {
   private int currentNodeIndex;
   private String currentBackgroundId;
   private Map<String, Object> variables;
-  private Set<Integer> readNodes;
+  private Set<Integer> readNodes; // only in saves written before read status became global (VnReadState)
   private Map<String, String[]> visibleCharacters; // position -> [characterId, expression]
   private boolean skipMode;
   private boolean autoPlayMode;
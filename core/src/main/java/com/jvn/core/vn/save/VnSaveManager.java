@@ -44,7 +44,8 @@ public class VnSaveManager {
     saveData.setCurrentNodeIndex(state.getCurrentNodeIndex());
     saveData.setCurrentBackgroundId(state.getCurrentBackgroundId());
     saveData.setVariables(new java.util.HashMap<>(state.getVariables()));
-    saveData.setReadNodes(state.getReadNodes());
+    // read status lives in the scenario's shared VnReadState rather than in each save
+    state.getReadState().flush();
 
     java.util.Map<String, String[]> vis = new java.util.HashMap<>();
     for (var entry : state.getVisibleCharacters().entrySet()) {
@@ -166,7 +167,7 @@ public class VnSaveManager {
     state.setCurrentNodeIndex(saveData.getCurrentNodeIndex());
     state.setCurrentBackgroundId(saveData.getCurrentBackgroundId());
     state.setVariables(saveData.getVariables());
-    state.setReadNodes(saveData.getReadNodes());
+    state.setReadNodes(saveData.getReadNodes()); // older saves still carry their own read nodes
 
     state.clearAllCharacters();
     for (var entry : saveData.getVisibleCharacters().entrySet()) {
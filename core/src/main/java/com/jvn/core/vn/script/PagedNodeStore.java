@@ -0,0 +1,186 @@
+package com.jvn.core.vn.script;
+
+import com.jvn.core.vn.VnNode;
+import com.jvn.core.vn.VnNodeStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * {@link VnNodeStore} over a compiled scenario file ({@link VnScenarioCodec}). The chunk table stays resident; a
+ * chunk body is read and decoded when one of its nodes is first needed, or earlier on a virtual thread when it is
+ * prefetched. At most {@code maxResident} decoded chunks are kept, dropping the least recently used.
+ *
+ * <p>If the file can no longer be read (e.g. the cache entry was evicted mid-story), the nodes are taken from
+ * {@code source}, typically the script parsed again, which is then kept in memory for the rest of the run. Only when
+ * that fails too does a lookup throw.
+ */
+final class PagedNodeStore implements VnNodeStore {
+  private static final Logger LOG = LoggerFactory.getLogger(PagedNodeStore.class);
+  private record Page(int chunk, VnNode[] nodes) {}
+
+  private final Path file;
+  private final int[] firstNode;
+  private final int[] counts;
+  private final int[] lengths;
+  private final long[] offsets;
+  private final int size;
+  private final int maxResident;
+  private final LinkedHashMap<Integer, VnNode[]> resident;
+  private final Supplier<List<VnNode>> source; // null when there is nothing to fall back to
+  private final Object recoverLock = new Object();
+  private volatile List<VnNode> recovered; // every node, once the file has failed
+  private final Map<Integer, CompletableFuture<VnNode[]>> pending = new HashMap<>();
+  private volatile Page last; // chunk of the latest lookup, so stepping through a chunk skips the map
+  private int loads;
+
+  PagedNodeStore(Path file, long dataStart, int[] firstNode, int[] counts, int[] lengths, int size, int maxResident,
+                 Supplier<List<VnNode>> source) {
+    this.file = file;
+    this.source = source;
+    this.firstNode = firstNode;
+    this.counts = counts;
+    this.lengths = lengths;
+    this.size = size;
+    this.maxResident = Math.max(2, maxResident);
+    this.offsets = new long[lengths.length];
+    long offset = dataStart;
+    for (int c = 0; c < lengths.length; c++) {
+      offsets[c] = offset;
+      offset += lengths[c];
+    }
+    this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, VnNode[]> eldest) {
+        return size() > PagedNodeStore.this.maxResident;
+      }
+    };
+  }
+
+  @Override public int size() { return size; }
+  @Override public int getChunkCount() { return counts.length; }
+  @Override public synchronized int getResidentChunks() { return resident.size(); }
+  @Override public synchronized int getLoads() { return loads; }
+
+  @Override
+  public VnNode get(int index) {
+    if (index < 0 || index >= size) return null;
+    Page p = last;
+    if (p == null || index < firstNode[p.chunk] || index >= firstNode[p.chunk] + counts[p.chunk]) {
+      int c = chunkOf(index);
+      p = new Page(c, chunk(c));
+      last = p;
+    }
+    return p.nodes[index - firstNode[p.chunk]];
+  }
+
+  @Override
+  public void prefetch(int index) {
+    if (index < 0 || index >= size) return;
+    int c = chunkOf(index);
+    CompletableFuture<VnNode[]> f = new CompletableFuture<>();
+    synchronized (this) {
+      if (resident.containsKey(c) || pending.containsKey(c)) return;
+      pending.put(c, f);
+    }
+    Thread.ofVirtual().name("vn-prefetch").start(() -> {
+      try {
+        f.complete(load(c));
+      } catch (RuntimeException e) {
+        f.completeExceptionally(e);
+      } finally {
+        synchronized (this) { pending.remove(c); }
+      }
+    });
+  }
+
+  private VnNode[] chunk(int c) {
+    CompletableFuture<VnNode[]> f;
+    synchronized (this) {
+      VnNode[] nodes = resident.get(c);
+      if (nodes != null) return nodes;
+      f = pending.get(c);
+    }
+    if (f != null) {
+      try {
+        return f.join();
+      } catch (CompletionException ignored) {
+        // the prefetch failed; load in the foreground so the error surfaces here
+      }
+    }
+    return load(c);
+  }
+
+  private VnNode[] load(int c) {
+    VnNode[] nodes;
+    if (recovered != null) {
+      nodes = slice(recovered, c);
+    } else {
+      try {
+        nodes = VnScenarioCodec.decodeChunk(read(c), counts[c]);
+      } catch (IOException | RuntimeException e) {
+        nodes = recover(c, e);
+      }
+    }
+    synchronized (this) {
+      VnNode[] existing = resident.get(c);
+      if (existing != null) return existing; // a concurrent load got there first
+      resident.put(c, nodes);
+      loads++;
+      return nodes;
+    }
+  }
+
+  private VnNode[] recover(int c, Exception cause) {
+    synchronized (recoverLock) {
+      if (recovered == null && source != null) {
+        try {
+          List<VnNode> all = source.get();
+          if (all != null && all.size() == size) {
+            LOG.warn("Scenario chunk {} of {} is unreadable ({}); using the script instead", c, file, cause.toString());
+            recovered = all;
+          }
+        } catch (RuntimeException e) {
+          cause.addSuppressed(e);
+        }
+      }
+    }
+    if (recovered != null) return slice(recovered, c);
+    IOException io = cause instanceof IOException e ? e : new IOException(cause);
+    throw new UncheckedIOException("Could not load scenario chunk " + c + " from " + file, io);
+  }
+
+  private VnNode[] slice(List<VnNode> all, int c) {
+    return all.subList(firstNode[c], firstNode[c] + counts[c]).toArray(new VnNode[0]);
+  }
+
+  private byte[] read(int c) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(lengths[c]);
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (buf.hasRemaining()) {
+        if (ch.read(buf, offsets[c] + buf.position()) < 0) throw new EOFException("Truncated compiled scenario " + file);
+      }
+    }
+    return buf.array();
+  }
+
+  private int chunkOf(int index) {
+    int i = Arrays.binarySearch(firstNode, index);
+    return i >= 0 ? i : -i - 2;
+  }
+}
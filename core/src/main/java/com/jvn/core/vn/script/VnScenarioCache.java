@@ -0,0 +1,150 @@
+package com.jvn.core.vn.script;
+
+import com.jvn.core.vn.VnNode;
+import com.jvn.core.vn.VnScenario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Loads VN scripts through a directory of compiled scenarios ({@link VnScenarioCodec}) keyed by a SHA-256 of the
+ * script text. An unchanged script decodes straight from its compiled file; a new or edited one is parsed once and
+ * compiled for the next launch. The cache is best effort: an unreadable or unwritable entry just falls back to the
+ * parser.
+ *
+ * <p>Scenarios with more than {@code jvn.scenarioPageNodes} nodes (default 20000) are opened paged from their
+ * compiled file, keeping at most {@code jvn.scenarioResidentChunks} decoded chunks (default 16), so memory follows
+ * the route being played rather than the whole story.
+ *
+ * <p>{@link #main} precompiles scripts into a cache directory, so a build can ship the compiled files.
+ */
+public class VnScenarioCache {
+  private static final Logger LOG = LoggerFactory.getLogger(VnScenarioCache.class);
+
+  private final Path dir;
+  private int pageAboveNodes = Integer.getInteger("jvn.scenarioPageNodes", 20000);
+  private int maxResidentChunks = Integer.getInteger("jvn.scenarioResidentChunks", 16);
+  private int hits;
+  private int misses;
+
+  public VnScenarioCache() {
+    this(Paths.get(System.getProperty("jvn.scenarioCache", System.getProperty("user.home") + "/.jvn/cache/scenarios")));
+  }
+
+  public VnScenarioCache(Path dir) { this.dir = dir; }
+
+  public Path getDirectory() { return dir; }
+  public int getHits() { return hits; }
+  public int getMisses() { return misses; }
+
+  /** Pages scenarios with more than {@code pageAboveNodes} nodes; {@link Integer#MAX_VALUE} turns paging off. */
+  public void setPaging(int pageAboveNodes, int maxResidentChunks) {
+    this.pageAboveNodes = pageAboveNodes;
+    this.maxResidentChunks = maxResidentChunks;
+  }
+
+  public VnScenario load(InputStream in) throws IOException { return load(in.readAllBytes()); }
+
+  /** Loads a script read from {@code source} (e.g. its URL), which the scenario keeps as {@link VnScenario#getSource}. */
+  public VnScenario load(InputStream in, String source) throws IOException {
+    VnScenario sc = load(in.readAllBytes());
+    sc.setSource(source);
+    return sc;
+  }
+
+  public VnScenario load(byte[] script) throws IOException {
+    Path file = dir.resolve(key(script) + ".vnc");
+    // paged nodes whose compiled file goes missing mid-story are parsed from the script again, and the file rewritten
+    Supplier<List<VnNode>> reparse = () -> {
+      VnScenario sc = parse(script);
+      store(file, sc);
+      return sc.getNodes();
+    };
+    if (Files.isRegularFile(file)) {
+      try {
+        VnScenario sc = VnScenarioCodec.open(file, pageAboveNodes, maxResidentChunks, reparse);
+        hits++;
+        return sc;
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Discarding unreadable compiled scenario {}: {}", file, e.toString());
+        try { Files.deleteIfExists(file); } catch (IOException ignored) {}
+      }
+    }
+    misses++;
+    VnScenario sc = new VnScriptParser().parse(new ByteArrayInputStream(script));
+    if (store(file, sc) && sc.getNodes().size() > pageAboveNodes) {
+      try {
+        return VnScenarioCodec.open(file, pageAboveNodes, maxResidentChunks, reparse); // drop the parsed nodes
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Could not page compiled scenario {}: {}", file, e.toString());
+      }
+    }
+    return sc;
+  }
+
+  private static VnScenario parse(byte[] script) {
+    try {
+      return new VnScriptParser().parse(new ByteArrayInputStream(script));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private boolean store(Path file, VnScenario sc) {
+    try {
+      Files.createDirectories(dir);
+      Path tmp = Files.createTempFile(dir, "vnc", ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+        VnScenarioCodec.write(sc, out);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(tmp);
+        throw e;
+      }
+      // a concurrent launch may write the same entry; either copy is complete, so the last move wins
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Could not cache compiled scenario {}: {}", file, e.toString());
+      return false;
+    }
+  }
+
+  /** Cache key of a script: the codec version and a SHA-256 of its bytes. */
+  public static String key(byte[] script) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update((byte) VnScenarioCodec.VERSION);
+      return HexFormat.of().formatHex(md.digest(script));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  /** {@code VnScenarioCache <cacheDir> <script.vns>...}: compiles each script into the cache directory. */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: VnScenarioCache <cacheDir> <script.vns>...");
+      System.exit(2);
+    }
+    VnScenarioCache cache = new VnScenarioCache(Paths.get(args[0]));
+    for (int i = 1; i < args.length; i++) {
+      VnScenario sc = cache.load(Files.readAllBytes(Paths.get(args[i])));
+      System.out.println(args[i] + " -> " + sc.getId() + " (" + sc.getNodes().size() + " nodes)");
+    }
+  }
+}
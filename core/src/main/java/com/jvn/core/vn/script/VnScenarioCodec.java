@@ -0,0 +1,427 @@
+package com.jvn.core.vn.script;
+
+import com.jvn.core.vn.CharacterPosition;
+import com.jvn.core.vn.Choice;
+import com.jvn.core.vn.DialogueLine;
+import com.jvn.core.vn.VnAudioCommand;
+import com.jvn.core.vn.VnBackground;
+import com.jvn.core.vn.VnCharacter;
+import com.jvn.core.vn.VnExternalCommand;
+import com.jvn.core.vn.VnNode;
+import com.jvn.core.vn.VnNodeType;
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnTransition;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compiled (binary) form of a {@link VnScenario}, so a script that has not changed loads without running the
+ * parser. Nodes are stored in chunks cut at label boundaries; each chunk carries its own string pool (speaker names,
+ * lines, labels, paths stored once) and nodes store only the fields they set. Because chunks are self-contained, a
+ * large scenario can be opened paged ({@link #open}): the header and chunk table are read up front and chunk bodies
+ * are decoded when the story reaches them.
+ *
+ * <p>Layout: magic {@code "JVNC"}, version byte, then the length-prefixed header (string pool, scenario id,
+ * characters, backgrounds, label table, node count, {@link VnScenario#getFingerprint fingerprint}), the
+ * length-prefixed chunk table (first node, node count and byte length per chunk) and the chunk bodies in order.
+ * Counts and indices are varints; string references are pool index + 1 with 0 for null.
+ */
+public final class VnScenarioCodec {
+  public static final int MAGIC = 0x4A564E43; // "JVNC"
+  /** Bump whenever the encoding or the parser's output changes, so stale cache entries are not reused. */
+  public static final int VERSION = 3;
+
+  /** A chunk closes at the first label after it has this many nodes, and regardless at {@link #MAX_CHUNK_NODES}. */
+  static final int MIN_CHUNK_NODES = 64;
+  static final int MAX_CHUNK_NODES = 512;
+
+  private static final int F_DIALOGUE = 1;
+  private static final int F_CHOICES = 1 << 1;
+  private static final int F_BACKGROUND = 1 << 2;
+  private static final int F_JUMP = 1 << 3;
+  private static final int F_AUDIO = 1 << 4;
+  private static final int F_TRANSITION = 1 << 5;
+  private static final int F_WAIT = 1 << 6;
+  private static final int F_SHOW = 1 << 7;
+  private static final int F_HIDE = 1 << 8;
+  private static final int F_POSITION = 1 << 9;
+  private static final int F_EXTERNAL = 1 << 10;
+
+  private VnScenarioCodec() {}
+
+  public static void write(VnScenario scenario, OutputStream out) throws IOException {
+    List<VnNode> nodes = scenario.getNodes();
+    Section header = new Section();
+    header.str(scenario.getId());
+    header.varInt(scenario.getCharacters().size());
+    for (VnCharacter c : scenario.getCharacters().values()) {
+      header.str(c.getId());
+      header.str(c.getDisplayName());
+      header.varInt(c.getExpressions().size());
+      for (Map.Entry<String, String> e : c.getExpressions().entrySet()) {
+        header.str(e.getKey());
+        header.str(e.getValue());
+      }
+    }
+    header.varInt(scenario.getBackgrounds().size());
+    for (VnBackground b : scenario.getBackgrounds().values()) {
+      header.str(b.getId());
+      header.str(b.getImagePath());
+    }
+    header.varInt(scenario.getLabels().size());
+    for (Map.Entry<String, Integer> e : scenario.getLabels().entrySet()) {
+      header.str(e.getKey());
+      header.varInt(e.getValue());
+    }
+    header.varInt(nodes.size());
+    header.out.writeLong(scenario.getFingerprint());
+
+    int[] starts = chunkStarts(scenario);
+    ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+    DataOutputStream table = new DataOutputStream(tableBytes);
+    ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+    varInt(table, starts.length);
+    for (int c = 0; c < starts.length; c++) {
+      int end = c + 1 < starts.length ? starts[c + 1] : nodes.size();
+      Section chunk = new Section();
+      for (int i = starts[c]; i < end; i++) writeNode(chunk.out, chunk.pool, nodes.get(i));
+      byte[] bytes = chunk.toByteArray();
+      varInt(table, starts[c]);
+      varInt(table, end - starts[c]);
+      varInt(table, bytes.length);
+      chunks.write(bytes);
+    }
+    table.flush();
+
+    byte[] headerBytes = header.toByteArray();
+    DataOutputStream d = new DataOutputStream(out);
+    d.writeInt(MAGIC);
+    d.writeByte(VERSION);
+    d.writeInt(headerBytes.length);
+    d.write(headerBytes);
+    d.writeInt(tableBytes.size());
+    tableBytes.writeTo(d);
+    chunks.writeTo(d);
+    d.flush();
+  }
+
+  /** Decodes the whole scenario into memory. */
+  public static VnScenario read(InputStream input) throws IOException {
+    DataInputStream in = new DataInputStream(input);
+    Layout layout = readLayout(in);
+    readChunks(in, layout);
+    return layout.builder.build();
+  }
+
+  /**
+   * Opens a compiled scenario file, paging its nodes when there are more than {@code pageAboveNodes} of them:
+   * then only the header and chunk table are read now, and at most {@code maxResidentChunks} decoded chunks are kept.
+   * Smaller scenarios are decoded into memory as by {@link #read}.
+   */
+  public static VnScenario open(Path file, int pageAboveNodes, int maxResidentChunks) throws IOException {
+    return open(file, pageAboveNodes, maxResidentChunks, null);
+  }
+
+  /**
+   * As {@link #open(Path, int, int)}; when a chunk of a paged scenario can no longer be read from {@code file}, its
+   * nodes come from {@code source} instead (e.g. the script parsed again), which may be null.
+   */
+  public static VnScenario open(Path file, int pageAboveNodes, int maxResidentChunks, Supplier<List<VnNode>> source) throws IOException {
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+      DataInputStream in = new DataInputStream(input);
+      Layout layout = readLayout(in);
+      if (layout.nodeCount > pageAboveNodes) {
+        return layout.builder.nodeStore(new PagedNodeStore(file, layout.dataStart, layout.firstNode, layout.counts,
+          layout.lengths, layout.nodeCount, maxResidentChunks, source)).build();
+      }
+      readChunks(in, layout);
+      return layout.builder.build();
+    }
+  }
+
+  /** Header and chunk table of a compiled scenario; {@code builder} has everything but the nodes. */
+  private static final class Layout {
+    VnScenario.Builder builder;
+    int nodeCount;
+    int[] firstNode;
+    int[] counts;
+    int[] lengths;
+    long dataStart;
+  }
+
+  private static Layout readLayout(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) throw new IOException("Not a compiled VN scenario");
+    int version = in.readUnsignedByte();
+    if (version != VERSION) throw new IOException("Unsupported compiled scenario version " + version);
+    byte[] headerBytes = readBlock(in);
+    byte[] tableBytes = readBlock(in);
+
+    Layout l = new Layout();
+    DataInputStream h = new DataInputStream(new ByteArrayInputStream(headerBytes));
+    String[] pool = readPool(h);
+    VnScenario.Builder b = VnScenario.builder(str(h, pool));
+    int characters = varInt(h);
+    for (int i = 0; i < characters; i++) {
+      VnCharacter.Builder cb = VnCharacter.builder(str(h, pool)).displayName(str(h, pool));
+      int expressions = varInt(h);
+      for (int k = 0; k < expressions; k++) cb.addExpression(str(h, pool), str(h, pool));
+      b.addCharacter(cb.build());
+    }
+    int backgrounds = varInt(h);
+    for (int i = 0; i < backgrounds; i++) b.addBackground(new VnBackground(str(h, pool), str(h, pool)));
+    int labels = varInt(h);
+    for (int i = 0; i < labels; i++) b.addLabel(str(h, pool), varInt(h));
+    l.builder = b;
+    l.nodeCount = varInt(h);
+    b.fingerprint(h.readLong());
+
+    DataInputStream t = new DataInputStream(new ByteArrayInputStream(tableBytes));
+    int chunkCount = varInt(t);
+    l.firstNode = new int[chunkCount];
+    l.counts = new int[chunkCount];
+    l.lengths = new int[chunkCount];
+    int expected = 0;
+    for (int c = 0; c < chunkCount; c++) {
+      l.firstNode[c] = varInt(t);
+      l.counts[c] = varInt(t);
+      l.lengths[c] = varInt(t);
+      if (l.firstNode[c] != expected || l.counts[c] <= 0) throw new IOException("Corrupt compiled scenario: chunk " + c);
+      expected += l.counts[c];
+    }
+    if (expected != l.nodeCount) throw new IOException("Corrupt compiled scenario: " + expected + " of " + l.nodeCount + " nodes");
+    l.dataStart = 4 + 1 + 4 + headerBytes.length + 4 + tableBytes.length;
+    return l;
+  }
+
+  private static void readChunks(DataInputStream in, Layout layout) throws IOException {
+    for (int c = 0; c < layout.counts.length; c++) {
+      byte[] bytes = in.readNBytes(layout.lengths[c]);
+      if (bytes.length != layout.lengths[c]) throw new EOFException("Truncated compiled scenario");
+      for (VnNode n : decodeChunk(bytes, layout.counts[c])) layout.builder.addNode(n);
+    }
+  }
+
+  /** Nodes of one chunk body. */
+  static VnNode[] decodeChunk(byte[] bytes, int count) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    String[] pool = readPool(in);
+    VnNode[] nodes = new VnNode[count];
+    for (int i = 0; i < count; i++) nodes[i] = readNode(in, pool);
+    return nodes;
+  }
+
+  /** First node of every chunk. */
+  static int[] chunkStarts(VnScenario scenario) {
+    int size = scenario.getNodes().size();
+    boolean[] labelAt = new boolean[size + 1];
+    for (int index : scenario.getLabels().values()) {
+      if (index >= 0 && index <= size) labelAt[index] = true;
+    }
+    int[] starts = new int[size / MIN_CHUNK_NODES + 1];
+    int count = 0;
+    int start = 0;
+    for (int i = 1; i < size; i++) {
+      int len = i - start;
+      if ((labelAt[i] && len >= MIN_CHUNK_NODES) || len >= MAX_CHUNK_NODES) {
+        starts[count++] = start;
+        start = i;
+      }
+    }
+    if (size > 0) starts[count++] = start;
+    return Arrays.copyOf(starts, count);
+  }
+
+  private static void writeNode(DataOutputStream out, Map<String, Integer> pool, VnNode n) throws IOException {
+    int flags = 0;
+    if (n.getDialogue() != null) flags |= F_DIALOGUE;
+    if (!n.getChoices().isEmpty()) flags |= F_CHOICES;
+    if (n.getBackgroundId() != null) flags |= F_BACKGROUND;
+    if (n.getJumpLabel() != null) flags |= F_JUMP;
+    if (n.getAudioCommand() != null) flags |= F_AUDIO;
+    if (n.getTransition() != null) flags |= F_TRANSITION;
+    if (n.getWaitMs() != 0) flags |= F_WAIT;
+    if (n.getCharacterToShow() != null) flags |= F_SHOW;
+    if (n.getCharacterToHide() != null) flags |= F_HIDE;
+    if (n.getShowPosition() != null) flags |= F_POSITION;
+    if (n.getExternalCommand() != null) flags |= F_EXTERNAL;
+    out.writeByte(n.getType().ordinal());
+    varInt(out, flags);
+    str(out, pool, n.getShowExpression());
+    if ((flags & F_DIALOGUE) != 0) {
+      DialogueLine dl = n.getDialogue();
+      str(out, pool, dl.getSpeakerName());
+      str(out, pool, dl.getText());
+      str(out, pool, dl.getCharacterId());
+      str(out, pool, dl.getExpression());
+      out.writeByte(dl.getPosition() == null ? 0 : dl.getPosition().ordinal() + 1);
+    }
+    if ((flags & F_CHOICES) != 0) {
+      varInt(out, n.getChoices().size());
+      for (Choice c : n.getChoices()) {
+        str(out, pool, c.getText());
+        str(out, pool, c.getTargetLabel());
+        str(out, pool, c.getCondition());
+        out.writeBoolean(c.isEnabled());
+      }
+    }
+    if ((flags & F_BACKGROUND) != 0) str(out, pool, n.getBackgroundId());
+    if ((flags & F_JUMP) != 0) str(out, pool, n.getJumpLabel());
+    if ((flags & F_AUDIO) != 0) {
+      VnAudioCommand a = n.getAudioCommand();
+      out.writeByte(a.getType().ordinal());
+      str(out, pool, a.getTrackId());
+      out.writeBoolean(a.isLoop());
+      out.writeFloat(a.getVolume());
+      out.writeLong(a.getDurationMs());
+    }
+    if ((flags & F_TRANSITION) != 0) {
+      VnTransition t = n.getTransition();
+      out.writeByte(t.getType().ordinal());
+      out.writeLong(t.getDurationMs());
+      str(out, pool, t.getTargetBackgroundId());
+    }
+    if ((flags & F_WAIT) != 0) out.writeLong(n.getWaitMs());
+    if ((flags & F_SHOW) != 0) str(out, pool, n.getCharacterToShow());
+    if ((flags & F_HIDE) != 0) str(out, pool, n.getCharacterToHide());
+    if ((flags & F_POSITION) != 0) out.writeByte(n.getShowPosition().ordinal());
+    if ((flags & F_EXTERNAL) != 0) {
+      str(out, pool, n.getExternalCommand().getProvider());
+      str(out, pool, n.getExternalCommand().getPayload());
+    }
+  }
+
+  private static VnNode readNode(DataInputStream in, String[] pool) throws IOException {
+    VnNode.Builder b = VnNode.builder(VnNodeType.values()[in.readUnsignedByte()]);
+    int flags = varInt(in);
+    b.showExpression(str(in, pool));
+    if ((flags & F_DIALOGUE) != 0) {
+      DialogueLine.Builder dl = DialogueLine.builder()
+        .speakerName(str(in, pool))
+        .text(str(in, pool))
+        .characterId(str(in, pool))
+        .expression(str(in, pool));
+      int pos = in.readUnsignedByte();
+      b.dialogue(dl.position(pos == 0 ? null : CharacterPosition.values()[pos - 1]).build());
+    }
+    if ((flags & F_CHOICES) != 0) {
+      int count = varInt(in);
+      List<Choice> choices = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        choices.add(Choice.builder()
+          .text(str(in, pool))
+          .targetLabel(str(in, pool))
+          .condition(str(in, pool))
+          .enabled(in.readBoolean())
+          .build());
+      }
+      b.choices(choices);
+    }
+    if ((flags & F_BACKGROUND) != 0) b.backgroundId(str(in, pool));
+    if ((flags & F_JUMP) != 0) b.jumpLabel(str(in, pool));
+    if ((flags & F_AUDIO) != 0) {
+      VnAudioCommand.AudioCommandType type = VnAudioCommand.AudioCommandType.values()[in.readUnsignedByte()];
+      b.audioCommand(VnAudioCommand.builder(type)
+        .trackId(str(in, pool))
+        .loop(in.readBoolean())
+        .volume(in.readFloat())
+        .durationMs(in.readLong())
+        .build());
+    }
+    if ((flags & F_TRANSITION) != 0) {
+      VnTransition.TransitionType type = VnTransition.TransitionType.values()[in.readUnsignedByte()];
+      b.transition(VnTransition.builder(type).durationMs(in.readLong()).targetBackgroundId(str(in, pool)).build());
+    }
+    if ((flags & F_WAIT) != 0) b.waitMs(in.readLong());
+    if ((flags & F_SHOW) != 0) b.characterToShow(str(in, pool));
+    if ((flags & F_HIDE) != 0) b.characterToHide(str(in, pool));
+    if ((flags & F_POSITION) != 0) b.showPosition(CharacterPosition.values()[in.readUnsignedByte()]);
+    if ((flags & F_EXTERNAL) != 0) b.external(new VnExternalCommand(str(in, pool), str(in, pool)));
+    return b.build();
+  }
+
+  private static byte[] readBlock(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) throw new IOException("Corrupt compiled scenario: block length " + length);
+    byte[] bytes = in.readNBytes(length);
+    if (bytes.length != length) throw new EOFException("Truncated compiled scenario");
+    return bytes;
+  }
+
+  private static String[] readPool(DataInputStream in) throws IOException {
+    String[] pool = new String[varInt(in)];
+    for (int i = 0; i < pool.length; i++) pool[i] = in.readUTF();
+    return pool;
+  }
+
+  /** Body bytes plus the string pool they reference; serialized pool first. */
+  private static final class Section {
+    final Map<String, Integer> pool = new LinkedHashMap<>();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+
+    void str(String s) throws IOException { VnScenarioCodec.str(out, pool, s); }
+    void varInt(int v) throws IOException { VnScenarioCodec.varInt(out, v); }
+
+    byte[] toByteArray() throws IOException {
+      ByteArrayOutputStream all = new ByteArrayOutputStream(bytes.size() + pool.size() * 8 + 4);
+      DataOutputStream d = new DataOutputStream(all);
+      VnScenarioCodec.varInt(d, pool.size());
+      for (String s : pool.keySet()) d.writeUTF(s);
+      out.flush();
+      bytes.writeTo(d);
+      d.flush();
+      return all.toByteArray();
+    }
+  }
+
+  private static void str(DataOutputStream out, Map<String, Integer> pool, String s) throws IOException {
+    if (s == null) { varInt(out, 0); return; }
+    Integer idx = pool.get(s);
+    if (idx == null) {
+      idx = pool.size();
+      pool.put(s, idx);
+    }
+    varInt(out, idx + 1);
+  }
+
+  private static String str(DataInputStream in, String[] pool) throws IOException {
+    int ref = varInt(in);
+    if (ref == 0) return null;
+    if (ref > pool.length) throw new IOException("Corrupt compiled scenario: string " + ref + " of " + pool.length);
+    return pool[ref - 1];
+  }
+
+  private static void varInt(DataOutputStream out, int v) throws IOException {
+    while ((v & ~0x7F) != 0) {
+      out.writeByte((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out.writeByte(v);
+  }
+
+  private static int varInt(DataInputStream in) throws IOException {
+    int v = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = in.readUnsignedByte();
+      v |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return v;
+    }
+    throw new IOException("Malformed varint in compiled scenario");
+  }
+}
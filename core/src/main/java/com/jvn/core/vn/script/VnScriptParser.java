@@ -7,9 +7,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * Parses text-based VN scripts into VnScenario objects
@@ -25,18 +25,14 @@ import java.util.regex.Pattern;
  * [background bgId]
  * [jump labelName]
  * [end]
+ *
+ * Lines are scanned by hand rather than matched against regular expressions: the first character picks the
+ * line kind ({@code @} directive, {@code >} choice, {@code [} command, otherwise {@code Speaker:} dialogue) and the
+ * fields are sliced out by index. The accepted syntax is exactly the one the original patterns described,
+ * including their whitespace rules and fall-through to dialogue, so the scenarios built are unchanged.
  */
 public class VnScriptParser {
   
-  private static final Pattern SCENARIO_PATTERN = Pattern.compile("^@scenario\\s+(.+)$");
-  private static final Pattern CHARACTER_PATTERN = Pattern.compile("^@character\\s+(\\S+)\\s+\"([^\"]+)\"$");
-  private static final Pattern BACKGROUND_PATTERN = Pattern.compile("^@background\\s+(\\S+)\\s+(.+)$");
-  private static final Pattern CHARIMG_PATTERN = Pattern.compile("^@charimg\\s+(\\S+)\\s+(\\S+)\\s+(.+)$");
-  private static final Pattern LABEL_PATTERN = Pattern.compile("^@label\\s+(.+)$");
-  private static final Pattern DIALOGUE_PATTERN = Pattern.compile("^([^:]+):\\s*(.+)$");
-  private static final Pattern CHOICE_PATTERN = Pattern.compile("^>\\s*(.+?)(?:\\s*->\\s*(.+))?$");
-  private static final Pattern COMMAND_PATTERN = Pattern.compile("^\\[([^\\]]+)\\]$");
-  
   public VnScenario parse(InputStream input) throws IOException {
     BufferedReader reader = new BufferedReader(new InputStreamReader(input));
     String scenarioId = "untitled";
@@ -47,21 +43,23 @@ public class VnScriptParser {
     int lineNumber = 0;
     
     // Accumulate character definitions to allow expression mapping via @charimg
-    java.util.Map<String, com.jvn.core.vn.VnCharacter.Builder> charBuilders = new java.util.HashMap<>();
+    Map<String, VnCharacter.Builder> charBuilders = new HashMap<>();
 
     while ((line = reader.readLine()) != null) {
       lineNumber++;
       line = line.trim();
+      int n = line.length();
       
       // Skip empty lines and comments
-      if (line.isEmpty() || line.startsWith("#")) {
+      if (n == 0 || line.charAt(0) == '#') {
         continue;
       }
+      char first = line.charAt(0);
+      int i;
       
-      // Scenario declaration
-      Matcher scenarioMatcher = SCENARIO_PATTERN.matcher(line);
-      if (scenarioMatcher.matches()) {
-        scenarioId = scenarioMatcher.group(1);
+      // Scenario declaration: @scenario <id>
+      if (first == '@' && (i = keyword(line, "@scenario")) > 0 && !hasLineBreak(line, i, n)) {
+        scenarioId = line.substring(i);
         builder = new VnScenarioBuilder(scenarioId);
         continue;
       }
@@ -70,258 +68,82 @@ public class VnScriptParser {
         builder = new VnScenarioBuilder(scenarioId);
       }
       
-      // Character definition
-      Matcher charMatcher = CHARACTER_PATTERN.matcher(line);
-      if (charMatcher.matches()) {
-        String id = charMatcher.group(1);
-        String name = charMatcher.group(2);
-        // Track/merge builder so expressions from @charimg can be added later
-        com.jvn.core.vn.VnCharacter.Builder cb = charBuilders.get(id);
-        if (cb == null) { cb = com.jvn.core.vn.VnCharacter.builder(id); charBuilders.put(id, cb); }
-        cb.displayName(name);
-        // Keep compatibility by adding a simple character entry now (will be replaced at end if @charimg used)
-        builder.addCharacter(id, name);
-        continue;
-      }
-      
-      // Background definition
-      Matcher bgMatcher = BACKGROUND_PATTERN.matcher(line);
-      if (bgMatcher.matches()) {
-        String id = bgMatcher.group(1);
-        String path = bgMatcher.group(2);
-        builder.addBackground(id, path);
-        continue;
-      }
-
-      // Character image mapping: @charimg <charId> <expression> <path>
-      Matcher imgMatcher = CHARIMG_PATTERN.matcher(line);
-      if (imgMatcher.matches()) {
-        String id = imgMatcher.group(1);
-        String expr = imgMatcher.group(2);
-        String path = imgMatcher.group(3);
-        com.jvn.core.vn.VnCharacter.Builder cb = charBuilders.get(id);
-        if (cb == null) { cb = com.jvn.core.vn.VnCharacter.builder(id); charBuilders.put(id, cb); }
-        cb.addExpression(expr, path);
-        continue;
-      }
-      
-      // Label
-      Matcher labelMatcher = LABEL_PATTERN.matcher(line);
-      if (labelMatcher.matches()) {
-        flushChoices(builder, pendingChoices);
-        builder.label(labelMatcher.group(1));
-        continue;
-      }
-      
-      // Choice
-      Matcher choiceMatcher = CHOICE_PATTERN.matcher(line);
-      if (choiceMatcher.matches()) {
-        String text = choiceMatcher.group(1);
-        String target = choiceMatcher.groupCount() > 1 ? choiceMatcher.group(2) : null;
-        String cond = null;
-        java.util.regex.Matcher m = java.util.regex.Pattern.compile("^(.*)\\[if\\s+([^\\]]+)\\]$").matcher(text);
-        if (m.matches()) {
-          text = m.group(1).trim();
-          cond = m.group(2).trim();
+      if (first == '@') {
+        // Character definition: @character <id> "<Display Name>"
+        if ((i = keyword(line, "@character")) > 0) {
+          int j = skipToken(line, i);
+          int k = skipSpace(line, j);
+          if (k > j && n - k >= 3 && line.charAt(k) == '"' && line.indexOf('"', k + 1) == n - 1) {
+            String id = line.substring(i, j);
+            String name = line.substring(k + 1, n - 1);
+            // Track/merge builder so expressions from @charimg can be added later
+            VnCharacter.Builder cb = charBuilders.get(id);
+            if (cb == null) { cb = VnCharacter.builder(id); charBuilders.put(id, cb); }
+            cb.displayName(name);
+            // Keep compatibility by adding a simple character entry now (will be replaced at end if @charimg used)
+            builder.addCharacter(id, name);
+            continue;
+          }
+        }
+        
+        // Background definition: @background <id> <path>
+        if ((i = keyword(line, "@background")) > 0) {
+          int j = skipToken(line, i);
+          int k = skipSpace(line, j);
+          if (k > j && k < n && !hasLineBreak(line, k, n)) {
+            builder.addBackground(line.substring(i, j), line.substring(k));
+            continue;
+          }
         }
-        Choice.Builder choiceBuilder = Choice.builder().text(text);
-        if (cond != null) choiceBuilder.condition(cond);
-        if (target != null) {
-          choiceBuilder.targetLabel(target);
+
+        // Character image mapping: @charimg <charId> <expression> <path>
+        if ((i = keyword(line, "@charimg")) > 0) {
+          int j = skipToken(line, i);
+          int k = skipSpace(line, j);
+          int l = skipToken(line, k);
+          int m = skipSpace(line, l);
+          if (k > j && l > k && m > l && m < n && !hasLineBreak(line, m, n)) {
+            String id = line.substring(i, j);
+            VnCharacter.Builder cb = charBuilders.get(id);
+            if (cb == null) { cb = VnCharacter.builder(id); charBuilders.put(id, cb); }
+            cb.addExpression(line.substring(k, l), line.substring(m));
+            continue;
+          }
         }
-        pendingChoices.add(choiceBuilder.build());
-        continue;
-      }
-      
-      // Commands
-      Matcher cmdMatcher = COMMAND_PATTERN.matcher(line);
-      if (cmdMatcher.matches()) {
-        flushChoices(builder, pendingChoices);
-        String[] parts = cmdMatcher.group(1).split("\\s+", 2);
-        String cmd = parts[0];
-        String arg = parts.length > 1 ? parts[1] : null;
         
-        switch (cmd.toLowerCase()) {
-          case "background":
-          case "bg":
-            if (arg != null) builder.background(arg);
-            break;
-          case "jump":
-            if (arg != null) builder.jump(arg);
-            break;
-          case "end":
-            builder.end();
-            break;
-          case "bgm":
-            if (arg != null && !arg.isEmpty()) builder.playBgm(arg, true);
-            break;
-          case "bgm_stop":
-            builder.stopBgm();
-            break;
-          case "bgm_fadeout":
-            if (arg != null && !arg.isEmpty()) {
-              try { builder.fadeOutBgm(Long.parseLong(arg)); } catch (NumberFormatException ignored) { builder.fadeOutBgm(); }
-            } else {
-              builder.fadeOutBgm();
-            }
-            break;
-          case "bgm_pause":
-            builder.external("audio", "pause");
-            break;
-          case "bgm_resume":
-            builder.external("audio", "resume");
-            break;
-          case "bgm_seek":
-            if (arg != null && !arg.isEmpty()) builder.external("audio", "seek " + arg);
-            break;
-          case "bgm_crossfade":
-            if (arg != null && !arg.isEmpty()) builder.external("audio", "crossfade " + arg);
-            break;
-          case "sfx":
-            if (arg != null && !arg.isEmpty()) builder.playSfx(arg);
-            break;
-          case "voice":
-            if (arg != null && !arg.isEmpty()) {
-              builder.playVoice(arg);
-            }
-            break;
-          case "volume":
-            if (arg != null && !arg.isEmpty()) builder.external("settings", "volume " + arg);
-            break;
-          case "textspeed":
-            if (arg != null && !arg.isEmpty()) builder.external("settings", "textspeed " + arg);
-            break;
-          case "autodelay":
-            if (arg != null && !arg.isEmpty()) builder.external("settings", "autodelay " + arg);
-            break;
-          case "hud":
-            if (arg != null && !arg.isEmpty()) builder.external("hud", arg);
-            break;
-          case "save":
-            builder.external("save", "");
-            break;
-          case "quickload":
-            builder.external("save", "quickload");
-            break;
-          case "skip":
-            builder.external("mode", "skip " + (arg == null ? "" : arg));
-            break;
-          case "auto":
-            builder.external("mode", "auto " + (arg == null ? "" : arg));
-            break;
-          case "ui":
-            builder.external("ui", arg == null ? "" : arg);
-            break;
-          case "history":
-            builder.external("history", arg == null ? "" : arg);
-            break;
-          case "jes_push":
-            if (arg != null && !arg.isBlank()) builder.external("jes", "push " + arg);
-            break;
-          case "jes_replace":
-            if (arg != null && !arg.isBlank()) builder.external("jes", "replace " + arg);
-            break;
-          case "jes_pop":
-            builder.external("jes", "pop");
-            break;
-          case "jes_call":
-            if (arg != null && !arg.isBlank()) builder.external("jes", "call " + arg);
-            break;
-          case "wait":
-            if (arg != null) {
-              try { builder.waitMs(Long.parseLong(arg)); } catch (NumberFormatException ignored) {}
-            }
-            break;
-          case "show":
-            if (arg != null) {
-              String[] toks = arg.split("\\s+");
-              if (toks.length >= 2) {
-                String charId = toks[0];
-                CharacterPosition pos = parsePosition(toks[1]);
-                String expr = toks.length >= 3 ? toks[2] : "neutral";
-                builder.show(charId, expr, pos);
-              }
-            }
-            break;
-          case "hide":
-            if (arg != null) builder.hide(arg);
-            break;
-          case "transition":
-            if (arg != null) {
-              String[] toks = arg.split("\\s+");
-              if (toks.length >= 1) {
-                VnTransition.TransitionType type = parseTransitionType(toks[0]);
-                long dur = toks.length >= 2 ? parseLongSafe(toks[1], 500) : 500;
-                String bg = toks.length >= 3 ? toks[2] : null;
-                builder.transition(type, dur, bg);
-              }
-            }
-            break;
-          case "menu":
-            builder.external("menu", arg == null ? "" : arg);
-            break;
-          case "settings":
-            builder.external("menu", "settings");
-            break;
-          case "mainmenu":
-            builder.external("menu", "main" + (arg == null || arg.isBlank() ? "" : (" " + arg)));
-            break;
-          case "load":
-            if (arg != null && !arg.isBlank()) builder.external("vns", "replace " + arg);
-            break;
-          case "goto":
-            if (arg != null && !arg.isBlank()) builder.external("vns", "goto " + arg);
-            break;
-          case "set":
-            if (arg != null && !arg.isBlank()) builder.external("var", "set " + arg);
-            break;
-          case "inc":
-            if (arg != null && !arg.isBlank()) builder.external("var", "inc " + arg);
-            break;
-          case "dec":
-            if (arg != null && !arg.isBlank()) builder.external("var", "dec " + arg);
-            break;
-          case "flag":
-            if (arg != null && !arg.isBlank()) builder.external("var", "flag " + arg);
-            break;
-          case "unflag":
-            if (arg != null && !arg.isBlank()) builder.external("var", "unflag " + arg);
-            break;
-          case "clear":
-            if (arg != null && !arg.isBlank()) builder.external("var", "clear " + arg);
-            break;
-          case "if":
-            if (arg != null && !arg.isBlank()) builder.external("cond", "if " + arg);
-            break;
-          case "call":
-            // Syntax: [call <provider> <payload...>]
-            if (arg != null && !arg.isBlank()) {
-              String[] toks = arg.split("\\s+", 2);
-              String provider = toks[0];
-              String payload = toks.length > 1 ? toks[1] : "";
-              builder.external(provider, payload);
-            }
-            break;
-          case "jes":
-            // Shortcut for [call jes <payload>]
-            builder.external("jes", arg == null ? "" : arg);
-            break;
-          case "java":
-            // Shortcut for [call java <payload>]
-            builder.external("java", arg == null ? "" : arg);
-            break;
+        // Label: @label <name>
+        if ((i = keyword(line, "@label")) > 0 && !hasLineBreak(line, i, n)) {
+          flushChoices(builder, pendingChoices);
+          builder.label(line.substring(i));
+          continue;
         }
+      } else if (first == '>') {
+        // Choice: > text [if cond] -> label
+        Choice choice = parseChoice(line);
+        if (choice != null) {
+          pendingChoices.add(choice);
+          continue;
+        }
+      } else if (first == '[' && n > 2 && line.indexOf(']') == n - 1) {
+        // Commands: [cmd arg...]
+        flushChoices(builder, pendingChoices);
+        int w = 1;
+        while (w < n - 1 && !isSpace(line.charAt(w))) w++;
+        String cmd = line.substring(1, w);
+        String arg = w < n - 1 ? line.substring(skipSpace(line, w), n - 1) : null;
+        command(builder, cmd, arg);
         continue;
       }
       
-      // Dialogue
-      Matcher dialogueMatcher = DIALOGUE_PATTERN.matcher(line);
-      if (dialogueMatcher.matches()) {
-        flushChoices(builder, pendingChoices);
-        String speaker = dialogueMatcher.group(1).trim();
-        String text = dialogueMatcher.group(2).trim();
-        builder.dialogue(speaker, text);
-        continue;
+      // Dialogue: Speaker: text
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        int k = skipSpace(line, colon + 1);
+        if (k < n && !hasLineBreak(line, k, n)) {
+          flushChoices(builder, pendingChoices);
+          builder.dialogue(line.substring(0, colon).trim(), line.substring(k).trim());
+          continue;
+        }
       }
       
       throw new IOException("Parse error at line " + lineNumber + ": " + line);
@@ -329,17 +151,235 @@ public class VnScriptParser {
     
     flushChoices(builder, pendingChoices);
     // Finalize characters with expressions (replaces any earlier simple character entries)
-    if (charBuilders != null && builder != null) {
+    if (builder != null) {
       for (var e : charBuilders.entrySet()) {
         builder.addCharacter(e.getValue().build());
       }
     }
     return builder.build();
   }
-  
+
+  /**
+   * Choice line {@code > text [if cond] -> label}. The text ends at the first {@code ->} that is followed by a
+   * label; a trailing {@code [if ...]} on the text becomes the condition. Returns null when the line is not a
+   * valid choice.
+   */
+  private static Choice parseChoice(String line) {
+    int n = line.length();
+    int p = skipSpace(line, 1);
+    if (p >= n) return null;
+    int end = n;
+    String target = null;
+    for (int a = line.indexOf("->", p + 1); a >= 0; a = line.indexOf("->", a + 1)) {
+      int t = skipSpace(line, a + 2);
+      if (t < n && !hasLineBreak(line, t, n)) {
+        end = a;
+        while (end > p + 1 && isSpace(line.charAt(end - 1))) end--;
+        target = line.substring(t);
+        break;
+      }
+    }
+    if (hasLineBreak(line, p, end)) return null;
+
+    String text = line.substring(p, end);
+    String cond = null;
+    int close = text.length() - 1;
+    if (text.charAt(close) == ']') {
+      for (int i = text.lastIndexOf("[if", close - 1); i >= 0; i = text.lastIndexOf("[if", i - 1)) {
+        if (text.indexOf(']', i) != close) break; // a ']' inside the condition rules out every earlier "[if" too
+        if (i + 3 >= close || !isSpace(text.charAt(i + 3))) continue;
+        int g = skipSpace(text, i + 3);
+        if (g == close) g--; // the condition needs one character; it may be whitespace
+        if (g <= i + 3) continue;
+        cond = text.substring(g, close).trim();
+        text = text.substring(0, i).trim();
+        break;
+      }
+    }
+    Choice.Builder choiceBuilder = Choice.builder().text(text);
+    if (cond != null) choiceBuilder.condition(cond);
+    if (target != null) {
+      choiceBuilder.targetLabel(target);
+    }
+    return choiceBuilder.build();
+  }
+
+  private void command(VnScenarioBuilder builder, String cmd, String arg) {
+    switch (cmd.toLowerCase()) {
+      case "background":
+      case "bg":
+        if (arg != null) builder.background(arg);
+        break;
+      case "jump":
+        if (arg != null) builder.jump(arg);
+        break;
+      case "end":
+        builder.end();
+        break;
+      case "bgm":
+        if (arg != null && !arg.isEmpty()) builder.playBgm(arg, true);
+        break;
+      case "bgm_stop":
+        builder.stopBgm();
+        break;
+      case "bgm_fadeout":
+        if (arg != null && !arg.isEmpty()) {
+          try { builder.fadeOutBgm(Long.parseLong(arg)); } catch (NumberFormatException ignored) { builder.fadeOutBgm(); }
+        } else {
+          builder.fadeOutBgm();
+        }
+        break;
+      case "bgm_pause":
+        builder.external("audio", "pause");
+        break;
+      case "bgm_resume":
+        builder.external("audio", "resume");
+        break;
+      case "bgm_seek":
+        if (arg != null && !arg.isEmpty()) builder.external("audio", "seek " + arg);
+        break;
+      case "bgm_crossfade":
+        if (arg != null && !arg.isEmpty()) builder.external("audio", "crossfade " + arg);
+        break;
+      case "sfx":
+        if (arg != null && !arg.isEmpty()) builder.playSfx(arg);
+        break;
+      case "voice":
+        if (arg != null && !arg.isEmpty()) {
+          builder.playVoice(arg);
+        }
+        break;
+      case "volume":
+        if (arg != null && !arg.isEmpty()) builder.external("settings", "volume " + arg);
+        break;
+      case "textspeed":
+        if (arg != null && !arg.isEmpty()) builder.external("settings", "textspeed " + arg);
+        break;
+      case "autodelay":
+        if (arg != null && !arg.isEmpty()) builder.external("settings", "autodelay " + arg);
+        break;
+      case "hud":
+        if (arg != null && !arg.isEmpty()) builder.external("hud", arg);
+        break;
+      case "save":
+        builder.external("save", "");
+        break;
+      case "quickload":
+        builder.external("save", "quickload");
+        break;
+      case "skip":
+        builder.external("mode", "skip " + (arg == null ? "" : arg));
+        break;
+      case "auto":
+        builder.external("mode", "auto " + (arg == null ? "" : arg));
+        break;
+      case "ui":
+        builder.external("ui", arg == null ? "" : arg);
+        break;
+      case "history":
+        builder.external("history", arg == null ? "" : arg);
+        break;
+      case "jes_push":
+        if (arg != null && !arg.isBlank()) builder.external("jes", "push " + arg);
+        break;
+      case "jes_replace":
+        if (arg != null && !arg.isBlank()) builder.external("jes", "replace " + arg);
+        break;
+      case "jes_pop":
+        builder.external("jes", "pop");
+        break;
+      case "jes_call":
+        if (arg != null && !arg.isBlank()) builder.external("jes", "call " + arg);
+        break;
+      case "wait":
+        if (arg != null) {
+          try { builder.waitMs(Long.parseLong(arg)); } catch (NumberFormatException ignored) {}
+        }
+        break;
+      case "show":
+        if (arg != null) {
+          String[] toks = splitSpace(arg, 0);
+          if (toks.length >= 2) {
+            String charId = toks[0];
+            CharacterPosition pos = parsePosition(toks[1]);
+            String expr = toks.length >= 3 ? toks[2] : "neutral";
+            builder.show(charId, expr, pos);
+          }
+        }
+        break;
+      case "hide":
+        if (arg != null) builder.hide(arg);
+        break;
+      case "transition":
+        if (arg != null) {
+          String[] toks = splitSpace(arg, 0);
+          if (toks.length >= 1) {
+            VnTransition.TransitionType type = parseTransitionType(toks[0]);
+            long dur = toks.length >= 2 ? parseLongSafe(toks[1], 500) : 500;
+            String bg = toks.length >= 3 ? toks[2] : null;
+            builder.transition(type, dur, bg);
+          }
+        }
+        break;
+      case "menu":
+        builder.external("menu", arg == null ? "" : arg);
+        break;
+      case "settings":
+        builder.external("menu", "settings");
+        break;
+      case "mainmenu":
+        builder.external("menu", "main" + (arg == null || arg.isBlank() ? "" : (" " + arg)));
+        break;
+      case "load":
+        if (arg != null && !arg.isBlank()) builder.external("vns", "replace " + arg);
+        break;
+      case "goto":
+        if (arg != null && !arg.isBlank()) builder.external("vns", "goto " + arg);
+        break;
+      case "set":
+        if (arg != null && !arg.isBlank()) builder.external("var", "set " + arg);
+        break;
+      case "inc":
+        if (arg != null && !arg.isBlank()) builder.external("var", "inc " + arg);
+        break;
+      case "dec":
+        if (arg != null && !arg.isBlank()) builder.external("var", "dec " + arg);
+        break;
+      case "flag":
+        if (arg != null && !arg.isBlank()) builder.external("var", "flag " + arg);
+        break;
+      case "unflag":
+        if (arg != null && !arg.isBlank()) builder.external("var", "unflag " + arg);
+        break;
+      case "clear":
+        if (arg != null && !arg.isBlank()) builder.external("var", "clear " + arg);
+        break;
+      case "if":
+        if (arg != null && !arg.isBlank()) builder.external("cond", "if " + arg);
+        break;
+      case "call":
+        // Syntax: [call <provider> <payload...>]
+        if (arg != null && !arg.isBlank()) {
+          String[] toks = splitSpace(arg, 2);
+          String provider = toks[0];
+          String payload = toks.length > 1 ? toks[1] : "";
+          builder.external(provider, payload);
+        }
+        break;
+      case "jes":
+        // Shortcut for [call jes <payload>]
+        builder.external("jes", arg == null ? "" : arg);
+        break;
+      case "java":
+        // Shortcut for [call java <payload>]
+        builder.external("java", arg == null ? "" : arg);
+        break;
+    }
+  }
+
   private void flushChoices(VnScenarioBuilder builder, List<Choice> choices) {
     if (!choices.isEmpty()) {
-      builder.choiceNodes(new java.util.ArrayList<>(choices));
+      builder.choiceNodes(new ArrayList<>(choices));
       choices.clear();
     }
   }
@@ -384,4 +424,57 @@ public class VnScriptParser {
       return def;
     }
   }
+
+  /** Index just past {@code kw} and the whitespace after it, or -1 when the line does not start with the keyword. */
+  private static int keyword(String line, String kw) {
+    int k = kw.length();
+    if (line.length() <= k || !line.startsWith(kw) || !isSpace(line.charAt(k))) return -1;
+    return skipSpace(line, k);
+  }
+
+  /** Whitespace in the sense of the regex {@code \\s}: space, tab, newline, vertical tab, form feed, return. */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /** Characters a regex {@code .} does not match; text fields never contain them. */
+  private static boolean hasLineBreak(String s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+    }
+    return false;
+  }
+
+  private static int skipSpace(String s, int i) {
+    int n = s.length();
+    while (i < n && isSpace(s.charAt(i))) i++;
+    return i;
+  }
+
+  private static int skipToken(String s, int i) {
+    int n = s.length();
+    while (i < n && !isSpace(s.charAt(i))) i++;
+    return i;
+  }
+
+  /** Same result as {@code s.split("\\s+", limit)}. */
+  private static String[] splitSpace(String s, int limit) {
+    List<String> parts = new ArrayList<>(4);
+    int n = s.length();
+    int start = 0;
+    int i = 0;
+    while (i < n) {
+      if (!isSpace(s.charAt(i))) { i++; continue; }
+      if (limit > 0 && parts.size() == limit - 1) break;
+      parts.add(s.substring(start, i));
+      start = i = skipSpace(s, i);
+    }
+    if (parts.isEmpty()) return new String[]{ s };
+    parts.add(s.substring(start));
+    if (limit == 0) {
+      while (!parts.isEmpty() && parts.get(parts.size() - 1).isEmpty()) parts.remove(parts.size() - 1);
+    }
+    return parts.toArray(new String[0]);
+  }
 }
@@ -0,0 +1,61 @@
+package com.jvn.core.rpg;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RpgStatsTest {
+  @Test
+  public void boundEquipmentDrivesModifiers() throws Exception {
+    Item axe = new Item();
+    axe.setId("axe");
+    axe.getModifiers().put("attack", 7.0);
+    RpgStats stats = new RpgStats();
+    stats.setAttack(3);
+    Equipment eq = new Equipment();
+    eq.set("hand", "axe");
+    eq.bindStats(stats, Map.of("axe", axe));
+    assertEquals(10, stats.getAttack(), 1e-9);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) { out.writeObject(stats); }
+    RpgStats restored;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      restored = (RpgStats) in.readObject();
+    }
+    assertEquals(10, restored.getAttack(), 1e-9);
+    assertEquals(10, stats.copy().getAttack(), 1e-9);
+
+    eq.clear();
+    assertEquals(3, stats.getAttack(), 1e-9);
+  }
+
+  @Test
+  public void loadedEquipmentStaysBoundToItsStats() throws Exception {
+    Item axe = new Item();
+    axe.setId("axe");
+    axe.getModifiers().put("attack", 7.0);
+    RpgState state = new RpgState();
+    RpgStats stats = state.actor("hero");
+    stats.setAttack(3);
+    Equipment eq = state.equip("hero");
+    eq.bindStats(stats, Map.of("axe", axe));
+    eq.set("hand", "axe");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) { out.writeObject(state); }
+    RpgState loaded;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      loaded = (RpgState) in.readObject();
+    }
+    assertEquals(10, loaded.actor("hero").getAttack(), 1e-9);
+    loaded.equip("hero").clear();
+    assertEquals(3, loaded.actor("hero").getAttack(), 1e-9);
+  }
+}
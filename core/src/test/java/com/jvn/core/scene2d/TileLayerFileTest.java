@@ -0,0 +1,63 @@
+package com.jvn.core.scene2d;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileLayerFileTest {
+  private static byte[] encode(TileMap2D tm, int chunkSize) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TileLayerFile.write(tm, out, chunkSize);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void roundTripsThroughChunks() throws Exception {
+    TileMap2D src = new TileMap2D(null, 37, 21, 16, 16);
+    for (int x = 0; x < 37; x++) src.setTile(x, 20, 4); // ground row
+    src.setTile(3, 2, 0);
+    src.setTile(36, 0, 511);
+    byte[] bytes = encode(src, 8);
+    assertTrue(TileLayerFile.isTileLayer(bytes));
+
+    TileLayerFile file = TileLayerFile.read(new ByteArrayInputStream(bytes));
+    assertEquals(5, file.getChunksX());
+    assertEquals(3, file.getChunksY());
+    TileMap2D dst = new TileMap2D(null, 37, 21, 16, 16);
+    file.loadInto(dst);
+    for (int y = 0; y < 21; y++) {
+      for (int x = 0; x < 37; x++) assertEquals(src.getTile(x, y), dst.getTile(x, y));
+    }
+    assertEquals(511, file.readAll()[0][36]);
+  }
+
+  @Test
+  public void streamsChunksAroundTheView() throws Exception {
+    TileMap2D src = new TileMap2D(null, 64, 64, 10, 10);
+    for (int y = 0; y < 64; y++) for (int x = 0; x < 64; x++) src.setTile(x, y, 1);
+    TileLayerFile file = TileLayerFile.read(new ByteArrayInputStream(encode(src, 8)));
+    TileMap2D map = new TileMap2D(null, 64, 64, 10, 10);
+    TileChunkStreamer streamer = new TileChunkStreamer(file, map);
+    streamer.setMargin(0);
+
+    streamer.update(0, 0, 79, 79);
+    assertEquals(1, streamer.getLoadedChunks());
+    assertEquals(1, map.getTile(7, 7));
+    assertEquals(-1, map.getTile(8, 0));
+
+    streamer.update(80, 0, 159, 79); // one chunk over: the old chunk stays within the hysteresis band
+    assertTrue(streamer.isLoaded(0, 0));
+    streamer.update(400, 400, 479, 479);
+    assertFalse(streamer.isLoaded(0, 0));
+    assertEquals(-1, map.getTile(0, 0));
+    assertEquals(1, map.getTile(45, 45));
+  }
+
+  @Test
+  public void rejectsForeignData() {
+    assertThrows(IllegalArgumentException.class, () -> TileLayerFile.read(new ByteArrayInputStream("1,2,3\n".getBytes())));
+  }
+}
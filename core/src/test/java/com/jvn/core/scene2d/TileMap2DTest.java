@@ -0,0 +1,63 @@
+package com.jvn.core.scene2d;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileMap2DTest {
+  @Test
+  public void emptyAndFilledChunksAreShared() {
+    TileMap2D tm = new TileMap2D(null, 1000, 1000, 16, 16);
+    assertEquals(0, tm.getAllocatedChunks());
+    tm.fillRect(0, 512, 1000, 488, 3);
+    assertEquals(3, tm.getTile(999, 999));
+    assertEquals(-1, tm.getTile(0, 511));
+    // only the partial chunks along the right and bottom edges need cells of their own
+    assertEquals(16 + 31, tm.getAllocatedChunks());
+
+    tm.setTile(5, 5, 2);
+    assertEquals(2, tm.getTile(5, 5));
+    tm.setTile(5, 5, -1);
+    tm.compact();
+    assertTrue(tm.isChunkEmpty(0, 0));
+  }
+
+  @Test
+  public void widensCellsForLargeIndices() {
+    TileMap2D tm = new TileMap2D(null, 40, 40, 16, 16);
+    tm.setTile(1, 1, 200);
+    assertEquals(TileMap2D.CHUNK_SIZE * TileMap2D.CHUNK_SIZE, tm.getCellBytes());
+    tm.setTile(2, 1, 70000);
+    tm.setTile(3, 1, -7);
+    assertEquals(200, tm.getTile(1, 1));
+    assertEquals(70000, tm.getTile(2, 1));
+    assertEquals(-1, tm.getTile(3, 1));
+  }
+
+  @Test
+  public void forEachTileVisitsOnlyFilledCells() {
+    TileMap2D tm = new TileMap2D(null, 100, 100, 16, 16);
+    tm.setTile(10, 10, 1);
+    tm.setTile(70, 90, 4);
+    List<int[]> seen = new ArrayList<>();
+    tm.forEachTile(0, 0, 100, 100, (x, y, idx) -> seen.add(new int[]{ x, y, idx }));
+    assertEquals(2, seen.size());
+    assertArrayEquals(new int[]{ 70, 90, 4 }, seen.get(1));
+    seen.clear();
+    tm.forEachTile(0, 0, 50, 50, (x, y, idx) -> seen.add(new int[]{ x, y, idx }));
+    assertEquals(1, seen.size());
+  }
+
+  @Test
+  public void fillNotifiesListenersPerCell() {
+    TileMap2D tm = new TileMap2D(null, 64, 64, 16, 16);
+    tm.setTile(0, 0, 9);
+    int[] changes = new int[1];
+    tm.addTileChangeListener((map, x, y, oldIndex, newIndex) -> changes[0]++);
+    tm.fillRect(0, 0, 32, 32, 9);
+    assertEquals(32 * 32 - 1, changes[0]);
+  }
+}
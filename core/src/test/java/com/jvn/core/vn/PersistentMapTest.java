@@ -0,0 +1,54 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentMapTest {
+  /** Key with a chosen hash, to force collisions. */
+  private record Key(int hash, String name) {
+    @Override public int hashCode() { return hash; }
+  }
+
+  @Test
+  public void behavesLikeHashMapAndKeepsOldVersions() {
+    Random rnd = new Random(7);
+    PersistentMap.View<Object, Integer> view = new PersistentMap.View<>();
+    Map<Object, Integer> expected = new HashMap<>();
+    PersistentMap<Object, Integer> older = null;
+    Map<Object, Integer> olderExpected = null;
+    for (int i = 0; i < 20000; i++) {
+      Object key = rnd.nextInt(4) == 0 ? new Key(rnd.nextInt(8), "k" + rnd.nextInt(50)) : (Object) ("v" + rnd.nextInt(3000));
+      if (rnd.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), view.remove(key));
+      } else {
+        int value = rnd.nextInt(100);
+        assertEquals(expected.put(key, value), view.put(key, value));
+      }
+      if (i == 10000) {
+        older = view.snapshot();
+        olderExpected = new HashMap<>(expected);
+      }
+    }
+    assertEquals(expected, view);
+    assertEquals(expected, new HashMap<>(view));
+    view.put(null, -1);
+    assertEquals(-1, view.get(null).intValue());
+
+    view.restore(older);
+    assertEquals(olderExpected, view);
+    assertEquals(olderExpected.size(), view.size());
+  }
+
+  @Test
+  public void unchangedPutsKeepTheSameVersion() {
+    PersistentMap<String, Object> a = PersistentMap.<String, Object>empty().with("x", Boolean.TRUE);
+    assertSame(a, a.with("x", Boolean.TRUE));
+    assertSame(a, a.without("y"));
+    assertEquals(0, a.without("x").size());
+  }
+}
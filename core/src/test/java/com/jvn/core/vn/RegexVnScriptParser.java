@@ -0,0 +1,374 @@
+package com.jvn.core.vn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The original regex-based {@code .vns} parser, kept as the reference that
+ * {@link com.jvn.core.vn.script.VnScriptParser} must agree with and as the baseline of its benchmark.
+ */
+final class RegexVnScriptParser {
+  
+  private static final Pattern SCENARIO_PATTERN = Pattern.compile("^@scenario\\s+(.+)$");
+  private static final Pattern CHARACTER_PATTERN = Pattern.compile("^@character\\s+(\\S+)\\s+\"([^\"]+)\"$");
+  private static final Pattern BACKGROUND_PATTERN = Pattern.compile("^@background\\s+(\\S+)\\s+(.+)$");
+  private static final Pattern CHARIMG_PATTERN = Pattern.compile("^@charimg\\s+(\\S+)\\s+(\\S+)\\s+(.+)$");
+  private static final Pattern LABEL_PATTERN = Pattern.compile("^@label\\s+(.+)$");
+  private static final Pattern DIALOGUE_PATTERN = Pattern.compile("^([^:]+):\\s*(.+)$");
+  private static final Pattern CHOICE_PATTERN = Pattern.compile("^>\\s*(.+?)(?:\\s*->\\s*(.+))?$");
+  private static final Pattern COMMAND_PATTERN = Pattern.compile("^\\[([^\\]]+)\\]$");
+  
+  public VnScenario parse(InputStream input) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+    String scenarioId = "untitled";
+    VnScenarioBuilder builder = null;
+    List<Choice> pendingChoices = new ArrayList<>();
+    
+    String line;
+    int lineNumber = 0;
+    
+    // Accumulate character definitions to allow expression mapping via @charimg
+    java.util.Map<String, com.jvn.core.vn.VnCharacter.Builder> charBuilders = new java.util.HashMap<>();
+
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      
+      // Skip empty lines and comments
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      
+      // Scenario declaration
+      Matcher scenarioMatcher = SCENARIO_PATTERN.matcher(line);
+      if (scenarioMatcher.matches()) {
+        scenarioId = scenarioMatcher.group(1);
+        builder = new VnScenarioBuilder(scenarioId);
+        continue;
+      }
+      
+      if (builder == null) {
+        builder = new VnScenarioBuilder(scenarioId);
+      }
+      
+      // Character definition
+      Matcher charMatcher = CHARACTER_PATTERN.matcher(line);
+      if (charMatcher.matches()) {
+        String id = charMatcher.group(1);
+        String name = charMatcher.group(2);
+        // Track/merge builder so expressions from @charimg can be added later
+        com.jvn.core.vn.VnCharacter.Builder cb = charBuilders.get(id);
+        if (cb == null) { cb = com.jvn.core.vn.VnCharacter.builder(id); charBuilders.put(id, cb); }
+        cb.displayName(name);
+        // Keep compatibility by adding a simple character entry now (will be replaced at end if @charimg used)
+        builder.addCharacter(id, name);
+        continue;
+      }
+      
+      // Background definition
+      Matcher bgMatcher = BACKGROUND_PATTERN.matcher(line);
+      if (bgMatcher.matches()) {
+        String id = bgMatcher.group(1);
+        String path = bgMatcher.group(2);
+        builder.addBackground(id, path);
+        continue;
+      }
+
+      // Character image mapping: @charimg <charId> <expression> <path>
+      Matcher imgMatcher = CHARIMG_PATTERN.matcher(line);
+      if (imgMatcher.matches()) {
+        String id = imgMatcher.group(1);
+        String expr = imgMatcher.group(2);
+        String path = imgMatcher.group(3);
+        com.jvn.core.vn.VnCharacter.Builder cb = charBuilders.get(id);
+        if (cb == null) { cb = com.jvn.core.vn.VnCharacter.builder(id); charBuilders.put(id, cb); }
+        cb.addExpression(expr, path);
+        continue;
+      }
+      
+      // Label
+      Matcher labelMatcher = LABEL_PATTERN.matcher(line);
+      if (labelMatcher.matches()) {
+        flushChoices(builder, pendingChoices);
+        builder.label(labelMatcher.group(1));
+        continue;
+      }
+      
+      // Choice
+      Matcher choiceMatcher = CHOICE_PATTERN.matcher(line);
+      if (choiceMatcher.matches()) {
+        String text = choiceMatcher.group(1);
+        String target = choiceMatcher.groupCount() > 1 ? choiceMatcher.group(2) : null;
+        String cond = null;
+        java.util.regex.Matcher m = java.util.regex.Pattern.compile("^(.*)\\[if\\s+([^\\]]+)\\]$").matcher(text);
+        if (m.matches()) {
+          text = m.group(1).trim();
+          cond = m.group(2).trim();
+        }
+        Choice.Builder choiceBuilder = Choice.builder().text(text);
+        if (cond != null) choiceBuilder.condition(cond);
+        if (target != null) {
+          choiceBuilder.targetLabel(target);
+        }
+        pendingChoices.add(choiceBuilder.build());
+        continue;
+      }
+      
+      // Commands
+      Matcher cmdMatcher = COMMAND_PATTERN.matcher(line);
+      if (cmdMatcher.matches()) {
+        flushChoices(builder, pendingChoices);
+        String[] parts = cmdMatcher.group(1).split("\\s+", 2);
+        String cmd = parts[0];
+        String arg = parts.length > 1 ? parts[1] : null;
+        
+        switch (cmd.toLowerCase()) {
+          case "background":
+          case "bg":
+            if (arg != null) builder.background(arg);
+            break;
+          case "jump":
+            if (arg != null) builder.jump(arg);
+            break;
+          case "end":
+            builder.end();
+            break;
+          case "bgm":
+            if (arg != null && !arg.isEmpty()) builder.playBgm(arg, true);
+            break;
+          case "bgm_stop":
+            builder.stopBgm();
+            break;
+          case "bgm_fadeout":
+            if (arg != null && !arg.isEmpty()) {
+              try { builder.fadeOutBgm(Long.parseLong(arg)); } catch (NumberFormatException ignored) { builder.fadeOutBgm(); }
+            } else {
+              builder.fadeOutBgm();
+            }
+            break;
+          case "bgm_pause":
+            builder.external("audio", "pause");
+            break;
+          case "bgm_resume":
+            builder.external("audio", "resume");
+            break;
+          case "bgm_seek":
+            if (arg != null && !arg.isEmpty()) builder.external("audio", "seek " + arg);
+            break;
+          case "bgm_crossfade":
+            if (arg != null && !arg.isEmpty()) builder.external("audio", "crossfade " + arg);
+            break;
+          case "sfx":
+            if (arg != null && !arg.isEmpty()) builder.playSfx(arg);
+            break;
+          case "voice":
+            if (arg != null && !arg.isEmpty()) {
+              builder.playVoice(arg);
+            }
+            break;
+          case "volume":
+            if (arg != null && !arg.isEmpty()) builder.external("settings", "volume " + arg);
+            break;
+          case "textspeed":
+            if (arg != null && !arg.isEmpty()) builder.external("settings", "textspeed " + arg);
+            break;
+          case "autodelay":
+            if (arg != null && !arg.isEmpty()) builder.external("settings", "autodelay " + arg);
+            break;
+          case "hud":
+            if (arg != null && !arg.isEmpty()) builder.external("hud", arg);
+            break;
+          case "save":
+            builder.external("save", "");
+            break;
+          case "quickload":
+            builder.external("save", "quickload");
+            break;
+          case "skip":
+            builder.external("mode", "skip " + (arg == null ? "" : arg));
+            break;
+          case "auto":
+            builder.external("mode", "auto " + (arg == null ? "" : arg));
+            break;
+          case "ui":
+            builder.external("ui", arg == null ? "" : arg);
+            break;
+          case "history":
+            builder.external("history", arg == null ? "" : arg);
+            break;
+          case "jes_push":
+            if (arg != null && !arg.isBlank()) builder.external("jes", "push " + arg);
+            break;
+          case "jes_replace":
+            if (arg != null && !arg.isBlank()) builder.external("jes", "replace " + arg);
+            break;
+          case "jes_pop":
+            builder.external("jes", "pop");
+            break;
+          case "jes_call":
+            if (arg != null && !arg.isBlank()) builder.external("jes", "call " + arg);
+            break;
+          case "wait":
+            if (arg != null) {
+              try { builder.waitMs(Long.parseLong(arg)); } catch (NumberFormatException ignored) {}
+            }
+            break;
+          case "show":
+            if (arg != null) {
+              String[] toks = arg.split("\\s+");
+              if (toks.length >= 2) {
+                String charId = toks[0];
+                CharacterPosition pos = parsePosition(toks[1]);
+                String expr = toks.length >= 3 ? toks[2] : "neutral";
+                builder.show(charId, expr, pos);
+              }
+            }
+            break;
+          case "hide":
+            if (arg != null) builder.hide(arg);
+            break;
+          case "transition":
+            if (arg != null) {
+              String[] toks = arg.split("\\s+");
+              if (toks.length >= 1) {
+                VnTransition.TransitionType type = parseTransitionType(toks[0]);
+                long dur = toks.length >= 2 ? parseLongSafe(toks[1], 500) : 500;
+                String bg = toks.length >= 3 ? toks[2] : null;
+                builder.transition(type, dur, bg);
+              }
+            }
+            break;
+          case "menu":
+            builder.external("menu", arg == null ? "" : arg);
+            break;
+          case "settings":
+            builder.external("menu", "settings");
+            break;
+          case "mainmenu":
+            builder.external("menu", "main" + (arg == null || arg.isBlank() ? "" : (" " + arg)));
+            break;
+          case "load":
+            if (arg != null && !arg.isBlank()) builder.external("vns", "replace " + arg);
+            break;
+          case "goto":
+            if (arg != null && !arg.isBlank()) builder.external("vns", "goto " + arg);
+            break;
+          case "set":
+            if (arg != null && !arg.isBlank()) builder.external("var", "set " + arg);
+            break;
+          case "inc":
+            if (arg != null && !arg.isBlank()) builder.external("var", "inc " + arg);
+            break;
+          case "dec":
+            if (arg != null && !arg.isBlank()) builder.external("var", "dec " + arg);
+            break;
+          case "flag":
+            if (arg != null && !arg.isBlank()) builder.external("var", "flag " + arg);
+            break;
+          case "unflag":
+            if (arg != null && !arg.isBlank()) builder.external("var", "unflag " + arg);
+            break;
+          case "clear":
+            if (arg != null && !arg.isBlank()) builder.external("var", "clear " + arg);
+            break;
+          case "if":
+            if (arg != null && !arg.isBlank()) builder.external("cond", "if " + arg);
+            break;
+          case "call":
+            // Syntax: [call <provider> <payload...>]
+            if (arg != null && !arg.isBlank()) {
+              String[] toks = arg.split("\\s+", 2);
+              String provider = toks[0];
+              String payload = toks.length > 1 ? toks[1] : "";
+              builder.external(provider, payload);
+            }
+            break;
+          case "jes":
+            // Shortcut for [call jes <payload>]
+            builder.external("jes", arg == null ? "" : arg);
+            break;
+          case "java":
+            // Shortcut for [call java <payload>]
+            builder.external("java", arg == null ? "" : arg);
+            break;
+        }
+        continue;
+      }
+      
+      // Dialogue
+      Matcher dialogueMatcher = DIALOGUE_PATTERN.matcher(line);
+      if (dialogueMatcher.matches()) {
+        flushChoices(builder, pendingChoices);
+        String speaker = dialogueMatcher.group(1).trim();
+        String text = dialogueMatcher.group(2).trim();
+        builder.dialogue(speaker, text);
+        continue;
+      }
+      
+      throw new IOException("Parse error at line " + lineNumber + ": " + line);
+    }
+    
+    flushChoices(builder, pendingChoices);
+    // Finalize characters with expressions (replaces any earlier simple character entries)
+    if (charBuilders != null && builder != null) {
+      for (var e : charBuilders.entrySet()) {
+        builder.addCharacter(e.getValue().build());
+      }
+    }
+    return builder.build();
+  }
+  
+  private void flushChoices(VnScenarioBuilder builder, List<Choice> choices) {
+    if (!choices.isEmpty()) {
+      builder.choiceNodes(new java.util.ArrayList<>(choices));
+      choices.clear();
+    }
+  }
+  
+  public VnScenario parseFromString(String script) throws IOException {
+    return parse(new java.io.ByteArrayInputStream(script.getBytes()));
+  }
+
+  private CharacterPosition parsePosition(String token) {
+    String t = token.trim().toUpperCase();
+    try {
+      return CharacterPosition.valueOf(t);
+    } catch (IllegalArgumentException e) {
+      if (t.equals("L")) return CharacterPosition.LEFT;
+      if (t.equals("C") || t.equals("CENTER")) return CharacterPosition.CENTER;
+      if (t.equals("R")) return CharacterPosition.RIGHT;
+      if (t.equals("FL")) return CharacterPosition.FAR_LEFT;
+      if (t.equals("FR")) return CharacterPosition.FAR_RIGHT;
+      return CharacterPosition.CENTER;
+    }
+  }
+
+  private VnTransition.TransitionType parseTransitionType(String token) {
+    String t = token.trim().toUpperCase();
+    try {
+      return VnTransition.TransitionType.valueOf(t);
+    } catch (IllegalArgumentException e) {
+      if (t.equals("FADE")) return VnTransition.TransitionType.FADE;
+      if (t.equals("DISSOLVE")) return VnTransition.TransitionType.DISSOLVE;
+      if (t.equals("CROSSFADE")) return VnTransition.TransitionType.CROSSFADE;
+      if (t.equals("SLIDE_LEFT")) return VnTransition.TransitionType.SLIDE_LEFT;
+      if (t.equals("SLIDE_RIGHT")) return VnTransition.TransitionType.SLIDE_RIGHT;
+      if (t.equals("WIPE")) return VnTransition.TransitionType.WIPE;
+      return VnTransition.TransitionType.NONE;
+    }
+  }
+
+  private long parseLongSafe(String s, long def) {
+    try {
+      return Long.parseLong(s);
+    } catch (Exception e) {
+      return def;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnAssetPrefetcherTest {
+  private static VnScenario scenario() {
+    return new VnScenarioBuilder("prefetch")
+        .addBackground("room", "bg/room.png")
+        .addBackground("park", "bg/park.png")
+        .addBackground("cave", "bg/cave.png")
+        .addCharacterWithExpressions("alice", "Alice", "img/alice.png")
+        .dialogue("", "start")
+        .choiceWithTargets(new String[][]{ { "Park", "park" }, { "Cave", "cave" } })
+        .label("park")
+        .background("park")
+        .playBgm("park.ogg", true)
+        .end()
+        .label("cave")
+        .show("alice", "neutral", CharacterPosition.LEFT)
+        .background("cave")
+        .playSfx("drip.wav")
+        .jump("far")
+        .background("room") // skipped by the jump
+        .label("far")
+        .playVoice("far.ogg")
+        .end()
+        .build();
+  }
+
+  @Test
+  public void collectsBothChoiceBranchesAndFollowsJumps() {
+    VnAssetPrefetcher.Assets assets = VnAssetPrefetcher.collect(scenario(), 0, 24);
+    assertEquals(List.of("bg/park.png", "img/alice.png", "bg/cave.png"), List.copyOf(assets.images()));
+    assertEquals(List.of("park.ogg", "drip.wav", "far.ogg"), List.copyOf(assets.audio()));
+
+    // the lookahead is bounded in nodes
+    assertEquals(Set.of("bg/park.png"), VnAssetPrefetcher.collect(scenario(), 0, 3).images());
+  }
+
+  @Test
+  public void scanLoadsAssetsOnThePool() throws Exception {
+    Set<String> loaded = ConcurrentHashMap.newKeySet();
+    CountDownLatch done = new CountDownLatch(6);
+    VnAssetPrefetcher prefetcher = new VnAssetPrefetcher(
+        p -> { loaded.add(p); done.countDown(); },
+        t -> { loaded.add(t); done.countDown(); });
+    VnState state = new VnState();
+    state.setScenario(scenario());
+    prefetcher.scan(state);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(Set.of("bg/park.png", "img/alice.png", "bg/cave.png", "park.ogg", "drip.wav", "far.ogg"), loaded);
+  }
+}
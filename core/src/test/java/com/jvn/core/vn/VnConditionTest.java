@@ -0,0 +1,90 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnConditionTest {
+  @Test
+  public void keepsTheOriginalComparisonForm() {
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("trust", 3);
+    vars.put("mood", "happy");
+    assertTrue(VnCondition.compile("trust >= 2").test(vars));
+    assertFalse(VnCondition.compile("trust < 2.5").test(vars));
+    assertTrue(VnCondition.compile("mood == happy").test(vars));
+    vars.put("happy", "no");
+    assertTrue(VnCondition.compile("mood == happy").test(vars)); // still text, even with a variable of that name
+    assertTrue(VnCondition.compile("missing != 1").test(vars));
+    assertFalse(VnCondition.compile("mood > sad").test(vars));
+    // text that is not an expression is still read as "var op value"
+    assertTrue(VnCondition.compile("mood == happy extra words").test(vars));
+    assertTrue(VnCondition.compile(null).test(vars));
+  }
+
+  @Test
+  public void supportsLogicArithmeticAndVariables() {
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("stats.strength", 4);
+    vars.put("bonus", 2);
+    vars.put("flags.cave_open", Boolean.TRUE);
+    vars.put("limit", 5);
+    assertTrue(VnCondition.compile("stats.strength + bonus > $limit && flags.cave_open").test(vars));
+    assertFalse(VnCondition.compile("stats.strength * 2 - 4 == limit || !flags.cave_open").test(vars));
+    assertTrue(VnCondition.compile("(bonus + 1) * 2 == 6 && limit % 2 == 1").test(vars));
+    assertTrue(VnCondition.compile("stats.strength < $limit").test(vars)); // $ reads a variable on the right
+    assertFalse(VnCondition.compile("stats.strength < limit").test(vars)); // a bare word stays text
+    assertFalse(VnCondition.compile("flags.unknown").test(vars));
+    assertEquals(6, VnCondition.compile("bonus * 3").evaluate(vars));
+    assertEquals("ab", VnCondition.compile("'a' + \"b\"").evaluate(vars));
+    assertSame(VnCondition.compile("bonus > 1"), VnCondition.compile(" bonus > 1 "));
+  }
+
+  @Test
+  public void legacyTripleKeepsVariableNamesWithOperatorCharacters() {
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("route-a", 1);
+    vars.put("a/b", 2);
+    assertTrue(VnCondition.compile("route-a == 1").test(vars));
+    assertTrue(VnCondition.compile("a/b == 2").test(vars));
+    assertFalse(VnCondition.compile("route-a != 1").test(vars));
+  }
+
+  @Test
+  public void gluedDashAndSlashStayInNamesButSpacedOnesAreArithmetic() {
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("route-a", 1);
+    vars.put("a/b", 4);
+    vars.put("a", 8);
+    vars.put("b", 2);
+    assertTrue(VnCondition.compile("route-a == 1 && a/b > 3").test(vars));
+    assertTrue(VnCondition.compile("a / b == 4 && a - b == 6").test(vars));
+    assertTrue(VnCondition.compile("!(route-a > 1)").test(vars));
+  }
+
+  @Test
+  public void choicesAndIfCommandsShareTheCompiledCondition() {
+    Choice choice = Choice.builder().text("Open").condition("key && gold >= 10").build();
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("key", true);
+    vars.put("gold", 5);
+    assertFalse(choice.isAvailable(vars));
+    vars.put("gold", 12);
+    assertTrue(choice.isAvailable(vars));
+    assertSame(VnCondition.compile("key && gold >= 10"), choice.getCompiledCondition());
+
+    VnScenario scenario = new VnScenarioBuilder("cond")
+        .dialogue("", "start")
+        .label("rich")
+        .dialogue("", "rich")
+        .build();
+    VnScene scene = new VnScene(scenario);
+    scene.getState().setVariable("gold", 12);
+    DefaultVnInterop interop = new DefaultVnInterop();
+    interop.handle(new VnExternalCommand("cond", "if gold > 10 && gold < 20 goto rich"), scene);
+    assertEquals(scenario.getLabelIndex("rich").intValue(), scene.getState().getCurrentNodeIndex());
+  }
+}
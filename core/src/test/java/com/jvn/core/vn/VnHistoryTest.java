@@ -0,0 +1,117 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnHistoryTest {
+  @Test
+  public void spillsOlderEntriesAndPagesThemBackIn() throws Exception {
+    Path file = Files.createTempDirectory("vnhist").resolve("history.bin");
+    VnHistory history = new VnHistory(50, file);
+    for (int i = 0; i < 3000; i++) history.addEntry(i % 3 == 0 ? null : "Alice", "Line number " + i + " of a long session");
+
+    assertEquals(3000, history.size());
+    assertEquals(2950, history.getSpilledCount());
+    assertTrue(Files.size(file) > 0);
+    // repetitive dialogue compresses well below its raw size
+    assertTrue(history.getSpillBytes() < 2950 * 30);
+
+    List<VnHistory.HistoryEntry> entries = history.getEntries();
+    assertEquals("Line number 0 of a long session", entries.get(0).getText());
+    assertNull(entries.get(0).getSpeaker());
+    assertEquals("Alice", entries.get(1000).getSpeaker());
+    assertEquals("Line number 1000 of a long session", entries.get(1000).getText());
+    assertEquals("Line number 2949 of a long session", entries.get(2949).getText()); // not yet written to a block
+    assertEquals("Line number 2999 of a long session", entries.get(2999).getText());
+    assertThrows(IndexOutOfBoundsException.class, () -> entries.get(3000));
+
+    history.clear();
+    assertEquals(0, history.size());
+    assertFalse(Files.exists(file));
+    history.addEntry("Bob", "again");
+    assertEquals("again", history.getEntries().get(0).getText());
+  }
+
+  @Test
+  public void boundedHistoryDropsOldestEntries() {
+    VnHistory history = new VnHistory(3);
+    for (int i = 0; i < 10; i++) history.addEntry("", "l" + i);
+    assertEquals(3, history.size());
+    assertEquals("l7", history.getEntries().get(0).getText());
+    assertEquals("l9", history.getEntries().get(2).getText());
+    assertEquals(10, history.getAddedCount());
+
+    history.truncate(8); // as of when l7 was the newest entry
+    assertEquals(1, history.size());
+    assertEquals("l7", history.getEntries().get(0).getText());
+    history.truncate(9); // nothing was added past 8 since
+    assertEquals(1, history.size());
+  }
+
+  @Test
+  public void defaultHistoryIsBoundedAndWritesNoFile() {
+    VnHistory history = new VnHistory();
+    for (int i = 0; i < 1000; i++) history.addEntry("", "l" + i);
+    assertEquals(200, history.size());
+    assertEquals(0, history.getSpilledCount());
+    assertEquals(0L, history.getSpillBytes());
+    assertEquals("l800", history.getEntries().get(0).getText());
+  }
+
+  @Test
+  public void replacedSpillingHistoryDeletesItsFile() throws Exception {
+    Path file = Files.createTempDirectory("vnhist").resolve("history.bin");
+    VnScene scene = new VnScene(new VnScenarioBuilder("spill").dialogue("", "a").build());
+    scene.setHistorySpill(file);
+    VnHistory spilling = scene.getState().getHistory();
+    for (int i = 0; i < 1000; i++) spilling.addEntry("", "l" + i);
+    assertEquals(1000, spilling.size());
+    assertTrue(Files.exists(file));
+    scene.getState().setHistory(new VnHistory());
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void truncateReopensSpilledBlocks() throws Exception {
+    Path file = Files.createTempDirectory("vnhist").resolve("history.bin");
+    VnHistory history = new VnHistory(50, file);
+    for (int i = 0; i < 1000; i++) history.addEntry("Alice", "Line " + i);
+    history.truncate(300); // back into the second spilled block
+    assertEquals(300, history.size());
+    assertEquals("Line 299", history.getEntries().get(299).getText());
+    for (int i = 300; i < 1000; i++) history.addEntry("Alice", "Line " + i);
+    assertEquals(1000, history.size());
+    for (int i = 0; i < 1000; i += 37) assertEquals("Line " + i, history.getEntries().get(i).getText());
+  }
+
+  @Test
+  public void unreadableSpillFileShowsUnavailableEntries() throws Exception {
+    Path file = Files.createTempDirectory("vnhist").resolve("history.bin");
+    VnHistory history = new VnHistory(50, file);
+    for (int i = 0; i < 1000; i++) history.addEntry("Alice", "Line " + i);
+    Files.delete(file);
+    assertEquals(VnHistory.UNAVAILABLE, history.getEntries().get(10).getText());
+    assertEquals("Line 999", history.getEntries().get(999).getText());
+    history.truncate(300);
+    assertEquals(300, history.size());
+    assertEquals(VnHistory.UNAVAILABLE, history.getEntries().get(299).getText());
+  }
+
+  @Test
+  public void sceneSpillsWhenKeepFullHistoryIsOn() {
+    VnScene scene = new VnScene(new VnScenarioBuilder("spill").dialogue("", "a").build());
+    scene.onEnter();
+    assertTrue(scene.getState().getHistory().isSpilling());
+    assertEquals(1, scene.getState().getHistory().size());
+
+    VnScene bounded = new VnScene(new VnScenarioBuilder("spill").dialogue("", "a").build());
+    bounded.getState().getSettings().setKeepFullHistory(false);
+    bounded.onEnter();
+    assertFalse(bounded.getState().getHistory().isSpilling());
+  }
+}
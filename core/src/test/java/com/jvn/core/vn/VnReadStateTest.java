@@ -0,0 +1,131 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnReadStateTest {
+  @Test
+  public void marksSurviveReopeningTheFile() throws Exception {
+    Path file = Files.createTempDirectory("jvn-read").resolve("story.bits");
+    VnReadState read = VnReadState.open(file, 42L);
+    assertTrue(read.isPersistent());
+    read.markRead(0);
+    read.markRead(63);
+    read.markRead(5000); // past the initial mapping
+    read.flush();
+    assertTrue(read.isRead(63));
+    assertFalse(read.isRead(64));
+    assertFalse(read.isRead(-1));
+
+    VnReadState reopened = VnReadState.open(file, 42L);
+    assertEquals(Set.of(0, 63, 5000), reopened.toSet());
+    assertEquals(3, reopened.count());
+  }
+
+  @Test
+  public void marksAreClearedWhenTheScenarioChanges() throws Exception {
+    Path file = Files.createTempDirectory("jvn-read").resolve("story.bits");
+    VnReadState read = VnReadState.open(file, 1L);
+    read.markRead(3);
+    read.flush();
+    assertEquals(Set.of(3), VnReadState.open(file, 1L).toSet());
+    VnReadState edited = VnReadState.open(file, 2L);
+    assertEquals(0, edited.count());
+    edited.markRead(7);
+    edited.flush();
+    assertEquals(Set.of(7), VnReadState.open(file, 2L).toSet());
+  }
+
+  @Test
+  public void sharedStateResetsWhenAnEditedScenarioIsLoaded() throws Exception {
+    String dir = System.getProperty("jvn.readStateDir");
+    System.setProperty("jvn.readStateDir", Files.createTempDirectory("jvn-read").toString());
+    try {
+      VnScenario original = new VnScenarioBuilder("edited_read").dialogue("", "a").dialogue("", "b").build();
+      VnScenario same = new VnScenarioBuilder("edited_read").dialogue("", "a").dialogue("", "b").build();
+      VnScenario edited = new VnScenarioBuilder("edited_read").dialogue("", "new").dialogue("", "a").dialogue("", "b").build();
+      assertEquals(original.getFingerprint(), same.getFingerprint());
+      assertNotEquals(original.getFingerprint(), edited.getFingerprint());
+
+      VnState state = new VnState();
+      state.setScenario(original);
+      state.markNodeAsRead(1);
+      VnState again = new VnState();
+      again.setScenario(same);
+      assertTrue(again.isNodeRead(1));
+      VnState afterEdit = new VnState();
+      afterEdit.setScenario(edited);
+      assertFalse(afterEdit.isNodeRead(1));
+    } finally {
+      if (dir == null) System.clearProperty("jvn.readStateDir"); else System.setProperty("jvn.readStateDir", dir);
+    }
+  }
+
+  @Test
+  public void statesOfTheSameScenarioShareReadStatus() throws Exception {
+    String dir = System.getProperty("jvn.readStateDir");
+    System.setProperty("jvn.readStateDir", Files.createTempDirectory("jvn-read").toString());
+    try {
+      VnScenario scenario = new VnScenarioBuilder("shared_read").dialogue("", "a").dialogue("", "b").build();
+      VnState first = new VnState();
+      first.setScenario(scenario);
+      first.markNodeAsRead(1);
+      VnState second = new VnState();
+      second.setScenario(scenario);
+      assertTrue(second.isNodeRead(1));
+      assertFalse(second.isNodeRead(0));
+      second.setReadNodes(Set.of(0)); // merged, as when loading an older save
+      assertEquals(Set.of(0, 1), first.getReadNodes());
+    } finally {
+      if (dir == null) System.clearProperty("jvn.readStateDir"); else System.setProperty("jvn.readStateDir", dir);
+    }
+  }
+
+  @Test
+  public void anEditKeepsTheMarksOfUnchangedSections() throws Exception {
+    String dir = System.getProperty("jvn.readStateDir");
+    System.setProperty("jvn.readStateDir", Files.createTempDirectory("jvn-read").toString());
+    try {
+      VnScenario original = new VnScenarioBuilder("patched_read")
+          .dialogue("", "intro").label("cave").dialogue("", "dark").dialogue("", "damp").label("town").dialogue("", "busy").build();
+      VnState state = new VnState();
+      state.setScenario(original);
+      for (int i = 0; i < 4; i++) state.markNodeAsRead(i);
+
+      // a line added to the intro moves the other sections along; the edited town section starts over
+      VnScenario patched = new VnScenarioBuilder("patched_read")
+          .dialogue("", "intro").dialogue("", "new").label("cave").dialogue("", "dark").dialogue("", "damp")
+          .label("town").dialogue("", "quiet").build();
+      VnState after = new VnState();
+      after.setScenario(patched);
+      assertEquals(Set.of(2, 3), after.getReadNodes());
+    } finally {
+      if (dir == null) System.clearProperty("jvn.readStateDir"); else System.setProperty("jvn.readStateDir", dir);
+    }
+  }
+
+  @Test
+  public void scenariosWithTheSameIdFromDifferentSourcesKeepSeparateFiles() throws Exception {
+    String dir = System.getProperty("jvn.readStateDir");
+    System.setProperty("jvn.readStateDir", Files.createTempDirectory("jvn-read").toString());
+    try {
+      VnScenario a = new VnScenarioBuilder("untitled").dialogue("", "a").build();
+      a.setSource("file:/games/one/scripts/main.vns");
+      VnScenario b = new VnScenarioBuilder("untitled").dialogue("", "b").build();
+      b.setSource("file:/games/two/scripts/main.vns");
+      VnReadState first = VnReadState.shared(a);
+      first.markRead(0);
+      VnReadState second = VnReadState.shared(b);
+      assertNotEquals(first.getFile(), second.getFile());
+      assertFalse(second.isRead(0));
+      assertTrue(VnReadState.shared(a).isRead(0));
+    } finally {
+      if (dir == null) System.clearProperty("jvn.readStateDir"); else System.setProperty("jvn.readStateDir", dir);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.jvn.core.vn;
+
+import com.jvn.core.vn.script.VnScenarioCache;
+import com.jvn.core.vn.script.VnScenarioCodec;
+import com.jvn.core.vn.script.VnScriptParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnScenarioCacheTest {
+  static final String SCRIPT = """
+    @scenario cached_story
+    @character alice "Alice"
+    @charimg alice happy img/alice_happy.png
+    @background room img/room.png
+
+    [background room]
+    [show alice left happy]
+    [bgm theme.ogg]
+    [transition fade 300 room]
+    Alice: Hello there!
+    @label ask
+    > Stay [if trust >= 2] -> stay
+    > Leave -> leave
+    @label stay
+    [set trust 3]
+    [wait 250]
+    [hide alice]
+    [jump ask]
+    @label leave
+    [bgm_fadeout 500]
+    [call jes push game.jes]
+    [end]
+    """;
+
+  @Test
+  public void compiledScenarioMatchesParsedOne() throws Exception {
+    VnScenario parsed = new VnScriptParser().parseFromString(SCRIPT);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    VnScenarioCodec.write(parsed, out);
+    VnScenario decoded = VnScenarioCodec.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(VnScenarioDump.dump(parsed), VnScenarioDump.dump(decoded));
+    assertEquals("img/alice_happy.png", decoded.getCharacter("alice").getExpressionPath("happy"));
+    assertEquals(parsed.getFingerprint(), decoded.getFingerprint());
+  }
+
+  @Test
+  public void secondLoadSkipsTheParser() throws Exception {
+    Path dir = Files.createTempDirectory("vnc");
+    byte[] bytes = SCRIPT.getBytes(StandardCharsets.UTF_8);
+    VnScenarioCache cache = new VnScenarioCache(dir);
+    VnScenario first = cache.load(bytes);
+    VnScenario second = cache.load(bytes);
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getHits());
+    assertEquals(VnScenarioDump.dump(first), VnScenarioDump.dump(second));
+
+    // a corrupt entry is dropped and rebuilt from the script
+    Path entry = dir.resolve(VnScenarioCache.key(bytes) + ".vnc");
+    Files.write(entry, new byte[]{ 1, 2, 3 });
+    assertEquals(VnScenarioDump.dump(first), VnScenarioDump.dump(cache.load(bytes)));
+    assertEquals(2, cache.getMisses());
+    assertTrue(Files.size(entry) > 3);
+  }
+
+  @Test
+  public void pagesLargeScenariosByLabelChunk() throws Exception {
+    byte[] bytes = VnScriptParserBenchmark.script(200).getBytes(StandardCharsets.UTF_8);
+    VnScenario parsed = new VnScriptParser().parse(new ByteArrayInputStream(bytes));
+    VnScenarioCache cache = new VnScenarioCache(Files.createTempDirectory("vnc"));
+    cache.setPaging(1000, 4);
+    VnScenario paged = cache.load(bytes);
+    assertTrue(paged.isPaged());
+    assertEquals(parsed.getFingerprint(), paged.getFingerprint()); // carried in the header, no nodes decoded
+    VnNodeStore store = paged.getNodeStore();
+    assertTrue(store.getChunkCount() > 4);
+    assertEquals(0, store.getResidentChunks());
+
+    VnState state = new VnState();
+    state.setScenario(paged);
+    state.jumpToLabel("ch150");
+    int index = parsed.getLabelIndex("ch150");
+    assertEquals(index, state.getCurrentNodeIndex());
+    assertEquals(parsed.getNode(index).getType(), state.getCurrentNode().getType());
+    assertTrue(store.getResidentChunks() <= 4);
+
+    // walking the whole story decodes every chunk but keeps only a few
+    assertEquals(VnScenarioDump.dump(parsed), VnScenarioDump.dump(paged));
+    assertTrue(store.getLoads() >= store.getChunkCount());
+    assertTrue(store.getResidentChunks() <= 4);
+
+    // small scenarios stay in memory
+    assertFalse(cache.load(SCRIPT.getBytes(StandardCharsets.UTF_8)).isPaged());
+  }
+
+  @Test
+  public void pagedScenarioSurvivesItsCompiledFileBeingDeleted() throws Exception {
+    byte[] bytes = VnScriptParserBenchmark.script(200).getBytes(StandardCharsets.UTF_8);
+    VnScenario parsed = new VnScriptParser().parse(new ByteArrayInputStream(bytes));
+    Path dir = Files.createTempDirectory("vnc");
+    VnScenarioCache cache = new VnScenarioCache(dir);
+    cache.setPaging(1000, 4);
+    VnScenario paged = cache.load(bytes);
+    assertTrue(paged.isPaged());
+    Path entry = dir.resolve(VnScenarioCache.key(bytes) + ".vnc");
+    Files.delete(entry);
+
+    assertEquals(VnScenarioDump.dump(parsed), VnScenarioDump.dump(paged)); // parsed again from the script
+    assertTrue(Files.isRegularFile(entry)); // and compiled again for the next launch
+  }
+}
@@ -0,0 +1,44 @@
+package com.jvn.core.vn;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Canonical text form of a scenario, for comparing scenarios built by different loaders. */
+final class VnScenarioDump {
+  private VnScenarioDump() {}
+
+  static String dump(VnScenario sc) {
+    StringBuilder sb = new StringBuilder("scenario ").append(sc.getId()).append('\n');
+    new TreeMap<>(sc.getCharacters()).forEach((id, c) ->
+      sb.append("character ").append(id).append(' ').append(c.getDisplayName()).append(' ').append(new TreeMap<>(c.getExpressions())).append('\n'));
+    new TreeMap<>(sc.getBackgrounds()).forEach((id, b) -> sb.append("background ").append(id).append(' ').append(b.getImagePath()).append('\n'));
+    sb.append("labels ").append(new TreeMap<>(sc.getLabels())).append('\n');
+    for (VnNode n : sc.getNodes()) {
+      sb.append(n.getType()).append(" expr=").append(n.getShowExpression());
+      DialogueLine d = n.getDialogue();
+      if (d != null) sb.append(" dialogue=[").append(d.getSpeakerName()).append('|').append(d.getText()).append('|')
+        .append(d.getCharacterId()).append('|').append(d.getExpression()).append('|').append(d.getPosition()).append(']');
+      for (Choice c : n.getChoices()) sb.append(" choice=[").append(c.getText()).append('|').append(c.getTargetLabel())
+        .append('|').append(c.getCondition()).append('|').append(c.isEnabled()).append(']');
+      field(sb, "bg", n.getBackgroundId());
+      field(sb, "jump", n.getJumpLabel());
+      VnAudioCommand a = n.getAudioCommand();
+      if (a != null) sb.append(" audio=[").append(a.getType()).append('|').append(a.getTrackId()).append('|').append(a.isLoop())
+        .append('|').append(a.getVolume()).append('|').append(a.getDurationMs()).append(']');
+      VnTransition t = n.getTransition();
+      if (t != null) sb.append(" transition=[").append(t.getType()).append('|').append(t.getDurationMs()).append('|').append(t.getTargetBackgroundId()).append(']');
+      if (n.getWaitMs() != 0) sb.append(" wait=").append(n.getWaitMs());
+      field(sb, "show", n.getCharacterToShow());
+      field(sb, "hide", n.getCharacterToHide());
+      if (n.getShowPosition() != null) sb.append(" pos=").append(n.getShowPosition());
+      VnExternalCommand x = n.getExternalCommand();
+      if (x != null) sb.append(" external=[").append(x.getProvider()).append('|').append(x.getPayload()).append(']');
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  private static void field(StringBuilder sb, String name, String value) {
+    if (value != null) sb.append(' ').append(name).append('=').append(value);
+  }
+}
@@ -0,0 +1,69 @@
+package com.jvn.core.vn;
+
+import com.jvn.core.audio.AudioFacade;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnSceneFastForwardTest {
+  private static final class RecordingAudio implements AudioFacade {
+    final List<String> calls = new ArrayList<>();
+    @Override public void playBgm(String trackId, boolean loop) { calls.add("bgm:" + trackId); }
+    @Override public void stopBgm() { calls.add("stop"); }
+    @Override public void playSfx(String sfxId) { calls.add("sfx:" + sfxId); }
+  }
+
+  @Test
+  public void skipsReadLinesAndAppliesOnlyTheNetEffect() throws Exception {
+    String dir = System.getProperty("jvn.readStateDir");
+    System.setProperty("jvn.readStateDir", Files.createTempDirectory("jvn-read").toString());
+    try {
+      VnScenario scenario = new VnScenarioBuilder("ff_story")
+          .addBackground("room", "bg/room.png")
+          .dialogue("", "one")
+          .playBgm("a.ogg", true)
+          .playSfx("ding.wav")
+          .background("room")
+          .dialogue("", "two")
+          .waitMs(500)
+          .playBgm("b.ogg", true)
+          .dialogue("", "three")
+          .choiceWithTargets(new String[][]{ { "Go", "next" } })
+          .label("next")
+          .dialogue("", "after")
+          .end()
+          .build();
+
+      // first playthrough: nothing is read yet, so the skip stops at the first line it reaches
+      VnScene first = new VnScene(scenario);
+      RecordingAudio audio = new RecordingAudio();
+      first.setAudioFacade(audio);
+      first.onEnter();
+      assertEquals(4, first.skipToNextStop());
+      assertEquals("two", first.getState().getCurrentNode().getDialogue().getText());
+      assertEquals("room", first.getState().getCurrentBackgroundId());
+      assertEquals(List.of("bgm:a.ogg"), audio.calls);
+      while (first.getState().getCurrentNode().getType() != VnNodeType.CHOICE) first.advance();
+
+      // second playthrough: everything up to the choice is read and is passed in one call
+      VnScene second = new VnScene(scenario);
+      audio = new RecordingAudio();
+      second.setAudioFacade(audio);
+      second.onEnter();
+      second.skipToNextStop();
+      assertEquals(VnNodeType.CHOICE, second.getState().getCurrentNode().getType());
+      assertEquals(List.of("bgm:b.ogg"), audio.calls); // a.ogg and the sound effect are coalesced away
+      assertNull(second.getState().getActiveTransition());
+      List<String> lines = new ArrayList<>();
+      for (VnHistory.HistoryEntry e : second.getState().getHistory().getEntries()) lines.add(e.getText());
+      assertEquals(List.of("one", "two", "three"), lines);
+      assertEquals(0, second.skipToNextStop()); // choices always stop
+    } finally {
+      if (dir == null) System.clearProperty("jvn.readStateDir"); else System.setProperty("jvn.readStateDir", dir);
+    }
+  }
+}
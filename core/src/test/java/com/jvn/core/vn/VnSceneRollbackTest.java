@@ -0,0 +1,102 @@
+package com.jvn.core.vn;
+
+import com.jvn.core.audio.AudioFacade;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnSceneRollbackTest {
+  @Test
+  public void rollsBackToAChoiceAndChoosesAgain() {
+    VnScenario scenario = new VnScenarioBuilder("rollback_story")
+        .addCharacter("alice", "Alice")
+        .dialogue("", "start")
+        .show("alice", "neutral", CharacterPosition.LEFT)
+        .choiceWithTargets(new String[][]{ { "Left", "left" }, { "Right", "right" } })
+        .label("left")
+        .dialogue("", "went left")
+        .end()
+        .label("right")
+        .dialogue("", "went right")
+        .end()
+        .build();
+    VnScene scene = new VnScene(scenario);
+    scene.onEnter();
+    assertFalse(scene.rollback()); // nothing before the first line
+
+    scene.getState().setVariable("mood", "brave");
+    scene.advance();
+    assertEquals(VnNodeType.CHOICE, scene.getState().getCurrentNode().getType());
+    assertTrue(scene.getState().getVisibleCharacters().containsKey(CharacterPosition.LEFT));
+    scene.selectChoice(0);
+    scene.getState().setVariable("mood", "scared");
+    scene.getState().hideCharacter(CharacterPosition.LEFT);
+    assertEquals(2, scene.getState().getHistory().size());
+
+    assertTrue(scene.rollback());
+    assertEquals(VnNodeType.CHOICE, scene.getState().getCurrentNode().getType());
+    assertEquals("brave", scene.getState().getVariable("mood"));
+    assertTrue(scene.getState().getVisibleCharacters().containsKey(CharacterPosition.LEFT));
+    assertEquals(1, scene.getState().getHistory().size());
+
+    scene.selectChoice(1);
+    assertEquals("went right", scene.getState().getCurrentNode().getDialogue().getText());
+    assertTrue(scene.rollback());
+    assertTrue(scene.rollback());
+    assertEquals("start", scene.getState().getCurrentNode().getDialogue().getText());
+    assertFalse(scene.getState().getVisibleCharacters().containsKey(CharacterPosition.LEFT));
+    assertNull(scene.getState().getVariable("mood"));
+  }
+
+  @Test
+  public void rollbackRestoresTheMusicOfThatLine() {
+    VnScenario scenario = new VnScenarioBuilder("rollback_bgm")
+        .playBgm("calm.ogg", true)
+        .dialogue("", "one")
+        .playBgm("battle.ogg", true)
+        .dialogue("", "two")
+        .stopBgm()
+        .dialogue("", "three")
+        .end()
+        .build();
+    List<String> calls = new ArrayList<>();
+    VnScene scene = new VnScene(scenario);
+    scene.setAudioFacade(new AudioFacade() {
+      @Override public void playBgm(String trackId, boolean loop) { calls.add("bgm:" + trackId); }
+      @Override public void stopBgm() { calls.add("stop"); }
+      @Override public void playSfx(String sfxId) {}
+    });
+    scene.onEnter();
+    scene.advance();
+    scene.advance();
+    assertEquals("three", scene.getState().getCurrentNode().getDialogue().getText());
+    assertNull(scene.getState().getBgm());
+    calls.clear();
+
+    assertTrue(scene.rollback());
+    assertEquals("two", scene.getState().getCurrentNode().getDialogue().getText());
+    assertEquals("battle.ogg", scene.getState().getBgm().getTrackId());
+    assertTrue(scene.rollback());
+    assertEquals("calm.ogg", scene.getState().getBgm().getTrackId());
+    assertEquals(List.of("bgm:battle.ogg", "bgm:calm.ogg"), calls);
+  }
+
+  @Test
+  public void rollbackTrimsABoundedBacklogThatIsFull() {
+    VnScenarioBuilder builder = new VnScenarioBuilder("rollback_full_backlog");
+    for (int i = 0; i < 10; i++) builder.dialogue("", "line " + i);
+    VnScene scene = new VnScene(builder.end().build());
+    scene.getState().getSettings().setKeepFullHistory(false);
+    scene.getState().setHistory(new VnHistory(3));
+    scene.onEnter();
+    for (int i = 0; i < 9; i++) scene.advance();
+    assertTrue(scene.rollback());
+    assertEquals("line 8", scene.getState().getCurrentNode().getDialogue().getText());
+    List<String> lines = new ArrayList<>();
+    for (VnHistory.HistoryEntry e : scene.getState().getHistory().getEntries()) lines.add(e.getText());
+    assertEquals(List.of("line 7", "line 8"), lines); // line 8 is replayed once, and line 9 is gone
+  }
+}
@@ -0,0 +1,65 @@
+package com.jvn.core.vn;
+
+import com.jvn.core.vn.script.VnScriptParser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parse throughput of {@link VnScriptParser} against the original regex parser on a large generated script.
+ * Run with {@code VnScriptParserBenchmark [chapters] [rounds]}; not part of the test suite.
+ */
+public final class VnScriptParserBenchmark {
+  private VnScriptParserBenchmark() {}
+
+  /** A script of {@code chapters} chapters, each mixing dialogue, choices, commands and labels. */
+  static String script(int chapters) {
+    StringBuilder sb = new StringBuilder("@scenario bench\n@character alice \"Alice\"\n@character bob \"Bob\"\n");
+    sb.append("@charimg alice happy img/alice_happy.png\n@background room img/room.png\n");
+    for (int c = 0; c < chapters; c++) {
+      sb.append("@label ch").append(c).append('\n');
+      sb.append("# chapter ").append(c).append('\n');
+      sb.append("[background room]\n[show alice left happy]\n[bgm theme").append(c % 7).append(".ogg]\n");
+      for (int i = 0; i < 12; i++) {
+        sb.append(i % 2 == 0 ? "Alice" : "Bob").append(": Line ").append(i)
+          .append(" of chapter ").append(c).append(", with enough text to look like a real sentence.\n");
+      }
+      sb.append("[transition fade 300 room]\n[set trust ").append(c % 5).append("]\n[wait 250]\n");
+      sb.append("> Stay [if trust >= 2] -> ch").append(c + 1).append('\n');
+      sb.append("> Leave -> ch").append(c + 1).append('\n');
+      sb.append("[call jes push game.jes]\n[hide alice]\n");
+    }
+    sb.append("@label ch").append(chapters).append("\n[end]\n");
+    return sb.toString();
+  }
+
+  public static void main(String[] args) throws Exception {
+    int chapters = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    String text = script(chapters);
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    long lines = text.lines().count();
+    System.out.printf("%d lines, %d KiB%n", lines, bytes.length / 1024);
+
+    RegexVnScriptParser regex = new RegexVnScriptParser();
+    VnScriptParser scanner = new VnScriptParser();
+    for (int i = 0; i < 3; i++) {
+      regex.parse(new ByteArrayInputStream(bytes));
+      scanner.parse(new ByteArrayInputStream(bytes));
+    }
+    long regexNs = 0;
+    long scannerNs = 0;
+    for (int r = 0; r < rounds; r++) {
+      long t0 = System.nanoTime();
+      regex.parse(new ByteArrayInputStream(bytes));
+      long t1 = System.nanoTime();
+      scanner.parse(new ByteArrayInputStream(bytes));
+      long t2 = System.nanoTime();
+      regexNs += t1 - t0;
+      scannerNs += t2 - t1;
+    }
+    System.out.printf("regex:   %8.1f ms/parse  %6.2f M lines/s%n", regexNs / 1e6 / rounds, lines * rounds * 1e3 / regexNs);
+    System.out.printf("scanner: %8.1f ms/parse  %6.2f M lines/s%n", scannerNs / 1e6 / rounds, lines * rounds * 1e3 / scannerNs);
+    System.out.printf("speedup: %.2fx%n", (double) regexNs / scannerNs);
+  }
+}
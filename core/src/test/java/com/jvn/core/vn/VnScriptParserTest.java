@@ -4,6 +4,7 @@ import com.jvn.core.vn.script.VnScriptParser;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,4 +38,51 @@ public class VnScriptParserTest {
       assertTrue(second.getDialogue().getText().startsWith("Hello"));
     }
   }
+
+  private static final String[] EDGE_LINES = {
+    "@scenario  spaced id", "@scenariox: not a directive", "@character bob \"Bob Smith\"", "@character bob \"\"",
+    "@character bob \"A\"B\": quoted", "@character bob\t \"Tabbed\"", "@background hall  img/a b.png",
+    "@background hall", "@charimg bob sad img/bob sad.png", "@charimg bob sad", "@label  start here", "@labelx: y",
+    "@unknown: falls to dialogue", "> Go", "> Go -> end", ">Go->end", "> a -> b -> c", "> -> x", "> a ->",
+    "> a ->   ", "> -> ", "> Open [if key] -> door", "> Open [if  ] -> door", "> Open [if ]", "> x [if [if ]",
+    "> Open [if a] b [if c] -> d", "> Open [if a]] -> d", "> [if] -> d", "> a \u2028 -> b", "> a -> b\u2028 -> c",
+    ">", "[bg  room ]", "[ bg room]", "[BG room]", "[show a]", "[show a L]", "[show a fr sad extra]",
+    "[show a\u000Bleft]", "[transition]", "[transition wipe x]", "[transition dissolve 10 hall extra]",
+    "[call jes]", "[call  jes   push  x ]", "[wait abc]", "[wait 12]", "[bgm_fadeout x]", "[mainmenu  ]",
+    "[skip]", "[ ]", "[]", "[a]b", "[a]]", "[x: y]", "[a]: b", "Alice:", "Alice:   hi  ", ": no speaker",
+    " Bob : a:b ", "Bob:\u0001text", "Bob: a\u2029b", "no colon here", "# comment", "#", "\u2028: x"
+  };
+
+  @Test
+  public void scannerMatchesRegexParser() throws Exception {
+    assertSameParse(VnScenarioCacheTest.SCRIPT);
+    StringBuilder all = new StringBuilder();
+    for (String line : EDGE_LINES) {
+      assertSameParse(line);
+      assertSameParse("@scenario s\n> pending\n" + line + "\n> after -> x\n");
+      all.append(line).append('\n');
+    }
+    assertSameParse(all.toString());
+  }
+
+  private static void assertSameParse(String script) {
+    String expected;
+    try {
+      expected = VnScenarioDump.dump(new RegexVnScriptParser().parse(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8))));
+    } catch (Exception e) {
+      expected = failure(e);
+    }
+    String actual;
+    try {
+      actual = VnScenarioDump.dump(new VnScriptParser().parse(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8))));
+    } catch (Exception e) {
+      actual = failure(e);
+    }
+    assertEquals(expected, actual, script);
+  }
+
+  // an empty script fails with a NullPointerException in both; its helpful message depends on the JIT
+  private static String failure(Exception e) {
+    return e instanceof IOException ? e.getMessage() : e.getClass().getName();
+  }
 }
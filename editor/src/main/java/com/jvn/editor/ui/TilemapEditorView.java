@@ -1,12 +1,16 @@
 package com.jvn.editor.ui;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.jvn.core.scene2d.TileLayerFile;
 import com.jvn.scripting.jes.JesParser;
 import com.jvn.scripting.jes.JesToken;
 import com.jvn.scripting.jes.JesTokenizer;
@@ -287,6 +291,22 @@ public class TilemapEditorView extends BorderPane {
       statusLabel.setText("Created new layer grid");
       return;
     }
+    if (isBinaryLayer(dataPath)) {
+      // read rather than map, so the file is not held open while the layer is edited and saved back
+      try (InputStream in = Files.newInputStream(f.toPath())) {
+        TileLayerFile layer = TileLayerFile.read(in);
+        cols = layer.getCols();
+        rows = layer.getRows();
+        tiles = layer.readAll();
+        redraw();
+        statusLabel.setText("Loaded layer");
+      } catch (Exception ex) {
+        tiles = null;
+        redraw();
+        statusLabel.setText("Failed to load layer");
+      }
+      return;
+    }
     try {
       List<String> lines = Files.readAllLines(f.toPath());
       rows = lines.size();
@@ -323,6 +343,10 @@ public class TilemapEditorView extends BorderPane {
     }
   }
 
+  private static boolean isBinaryLayer(String dataPath) {
+    return dataPath != null && dataPath.toLowerCase().endsWith(".jtl");
+  }
+
   private double getMapProp(JesAst.MapDecl m, String key, double def) {
     if (m == null || m.props == null) return def;
     Object v = m.props.get(key);
@@ -399,6 +423,13 @@ public class TilemapEditorView extends BorderPane {
     try {
       File parent = f.getParentFile();
       if (parent != null && !parent.exists()) parent.mkdirs();
+      if (isBinaryLayer(s)) {
+        try (OutputStream out = new FileOutputStream(f, false)) {
+          TileLayerFile.write(tiles, cols, rows, out, TileLayerFile.DEFAULT_CHUNK_SIZE);
+        }
+        statusLabel.setText("Saved " + f.getName());
+        return;
+      }
       try (FileWriter fw = new FileWriter(f, false)) {
         for (int y = 0; y < rows; y++) {
           StringBuilder sb = new StringBuilder();
@@ -207,6 +207,8 @@ public class FxLauncher extends Application {
           if (actionMap.matches(InputActions.ADVANCE, code)) { if (!handleMenuEnter()) handleAdvance(); }
           if (actionMap.matches(InputActions.MENU_CONFIRM, code)) { if (!handleMenuEnter()) handleAdvance(); }
           if (actionMap.matches(InputActions.SKIP_TOGGLE, code)) handleToggleSkip();
+          if (actionMap.matches(InputActions.SKIP_TO_STOP, code)) handleSkipToStop();
+          if (actionMap.matches(InputActions.ROLLBACK, code)) handleRollback();
           if (actionMap.matches(InputActions.AUTO_TOGGLE, code)) handleToggleAutoPlay();
           if (actionMap.matches(InputActions.HIDE_UI, code)) handleToggleUI();
           if (actionMap.matches(InputActions.HISTORY, code)) handleToggleHistory();
@@ -411,6 +413,22 @@ public class FxLauncher extends Application {
     }
   }
 
+  private void handleSkipToStop() {
+    if (engine == null) return;
+    com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
+    if (currentScene instanceof VnScene vn) {
+      vn.skipToNextStop();
+    }
+  }
+
+  private void handleRollback() {
+    if (engine == null) return;
+    com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
+    if (currentScene instanceof VnScene vn) {
+      vn.rollback();
+    }
+  }
+
   private void handleToggleAutoPlay() {
     if (engine == null) return;
     com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
@@ -10,7 +10,9 @@ import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class FxAudioService implements AudioFacade {
   private MediaPlayer bgmPlayer;
@@ -19,16 +21,56 @@ public class FxAudioService implements AudioFacade {
   private float sfxVolume = 0.8f;
   private float voiceVolume = 1.0f; // currently unused channel
   private File projectRoot;
+  private int maxCachedMedia = 32;
+  // access-ordered so the least recently played track is dropped first
+  private final LinkedHashMap<String, Media> mediaCache = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Media> eldest) {
+      return size() > maxCachedMedia;
+    }
+  };
+
+  public void setProjectRoot(File root) {
+    this.projectRoot = root;
+    synchronized (mediaCache) { mediaCache.clear(); }
+  }
+
+  /** Caps how many resolved tracks are kept; the least recently used ones are released first. */
+  public void setMaxCachedMedia(int max) {
+    synchronized (mediaCache) {
+      this.maxCachedMedia = Math.max(1, max);
+      Iterator<String> it = mediaCache.keySet().iterator();
+      while (mediaCache.size() > maxCachedMedia && it.hasNext()) { it.next(); it.remove(); }
+    }
+  }
 
-  public void setProjectRoot(File root) { this.projectRoot = root; }
+  @Override
+  public void preload(String trackId) {
+    media(trackId);
+  }
+
+  /** Resolved media for an id, cached so repeated and prefetched tracks skip resolution and probing. */
+  private Media media(String id) {
+    if (id == null) return null;
+    synchronized (mediaCache) {
+      Media cached = mediaCache.get(id);
+      if (cached != null) return cached;
+    }
+    String urlStr = resolveMediaUrl(id);
+    if (urlStr == null) return null;
+    Media media = new Media(urlStr);
+    synchronized (mediaCache) {
+      Media prev = mediaCache.putIfAbsent(id, media);
+      return prev != null ? prev : media;
+    }
+  }
 
   @Override
   public void playBgm(String trackId, boolean loop) {
     stopBgm();
     try {
-      String urlStr = resolveMediaUrl(trackId);
-      if (urlStr == null) return;
-      Media media = new Media(urlStr);
+      Media media = media(trackId);
+      if (media == null) return;
       bgmPlayer = new MediaPlayer(media);
       if (loop) bgmPlayer.setCycleCount(MediaPlayer.INDEFINITE);
       bgmPlayer.setVolume(clamp(bgmVolume));
@@ -52,9 +94,8 @@ public class FxAudioService implements AudioFacade {
   @Override
   public void playSfx(String sfxId) {
     try {
-      String urlStr = resolveMediaUrl(sfxId);
-      if (urlStr == null) return;
-      Media media = new Media(urlStr);
+      Media media = media(sfxId);
+      if (media == null) return;
       MediaPlayer player = new MediaPlayer(media);
       player.setVolume(clamp(sfxVolume));
       player.setOnEndOfMedia(() -> {
@@ -121,10 +162,10 @@ public class FxAudioService implements AudioFacade {
   @Override
   public void crossfadeBgm(String trackId, long ms, boolean loop) {
     try {
-      String urlStr = resolveMediaUrl(trackId);
-      if (urlStr == null) { playBgm(trackId, loop); return; }
+      Media media = media(trackId);
+      if (media == null) { playBgm(trackId, loop); return; }
       final MediaPlayer oldPlayer = this.bgmPlayer;
-      final MediaPlayer newPlayer = new MediaPlayer(new Media(urlStr));
+      final MediaPlayer newPlayer = new MediaPlayer(media);
       if (loop) newPlayer.setCycleCount(MediaPlayer.INDEFINITE);
       newPlayer.setVolume(0.0);
       newPlayer.play();
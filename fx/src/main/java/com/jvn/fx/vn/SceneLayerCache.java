@@ -0,0 +1,27 @@
+package com.jvn.fx.vn;
+
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnState;
+
+/**
+ * Remembers what the cached background and character layer of {@link VnRenderer} was composited from. The layer is
+ * stale when the scenario or background changes, when the visible characters change
+ * ({@link VnState#getCharactersVersion()} changes identity), or when the viewport size or output scale changes.
+ */
+final class SceneLayerCache {
+  private Key key;
+
+  private record Key(VnScenario scenario, String backgroundId, Object characters, int width, int height,
+                     double scaleX, double scaleY) {}
+
+  /** True when the layer has to be composited again for this frame; the frame's inputs become the cached ones. */
+  boolean update(VnState state, VnScenario scenario, int width, int height, double scaleX, double scaleY) {
+    Key k = new Key(scenario, state.getCurrentBackgroundId(), state.getCharactersVersion(), width, height,
+      scaleX, scaleY);
+    if (k.equals(key)) return false;
+    key = k;
+    return true;
+  }
+
+  void invalidate() { key = null; }
+}
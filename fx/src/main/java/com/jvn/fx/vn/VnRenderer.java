@@ -2,27 +2,39 @@ package com.jvn.fx.vn;
 
 import com.jvn.core.vn.*;
 import com.jvn.core.localization.Localization;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 import java.io.File;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Renders visual novel elements using JavaFX Canvas
  */
 public class VnRenderer {
-  private final GraphicsContext gc;
-  private final Map<String, Image> imageCache = new HashMap<>();
+  private final GraphicsContext screen;
+  private GraphicsContext gc; // where the draw helpers paint: the screen, or the layer canvas while it is rebuilt
+  private final Map<String, Image> imageCache = new ConcurrentHashMap<>();
+  // decodes upcoming backgrounds and sprites into imageCache off the FX thread
+  private final VnAssetPrefetcher prefetcher = new VnAssetPrefetcher(this::loadImage, null);
   private final Font nameFont;
   private final Font dialogueFont;
   private final Font choiceFont;
   private VnState currentState;
+  // Background and characters composited offscreen at the output scale; redrawn only when their inputs change
+  private Canvas layerCanvas;
+  private WritableImage layerImage;
+  private final SceneLayerCache layer = new SceneLayerCache();
 
   // UI Layout constants
   private static final double TEXTBOX_HEIGHT_RATIO = 0.25;
@@ -37,6 +49,7 @@ public class VnRenderer {
   private static final Color TEXT_COLOR_DISABLED = Color.color(1, 1, 1, 0.5);
 
   public VnRenderer(GraphicsContext gc) {
+    this.screen = gc;
     this.gc = gc;
     this.nameFont = Font.font("Arial", FontWeight.BOLD, 18);
     this.dialogueFont = Font.font("Arial", FontWeight.NORMAL, 16);
@@ -45,7 +58,10 @@ public class VnRenderer {
 
   // Optional base directory used to resolve asset paths from filesystem (editor preview)
   private File projectRoot;
-  public void setProjectRoot(File root) { this.projectRoot = root; }
+  public void setProjectRoot(File root) {
+    this.projectRoot = root;
+    layer.invalidate();
+  }
 
   private void renderHistoryOverlay(VnState state, double width, double height) {
     gc.setFill(Color.rgb(0, 0, 0, 0.75));
@@ -99,36 +115,17 @@ public class VnRenderer {
    */
   public void render(VnState state, VnScenario scenario, double width, double height) {
     this.currentState = state;
+    prefetcher.scan(state);
     // Clear screen
     gc.setFill(Color.BLACK);
     gc.fillRect(0, 0, width, height);
 
-    boolean didCrossfade = false;
-    if (state.getActiveTransition() != null && state.getActiveTransition().getType() == com.jvn.core.vn.VnTransition.TransitionType.CROSSFADE) {
-      String prevId = state.getPreviousBackgroundIdDuringTransition();
-      String curId = state.getCurrentBackgroundId();
-      if (prevId != null && curId != null) {
-        renderCrossfadeBackground(scenario.getBackground(prevId), scenario.getBackground(curId), state.getTransitionProgress(), width, height);
-        didCrossfade = true;
-      }
-    }
-    if (!didCrossfade) {
-      if (state.getCurrentBackgroundId() != null) {
-        VnBackground bg = scenario.getBackground(state.getCurrentBackgroundId());
-        if (bg != null) {
-          renderBackground(bg, width, height);
-        }
-      }
-    }
-
-    // Apply transition effect if active
-    if (state.getActiveTransition() != null) {
-      renderTransition(state, width, height);
+    if (state.getActiveTransition() == null) {
+      renderSceneLayer(state, scenario, width, height);
+    } else {
+      renderTransitionFrame(state, scenario, width, height);
     }
 
-    // Render characters
-    renderCharacters(state, scenario, width, height);
-
     // Render current node content (unless UI is hidden)
     VnNode currentNode = state.getCurrentNode();
     if (currentNode != null && !state.isUiHidden()) {
@@ -189,6 +186,77 @@ public class VnRenderer {
     }
   }
 
+  /**
+   * Draws background and characters from the cached layer, re-compositing it offscreen only when the background,
+   * the character slots, the viewport size or the output scale have changed. The layer is rendered at the window's
+   * output scale so it stays sharp on HiDPI screens, and drawn back at logical size.
+   */
+  private void renderSceneLayer(VnState state, VnScenario scenario, double width, double height) {
+    int w = (int) Math.ceil(width);
+    int h = (int) Math.ceil(height);
+    if (w <= 0 || h <= 0) return;
+    Window window = screen.getCanvas().getScene() != null ? screen.getCanvas().getScene().getWindow() : null;
+    double sx = window != null ? window.getOutputScaleX() : 1.0;
+    double sy = window != null ? window.getOutputScaleY() : 1.0;
+    if (layer.update(state, scenario, w, h, sx, sy)) {
+      int pw = (int) Math.ceil(w * sx);
+      int ph = (int) Math.ceil(h * sy);
+      if (layerCanvas == null || layerCanvas.getWidth() != w || layerCanvas.getHeight() != h) {
+        layerCanvas = new Canvas(w, h);
+      }
+      if (layerImage == null || layerImage.getWidth() != pw || layerImage.getHeight() != ph) {
+        layerImage = new WritableImage(pw, ph);
+      }
+      gc = layerCanvas.getGraphicsContext2D();
+      try {
+        gc.clearRect(0, 0, w, h);
+        renderCurrentBackground(state, scenario, width, height);
+        renderCharacters(state, scenario, width, height);
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(Transform.scale(sx, sy));
+        layerCanvas.snapshot(params, layerImage);
+      } catch (RuntimeException e) {
+        layer.invalidate(); // try again next frame
+        throw e;
+      } finally {
+        gc = screen;
+      }
+    }
+    gc.drawImage(layerImage, 0, 0, w, h);
+  }
+
+  /** Transitions animate every frame, so they are drawn directly rather than through the layer cache. */
+  private void renderTransitionFrame(VnState state, VnScenario scenario, double width, double height) {
+    boolean didCrossfade = false;
+    if (state.getActiveTransition().getType() == com.jvn.core.vn.VnTransition.TransitionType.CROSSFADE) {
+      String prevId = state.getPreviousBackgroundIdDuringTransition();
+      String curId = state.getCurrentBackgroundId();
+      if (prevId != null && curId != null) {
+        renderCrossfadeBackground(scenario.getBackground(prevId), scenario.getBackground(curId), state.getTransitionProgress(), width, height);
+        didCrossfade = true;
+      }
+    }
+    if (!didCrossfade) {
+      renderCurrentBackground(state, scenario, width, height);
+    }
+
+    // Apply transition effect
+    renderTransition(state, width, height);
+
+    // Render characters
+    renderCharacters(state, scenario, width, height);
+  }
+
+  private void renderCurrentBackground(VnState state, VnScenario scenario, double width, double height) {
+    if (state.getCurrentBackgroundId() != null) {
+      VnBackground bg = scenario.getBackground(state.getCurrentBackgroundId());
+      if (bg != null) {
+        renderBackground(bg, width, height);
+      }
+    }
+  }
+
   private void renderBackground(VnBackground background, double width, double height) {
     Image img = loadImage(background.getImagePath());
     if (img != null) {
@@ -305,7 +373,7 @@ public class VnRenderer {
     for (int i = 0; i < choices.size(); i++) {
       Choice choice = choices.get(i);
       double y = startY + i * (choiceHeight + 10);
-      boolean enabled = choice.isEnabled() && choiceConditionSatisfied(choice);
+      boolean enabled = choice.isAvailable(currentState != null ? currentState.getVariables() : null);
       Color bg = !enabled ? CHOICE_DISABLED_COLOR : (i == hoverIndex ? CHOICE_HOVER_COLOR : CHOICE_BG_COLOR);
       // Background
       gc.setFill(bg);
@@ -323,48 +391,6 @@ public class VnRenderer {
     }
   }
 
-  private boolean choiceConditionSatisfied(Choice c) {
-    String cond = c.getCondition();
-    if (cond == null || cond.isEmpty()) return true;
-    String[] toks = cond.trim().split("\\s+");
-    if (toks.length < 3) return true;
-    Object lhs = null;
-    if (toks.length >= 1) lhs = getVariableSafe(toks[0]);
-    String op = toks.length >= 2 ? toks[1] : "==";
-    String rhsRaw = toks.length >= 3 ? toks[2] : "";
-    Object rhs = parseScalar(rhsRaw);
-    if (lhs instanceof Number ln && rhs instanceof Number rn) {
-      double a = ln.doubleValue();
-      double b = rn.doubleValue();
-      if ("==".equals(op)) return a == b;
-      if ("!=".equals(op)) return a != b;
-      if (">".equals(op)) return a > b;
-      if ("<".equals(op)) return a < b;
-      if (">=".equals(op)) return a >= b;
-      if ("<=".equals(op)) return a <= b;
-      return false;
-    }
-    String a = lhs == null ? "" : lhs.toString();
-    String b = rhs == null ? "" : rhs.toString();
-    if ("==".equals(op)) return a.equals(b);
-    if ("!=".equals(op)) return !a.equals(b);
-    return false;
-  }
-
-  private Object getVariableSafe(String key) {
-    return key == null ? null : currentState != null ? currentState.getVariables().get(key) : null;
-  }
-
-  private static Object parseScalar(String s) {
-    if (s == null) return "";
-    String t = s.trim();
-    if (t.equalsIgnoreCase("true")) return Boolean.TRUE;
-    if (t.equalsIgnoreCase("false")) return Boolean.FALSE;
-    try { if (t.contains(".")) return Double.parseDouble(t); else return Integer.parseInt(t); }
-    catch (Exception ignored) {}
-    return t;
-  }
-
   private void renderEnd(double width, double height) {
     gc.setFill(TEXT_COLOR);
     gc.setFont(Font.font("Arial", FontWeight.BOLD, 32));
@@ -470,38 +496,45 @@ public class VnRenderer {
 
   private Image loadImage(String path) {
     if (path == null) return null;
-    
-    return imageCache.computeIfAbsent(path, p -> {
-      try {
-        // Try to load from classpath
-        var url = getClass().getClassLoader().getResource(p);
-        if (url != null) {
-          return new Image(url.toExternalForm());
-        }
-        // Fallback: filesystem (absolute or relative to project root)
-        // 1) Absolute or working-directory-relative
-        File f = new File(p);
-        if (f.exists()) {
-          return new Image(f.toURI().toString());
+    Image cached = imageCache.get(path);
+    if (cached != null) return cached;
+    // decode outside the map so a slow file never blocks other lookups; first writer wins
+    Image decoded = decodeImage(path);
+    if (decoded == null) return null;
+    Image prev = imageCache.putIfAbsent(path, decoded);
+    return prev != null ? prev : decoded;
+  }
+
+  private Image decodeImage(String p) {
+    try {
+      // Try to load from classpath
+      var url = getClass().getClassLoader().getResource(p);
+      if (url != null) {
+        return new Image(url.toExternalForm());
+      }
+      // Fallback: filesystem (absolute or relative to project root)
+      // 1) Absolute or working-directory-relative
+      File f = new File(p);
+      if (f.exists()) {
+        return new Image(f.toURI().toString());
+      }
+      // 2) Relative to project root (if provided)
+      if (projectRoot != null) {
+        // If path starts with the project directory name, strip it
+        String normalized = p.replace('\\', '/');
+        String rootName = projectRoot.getName();
+        if (normalized.startsWith(rootName + "/")) {
+          normalized = normalized.substring(rootName.length() + 1);
         }
-        // 2) Relative to project root (if provided)
-        if (projectRoot != null) {
-          // If path starts with the project directory name, strip it
-          String normalized = p.replace('\\', '/');
-          String rootName = projectRoot.getName();
-          if (normalized.startsWith(rootName + "/")) {
-            normalized = normalized.substring(rootName.length() + 1);
-          }
-          File pf = new File(projectRoot, normalized);
-          if (pf.exists()) {
-            return new Image(pf.toURI().toString());
-          }
+        File pf = new File(projectRoot, normalized);
+        if (pf.exists()) {
+          return new Image(pf.toURI().toString());
         }
-      } catch (Exception e) {
-        System.err.println("Failed to load image: " + path);
       }
-      return null;
-    });
+    } catch (Exception e) {
+      System.err.println("Failed to load image: " + p);
+    }
+    return null;
   }
 
   private void renderModeIndicators(VnState state, double width, double height) {
@@ -530,5 +563,6 @@ public class VnRenderer {
 
   public void clearCache() {
     imageCache.clear();
+    layer.invalidate();
   }
 }
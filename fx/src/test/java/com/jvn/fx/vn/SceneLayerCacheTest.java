@@ -0,0 +1,47 @@
+package com.jvn.fx.vn;
+
+import com.jvn.core.vn.CharacterPosition;
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnScenarioBuilder;
+import com.jvn.core.vn.VnState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SceneLayerCacheTest {
+  @Test
+  public void layerIsRecompositedOnlyWhenItsInputsChange() {
+    VnScenario scenario = new VnScenarioBuilder("layer_cache")
+        .addBackground("room", "bg/room.png")
+        .addBackground("hall", "bg/hall.png")
+        .addCharacter("alice", "Alice")
+        .dialogue("", "hi")
+        .build();
+    VnState state = new VnState();
+    state.setCurrentBackgroundId("room");
+    SceneLayerCache layer = new SceneLayerCache();
+
+    assertTrue(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+    assertFalse(layer.update(state, scenario, 800, 600, 1.0, 1.0)); // unchanged frame reuses the layer
+    state.setVariable("mood", "happy");
+    assertFalse(layer.update(state, scenario, 800, 600, 1.0, 1.0)); // variables are not drawn
+
+    state.setCurrentBackgroundId("hall");
+    assertTrue(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+
+    state.showCharacter(CharacterPosition.LEFT, "alice", "neutral");
+    assertTrue(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+    assertFalse(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+    state.hideCharacter(CharacterPosition.LEFT);
+    assertTrue(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+    state.hideCharacter(CharacterPosition.LEFT); // nobody there: nothing changed
+    assertFalse(layer.update(state, scenario, 800, 600, 1.0, 1.0));
+
+    assertTrue(layer.update(state, scenario, 1024, 600, 1.0, 1.0)); // resized
+    assertTrue(layer.update(state, scenario, 1024, 600, 2.0, 2.0)); // moved to a HiDPI screen
+
+    layer.invalidate(); // clearCache
+    assertTrue(layer.update(state, scenario, 1024, 600, 2.0, 2.0));
+    assertFalse(layer.update(state, scenario, 1024, 600, 2.0, 2.0));
+  }
+}
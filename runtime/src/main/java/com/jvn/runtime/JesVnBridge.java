@@ -7,7 +7,7 @@ import com.jvn.core.vn.VnScenario;
 import com.jvn.core.vn.VnScene;
 import com.jvn.core.vn.VnSettings;
 import com.jvn.core.vn.VnState;
-import com.jvn.core.vn.script.VnScriptParser;
+import com.jvn.core.vn.script.VnScenarioCache;
 import com.jvn.scripting.jes.runtime.JesScene2D;
 
 import java.io.InputStream;
@@ -75,7 +75,7 @@ public class JesVnBridge {
     if (script == null || script.isBlank()) return null;
     AssetCatalog assets = new AssetCatalog();
     try (InputStream in = assets.open(AssetType.SCRIPT, script)) {
-      VnScenario sc = new VnScriptParser().parse(in);
+      VnScenario sc = new VnScenarioCache().load(in);
       BridgedVnScene vn = new BridgedVnScene(sc);
       vn.setInterop(new RuntimeVnInterop(engine));
       VnSettings settings = new VnSettings();
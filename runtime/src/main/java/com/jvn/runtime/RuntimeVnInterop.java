@@ -9,13 +9,14 @@ import com.jvn.core.menu.SaveMenuScene;
 import com.jvn.core.menu.LoadMenuScene;
 import com.jvn.core.scene.Scene;
 import com.jvn.core.vn.*;
-import com.jvn.core.vn.script.VnScriptParser;
+import com.jvn.core.vn.script.VnScenarioCache;
 import com.jvn.scripting.jes.JesLoader;
 import com.jvn.scripting.jes.runtime.JesScene2D;
 
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class RuntimeVnInterop implements VnInterop {
   private final Engine engine;
@@ -245,7 +246,7 @@ public class RuntimeVnInterop implements VnInterop {
   private VnScene loadVnScene(String script, VnScene current) throws Exception {
     AssetCatalog assets = new AssetCatalog();
     try (InputStream in = assets.open(AssetType.SCRIPT, script)) {
-      VnScenario sc = new VnScriptParser().parse(in);
+      VnScenario sc = new VnScenarioCache().load(in, Objects.toString(assets.url(AssetType.SCRIPT, script), script));
       VnScene vn = new VnScene(sc);
       if (current.getAudioFacade() != null) vn.setAudioFacade(current.getAudioFacade());
       // carry settings
@@ -264,6 +265,7 @@ public class RuntimeVnInterop implements VnInterop {
     dst.setAutoPlayDelay(src.getAutoPlayDelay());
     dst.setSkipUnreadText(src.isSkipUnreadText());
     dst.setSkipAfterChoices(src.isSkipAfterChoices());
+    dst.setKeepFullHistory(src.isKeepFullHistory());
   }
 
   private static String safe(String s) { return s == null ? "" : s; }
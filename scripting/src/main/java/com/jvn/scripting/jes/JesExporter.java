@@ -157,6 +157,11 @@ public class JesExporter {
     return sw.toString();
   }
   
+  /** Writes a tile layer in the binary {@code .jtl} format that map layers load with {@code data: "x.jtl"}. */
+  public static void exportTileLayer(TileMap2D tilemap, java.io.OutputStream out) throws java.io.IOException {
+    TileLayerFile.write(tilemap, out, TileLayerFile.DEFAULT_CHUNK_SIZE);
+  }
+  
   private static Map<String, Entity2D> findAllNamedEntities(JesScene2D scene) {
     // This would need access to the named entities map in JesScene2D
     // For now, return empty map
@@ -3,7 +3,9 @@ package com.jvn.scripting.jes;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,19 +17,29 @@ import com.jvn.core.scene2d.Panel2D;
 import com.jvn.core.scene2d.ParticleEmitter2D;
 import com.jvn.core.scene2d.Sprite2D;
 import com.jvn.core.scene2d.SpriteSheet;
+import com.jvn.core.scene2d.TileChunkStreamer;
+import com.jvn.core.scene2d.TileLayerFile;
 import com.jvn.core.scene2d.TileMap2D;
 import com.jvn.scripting.jes.ast.JesAst;
 import com.jvn.scripting.jes.runtime.Button2D;
+import com.jvn.scripting.jes.runtime.AiScheduler;
+import com.jvn.scripting.jes.runtime.CollisionGrid2D;
 import com.jvn.scripting.jes.runtime.Ai2D;
 import com.jvn.scripting.jes.runtime.Equipment;
+import com.jvn.scripting.jes.runtime.GridPathfinder;
 import com.jvn.scripting.jes.runtime.Inventory;
 import com.jvn.scripting.jes.runtime.Item;
 import com.jvn.scripting.jes.runtime.JesScene2D;
 import com.jvn.scripting.jes.runtime.PhysicsBodyEntity2D;
+import com.jvn.scripting.jes.runtime.RegionStreamer;
 import com.jvn.scripting.jes.runtime.Slider2D;
 import com.jvn.scripting.jes.runtime.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JesLoader {
+  private static final Logger LOG = LoggerFactory.getLogger(JesLoader.class);
+
   public static JesScene2D load(InputStream in) throws Exception {
     List<JesToken> toks = JesTokenizer.tokenize(in);
     JesAst.Program prog = new JesParser(toks).parseProgram();
@@ -128,31 +140,74 @@ public class JesLoader {
           hasMapInfo[0] = true;
         }
 
+        RegionStreamer regions = null;
+        if (bool(m.props, "stream", false) || m.props.containsKey("regionSize")) {
+          regions = new RegionStreamer(scene, mapCols, mapRows, (int) num(m.props, "regionSize", 64));
+          int radius = (int) num(m.props, "regionRadius", 1);
+          regions.setRadius(radius, (int) num(m.props, "regionUnloadRadius", radius + 1));
+        }
+
         for (JesAst.MapLayerDecl l : m.layers) {
           if (l == null) continue;
           TileMap2D tilemap = new TileMap2D(sheet, mapCols, mapRows, drawTileW, drawTileH);
           String dataPath = str(l.props, "data", null);
-          loadLayerIntoTilemap(tilemap, dataPath);
-          scene.add(tilemap);
-          if (bool(l.props, "collision", false)) {
-            tilemap.buildStaticColliders(scene.getWorld());
-            scene.addCollisionTilemap(tilemap);
-          }
           String triggerCall = str(l.props, "triggerCall", null);
           if (triggerCall == null || triggerCall.isBlank()) {
             triggerCall = str(l.props, "call", null);
           }
+          boolean collision = bool(l.props, "collision", false);
+          boolean binaryLayer = dataPath != null && dataPath.toLowerCase().endsWith(".jtl");
+          TileLayerFile binary = binaryLayer ? openTileLayer(dataPath) : null;
+          if (binaryLayer && binary == null) continue; // missing or unreadable, already logged; not CSV either
+          boolean regionStreamed = binary != null && regions != null;
+          if (binary == null) {
+            loadLayerIntoTilemap(tilemap, dataPath);
+          } else if (regionStreamed) {
+            regions.addLayer(binary, tilemap, collision);
+          } else if (bool(l.props, "stream", false) && !collision && (triggerCall == null || triggerCall.isBlank())) {
+            scene.addTileStreamer(new TileChunkStreamer(binary, tilemap));
+          } else {
+            binary.loadInto(tilemap);
+          }
+          scene.add(tilemap);
+          if (collision) {
+            if (!regionStreamed) tilemap.buildStaticColliders(scene.getWorld());
+            scene.addCollisionTilemap(tilemap);
+          }
           if (triggerCall != null && !triggerCall.isBlank()) {
             scene.addTriggerLayer(m.name, tilemap, triggerCall, l.props);
           }
         }
+        scene.addRegionStreamer(regions);
       }
     }
     scene.setGridSize(mapTileW[0], mapTileH[0]);
+    String pathfinding = str(s.props, "pathfinding", null);
+    if ("jps".equalsIgnoreCase(pathfinding)) scene.setPathfindingMode(GridPathfinder.Mode.JUMP_POINT);
+    CollisionGrid2D collision = scene.getCollisionGrid();
+    boolean largeMap = collision.getCols() >= 128 || collision.getRows() >= 128;
+    int clusterSize = (int) num(s.props, "pathClusterSize", largeMap ? 16 : 0);
+    if (clusterSize > 0) scene.setPathClusterSize(clusterSize);
+    if (s.props.containsKey("flowFieldMinChasers")) scene.setFlowFieldMinChasers((int) num(s.props, "flowFieldMinChasers", 3));
+    if (s.props.containsKey("flowFieldIntervalMs")) scene.setFlowFieldIntervalMs(num(s.props, "flowFieldIntervalMs", 250));
+    AiScheduler ais = scene.getAiScheduler();
+    if (s.props.containsKey("aiThinkBudgetMs")) ais.setThinkBudgetMs(num(s.props, "aiThinkBudgetMs", 2));
+    if (s.props.containsKey("aiOffscreenInterval") || s.props.containsKey("aiDistantInterval")) {
+      ais.setLodIntervals((int) num(s.props, "aiOffscreenInterval", ais.getOffscreenInterval()), (int) num(s.props, "aiDistantInterval", ais.getDistantInterval()));
+    }
+    if (s.props.containsKey("circlePoolSize")) {
+      scene.getCirclePool().setCapacity((int) num(s.props, "circlePoolSize", 32));
+      scene.getCirclePool().prewarm();
+    }
+    if (s.props.containsKey("boxPoolSize")) {
+      scene.getBoxPool().setCapacity((int) num(s.props, "boxPoolSize", 32));
+      scene.getBoxPool().prewarm();
+    }
 
     for (JesAst.InputBinding b : s.bindings) {
       scene.addBinding(b.key, b.action, b.props);
     }
+    if ("coroutine".equalsIgnoreCase(str(s.props, "timelineMode", null))) scene.setCoroutineTimeline(true);
     scene.setTimeline(s.timeline);
     for (JesAst.EntityDecl e : s.entities) {
       e.components.forEach(c -> {
@@ -447,6 +502,7 @@ public class JesLoader {
           default -> {}
         }
       });
+      if (e.components.stream().anyMatch(c -> bool(c, "streamed", false))) scene.streamEntity(e.name);
     }
     return scene;
   }
@@ -484,6 +540,24 @@ public class JesLoader {
     return null;
   }
 
+  /** Opens a binary layer from the classpath, memory-mapping it when it is a plain file; null when it cannot be read. */
+  private static TileLayerFile openTileLayer(String path) {
+    try {
+      URL url = JesLoader.class.getClassLoader().getResource(path);
+      if (url == null) {
+        LOG.warn("Skipping tile layer {}: not found on the classpath", path);
+        return null;
+      }
+      if ("file".equals(url.getProtocol())) return TileLayerFile.map(Path.of(url.toURI()));
+      try (InputStream in = url.openStream()) {
+        return TileLayerFile.read(in);
+      }
+    } catch (Exception e) {
+      LOG.warn("Skipping tile layer {}: {}", path, e.toString());
+      return null;
+    }
+  }
+
   private static void loadLayerIntoTilemap(TileMap2D tm, String path) {
     if (tm == null || path == null || path.isBlank()) return;
     try (InputStream in = JesLoader.class.getClassLoader().getResourceAsStream(path)) {
@@ -506,6 +580,7 @@ public class JesLoader {
           y++;
         }
       }
+      tm.compact();
     } catch (Exception ignored) {}
   }
 }
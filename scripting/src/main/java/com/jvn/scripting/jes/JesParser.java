@@ -35,6 +35,7 @@ public class JesParser {
     Map.entry("Slider2D", Set.of("x", "y", "w", "h", "min", "max", "value", "call", "trackColor", "fillColor", "knobColor"))
   );
   private static final Set<String> COMPONENT_FREE_PROPS = Set.of("Equipment");
+  private static final Set<String> COMPONENT_COMMON_PROPS = Set.of("streamed");
 
   private static final Map<String, Set<String>> TIMELINE_PROPS = Map.ofEntries(
     Map.entry("move", Set.of("x", "y", "dur", "easing")),
@@ -48,6 +49,8 @@ public class JesParser {
     Map.entry("cameraShake", Set.of("ampX", "ampY", "dur")),
     Map.entry("damage", Set.of("amount", "source")),
     Map.entry("heal", Set.of("amount", "source")),
+    Map.entry("spawnCircle", Set.of("x", "y", "r", "mass", "restitution", "name", "onTrigger")),
+    Map.entry("spawnBox", Set.of("x", "y", "w", "h", "mass", "restitution", "name", "onTrigger")),
     Map.entry("waitForCall", Set.of("name")),
     Map.entry("playAudio", Set.of("id", "volume", "loop", "bgm")),
     Map.entry("stopAudio", Set.of("id")),
@@ -60,6 +63,7 @@ public class JesParser {
     Map.entry("jump", Set.of("target"))
   );
   private static final Set<String> TIMELINE_FREE_PROPS = Set.of("call");
+  private static final Set<String> TIMELINE_COMMON_PROPS = Set.of("delay");
 
   public JesParser(List<JesToken> toks) { this.toks = toks == null ? new ArrayList<>() : toks; }
 
@@ -311,6 +315,20 @@ public class JesParser {
           } else { throw error("Expected property name in setParallax"); }
         }
       }
+      case "spawnCircle", "spawnBox" -> {
+        if (match(LBRACE)) {
+          while (!match(RBRACE)) {
+            if (match(IDENT)) {
+              JesToken keyTok = prev();
+              String k = keyTok.lexeme;
+              validateTimelineProp(kind, k, keyTok);
+              expect(COLON, ":");
+              Object v = parseValue();
+              a.props.put(k, v);
+            } else { throw error("Expected property name in " + kind); }
+          }
+        }
+      }
       case "label" -> {
         String name = expect(STRING, "label name").lexeme;
         a.target = name;
@@ -400,7 +418,7 @@ public class JesParser {
 
   private void validateComponentProp(String type, String key, JesToken tok) {
     if (type == null || key == null) return;
-    if (COMPONENT_FREE_PROPS.contains(type)) return;
+    if (COMPONENT_FREE_PROPS.contains(type) || COMPONENT_COMMON_PROPS.contains(key)) return;
     Set<String> allowed = COMPONENT_PROPS.get(type);
     if (allowed == null) return; // unknown component type, allow freely
     if (!allowed.contains(key)) {
@@ -410,7 +428,7 @@ public class JesParser {
 
   private void validateTimelineProp(String action, String key, JesToken tok) {
     if (action == null || key == null) return;
-    if (TIMELINE_FREE_PROPS.contains(action)) return;
+    if (TIMELINE_FREE_PROPS.contains(action) || TIMELINE_COMMON_PROPS.contains(key)) return;
     Set<String> allowed = TIMELINE_PROPS.get(action);
     if (allowed == null) return;
     if (!allowed.contains(key)) {
@@ -1,7 +1,27 @@
 package com.jvn.scripting.jes.runtime;
 
 public class Ai2D {
+  /** Behaviour resolved once from the {@code type} string. */
+  public enum Behavior {
+    NONE, CHASE, PATROL, PATROL_CHASE, GUARD, FLEE;
+
+    public static Behavior fromType(String type) {
+      if (type == null) return NONE;
+      String t = type.toLowerCase();
+      if ("chase".equals(t) || "chasehero".equals(t) || "chase_and_attack".equals(t)) return CHASE;
+      if ("patrol".equals(t)) return PATROL;
+      if ("patrol_chase".equals(t)) return PATROL_CHASE;
+      if ("guard".equals(t)) return GUARD;
+      if (t.contains("flee")) return FLEE;
+      return NONE;
+    }
+
+    /** True for behaviours that move toward (or away from) a target entity. */
+    public boolean tracksTarget() { return this != NONE && this != PATROL; }
+  }
+
   private String type;
+  private Behavior behavior = Behavior.NONE;
   private String target;
   private double aggroRange;
   private double attackRange;
@@ -20,9 +40,15 @@ public class Ai2D {
   private double fleeDistance;
   private double lastDirX;
   private double lastDirY;
+  private int waypointX;
+  private int waypointY;
+  private boolean hasWaypoint;
+  private boolean detouring;
+  private boolean targetInSight;
 
   public String getType() { return type; }
-  public void setType(String type) { this.type = type; }
+  public void setType(String type) { this.type = type; this.behavior = Behavior.fromType(type); }
+  public Behavior getBehavior() { return behavior; }
 
   public String getTarget() { return target; }
   public void setTarget(String target) { this.target = target; }
@@ -71,4 +97,15 @@ public class Ai2D {
   public double getLastDirX() { return lastDirX; }
   public double getLastDirY() { return lastDirY; }
   public void setLastDir(double x, double y) { this.lastDirX = x; this.lastDirY = y; }
+
+  public void setWaypoint(int tileX, int tileY) { this.waypointX = tileX; this.waypointY = tileY; this.hasWaypoint = true; }
+  public void clearWaypoint() { this.hasWaypoint = false; }
+  public boolean hasWaypoint() { return hasWaypoint; }
+  public int getWaypointX() { return waypointX; }
+  public int getWaypointY() { return waypointY; }
+  public boolean isDetouring() { return detouring; }
+  public void setDetouring(boolean detouring) { this.detouring = detouring; }
+  /** Last line-of-sight result; refreshed only when the scheduler grants the agent a think. */
+  public boolean isTargetInSight() { return targetInSight; }
+  public void setTargetInSight(boolean targetInSight) { this.targetInSight = targetInSight; }
 }
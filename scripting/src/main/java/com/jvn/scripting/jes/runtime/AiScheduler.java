@@ -0,0 +1,126 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which {@link Ai2D} agents run on a frame and how much expensive thinking (line of sight, routing) they get.
+ * Off-screen and distant agents run every few frames with the skipped time folded into their next step, staggered so
+ * they do not all land on the same frame. Thinking past the per-frame budget is deferred, and the next frame starts
+ * with the first agent that was turned away so no agent starves.
+ */
+public class AiScheduler {
+  public enum Lod { NEAR, OFFSCREEN, DISTANT }
+
+  public static final class Agent {
+    private final String name;
+    private final int phase;
+    private Ai2D ai;
+    private long pendingMs;
+    EntityHandle self;
+    EntityHandle target;
+    String targetName;
+
+    Agent(String name, Ai2D ai, int phase) { this.name = name; this.ai = ai; this.phase = phase; }
+
+    public String getName() { return name; }
+    public Ai2D getAi() { return ai; }
+  }
+
+  private final List<Agent> agents = new ArrayList<>();
+  private final Map<String, Agent> byName = new HashMap<>();
+  private long frame;
+  private int start;
+  private int cursor;
+  private int deferredAt = -1;
+  private long budgetNanos = 2_000_000L;
+  private long deadline;
+  private int thinks;
+  private int deferred;
+  private int offscreenInterval = 4;
+  private int distantInterval = 12;
+  private long maxPendingMs = 250;
+
+  public Agent add(String name, Ai2D ai) {
+    if (name == null || ai == null) return null;
+    Agent a = byName.get(name);
+    if (a != null) { a.ai = ai; return a; }
+    a = new Agent(name, ai, agents.size());
+    agents.add(a);
+    byName.put(name, a);
+    return a;
+  }
+
+  public int size() { return agents.size(); }
+  public Agent get(int i) { return agents.get(i); }
+
+  /** Per-frame wall-clock budget for thinking; {@code <= 0} means unlimited. */
+  public void setThinkBudgetMs(double ms) { this.budgetNanos = ms <= 0 ? 0 : (long) (ms * 1_000_000L); }
+  public double getThinkBudgetMs() { return budgetNanos / 1_000_000.0; }
+
+  /** Frames between updates for agents outside the view and for agents far outside it. */
+  public void setLodIntervals(int offscreen, int distant) {
+    this.offscreenInterval = Math.max(1, offscreen);
+    this.distantInterval = Math.max(this.offscreenInterval, distant);
+  }
+  public int getOffscreenInterval() { return offscreenInterval; }
+  public int getDistantInterval() { return distantInterval; }
+
+  /** Thinks granted and deferred during the last frame. */
+  public int getThinks() { return thinks; }
+  public int getDeferred() { return deferred; }
+
+  public void beginFrame() {
+    frame++;
+    int n = agents.size();
+    start = deferredAt >= 0 && n > 0 ? deferredAt % n : 0;
+    deferredAt = -1;
+    thinks = 0;
+    deferred = 0;
+    deadline = System.nanoTime() + budgetNanos;
+  }
+
+  /** The k-th agent of this frame, starting from the one deferred last frame. */
+  public Agent next(int k) {
+    cursor = (start + k) % agents.size();
+    return agents.get(cursor);
+  }
+
+  /**
+   * Adds this frame's delta to the agent and returns the time it should simulate now, or 0 when its level of detail
+   * skips this frame.
+   */
+  public long step(Agent a, Lod lod, long deltaMs) {
+    a.pendingMs = Math.min(maxPendingMs, a.pendingMs + deltaMs);
+    int interval = lod == Lod.DISTANT ? distantInterval : lod == Lod.OFFSCREEN ? offscreenInterval : 1;
+    if (interval > 1 && (frame + a.phase) % interval != 0) return 0;
+    long ms = a.pendingMs;
+    a.pendingMs = 0;
+    return ms;
+  }
+
+  /** Grants one expensive query to the current agent; the first of each frame is always granted. */
+  public boolean tryThink() {
+    if (budgetNanos > 0 && thinks > 0 && System.nanoTime() >= deadline) {
+      if (deferredAt < 0) deferredAt = cursor;
+      deferred++;
+      return false;
+    }
+    thinks++;
+    return true;
+  }
+
+  /**
+   * Classifies a point against the visible rectangle: inside is {@link Lod#NEAR}, within one view size of it
+   * {@link Lod#OFFSCREEN}, anything further {@link Lod#DISTANT}.
+   */
+  public static Lod classify(double x, double y, double left, double top, double right, double bottom) {
+    double dx = x < left ? left - x : x > right ? x - right : 0;
+    double dy = y < top ? top - y : y > bottom ? y - bottom : 0;
+    if (dx == 0 && dy == 0) return Lod.NEAR;
+    double margin = Math.max(right - left, bottom - top);
+    return dx <= margin && dy <= margin ? Lod.OFFSCREEN : Lod.DISTANT;
+  }
+}
@@ -0,0 +1,127 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jvn.core.scene2d.TileMap2D;
+
+/**
+ * Merged blocking mask for every collision layer of a scene, one bit per tile.
+ * Cells outside the smallest layer count as blocked, matching per-layer bounds checks, and so do cells marked
+ * {@linkplain #setUnknown unknown}, such as streamed terrain that is not loaded.
+ */
+public class CollisionGrid2D implements TileMap2D.TileChangeListener {
+  private final List<TileMap2D> layers = new ArrayList<>();
+  private final List<Listener> listeners = new ArrayList<>();
+  private int cols;
+  private int rows;
+  private int wordsPerRow;
+  private long[] bits = new long[0];
+  private long[] unknown = new long[0]; // same layout as bits
+  private int version;
+
+  public interface Listener {
+    void onCellChanged(int x, int y);
+    void onGridRebuilt();
+  }
+
+  public void addListener(Listener l) { if (l != null && !listeners.contains(l)) listeners.add(l); }
+  public void removeListener(Listener l) { listeners.remove(l); }
+
+  public void addLayer(TileMap2D tm) {
+    if (tm == null || layers.contains(tm)) return;
+    layers.add(tm);
+    tm.addTileChangeListener(this);
+    rebuild();
+  }
+
+  public void removeLayer(TileMap2D tm) {
+    if (tm == null || !layers.remove(tm)) return;
+    tm.removeTileChangeListener(this);
+    rebuild();
+  }
+
+  public void clear() {
+    for (TileMap2D tm : layers) tm.removeTileChangeListener(this);
+    layers.clear();
+    rebuild();
+  }
+
+  public void rebuild() {
+    int c = Integer.MAX_VALUE;
+    int r = Integer.MAX_VALUE;
+    for (TileMap2D tm : layers) {
+      c = Math.min(c, tm.getCols());
+      r = Math.min(r, tm.getRows());
+    }
+    if (layers.isEmpty()) { c = 0; r = 0; }
+    long[] oldUnknown = unknown;
+    int oldWordsPerRow = wordsPerRow;
+    int oldRows = rows;
+    cols = c;
+    rows = r;
+    wordsPerRow = (cols + 63) >>> 6;
+    bits = new long[wordsPerRow * rows];
+    unknown = new long[bits.length];
+    int keep = Math.min(oldWordsPerRow, wordsPerRow);
+    for (int y = 0; y < Math.min(oldRows, rows); y++) System.arraycopy(oldUnknown, y * oldWordsPerRow, unknown, y * wordsPerRow, keep);
+    System.arraycopy(unknown, 0, bits, 0, bits.length);
+    // chunk iteration skips empty stretches of sparse layers
+    for (TileMap2D tm : layers) {
+      tm.forEachTile(0, 0, cols, rows, (x, y, idx) -> bits[y * wordsPerRow + (x >>> 6)] |= 1L << x);
+    }
+    version++;
+    for (int i = 0; i < listeners.size(); i++) listeners.get(i).onGridRebuilt();
+  }
+
+  @Override
+  public void onTileChanged(TileMap2D map, int x, int y, int oldIndex, int newIndex) {
+    if (x < 0 || y < 0 || x >= cols || y >= rows) return;
+    refresh(x, y);
+  }
+
+  /**
+   * Marks the {@code w} x {@code h} cells at ({@code x0}, {@code y0}) as unknown, so they count as blocked whatever
+   * the layers hold, or as known again.
+   */
+  public void setUnknown(int x0, int y0, int w, int h, boolean isUnknown) {
+    int x1 = Math.min(cols, x0 + w);
+    int y1 = Math.min(rows, y0 + h);
+    for (int y = Math.max(0, y0); y < y1; y++) {
+      for (int x = Math.max(0, x0); x < x1; x++) {
+        int i = y * wordsPerRow + (x >>> 6);
+        unknown[i] = isUnknown ? unknown[i] | (1L << x) : unknown[i] & ~(1L << x);
+        refresh(x, y);
+      }
+    }
+  }
+
+  public boolean isUnknown(int tx, int ty) {
+    if (tx < 0 || ty < 0 || tx >= cols || ty >= rows) return false;
+    return (unknown[ty * wordsPerRow + (tx >>> 6)] & (1L << tx)) != 0;
+  }
+
+  private void refresh(int x, int y) {
+    int w = y * wordsPerRow + (x >>> 6);
+    boolean blocked = (unknown[w] & (1L << x)) != 0;
+    for (int i = 0; !blocked && i < layers.size(); i++) blocked = layers.get(i).getTile(x, y) >= 0;
+    long before = bits[w];
+    bits[w] = blocked ? before | (1L << x) : before & ~(1L << x);
+    if (bits[w] == before) return;
+    version++;
+    for (int i = 0; i < listeners.size(); i++) listeners.get(i).onCellChanged(x, y);
+  }
+
+  public boolean isEmpty() { return layers.isEmpty(); }
+
+  public boolean isBlocked(int tx, int ty) {
+    if (layers.isEmpty()) return false;
+    if (tx < 0 || ty < 0 || tx >= cols || ty >= rows) return true;
+    return (bits[ty * wordsPerRow + (tx >>> 6)] & (1L << tx)) != 0;
+  }
+
+  public int getCols() { return cols; }
+  public int getRows() { return rows; }
+  /** Incremented whenever any cell changes; lets derived caches (paths, flow fields) detect staleness. */
+  public int getVersion() { return version; }
+}
@@ -0,0 +1,42 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.physics.RigidBody2D;
+import com.jvn.core.scene2d.Entity2D;
+
+/**
+ * Slot for one entity name in a {@link JesScene2D}. A handle is created the first time a name is seen and is never
+ * replaced, so runtime systems resolve a name once and keep the handle; every component registered under that name
+ * hangs off it directly. The entity itself may come and go (removal, respawn) without invalidating the handle.
+ */
+public final class EntityHandle {
+  final int slot;
+  final String name;
+  Entity2D entity;
+  Entity2D parked;
+  Stats stats;
+  Inventory inventory;
+  Equipment equipment;
+  Ai2D ai;
+  RigidBody2D body;
+  FlowField2D flowField;
+  double spawnX;
+  double spawnY;
+  boolean hasSpawn;
+  int chasers;
+
+  EntityHandle(int slot, String name) { this.slot = slot; this.name = name; }
+
+  public int getSlot() { return slot; }
+  public String getName() { return name; }
+  public Entity2D getEntity() { return entity; }
+  public boolean isPresent() { return entity != null; }
+  /** True while a {@link RegionStreamer} holds the entity out of the scene because its region is not loaded. */
+  public boolean isParked() { return parked != null; }
+  /** The live entity, or the parked one while its region is unloaded; what saves and resets work on. */
+  Entity2D current() { return entity != null ? entity : parked; }
+  public Stats getStats() { return stats; }
+  public Inventory getInventory() { return inventory; }
+  public Equipment getEquipment() { return equipment; }
+  public Ai2D getAi() { return ai; }
+  public RigidBody2D getBody() { return body; }
+}
@@ -1,12 +1,23 @@
 package com.jvn.scripting.jes.runtime;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 public class Equipment {
+  /** Notified after a slot changes, so stat modifiers follow equipment without rescanning every slot. */
+  public interface Listener {
+    void onSlotChanged(Equipment equipment, String slot, String oldItemId, String newItemId);
+  }
+
   private final Map<String,String> slots = new HashMap<>();
+  private Listener listener;
 
-  public Map<String,String> getSlots() { return slots; }
+  /** Read-only view; change slots with {@link #set} or {@link #clear} so the listener hears about it. */
+  public Map<String,String> getSlots() { return Collections.unmodifiableMap(slots); }
+  public void setListener(Listener listener) { this.listener = listener; }
 
   public String get(String slot) {
     if (slot == null) return null;
@@ -15,10 +26,12 @@ public class Equipment {
 
   public void set(String slot, String itemId) {
     if (slot == null || slot.isBlank()) return;
-    if (itemId == null || itemId.isBlank()) {
-      slots.remove(slot);
-    } else {
-      slots.put(slot, itemId);
-    }
+    String old = itemId == null || itemId.isBlank() ? slots.remove(slot) : slots.put(slot, itemId);
+    String now = slots.get(slot);
+    if (listener != null && !Objects.equals(old, now)) listener.onSlotChanged(this, slot, old, now);
+  }
+
+  public void clear() {
+    for (String slot : new ArrayList<>(slots.keySet())) set(slot, null);
   }
 }
@@ -0,0 +1,101 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra map toward a single target tile over a {@link CollisionGrid2D} (4-connected, uniform cost).
+ * One field is shared by every agent chasing the same target; each agent then picks its next tile in O(1).
+ */
+public class FlowField2D {
+  private final CollisionGrid2D grid;
+  private int cols;
+  private int rows;
+  private int[] dist = new int[0];
+  private int[] stamp = new int[0];
+  private int[] queue = new int[0];
+  private int generation;
+  private int targetX = Integer.MIN_VALUE;
+  private int targetY = Integer.MIN_VALUE;
+  private int gridVersion = -1;
+  private double computedAtMs = Double.NEGATIVE_INFINITY;
+
+  public FlowField2D(CollisionGrid2D grid) { this.grid = grid; }
+
+  public int getTargetX() { return targetX; }
+  public int getTargetY() { return targetY; }
+  public double getComputedAtMs() { return computedAtMs; }
+
+  /** True when the target moved to another tile or the collision grid changed since the last compute. */
+  public boolean isStale(int tx, int ty) {
+    return tx != targetX || ty != targetY || gridVersion != grid.getVersion() || cols != grid.getCols() || rows != grid.getRows();
+  }
+
+  /** Rebuilds the field by breadth-first search outward from the target tile. */
+  public void compute(int tx, int ty, double nowMs) {
+    targetX = tx;
+    targetY = ty;
+    gridVersion = grid.getVersion();
+    computedAtMs = nowMs;
+    if (cols != grid.getCols() || rows != grid.getRows()) {
+      cols = grid.getCols();
+      rows = grid.getRows();
+      dist = new int[cols * rows];
+      stamp = new int[cols * rows];
+      queue = new int[cols * rows];
+      generation = 0;
+    }
+    generation++;
+    if (generation == Integer.MAX_VALUE) { Arrays.fill(stamp, 0); generation = 1; }
+    if (tx < 0 || ty < 0 || tx >= cols || ty >= rows) return;
+    int head = 0;
+    int tail = 0;
+    int start = ty * cols + tx;
+    stamp[start] = generation;
+    dist[start] = 0;
+    queue[tail++] = start;
+    while (head < tail) {
+      int cur = queue[head++];
+      int x = cur % cols;
+      int y = cur / cols;
+      int nd = dist[cur] + 1;
+      if (x + 1 < cols) tail = visit(cur + 1, x + 1, y, nd, tail);
+      if (x > 0) tail = visit(cur - 1, x - 1, y, nd, tail);
+      if (y + 1 < rows) tail = visit(cur + cols, x, y + 1, nd, tail);
+      if (y > 0) tail = visit(cur - cols, x, y - 1, nd, tail);
+    }
+  }
+
+  private int visit(int idx, int x, int y, int d, int tail) {
+    if (stamp[idx] == generation || grid.isBlocked(x, y)) return tail;
+    stamp[idx] = generation;
+    dist[idx] = d;
+    queue[tail] = idx;
+    return tail + 1;
+  }
+
+  /** Steps from (x, y) to the target, or -1 when unreachable. */
+  public int distanceAt(int x, int y) {
+    if (x < 0 || y < 0 || x >= cols || y >= rows) return -1;
+    int idx = y * cols + x;
+    return stamp[idx] == generation ? dist[idx] : -1;
+  }
+
+  /**
+   * Next tile downhill from (x, y), packed as {@code y * cols + x}; -1 when (x, y) is the target or has no route.
+   * Tiles the field never reached (e.g. an agent standing inside a wall) still step onto a reachable neighbour.
+   */
+  public int nextTile(int x, int y) {
+    int best = distanceAt(x, y);
+    if (best == 0) return -1;
+    if (best < 0) best = Integer.MAX_VALUE;
+    int next = -1;
+    int d;
+    if ((d = distanceAt(x + 1, y)) >= 0 && d < best) { best = d; next = y * cols + x + 1; }
+    if ((d = distanceAt(x - 1, y)) >= 0 && d < best) { best = d; next = y * cols + x - 1; }
+    if ((d = distanceAt(x, y + 1)) >= 0 && d < best) { best = d; next = (y + 1) * cols + x; }
+    if ((d = distanceAt(x, y - 1)) >= 0 && d < best) { next = (y - 1) * cols + x; }
+    return next;
+  }
+
+  public int getCols() { return cols; }
+}
@@ -0,0 +1,331 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Tile pathfinder over a {@link CollisionGrid2D} that allocates nothing per query once warmed up.
+ * Search state lives in flat int arrays indexed by {@code y * cols + x}; entries are only trusted when their
+ * generation stamp matches the current search, so no clearing is needed between queries.
+ * <p>
+ * {@link Mode#ASTAR} searches the 4-connected grid. {@link Mode#JUMP_POINT} searches the 8-connected grid
+ * (diagonals only when both adjacent orthogonal cells are open) and skips straight runs with jump point search.
+ */
+public class GridPathfinder {
+  public enum Mode { ASTAR, JUMP_POINT }
+
+  private static final int STRAIGHT = 10;
+  private static final int DIAGONAL = 14;
+
+  /** Reusable output: the tiles after the start up to and including the goal. */
+  public static class PathBuffer {
+    private int[] xs = new int[32];
+    private int[] ys = new int[32];
+    private int size;
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int getX(int i) { return xs[i]; }
+    public int getY(int i) { return ys[i]; }
+    public void clear() { size = 0; }
+
+    void add(int x, int y) {
+      if (size == xs.length) {
+        xs = Arrays.copyOf(xs, size * 2);
+        ys = Arrays.copyOf(ys, size * 2);
+      }
+      xs[size] = x;
+      ys[size] = y;
+      size++;
+    }
+
+    void reverse() {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        int tx = xs[i]; xs[i] = xs[j]; xs[j] = tx;
+        int ty = ys[i]; ys[i] = ys[j]; ys[j] = ty;
+      }
+    }
+  }
+
+  private final CollisionGrid2D grid;
+  private Mode mode = Mode.ASTAR;
+  private int cols;
+  private int rows;
+  private int[] g = new int[0];
+  private int[] f = new int[0];
+  private int[] parent = new int[0];
+  private int[] openStamp = new int[0];
+  private int[] closedStamp = new int[0];
+  private int[] heapPos = new int[0];
+  private int[] heap = new int[0];
+  private int heapSize;
+  private int generation;
+  private int goalX;
+  private int goalY;
+  private int lastExpanded;
+
+  public GridPathfinder(CollisionGrid2D grid) { this.grid = grid; }
+
+  public Mode getMode() { return mode; }
+  public void setMode(Mode mode) { if (mode != null) this.mode = mode; }
+  /** Number of nodes expanded by the most recent search. */
+  public int getLastExpanded() { return lastExpanded; }
+
+  /**
+   * Finds a path from the start tile to the goal tile, writing it into {@code out}.
+   * Returns false (with {@code out} empty) when the goal is unreachable within {@code maxNodes} expansions.
+   */
+  public boolean findPath(int sx, int sy, int gx, int gy, int maxNodes, PathBuffer out) {
+    out.clear();
+    lastExpanded = 0;
+    if (sx == gx && sy == gy) return false;
+    if (grid == null || grid.isEmpty()) {
+      walkStraight(sx, sy, gx, gy, out);
+      return true;
+    }
+    if (grid.isBlocked(gx, gy)) return false;
+    ensureCapacity();
+    if (sx < 0 || sy < 0 || sx >= cols || sy >= rows) return false;
+    nextGeneration();
+    goalX = gx;
+    goalY = gy;
+    heapSize = 0;
+    int start = sy * cols + sx;
+    int goal = gy * cols + gx;
+    g[start] = 0;
+    parent[start] = -1;
+    open(start, heuristic(sx, sy));
+    boolean jps = mode == Mode.JUMP_POINT;
+    while (heapSize > 0 && lastExpanded < maxNodes) {
+      int n = pop();
+      closedStamp[n] = generation;
+      lastExpanded++;
+      if (n == goal) {
+        buildPath(start, goal, out);
+        return true;
+      }
+      if (jps) expandJump(n); else expandAStar(n);
+    }
+    return false;
+  }
+
+  private void expandAStar(int n) {
+    int x = n % cols;
+    int y = n / cols;
+    relax(n, x + 1, y, STRAIGHT);
+    relax(n, x - 1, y, STRAIGHT);
+    relax(n, x, y + 1, STRAIGHT);
+    relax(n, x, y - 1, STRAIGHT);
+  }
+
+  private void relax(int from, int x, int y, int cost) {
+    if (grid.isBlocked(x, y)) return;
+    int idx = y * cols + x;
+    if (closedStamp[idx] == generation) return;
+    int ng = g[from] + cost;
+    if (openStamp[idx] == generation && ng >= g[idx]) return;
+    g[idx] = ng;
+    parent[idx] = from;
+    int nf = ng + heuristic(x, y);
+    if (openStamp[idx] == generation && heapPos[idx] >= 0) {
+      f[idx] = nf;
+      siftUp(heapPos[idx]);
+    } else {
+      open(idx, nf);
+    }
+  }
+
+  private void expandJump(int n) {
+    int x = n % cols;
+    int y = n / cols;
+    int p = parent[n];
+    if (p < 0) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          if (dx == 0 && dy == 0) continue;
+          if (dx != 0 && dy != 0 && !(free(x + dx, y) && free(x, y + dy))) continue;
+          jumpFrom(n, x, y, dx, dy);
+        }
+      }
+      return;
+    }
+    int dx = Integer.signum(x - p % cols);
+    int dy = Integer.signum(y - p / cols);
+    if (dx != 0 && dy != 0) {
+      if (free(x, y + dy)) jumpFrom(n, x, y, 0, dy);
+      if (free(x + dx, y)) jumpFrom(n, x, y, dx, 0);
+      if (free(x, y + dy) && free(x + dx, y)) jumpFrom(n, x, y, dx, dy);
+    } else if (dx != 0) {
+      boolean ahead = free(x + dx, y);
+      boolean down = free(x, y + 1);
+      boolean up = free(x, y - 1);
+      if (ahead) {
+        jumpFrom(n, x, y, dx, 0);
+        if (down) jumpFrom(n, x, y, dx, 1);
+        if (up) jumpFrom(n, x, y, dx, -1);
+      }
+      if (down) jumpFrom(n, x, y, 0, 1);
+      if (up) jumpFrom(n, x, y, 0, -1);
+    } else {
+      boolean ahead = free(x, y + dy);
+      boolean right = free(x + 1, y);
+      boolean left = free(x - 1, y);
+      if (ahead) {
+        jumpFrom(n, x, y, 0, dy);
+        if (right) jumpFrom(n, x, y, 1, dy);
+        if (left) jumpFrom(n, x, y, -1, dy);
+      }
+      if (right) jumpFrom(n, x, y, 1, 0);
+      if (left) jumpFrom(n, x, y, -1, 0);
+    }
+  }
+
+  private void jumpFrom(int n, int x, int y, int dx, int dy) {
+    int jp = jump(x + dx, y + dy, dx, dy);
+    if (jp < 0) return;
+    int jx = jp % cols;
+    int jy = jp / cols;
+    relax(n, jx, jy, octile(Math.abs(jx - x), Math.abs(jy - y)));
+  }
+
+  /** Walks from (x, y) in direction (dx, dy) and returns the first jump point, or -1. */
+  private int jump(int x, int y, int dx, int dy) {
+    while (true) {
+      if (!free(x, y)) return -1;
+      if (x == goalX && y == goalY) return y * cols + x;
+      if (dx != 0 && dy != 0) {
+        if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) return y * cols + x;
+      } else if (dx != 0) {
+        if ((free(x, y - 1) && !free(x - dx, y - 1)) || (free(x, y + 1) && !free(x - dx, y + 1))) return y * cols + x;
+      } else {
+        if ((free(x - 1, y) && !free(x - 1, y - dy)) || (free(x + 1, y) && !free(x + 1, y - dy))) return y * cols + x;
+      }
+      if (!free(x + dx, y) || !free(x, y + dy)) return -1;
+      x += dx;
+      y += dy;
+    }
+  }
+
+  private boolean free(int x, int y) { return !grid.isBlocked(x, y); }
+
+  private int heuristic(int x, int y) {
+    int dx = Math.abs(goalX - x);
+    int dy = Math.abs(goalY - y);
+    return mode == Mode.JUMP_POINT ? octile(dx, dy) : (dx + dy) * STRAIGHT;
+  }
+
+  private static int octile(int dx, int dy) {
+    return dx > dy ? DIAGONAL * dy + STRAIGHT * (dx - dy) : DIAGONAL * dx + STRAIGHT * (dy - dx);
+  }
+
+  private void buildPath(int start, int goal, PathBuffer out) {
+    int cur = goal;
+    while (cur != start && cur >= 0) {
+      int p = parent[cur];
+      int x = cur % cols;
+      int y = cur / cols;
+      if (p < 0) { out.add(x, y); break; }
+      // Jump points may be several tiles apart; emit every tile on the straight/diagonal segment.
+      int px = p % cols;
+      int py = p / cols;
+      int sx = Integer.signum(px - x);
+      int sy = Integer.signum(py - y);
+      while (x != px || y != py) {
+        out.add(x, y);
+        x += sx;
+        y += sy;
+      }
+      cur = p;
+    }
+    out.reverse();
+  }
+
+  private static void walkStraight(int sx, int sy, int gx, int gy, PathBuffer out) {
+    int x = sx;
+    int y = sy;
+    while (x != gx) { x += Integer.signum(gx - x); out.add(x, y); }
+    while (y != gy) { y += Integer.signum(gy - y); out.add(x, y); }
+  }
+
+  private void ensureCapacity() {
+    int c = grid.getCols();
+    int r = grid.getRows();
+    if (c == cols && r == rows) return;
+    cols = c;
+    rows = r;
+    int n = c * r;
+    g = new int[n];
+    f = new int[n];
+    parent = new int[n];
+    openStamp = new int[n];
+    closedStamp = new int[n];
+    heapPos = new int[n];
+    heap = new int[n];
+    generation = 0;
+  }
+
+  private void nextGeneration() {
+    generation++;
+    if (generation == Integer.MAX_VALUE) {
+      Arrays.fill(openStamp, 0);
+      Arrays.fill(closedStamp, 0);
+      generation = 1;
+    }
+  }
+
+  // --- indexed binary min-heap on f, ties broken towards larger g (closer to the goal) ---
+
+  private void open(int idx, int fScore) {
+    openStamp[idx] = generation;
+    f[idx] = fScore;
+    heap[heapSize] = idx;
+    heapPos[idx] = heapSize;
+    heapSize++;
+    siftUp(heapSize - 1);
+  }
+
+  private int pop() {
+    int top = heap[0];
+    heapSize--;
+    heapPos[top] = -1;
+    if (heapSize > 0) {
+      heap[0] = heap[heapSize];
+      heapPos[heap[0]] = 0;
+      siftDown(0);
+    }
+    return top;
+  }
+
+  private boolean less(int a, int b) {
+    return f[a] < f[b] || (f[a] == f[b] && g[a] > g[b]);
+  }
+
+  private void siftUp(int i) {
+    int node = heap[i];
+    while (i > 0) {
+      int pi = (i - 1) >>> 1;
+      int p = heap[pi];
+      if (!less(node, p)) break;
+      heap[i] = p;
+      heapPos[p] = i;
+      i = pi;
+    }
+    heap[i] = node;
+    heapPos[node] = i;
+  }
+
+  private void siftDown(int i) {
+    int node = heap[i];
+    int half = heapSize >>> 1;
+    while (i < half) {
+      int c = 2 * i + 1;
+      int r = c + 1;
+      if (r < heapSize && less(heap[r], heap[c])) c = r;
+      if (!less(heap[c], node)) break;
+      heap[i] = heap[c];
+      heapPos[heap[i]] = i;
+      i = c;
+    }
+    heap[i] = node;
+    heapPos[node] = i;
+  }
+}
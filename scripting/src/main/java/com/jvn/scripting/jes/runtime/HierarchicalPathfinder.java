@@ -0,0 +1,506 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HPA*-style abstraction over a {@link CollisionGrid2D} for long-range queries on large maps.
+ * <p>
+ * The grid is cut into square clusters. Every open stretch along a cluster border becomes one or two entrances
+ * (a pair of abstract nodes, one on each side), and the nodes inside a cluster are linked by their in-cluster
+ * walking distance. Queries search this small graph and then refine legs with a local {@link GridPathfinder}, in
+ * the {@link #setMode mode} of the scene's own pathfinder.
+ * Tile edits only mark the touched cluster and borders dirty; they are rebuilt lazily on the next query.
+ */
+public class HierarchicalPathfinder implements CollisionGrid2D.Listener {
+  private static final int STEP = 10;
+  private static final int MAX_SINGLE_ENTRANCE = 6;
+
+  private static final class Node {
+    final int x;
+    final int y;
+    final int cluster;
+    int refs;
+    Node[] inter = new Node[4];
+    int interCount;
+    Node[] intra = new Node[8];
+    int[] intraCost = new int[8];
+    int intraCount;
+    // per-query search state
+    int stamp;
+    int g;
+    int f;
+    int heapIndex = -1;
+    boolean closed;
+    Node parent;
+    int goalStamp;
+    int goalCost;
+
+    Node(int x, int y, int cluster) { this.x = x; this.y = y; this.cluster = cluster; }
+
+    void link(Node other) {
+      if (interCount == inter.length) inter = Arrays.copyOf(inter, interCount * 2);
+      inter[interCount++] = other;
+    }
+
+    void unlink(Node other) {
+      for (int i = 0; i < interCount; i++) {
+        if (inter[i] == other) {
+          inter[i] = inter[--interCount];
+          inter[interCount] = null;
+          return;
+        }
+      }
+    }
+
+    void addIntra(Node other, int cost) {
+      if (intraCount == intra.length) {
+        intra = Arrays.copyOf(intra, intraCount * 2);
+        intraCost = Arrays.copyOf(intraCost, intraCount * 2);
+      }
+      intra[intraCount] = other;
+      intraCost[intraCount] = cost;
+      intraCount++;
+    }
+
+    void clearIntra() {
+      Arrays.fill(intra, 0, intraCount, null);
+      intraCount = 0;
+    }
+  }
+
+  private final CollisionGrid2D grid;
+  private final int clusterSize;
+  private final GridPathfinder local;
+  private final GridPathfinder.PathBuffer leg = new GridPathfinder.PathBuffer();
+  private int cols;
+  private int rows;
+  private int clustersX;
+  private int clustersY;
+  private final Map<Integer, Node> nodesByCell = new HashMap<>();
+  private final List<List<Node>> clusterNodes = new ArrayList<>();
+  // transitions per border, stored as consecutive (inside, outside) node pairs
+  private final List<List<Node>> eastBorders = new ArrayList<>();
+  private final List<List<Node>> southBorders = new ArrayList<>();
+  private boolean[] dirtyCluster = new boolean[0];
+  private boolean[] dirtyEast = new boolean[0];
+  private boolean[] dirtySouth = new boolean[0];
+  private boolean anyDirty;
+  private boolean structureDirty = true;
+
+  // scratch for in-cluster BFS
+  private int[] bfsDist = new int[0];
+  private int[] bfsStamp = new int[0];
+  private int[] bfsQueue = new int[0];
+  private int bfsGeneration;
+
+  // abstract search
+  private Node[] heap = new Node[64];
+  private int heapSize;
+  private int searchGeneration;
+  private final Node goalNode = new Node(0, 0, -1);
+  private int goalX;
+  private int goalY;
+  private final GridPathfinder.PathBuffer waypoints = new GridPathfinder.PathBuffer();
+  private int lastExpanded;
+
+  private HierarchicalPathfinder(CollisionGrid2D grid, int clusterSize) {
+    this.grid = grid;
+    this.clusterSize = Math.max(4, clusterSize);
+    this.local = new GridPathfinder(grid);
+    int area = this.clusterSize * this.clusterSize;
+    bfsDist = new int[area];
+    bfsStamp = new int[area];
+    bfsQueue = new int[area];
+  }
+
+  /** A pathfinder over {@code grid} that follows its tile edits until {@link #dispose()}. */
+  public static HierarchicalPathfinder create(CollisionGrid2D grid, int clusterSize) {
+    HierarchicalPathfinder hpa = new HierarchicalPathfinder(grid, clusterSize);
+    grid.addListener(hpa);
+    return hpa;
+  }
+
+  public int getClusterSize() { return clusterSize; }
+  /** Search used for the local legs; A* unless set. */
+  public GridPathfinder.Mode getMode() { return local.getMode(); }
+  public void setMode(GridPathfinder.Mode mode) { local.setMode(mode); }
+  public int getNodeCount() { refresh(); return nodesByCell.size(); }
+  /** Number of abstract nodes expanded by the most recent query. */
+  public int getLastExpanded() { return lastExpanded; }
+
+  /** Stops tracking grid changes. */
+  public void dispose() { grid.removeListener(this); }
+
+  @Override
+  public void onGridRebuilt() { structureDirty = true; }
+
+  @Override
+  public void onCellChanged(int x, int y) {
+    if (structureDirty || clustersX == 0) return;
+    int cx = x / clusterSize;
+    int cy = y / clusterSize;
+    int c = cy * clustersX + cx;
+    dirtyCluster[c] = true;
+    int lx = x - cx * clusterSize;
+    int ly = y - cy * clusterSize;
+    if (lx == 0 && cx > 0) { dirtyEast[c - 1] = true; dirtyCluster[c - 1] = true; }
+    if (lx == clusterSize - 1 && cx < clustersX - 1) { dirtyEast[c] = true; dirtyCluster[c + 1] = true; }
+    if (ly == 0 && cy > 0) { dirtySouth[c - clustersX] = true; dirtyCluster[c - clustersX] = true; }
+    if (ly == clusterSize - 1 && cy < clustersY - 1) { dirtySouth[c] = true; dirtyCluster[c + clustersX] = true; }
+    anyDirty = true;
+  }
+
+  /**
+   * Finds a path from the start tile to the goal tile through the abstract graph and refines at most
+   * {@code maxLegs} legs into tiles (pass {@link Integer#MAX_VALUE} for the whole path). Agents that re-plan
+   * every few frames only need the first leg. Returns false when the goal is unreachable.
+   */
+  public boolean findPath(int sx, int sy, int gx, int gy, int maxLegs, GridPathfinder.PathBuffer out) {
+    out.clear();
+    if (!findWaypoints(sx, sy, gx, gy, waypoints)) return false;
+    int px = sx;
+    int py = sy;
+    int legs = Math.min(maxLegs, waypoints.size());
+    int legBudget = clusterSize * clusterSize * 4;
+    for (int i = 0; i < legs; i++) {
+      int wx = waypoints.getX(i);
+      int wy = waypoints.getY(i);
+      if (wx == px && wy == py) { legs = Math.min(waypoints.size(), legs + 1); continue; }
+      if (!local.findPath(px, py, wx, wy, legBudget, leg)) {
+        if (out.isEmpty()) return false;
+        break;
+      }
+      for (int k = 0; k < leg.size(); k++) out.add(leg.getX(k), leg.getY(k));
+      px = wx;
+      py = wy;
+    }
+    return !out.isEmpty();
+  }
+
+  /** Writes the abstract route (entrance tiles, then the goal) into {@code out} without refining it. */
+  public boolean findWaypoints(int sx, int sy, int gx, int gy, GridPathfinder.PathBuffer out) {
+    out.clear();
+    lastExpanded = 0;
+    if (sx == gx && sy == gy) return false;
+    if (grid.isEmpty() || grid.isBlocked(gx, gy)) return false;
+    refresh();
+    if (sx < 0 || sy < 0 || sx >= cols || sy >= rows) return false;
+    int startCluster = clusterOf(sx, sy);
+    int goalCluster = clusterOf(gx, gy);
+    goalX = gx;
+    goalY = gy;
+    searchGeneration++;
+    heapSize = 0;
+    goalNode.stamp = searchGeneration;
+    goalNode.g = Integer.MAX_VALUE;
+    goalNode.closed = false;
+    goalNode.parent = null;
+    goalNode.heapIndex = -1;
+
+    // Tag goal-cluster nodes with their walking distance to the goal.
+    bfs(gx, gy, goalCluster);
+    for (Node n : clusterNodes.get(goalCluster)) {
+      int d = bfsDistance(n.x, n.y, goalCluster);
+      if (d >= 0) { n.goalStamp = searchGeneration; n.goalCost = d * STEP; }
+    }
+    // Seed the open list with the start cluster's entrances (and the goal if it is reachable in-cluster).
+    bfs(sx, sy, startCluster);
+    if (startCluster == goalCluster) {
+      int d = bfsDistance(gx, gy, startCluster);
+      if (d >= 0) relax(goalNode, null, d * STEP);
+    }
+    for (Node n : clusterNodes.get(startCluster)) {
+      int d = bfsDistance(n.x, n.y, startCluster);
+      if (d >= 0) relax(n, null, d * STEP);
+    }
+    while (heapSize > 0) {
+      Node n = pop();
+      n.closed = true;
+      lastExpanded++;
+      if (n == goalNode) {
+        out.add(gx, gy);
+        for (Node c = n.parent; c != null; c = c.parent) out.add(c.x, c.y);
+        out.reverse();
+        return true;
+      }
+      if (n.goalStamp == searchGeneration) relax(goalNode, n, n.g + n.goalCost);
+      for (int i = 0; i < n.interCount; i++) relax(n.inter[i], n, n.g + STEP);
+      for (int i = 0; i < n.intraCount; i++) relax(n.intra[i], n, n.g + n.intraCost[i]);
+    }
+    return false;
+  }
+
+  private void relax(Node n, Node from, int g) {
+    if (n.stamp != searchGeneration) {
+      n.stamp = searchGeneration;
+      n.closed = false;
+      n.heapIndex = -1;
+      n.g = Integer.MAX_VALUE;
+    }
+    if (n.closed || g >= n.g) return;
+    n.g = g;
+    n.parent = from;
+    n.f = g + heuristic(n);
+    if (n.heapIndex >= 0) siftUp(n.heapIndex); else push(n);
+  }
+
+  private int heuristic(Node n) {
+    if (n == goalNode) return 0;
+    return (Math.abs(n.x - goalX) + Math.abs(n.y - goalY)) * STEP;
+  }
+
+  // --- abstraction maintenance ---
+
+  private void refresh() {
+    if (structureDirty) {
+      rebuildAll();
+      return;
+    }
+    if (!anyDirty) return;
+    anyDirty = false;
+    for (int c = 0; c < dirtyEast.length; c++) {
+      if (dirtyEast[c]) { dirtyEast[c] = false; clearBorder(eastBorders.get(c)); buildEastBorder(c); }
+      if (dirtySouth[c]) { dirtySouth[c] = false; clearBorder(southBorders.get(c)); buildSouthBorder(c); }
+    }
+    for (int c = 0; c < dirtyCluster.length; c++) {
+      if (dirtyCluster[c]) { dirtyCluster[c] = false; buildIntra(c); }
+    }
+  }
+
+  private void rebuildAll() {
+    structureDirty = false;
+    anyDirty = false;
+    cols = grid.getCols();
+    rows = grid.getRows();
+    clustersX = (cols + clusterSize - 1) / clusterSize;
+    clustersY = (rows + clusterSize - 1) / clusterSize;
+    int count = clustersX * clustersY;
+    nodesByCell.clear();
+    clusterNodes.clear();
+    eastBorders.clear();
+    southBorders.clear();
+    for (int c = 0; c < count; c++) {
+      clusterNodes.add(new ArrayList<>());
+      eastBorders.add(new ArrayList<>());
+      southBorders.add(new ArrayList<>());
+    }
+    dirtyCluster = new boolean[count];
+    dirtyEast = new boolean[count];
+    dirtySouth = new boolean[count];
+    for (int c = 0; c < count; c++) {
+      buildEastBorder(c);
+      buildSouthBorder(c);
+    }
+    for (int c = 0; c < count; c++) buildIntra(c);
+  }
+
+  private void buildEastBorder(int c) {
+    int cx = c % clustersX;
+    int cy = c / clustersX;
+    if (cx >= clustersX - 1) return;
+    int x0 = (cx + 1) * clusterSize - 1;
+    int yStart = cy * clusterSize;
+    int yEnd = Math.min(rows, yStart + clusterSize);
+    List<Node> pairs = eastBorders.get(c);
+    int run = -1;
+    for (int y = yStart; y <= yEnd; y++) {
+      boolean open = y < yEnd && !grid.isBlocked(x0, y) && !grid.isBlocked(x0 + 1, y);
+      if (open && run < 0) run = y;
+      if (!open && run >= 0) {
+        addEntrances(pairs, x0, run, x0 + 1, run, 0, 1, y - run);
+        run = -1;
+      }
+    }
+  }
+
+  private void buildSouthBorder(int c) {
+    int cx = c % clustersX;
+    int cy = c / clustersX;
+    if (cy >= clustersY - 1) return;
+    int y0 = (cy + 1) * clusterSize - 1;
+    int xStart = cx * clusterSize;
+    int xEnd = Math.min(cols, xStart + clusterSize);
+    List<Node> pairs = southBorders.get(c);
+    int run = -1;
+    for (int x = xStart; x <= xEnd; x++) {
+      boolean open = x < xEnd && !grid.isBlocked(x, y0) && !grid.isBlocked(x, y0 + 1);
+      if (open && run < 0) run = x;
+      if (!open && run >= 0) {
+        addEntrances(pairs, run, y0, run, y0 + 1, 1, 0, x - run);
+        run = -1;
+      }
+    }
+  }
+
+  private void addEntrances(List<Node> pairs, int ax, int ay, int bx, int by, int stepX, int stepY, int len) {
+    if (len < MAX_SINGLE_ENTRANCE) {
+      int mid = len / 2;
+      addTransition(pairs, ax + stepX * mid, ay + stepY * mid, bx + stepX * mid, by + stepY * mid);
+    } else {
+      addTransition(pairs, ax, ay, bx, by);
+      int last = len - 1;
+      addTransition(pairs, ax + stepX * last, ay + stepY * last, bx + stepX * last, by + stepY * last);
+    }
+  }
+
+  private void addTransition(List<Node> pairs, int ax, int ay, int bx, int by) {
+    Node a = nodeAt(ax, ay);
+    Node b = nodeAt(bx, by);
+    a.refs++;
+    b.refs++;
+    a.link(b);
+    b.link(a);
+    pairs.add(a);
+    pairs.add(b);
+  }
+
+  private void clearBorder(List<Node> pairs) {
+    for (int i = 0; i + 1 < pairs.size(); i += 2) {
+      Node a = pairs.get(i);
+      Node b = pairs.get(i + 1);
+      a.unlink(b);
+      b.unlink(a);
+      release(a);
+      release(b);
+    }
+    pairs.clear();
+  }
+
+  private Node nodeAt(int x, int y) {
+    int cell = y * cols + x;
+    Node n = nodesByCell.get(cell);
+    if (n == null) {
+      n = new Node(x, y, clusterOf(x, y));
+      nodesByCell.put(cell, n);
+      clusterNodes.get(n.cluster).add(n);
+      dirtyCluster[n.cluster] = true;
+    }
+    return n;
+  }
+
+  private void release(Node n) {
+    if (--n.refs > 0) return;
+    nodesByCell.remove(n.y * cols + n.x);
+    clusterNodes.get(n.cluster).remove(n);
+    dirtyCluster[n.cluster] = true;
+  }
+
+  private void buildIntra(int c) {
+    List<Node> nodes = clusterNodes.get(c);
+    for (Node n : nodes) n.clearIntra();
+    for (int i = 0; i < nodes.size(); i++) {
+      Node a = nodes.get(i);
+      bfs(a.x, a.y, c);
+      for (int j = i + 1; j < nodes.size(); j++) {
+        Node b = nodes.get(j);
+        int d = bfsDistance(b.x, b.y, c);
+        if (d < 0) continue;
+        a.addIntra(b, d * STEP);
+        b.addIntra(a, d * STEP);
+      }
+    }
+    dirtyCluster[c] = false;
+  }
+
+  private int clusterOf(int x, int y) { return (y / clusterSize) * clustersX + (x / clusterSize); }
+
+  /** 4-connected breadth-first search from (x, y) confined to cluster {@code c}. */
+  private void bfs(int x, int y, int c) {
+    bfsGeneration++;
+    if (bfsGeneration == Integer.MAX_VALUE) { Arrays.fill(bfsStamp, 0); bfsGeneration = 1; }
+    int ox = (c % clustersX) * clusterSize;
+    int oy = (c / clustersX) * clusterSize;
+    int w = Math.min(clusterSize, cols - ox);
+    int h = Math.min(clusterSize, rows - oy);
+    int head = 0;
+    int tail = 0;
+    int start = (y - oy) * clusterSize + (x - ox);
+    bfsStamp[start] = bfsGeneration;
+    bfsDist[start] = 0;
+    bfsQueue[tail++] = start;
+    while (head < tail) {
+      int cur = bfsQueue[head++];
+      int lx = cur % clusterSize;
+      int ly = cur / clusterSize;
+      int nd = bfsDist[cur] + 1;
+      if (lx + 1 < w) tail = visit(cur + 1, ox + lx + 1, oy + ly, nd, tail);
+      if (lx > 0) tail = visit(cur - 1, ox + lx - 1, oy + ly, nd, tail);
+      if (ly + 1 < h) tail = visit(cur + clusterSize, ox + lx, oy + ly + 1, nd, tail);
+      if (ly > 0) tail = visit(cur - clusterSize, ox + lx, oy + ly - 1, nd, tail);
+    }
+  }
+
+  private int visit(int local, int x, int y, int dist, int tail) {
+    if (bfsStamp[local] == bfsGeneration || grid.isBlocked(x, y)) return tail;
+    bfsStamp[local] = bfsGeneration;
+    bfsDist[local] = dist;
+    bfsQueue[tail] = local;
+    return tail + 1;
+  }
+
+  private int bfsDistance(int x, int y, int c) {
+    int local = (y - (c / clustersX) * clusterSize) * clusterSize + (x - (c % clustersX) * clusterSize);
+    return bfsStamp[local] == bfsGeneration ? bfsDist[local] : -1;
+  }
+
+  // --- binary min-heap on f, ties broken towards larger g ---
+
+  private static boolean less(Node a, Node b) {
+    return a.f < b.f || (a.f == b.f && a.g > b.g);
+  }
+
+  private void push(Node n) {
+    if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+    heap[heapSize] = n;
+    n.heapIndex = heapSize;
+    heapSize++;
+    siftUp(heapSize - 1);
+  }
+
+  private Node pop() {
+    Node top = heap[0];
+    heapSize--;
+    top.heapIndex = -1;
+    if (heapSize > 0) {
+      heap[0] = heap[heapSize];
+      heap[0].heapIndex = 0;
+      siftDown(0);
+    }
+    heap[heapSize] = null;
+    return top;
+  }
+
+  private void siftUp(int i) {
+    Node n = heap[i];
+    while (i > 0) {
+      int pi = (i - 1) >>> 1;
+      Node p = heap[pi];
+      if (!less(n, p)) break;
+      heap[i] = p;
+      p.heapIndex = i;
+      i = pi;
+    }
+    heap[i] = n;
+    n.heapIndex = i;
+  }
+
+  private void siftDown(int i) {
+    Node n = heap[i];
+    int half = heapSize >>> 1;
+    while (i < half) {
+      int c = 2 * i + 1;
+      int r = c + 1;
+      if (r < heapSize && less(heap[r], heap[c])) c = r;
+      if (!less(heap[c], n)) break;
+      heap[i] = heap[c];
+      heap[i].heapIndex = i;
+      i = c;
+    }
+    heap[i] = n;
+    n.heapIndex = i;
+  }
+}
@@ -14,4 +14,13 @@ public class Item {
   public Map<String,Object> getProps() { return props; }
 
   public Object getProp(String key) { return props.get(key); }
+
+  public double getAtkBonus() { return num("atkBonus"); }
+  public double getDefBonus() { return num("defBonus"); }
+  public double getSpeedBonus() { return num("speedBonus"); }
+
+  private double num(String key) {
+    Object v = props.get(key);
+    return v instanceof Number n ? n.doubleValue() : 0;
+  }
 }
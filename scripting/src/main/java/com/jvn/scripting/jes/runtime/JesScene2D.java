@@ -2,6 +2,7 @@ package com.jvn.scripting.jes.runtime;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -25,30 +26,42 @@ public class JesScene2D extends Scene2DBase {
   private boolean debug = false;
   private PhysicsDebugOverlay2D debugOverlay;
   private final List<Binding> bindings = new ArrayList<>();
-  private final Map<String, Entity2D> named = new HashMap<>();
-  private final Map<String, Stats> statsByEntity = new HashMap<>();
+  private final Map<String, EntityHandle> handles = new HashMap<>();
+  private final List<EntityHandle> handleSlots = new ArrayList<>();
   private final Map<String, Item> items = new HashMap<>();
-  private final Map<String, Inventory> inventories = new HashMap<>();
-  private final Map<String, Equipment> equipmentByEntity = new HashMap<>();
-  private final Map<String, Ai2D> aiByEntity = new HashMap<>();
   private final Map<RigidBody2D, PhysicsInfo> physicsInfos = new HashMap<>();
-  private final Map<String, RigidBody2D> bodyByName = new HashMap<>();
-  private final Map<String, Double> scriptVars = new HashMap<>();
+  private final SpawnPool circlePool = new SpawnPool(RigidBody2D.ShapeType.CIRCLE, 32);
+  private final SpawnPool boxPool = new SpawnPool(RigidBody2D.ShapeType.AABB, 32);
+  private final ScriptVars scriptVars = new ScriptVars();
+  private final int scoreSlot = scriptVars.slot("score");
+  private EntityHandle scoreLabel;
   private final Map<String, Consumer<Map<String,Object>>> callHandlers = new HashMap<>();
-  private final Map<String, double[]> spawnPositions = new HashMap<>();
   private boolean paused = false;
 
   private List<JesAst.TimelineAction> timeline = new ArrayList<>();
+  private EntityHandle[] tlTargets = new EntityHandle[0];
   private int tlIndex = 0;
   private double tlElapsedMs = 0;
   private final Map<Integer, ActionRuntime> actionState = new HashMap<>();
   private BiConsumer<String, Map<String,Object>> actionHandler;
 
   private String playerName;
+  private EntityHandle playerHandle;
+  private EntityHandle cameraFollowHandle;
+  private JesSnapshotWriter snapshotWriter;
   private double gridW = 16.0;
   private double gridH = 16.0;
   private String playerFacing = "down";
-  private final List<TileMap2D> collisionTilemaps = new ArrayList<>();
+  private final CollisionGrid2D collisionGrid = new CollisionGrid2D();
+  private final GridPathfinder pathfinder = new GridPathfinder(collisionGrid);
+  private final GridPathfinder.PathBuffer aiPath = new GridPathfinder.PathBuffer();
+  private HierarchicalPathfinder hierarchy;
+  private int flowFieldMinChasers = 3;
+  private double flowFieldIntervalMs = 250.0;
+  private double aiClockMs;
+  private final AiScheduler aiScheduler = new AiScheduler();
+  private double viewW;
+  private double viewH;
   private boolean continuousMovementEnabled = false;
   private final List<Button2D> buttons = new ArrayList<>();
   private final List<Slider2D> sliders = new ArrayList<>();
@@ -57,6 +70,12 @@ public class JesScene2D extends Scene2DBase {
   private double cameraDeadZoneW = 0;
   private double cameraDeadZoneH = 0;
   private final List<RunningAsyncAction> asyncActions = new ArrayList<>();
+  private final TimerWheel asyncTimers = new TimerWheel();
+  private final Map<Stats.Modifier, Long> buffEnds = new IdentityHashMap<>(); // timed buffs -> scene time they end
+  private final Map<String, java.util.ArrayDeque<Runnable>> eventWaiters = new HashMap<>();
+  private int timelineGeneration;
+  private final TimelineCoroutines coroutines = new TimelineCoroutines(asyncTimers);
+  private boolean coroutineTimeline;
   private double heroVx;
   private double heroVy;
   private double heroAccel = 400.0;
@@ -65,19 +84,9 @@ public class JesScene2D extends Scene2DBase {
   private double cameraOffsetY;
   private final java.util.Set<String> triggeredEvents = new java.util.HashSet<>();
   private final Map<String,Integer> labelIndex = new java.util.HashMap<>();
-  private static class TriggerLayer {
-    final TileMap2D tilemap;
-    final String call;
-    final Map<String,Object> props;
-    final String mapName;
-    TriggerLayer(String mapName, TileMap2D tilemap, String call, Map<String,Object> props) {
-      this.mapName = mapName;
-      this.tilemap = tilemap;
-      this.call = call;
-      this.props = props;
-    }
-  }
-  private final List<TriggerLayer> triggerLayers = new ArrayList<>();
+  private final TriggerIndex triggers = new TriggerIndex();
+  private final List<com.jvn.core.scene2d.TileChunkStreamer> tileStreamers = new ArrayList<>();
+  private final List<RegionStreamer> regionStreamers = new ArrayList<>();
 
   public static class Binding {
     public final String key;
@@ -94,6 +103,7 @@ public class JesScene2D extends Scene2DBase {
     double sAlpha;
     double sZoom;
     double elapsed;
+    EntityHandle target;
   }
   private static class RunningAsyncAction {
     final JesAst.TimelineAction action;
@@ -110,34 +120,127 @@ public class JesScene2D extends Scene2DBase {
     int childIndex;
     final Map<Integer, ActionRuntime> childStates = new HashMap<>();
   }
-  private static class PhysicsInfo {
-    final String name;
-    final String onTrigger;
+  static class PhysicsInfo {
+    String name;
+    String onTrigger;
+    SpawnPool.Spawn spawn;
     PhysicsInfo(String name, String onTrigger) { this.name = name; this.onTrigger = onTrigger; }
   }
 
   public PhysicsWorld2D getWorld() { return world; }
-  public void addCollisionTilemap(TileMap2D tm) { if (tm != null) collisionTilemaps.add(tm); }
+  public void addCollisionTilemap(TileMap2D tm) { collisionGrid.addLayer(tm); }
+  public CollisionGrid2D getCollisionGrid() { return collisionGrid; }
+  public void setPathfindingMode(GridPathfinder.Mode mode) {
+    pathfinder.setMode(mode);
+    if (hierarchy != null) hierarchy.setMode(mode);
+  }
+  public GridPathfinder.Mode getPathfindingMode() { return pathfinder.getMode(); }
+  /** Enables hierarchical (clustered) pathfinding for long-range queries; 0 disables it. */
+  public void setPathClusterSize(int clusterSize) {
+    if (hierarchy != null) hierarchy.dispose();
+    hierarchy = clusterSize > 0 ? HierarchicalPathfinder.create(collisionGrid, clusterSize) : null;
+    if (hierarchy != null) hierarchy.setMode(pathfinder.getMode());
+  }
+  public HierarchicalPathfinder getHierarchicalPathfinder() { return hierarchy; }
+  /** Chasers sharing a target route through one flow field once at least this many pursue it; 0 disables. */
+  public void setFlowFieldMinChasers(int count) { this.flowFieldMinChasers = Math.max(0, count); }
+  public void setFlowFieldIntervalMs(double ms) { this.flowFieldIntervalMs = Math.max(0, ms); }
+  public FlowField2D getFlowField(String target) {
+    EntityHandle h = lookup(target);
+    return h == null ? null : h.flowField;
+  }
+  public AiScheduler getAiScheduler() { return aiScheduler; }
+  /** Runs the timeline as a coroutine instead of stepping it by index each frame; set before {@link #setTimeline}. */
+  public void setCoroutineTimeline(boolean enabled) { this.coroutineTimeline = enabled; }
+  public boolean isCoroutineTimeline() { return coroutineTimeline; }
+  public TimelineCoroutines getCoroutines() { return coroutines; }
+  public SpawnPool getCirclePool() { return circlePool; }
+  public SpawnPool getBoxPool() { return boxPool; }
   public void addTriggerLayer(TileMap2D tm, String call, Map<String,Object> props) {
     addTriggerLayer(null, tm, call, props);
   }
   public void addTriggerLayer(String mapName, TileMap2D tm, String call, Map<String,Object> props) {
     if (tm == null || call == null || call.isBlank()) return;
-    Map<String,Object> copy = (props == null) ? new HashMap<>() : new HashMap<>(props);
-    triggerLayers.add(new TriggerLayer(mapName, tm, call, copy));
+    triggers.addLayer(mapName, tm, call, props);
+  }
+  /** Cells that fire a trigger call when the hero steps on them, across all trigger layers. */
+  public int getTriggerCellCount() { return triggers.getCellCount(); }
+  /** Streams a binary tile layer around the camera as the scene renders instead of holding it all in the map. */
+  public void addTileStreamer(com.jvn.core.scene2d.TileChunkStreamer streamer) { if (streamer != null) tileStreamers.add(streamer); }
+  public List<com.jvn.core.scene2d.TileChunkStreamer> getTileStreamers() { return tileStreamers; }
+  /** Streams a map by region around the camera as the scene updates; see {@link RegionStreamer}. */
+  public void addRegionStreamer(RegionStreamer streamer) { if (streamer != null) regionStreamers.add(streamer); }
+  public List<RegionStreamer> getRegionStreamers() { return regionStreamers; }
+  /** Lets the region streamer covering {@code name}'s position park it while its region is unloaded. */
+  public void streamEntity(String name) {
+    EntityHandle h = lookup(name);
+    if (h == null || h.entity == null || name.equals(playerName) || regionStreamers.isEmpty()) return;
+    for (RegionStreamer rs : regionStreamers) {
+      if (rs.contains(h.entity.getX(), h.entity.getY())) { rs.addEntity(h); return; }
+    }
+    regionStreamers.get(0).addEntity(h);
+  }
+  /** Takes a live entity out of the scene and physics world, keeping it on its handle until it is unparked. */
+  void parkEntity(EntityHandle h) {
+    if (h == null || h.entity == null || h == playerHandle) return;
+    remove(h.entity);
+    if (h.body != null) world.removeBody(h.body);
+    h.parked = h.entity;
+    h.entity = null;
+    h.flowField = null;
+  }
+  void unparkEntity(EntityHandle h) {
+    if (h == null || h.parked == null || h.entity != null) return;
+    h.entity = h.parked;
+    h.parked = null;
+    add(h.entity);
+    if (h.body != null) world.addBody(h.body);
   }
   public void setDebug(boolean d) { this.debug = d; }
   public void addBinding(String key, String action, Map<String,Object> props) { bindings.add(new Binding(key, action, props)); }
   public void registerEntity(String name, Entity2D e) {
-    if (name != null && !name.isBlank() && e != null && !named.containsKey(name)) {
-      named.put(name, e);
-      spawnPositions.put(name, new double[]{ e.getX(), e.getY() });
-    }
-  }
+    if (name == null || name.isBlank() || e == null) return;
+    EntityHandle h = handle(name);
+    if (h.entity != null || h.parked != null) return;
+    h.entity = e;
+    h.spawnX = e.getX();
+    h.spawnY = e.getY();
+    h.hasSpawn = true;
+  }
+  /** Handle for {@code name}, created on first use and stable for the life of the scene. */
+  public EntityHandle handle(String name) {
+    EntityHandle h = handles.get(name);
+    if (h == null) {
+      h = new EntityHandle(handleSlots.size(), name);
+      handles.put(name, h);
+      handleSlots.add(h);
+    }
+    return h;
+  }
+  public EntityHandle handleAt(int slot) { return slot < 0 || slot >= handleSlots.size() ? null : handleSlots.get(slot); }
+  public int handleCount() { return handleSlots.size(); }
+  private EntityHandle lookup(String name) { return name == null ? null : handles.get(name); }
+  private Entity2D entity(String name) {
+    EntityHandle h = lookup(name);
+    return h == null ? null : h.entity;
+  }
+  private Stats statsOf(String name) {
+    EntityHandle h = lookup(name);
+    return h == null ? null : h.stats;
+  }
+  private Inventory inventoryOf(String name) {
+    EntityHandle h = lookup(name);
+    return h == null ? null : h.inventory;
+  }
+  private Equipment equipmentOf(String name) {
+    EntityHandle h = lookup(name);
+    return h == null ? null : h.equipment;
+  }
+  private Entity2D player() { return playerHandle == null ? null : playerHandle.entity; }
   public void registerPhysicsEntity(String name, RigidBody2D body, String onTrigger) {
     if (name == null || name.isBlank() || body == null) return;
     physicsInfos.put(body, new PhysicsInfo(name, onTrigger));
-    bodyByName.put(name, body);
+    handle(name).body = body;
     world.setSensorListener(this::handleSensorTrigger);
   }
 
@@ -160,8 +263,55 @@ public class JesScene2D extends Scene2DBase {
     this.tlElapsedMs = 0;
     this.actionState.clear();
     this.asyncActions.clear();
+    this.eventWaiters.clear();
+    this.timelineGeneration++;
+    this.coroutines.cancelAll();
     this.labelIndex.clear();
     indexLabels(this.timeline);
+    this.tlTargets = new EntityHandle[timeline.size()];
+    for (int i = 0; i < timeline.size(); i++) {
+      JesAst.TimelineAction a = timeline.get(i);
+      if (a == null || a.target == null || "call".equals(a.type) || "jump".equals(a.type) || "label".equals(a.type)) continue;
+      tlTargets[i] = handle(a.target);
+    }
+    if (coroutineTimeline && !timeline.isEmpty()) {
+      List<JesAst.TimelineAction> main = timeline;
+      coroutines.start(co -> runActions(co, main, labelIndex));
+    }
+  }
+
+  /**
+   * Starts {@code actions} as an extra timeline coroutine alongside the main timeline; it ends when the list does or
+   * when the timeline is replaced.
+   */
+  public TimelineCoroutines.Coroutine runTimeline(List<JesAst.TimelineAction> actions) {
+    if (actions == null || actions.isEmpty()) return null;
+    List<JesAst.TimelineAction> list = new ArrayList<>(actions);
+    Map<String,Integer> labels = new HashMap<>();
+    for (int i = 0; i < list.size(); i++) {
+      JesAst.TimelineAction a = list.get(i);
+      if (a != null && "label".equals(a.type) && a.target != null) labels.putIfAbsent(a.target, i);
+    }
+    return coroutines.start(co -> runActions(co, list, labels));
+  }
+
+  @Override
+  public void onExit() {
+    super.onExit();
+    coroutines.cancelAll();
+    for (RegionStreamer rs : regionStreamers) rs.shutdown();
+  }
+  private Entity2D tlTarget() {
+    EntityHandle h = tlTargets[tlIndex];
+    return h == null ? null : h.entity;
+  }
+  /** Timeline target of a parallel or loop child, resolved on first use and cached in its runtime state. */
+  private Entity2D targetOf(JesAst.TimelineAction a, ActionRuntime st) {
+    if (st.target == null) {
+      if (a.target == null) return null;
+      st.target = handle(a.target);
+    }
+    return st.target.entity;
   }
   private void indexLabels(List<JesAst.TimelineAction> list) {
     if (list == null) return;
@@ -173,13 +323,22 @@ public class JesScene2D extends Scene2DBase {
       }
     }
   }
-  public java.util.Set<String> names() { return named.keySet(); }
-  public Entity2D find(String name) { return named.get(name); }
-  public Map<String, Entity2D> exportNamed() { return java.util.Collections.unmodifiableMap(new java.util.HashMap<>(named)); }
+  public java.util.Set<String> names() { return exportNamed().keySet(); }
+  public Entity2D find(String name) { return entity(name); }
+  public Map<String, Entity2D> exportNamed() {
+    Map<String, Entity2D> m = new java.util.LinkedHashMap<>();
+    for (EntityHandle h : handleSlots) if (h.entity != null) m.put(h.name, h.entity);
+    return java.util.Collections.unmodifiableMap(m);
+  }
   public java.util.List<Binding> exportBindings() { return java.util.Collections.unmodifiableList(new java.util.ArrayList<>(bindings)); }
   public java.util.List<JesAst.TimelineAction> exportTimeline() { return java.util.Collections.unmodifiableList(new java.util.ArrayList<>(timeline)); }
-  public Stats getStats(String name) { return name == null ? null : statsByEntity.get(name); }
-  public void setStats(String name, Stats stats) { if (name != null && stats != null) statsByEntity.put(name, stats); }
+  public Stats getStats(String name) { return statsOf(name); }
+  public void setStats(String name, Stats stats) {
+    if (name == null || stats == null) return;
+    EntityHandle h = handle(name);
+    h.stats = stats;
+    syncEquipmentModifiers(h);
+  }
   public Item getItem(String id) { return id == null ? null : items.get(id); }
   public void registerItem(Item item) {
     if (item == null) return;
@@ -187,17 +346,15 @@ public class JesScene2D extends Scene2DBase {
     if (id == null || id.isBlank()) return;
     if (!items.containsKey(id)) items.put(id, item);
   }
-  public Inventory getInventory(String name) { return name == null ? null : inventories.get(name); }
-  public void setInventory(String name, Inventory inv) { if (name != null && inv != null) inventories.put(name, inv); }
+  public Inventory getInventory(String name) { return inventoryOf(name); }
+  public void setInventory(String name, Inventory inv) { if (name != null && inv != null) handle(name).inventory = inv; }
   public boolean addItemToInventory(String name, String itemId, int count) {
     if (name == null || name.isBlank()) return false;
     if (itemId == null || itemId.isBlank()) return false;
     if (count <= 0) return false;
-    Inventory inv = inventories.get(name);
-    if (inv == null) {
-      inv = new Inventory();
-      inventories.put(name, inv);
-    }
+    EntityHandle h = handle(name);
+    if (h.inventory == null) h.inventory = new Inventory();
+    Inventory inv = h.inventory;
     inv.add(itemId, count);
     return true;
   }
@@ -207,11 +364,9 @@ public class JesScene2D extends Scene2DBase {
     if (count <= 0) return false;
     Item item = items.get(itemId);
     if (item == null) return false;
-    Inventory inv = inventories.get(name);
-    if (inv == null) {
-      inv = new Inventory();
-      inventories.put(name, inv);
-    }
+    EntityHandle h = handle(name);
+    if (h.inventory == null) h.inventory = new Inventory();
+    Inventory inv = h.inventory;
     int maxStack = getMaxStackForItem(item);
     return inv.addBounded(itemId, count, maxStack);
   }
@@ -219,28 +374,71 @@ public class JesScene2D extends Scene2DBase {
     if (name == null || name.isBlank()) return false;
     if (itemId == null || itemId.isBlank()) return false;
     if (count <= 0) return false;
-    Inventory inv = inventories.get(name);
+    Inventory inv = inventoryOf(name);
     if (inv == null) return false;
     return inv.remove(itemId, count);
   }
-  public Equipment getEquipment(String name) { return name == null ? null : equipmentByEntity.get(name); }
+  public Equipment getEquipment(String name) { return equipmentOf(name); }
   public void setEquipment(String name, Equipment eq) {
     if (name == null || name.isBlank() || eq == null) return;
-    equipmentByEntity.put(name, eq);
-    recomputeEquipmentBonuses(name);
+    EntityHandle h = handle(name);
+    if (h.equipment != null && h.equipment != eq) h.equipment.setListener(null);
+    h.equipment = eq;
+    eq.setListener((equipment, slot, oldItemId, newItemId) -> applyEquipSlot(h, slot, newItemId));
+    syncEquipmentModifiers(h);
+  }
+  /**
+   * Applies a stat modifier under {@code id} to {@code name}; a positive {@code durationMs} removes it again after
+   * that much scene time unless the buff was reapplied meanwhile.
+   */
+  public void applyBuff(String name, String id, double atk, double def, double speed, double durationMs) {
+    Stats stats = statsOf(name);
+    if (stats == null || id == null || id.isBlank()) return;
+    String source = "buff:" + id;
+    Stats.Modifier m = stats.setModifier(source, atk, def, speed);
+    if (m != null && durationMs > 0) {
+      buffEnds.put(m, asyncTimers.now() + (long) Math.ceil(durationMs));
+      asyncTimers.schedule(durationMs, () -> {
+        buffEnds.remove(m);
+        stats.removeModifier(source, m);
+      });
+    }
+  }
+  /** Scene time left on a timed buff's modifier; 0 for one that lasts until removed. */
+  double buffRemainingMs(Stats.Modifier m) {
+    Long end = buffEnds.get(m);
+    return end == null ? 0 : Math.max(1, end - asyncTimers.now());
+  }
+  public boolean removeBuff(String name, String id) {
+    Stats stats = statsOf(name);
+    return stats != null && id != null && stats.removeModifier("buff:" + id);
   }
   public void addButton(Button2D btn) { if (btn != null) buttons.add(btn); }
   public void addSlider(Slider2D s) { if (s != null) sliders.add(s); }
-  public Ai2D getAi(String name) { return name == null ? null : aiByEntity.get(name); }
+  public Ai2D getAi(String name) {
+    EntityHandle h = lookup(name);
+    return h == null ? null : h.ai;
+  }
   public void setAi(String name, Ai2D ai) {
     if (name == null || name.isBlank() || ai == null) return;
-    aiByEntity.put(name, ai);
+    EntityHandle h = handle(name);
+    h.ai = ai;
+    aiScheduler.add(name, ai).self = h;
   }
+  public ScriptVars getScriptVars() { return scriptVars; }
+  public double getVar(String name) { return scriptVars.get(name); }
+  public void setVar(String name, double value) { if (name != null) scriptVars.set(name, value); }
   public void registerCall(String name, Consumer<Map<String,Object>> handler) { if (name != null && !name.isBlank() && handler != null) callHandlers.put(name, handler); }
   public void setActionHandler(BiConsumer<String, Map<String,Object>> handler) { this.actionHandler = handler; }
   public void invokeCall(String name, Map<String,Object> props) {
     if (name == null || name.isBlank()) return;
-    Map<String,Object> actualProps = (props == null) ? new HashMap<>() : new HashMap<>(props);
+    dispatchCall(name, props == null ? new HashMap<>() : new HashMap<>(props));
+  }
+  /**
+   * Runs a call with {@code actualProps} as given; trigger cells pass their shared read-only props this way, so the
+   * built-ins below only read them.
+   */
+  private void dispatchCall(String name, Map<String,Object> actualProps) {
     // Built-in map warp helper: can be triggered directly from triggers using triggerCall: "warpMap"
     if ("warpMap".equals(name)) {
       warpMap(actualProps);
@@ -262,11 +460,17 @@ public class JesScene2D extends Scene2DBase {
       resetToSpawn();
     } else if ("setLabelText".equals(name)) {
       setLabelText(actualProps);
+    } else if ("buff".equals(name)) {
+      applyBuff(toStr(actualProps.get("target"), playerName), toStr(actualProps.get("id"), "buff"),
+        toNum(actualProps.get("atk"), 0), toNum(actualProps.get("def"), 0), toNum(actualProps.get("speed"), 0),
+        toNum(actualProps.get("durationMs"), 0));
+    } else if ("removeBuff".equals(name)) {
+      removeBuff(toStr(actualProps.get("target"), playerName), toStr(actualProps.get("id"), "buff"));
     } else if ("removeEntity".equals(name)) {
       String target = toStr(actualProps.get("target"), null);
       if (target != null) removeEntity(target);
     }
-    if (name != null) {
+    if (name != null && !releaseEventWaiter(name)) {
       triggeredEvents.add(name);
     }
     Consumer<Map<String,Object>> h = callHandlers.get(name);
@@ -276,10 +480,19 @@ public class JesScene2D extends Scene2DBase {
       try { actionHandler.accept(name, actualProps); } catch (Exception ignored) {}
     }
   }
-  public void setPlayerName(String name) { this.playerName = name; }
+  /** Invokes {@code name} after {@code delayMs} of (unpaused) scene time. */
+  public void invokeCallLater(String name, Map<String,Object> props, double delayMs) {
+    if (name == null || name.isBlank()) return;
+    asyncTimers.schedule(delayMs, () -> invokeCall(name, props));
+  }
+  public void setPlayerName(String name) {
+    this.playerName = name;
+    this.playerHandle = name == null || name.isBlank() ? null : handle(name);
+  }
   public void setGridSize(double w, double h) { this.gridW = w; this.gridH = h; }
   public void setPlayerFacing(String facing) { if (facing != null && !facing.isBlank()) this.playerFacing = facing; }
   public String getPlayerFacing() { return playerFacing; }
+  public String getPlayerName() { return playerName; }
   public void setContinuousMovementEnabled(boolean enabled) { this.continuousMovementEnabled = enabled; }
   public void setCameraFollow(String target, double lerp) {
     this.cameraFollowTarget = target;
@@ -290,25 +503,30 @@ public class JesScene2D extends Scene2DBase {
   public boolean isPaused() { return paused; }
   public boolean rename(String oldName, String newName) {
     if (oldName == null || newName == null || newName.isBlank() || oldName.equals(newName)) return false;
-    if (!named.containsKey(oldName) || named.containsKey(newName)) return false;
-    Entity2D e = named.remove(oldName);
-    if (e == null) return false;
-    named.put(newName, e);
+    EntityHandle from = lookup(oldName);
+    if (from == null || from.entity == null) return false;
+    EntityHandle to = handle(newName);
+    if (to.entity != null) return false;
+    to.entity = from.entity;
+    from.entity = null;
     return true;
   }
   public boolean removeEntity(String name) {
     if (name == null) return false;
-    Entity2D e = named.remove(name);
-    if (e != null) {
-      remove(e);
-      RigidBody2D body = bodyByName.remove(name);
-      if (body != null) {
-        physicsInfos.remove(body);
-        world.removeBody(body);
-      }
-      return true;
+    EntityHandle h = lookup(name);
+    if (h == null || (h.entity == null && h.parked == null)) return false;
+    if (h.entity != null) remove(h.entity);
+    h.entity = null;
+    h.parked = null;
+    h.flowField = null;
+    RigidBody2D body = h.body;
+    h.body = null;
+    if (body != null) {
+      world.removeBody(body);
+      PhysicsInfo info = physicsInfos.get(body);
+      if (info == null || info.spawn == null || !info.spawn.pool.release(info.spawn)) physicsInfos.remove(body);
     }
-    return false;
+    return true;
   }
 
   @Override
@@ -330,15 +548,49 @@ public class JesScene2D extends Scene2DBase {
     updateAi(deltaMs);
     updateTimeline(deltaMs);
     updateCameraFollow(deltaMs);
+    streamRegions();
   }
 
   @Override
   public void render(Blitter2D b, double width, double height) {
+    streamTiles(width, height);
     super.render(b, width, height);
+    this.viewW = width;
+    this.viewH = height;
     // Optional physics debug could be drawn here if needed
   }
 
+  private void streamTiles(double width, double height) {
+    if (tileStreamers.isEmpty()) return;
+    com.jvn.core.graphics.Camera2D cam = getCamera();
+    double zoom = cam != null && cam.getZoom() > 0 ? cam.getZoom() : 1.0;
+    double cx = cam != null ? cam.getX() : 0;
+    double cy = cam != null ? cam.getY() : 0;
+    for (int i = 0; i < tileStreamers.size(); i++) {
+      tileStreamers.get(i).update(cx / zoom, cy / zoom, (cx + width) / zoom, (cy + height) / zoom);
+    }
+  }
+
+  private void streamRegions() {
+    if (regionStreamers.isEmpty()) return;
+    com.jvn.core.graphics.Camera2D cam = getCamera();
+    double fx;
+    double fy;
+    if (cam != null && viewW > 0) {
+      double zoom = cam.getZoom() > 0 ? cam.getZoom() : 1.0;
+      fx = (cam.getX() + viewW / 2) / zoom;
+      fy = (cam.getY() + viewH / 2) / zoom;
+    } else {
+      Entity2D hero = player();
+      if (hero == null) return;
+      fx = hero.getX();
+      fy = hero.getY();
+    }
+    for (int i = 0; i < regionStreamers.size(); i++) regionStreamers.get(i).update(fx, fy);
+  }
+
   private void updateAsyncActions(long deltaMs) {
+    asyncTimers.advance(deltaMs);
     if (asyncActions.isEmpty()) return;
     java.util.Iterator<RunningAsyncAction> it = asyncActions.iterator();
     while (it.hasNext()) {
@@ -350,6 +602,42 @@ public class JesScene2D extends Scene2DBase {
     }
   }
 
+  /**
+   * Starts a parallel child. Delays and plain waits park on the timer wheel and waitForCall subscribes to its event,
+   * so neither costs anything per frame; only actions that animate are polled.
+   */
+  private void startAsyncAction(JesAst.TimelineAction a) {
+    double delay = toNum(a.props.get("delay"), 0);
+    if (delay <= 0) { launchAsyncAction(a); return; }
+    int gen = timelineGeneration;
+    asyncTimers.schedule(delay, () -> { if (gen == timelineGeneration) launchAsyncAction(a); });
+  }
+
+  private void launchAsyncAction(JesAst.TimelineAction a) {
+    String type = a.type == null ? "" : a.type;
+    switch (type) {
+      case "wait" -> asyncTimers.schedule(toNum(a.props.get("ms"), 0), () -> {});
+      case "waitForCall" -> {
+        String ev = toStr(a.props.get("name"), null);
+        if (ev != null && !triggeredEvents.remove(ev)) {
+          eventWaiters.computeIfAbsent(ev, k -> new java.util.ArrayDeque<>()).add(() -> {});
+        }
+      }
+      default -> asyncActions.add(new RunningAsyncAction(a, new ActionRuntime()));
+    }
+  }
+
+  /** Hands an invoked call to the oldest parked waitForCall; false when nobody is waiting and the event should latch. */
+  private boolean releaseEventWaiter(String event) {
+    java.util.ArrayDeque<Runnable> q = eventWaiters.get(event);
+    if (q == null) return false;
+    Runnable r = q.poll();
+    if (q.isEmpty()) eventWaiters.remove(event);
+    if (r == null) return false;
+    r.run();
+    return true;
+  }
+
   private boolean processAsyncAction(JesAst.TimelineAction a, ActionRuntime st, long deltaMs) {
     if (a == null) return true;
     String type = a.type == null ? "" : a.type;
@@ -372,7 +660,7 @@ public class JesScene2D extends Scene2DBase {
         return true;
       }
       case "move", "walkToTile" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = targetOf(a, st);
         if (e == null) return true;
         double tx;
         double ty;
@@ -400,7 +688,7 @@ public class JesScene2D extends Scene2DBase {
         return p >= 1.0;
       }
       case "rotate" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = targetOf(a, st);
         if (e == null) return true;
         double tdeg = toNum(a.props.get("deg"), e.getRotationDeg());
         double dur = toNum(a.props.get("dur"), 0);
@@ -417,7 +705,7 @@ public class JesScene2D extends Scene2DBase {
         return p >= 1.0;
       }
       case "scale" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = targetOf(a, st);
         if (e == null) return true;
         double tsx = toNum(a.props.get("sx"), e.getScaleX());
         double tsy = toNum(a.props.get("sy"), e.getScaleY());
@@ -436,7 +724,7 @@ public class JesScene2D extends Scene2DBase {
         return p >= 1.0;
       }
       case "fade" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = targetOf(a, st);
         if (e == null) return true;
         double targetAlpha = toNum(a.props.get("alpha"), getAlpha(e));
         double dur = toNum(a.props.get("dur"), 0);
@@ -454,7 +742,7 @@ public class JesScene2D extends Scene2DBase {
         return p >= 1.0;
       }
       case "visible" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = targetOf(a, st);
         if (e != null) {
           boolean vis = toBool(a.props.get("value"), true);
           e.setVisible(vis);
@@ -538,7 +826,7 @@ public class JesScene2D extends Scene2DBase {
         return true;
       }
       case "emitParticles" -> {
-        Entity2D ent = named.get(a.target);
+        Entity2D ent = targetOf(a, st);
         if (ent instanceof ParticleEmitter2D pe) {
           int cnt = (int) toNum(a.props.get("count"), 10);
           if (cnt <= 0) cnt = 1;
@@ -570,7 +858,7 @@ public class JesScene2D extends Scene2DBase {
         return true;
       }
       case "setParallax" -> {
-        Entity2D ent = named.get(a.target);
+        Entity2D ent = targetOf(a, st);
         if (ent != null) {
           double px = toNum(a.props.get("px"), ent.getParallaxX());
           double py = toNum(a.props.get("py"), ent.getParallaxY());
@@ -578,13 +866,93 @@ public class JesScene2D extends Scene2DBase {
         }
         return true;
       }
+      case "spawnCircle" -> {
+        spawnCircle(a.props);
+        return true;
+      }
+      case "spawnBox" -> {
+        spawnBox(a.props);
+        return true;
+      }
       default -> { return true; }
     }
   }
 
+  /**
+   * Coroutine counterpart of {@link #updateTimeline}: the list runs as straight-line code, parking on the timer wheel
+   * for waits, on the call's subscription for waitForCall and frame by frame only while something animates. Jumps only
+   * resolve at the top level, as in the indexed timeline, and cost a frame so a backwards jump cannot spin.
+   */
+  private void runActions(TimelineCoroutines.Coroutine co, List<JesAst.TimelineAction> list, Map<String,Integer> labels) {
+    int i = 0;
+    while (i < list.size()) {
+      JesAst.TimelineAction a = list.get(i++);
+      if (a == null) continue;
+      String type = a.type == null ? "" : a.type;
+      switch (type) {
+        case "label" -> {}
+        case "jump" -> {
+          Integer idx = labels == null ? null : labels.get(a.target);
+          if (idx != null) i = idx;
+          co.awaitFrame();
+        }
+        case "loop" -> runLoop(co, a);
+        case "parallel" -> {
+          if (a.children == null) continue;
+          for (JesAst.TimelineAction child : a.children) {
+            if (child == null) continue;
+            double delay = toNum(child.props.get("delay"), 0);
+            List<JesAst.TimelineAction> one = List.of(child);
+            coroutines.start(c -> {
+              if (delay > 0) c.sleep(delay);
+              runActions(c, one, null);
+            });
+          }
+        }
+        default -> runAction(co, a);
+      }
+    }
+  }
+
+  private void runLoop(TimelineCoroutines.Coroutine co, JesAst.TimelineAction a) {
+    if (a.children == null || a.children.isEmpty()) return;
+    int remaining = (int) Math.max(0, toNum(a.props.get("count"), 0));
+    String until = a.props.get("until") instanceof String s ? s : null;
+    while (true) {
+      int parks = co.getParks();
+      for (JesAst.TimelineAction child : a.children) {
+        if (child == null) continue;
+        if ("loop".equals(child.type)) runLoop(co, child);
+        else runAction(co, child);
+      }
+      if (until != null && triggeredEvents.remove(until)) return;
+      if (remaining > 0 && --remaining == 0) return;
+      if (co.getParks() == parks) co.awaitFrame(); // an iteration that never waited must still yield
+    }
+  }
+
+  private void runAction(TimelineCoroutines.Coroutine co, JesAst.TimelineAction a) {
+    String type = a.type == null ? "" : a.type;
+    switch (type) {
+      case "wait" -> co.sleep(toNum(a.props.get("ms"), 0));
+      case "waitForCall" -> {
+        String ev = toStr(a.props.get("name"), null);
+        if (ev == null || triggeredEvents.remove(ev)) return;
+        eventWaiters.computeIfAbsent(ev, k -> new java.util.ArrayDeque<>()).add(co::wake);
+        co.park();
+      }
+      default -> {
+        ActionRuntime st = new ActionRuntime();
+        long dt = 0;
+        while (!processAsyncAction(a, st, dt)) dt = co.awaitFrame();
+      }
+    }
+  }
+
   private void updateTimeline(long deltaMs) {
     updateAsyncActions(deltaMs);
-    if (timeline == null || tlIndex >= timeline.size()) return;
+    coroutines.update(deltaMs);
+    if (coroutineTimeline || timeline == null || tlIndex >= timeline.size()) return;
     JesAst.TimelineAction a = timeline.get(tlIndex);
     switch (a.type) {
       case "wait" -> {
@@ -607,7 +975,7 @@ public class JesScene2D extends Scene2DBase {
         tlElapsedMs = 0;
       }
       case "move" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e == null) { tlIndex++; tlElapsedMs = 0; return; }
         double tx = toNum(a.props.get("x"), e.getX());
         double ty = toNum(a.props.get("y"), e.getY());
@@ -627,7 +995,7 @@ public class JesScene2D extends Scene2DBase {
         if (p >= 1.0) { tlIndex++; tlElapsedMs = 0; actionState.remove(tlIndex-1); }
       }
       case "walkToTile" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e == null) { tlIndex++; tlElapsedMs = 0; return; }
         if (gridW == 0 || gridH == 0) { tlIndex++; tlElapsedMs = 0; return; }
         double txTile = toNum(a.props.get("tx"), Double.NaN);
@@ -657,7 +1025,7 @@ public class JesScene2D extends Scene2DBase {
         if (p >= 1.0) { tlIndex++; tlElapsedMs = 0; actionState.remove(tlIndex-1); }
       }
       case "rotate" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e == null) { tlIndex++; tlElapsedMs = 0; return; }
         double tdeg = toNum(a.props.get("deg"), e.getRotationDeg());
         double dur = toNum(a.props.get("dur"), 0);
@@ -675,7 +1043,7 @@ public class JesScene2D extends Scene2DBase {
         if (p >= 1.0) { tlIndex++; tlElapsedMs = 0; actionState.remove(tlIndex-1); }
       }
       case "scale" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e == null) { tlIndex++; tlElapsedMs = 0; return; }
         double tsx = toNum(a.props.get("sx"), e.getScaleX());
         double tsy = toNum(a.props.get("sy"), e.getScaleY());
@@ -695,7 +1063,7 @@ public class JesScene2D extends Scene2DBase {
         if (p >= 1.0) { tlIndex++; tlElapsedMs = 0; actionState.remove(tlIndex-1); }
       }
       case "fade" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e == null) { tlIndex++; tlElapsedMs = 0; return; }
         double targetAlpha = toNum(a.props.get("alpha"), getAlpha(e));
         double dur = toNum(a.props.get("dur"), 0);
@@ -714,7 +1082,7 @@ public class JesScene2D extends Scene2DBase {
         if (p >= 1.0) { tlIndex++; tlElapsedMs = 0; actionState.remove(tlIndex-1); }
       }
       case "visible" -> {
-        Entity2D e = named.get(a.target);
+        Entity2D e = tlTarget();
         if (e != null) {
           boolean vis = toBool(a.props.get("value"), true);
           e.setVisible(vis);
@@ -815,7 +1183,7 @@ public class JesScene2D extends Scene2DBase {
         tlElapsedMs = 0;
       }
       case "emitParticles" -> {
-        Entity2D ent = named.get(a.target);
+        Entity2D ent = tlTarget();
         if (ent instanceof ParticleEmitter2D pe) {
           int cnt = (int) toNum(a.props.get("count"), 10);
           if (cnt <= 0) cnt = 1;
@@ -845,7 +1213,7 @@ public class JesScene2D extends Scene2DBase {
         tlIndex++; tlElapsedMs = 0;
       }
       case "setParallax" -> {
-        Entity2D ent = named.get(a.target);
+        Entity2D ent = tlTarget();
         if (ent != null) {
           double px = toNum(a.props.get("px"), ent.getParallaxX());
           double py = toNum(a.props.get("py"), ent.getParallaxY());
@@ -868,7 +1236,7 @@ public class JesScene2D extends Scene2DBase {
         if (a.children != null && !a.children.isEmpty()) {
           for (JesAst.TimelineAction child : a.children) {
             if (child == null) continue;
-            asyncActions.add(new RunningAsyncAction(child, new ActionRuntime()));
+            startAsyncAction(child);
           }
         }
         tlIndex++; tlElapsedMs = 0;
@@ -935,7 +1303,7 @@ public class JesScene2D extends Scene2DBase {
   private void updateContinuousMovement(Input in, long deltaMs) {
     if (!continuousMovementEnabled) return;
     if (playerName == null || playerName.isBlank()) return;
-    Entity2D e = named.get(playerName);
+    Entity2D e = player();
     if (!(e instanceof CharacterEntity2D ch)) return;
     double dirX = 0;
     double dirY = 0;
@@ -947,7 +1315,7 @@ public class JesScene2D extends Scene2DBase {
     if (len > 0) { dirX /= len; dirY /= len; }
     double dt = deltaMs / 1000.0;
     double maxSpeed = ch.getSpeed();
-    Stats s = statsByEntity.get(playerName);
+    Stats s = playerHandle.stats;
     if (s != null && s.getSpeed() > 0) maxSpeed = s.getSpeed();
     if (maxSpeed <= 0) maxSpeed = 80.0;
     heroVx += dirX * heroAccel * dt;
@@ -1003,11 +1371,26 @@ public class JesScene2D extends Scene2DBase {
     double r = toNum(props.get("r"), 10);
     double mass = toNum(props.get("mass"), 1);
     double rest = toNum(props.get("restitution"), 0.4);
-    RigidBody2D body = RigidBody2D.circle(x, y, r);
-    body.setMass(mass); body.setRestitution(rest);
-    world.addBody(body);
-    PhysicsBodyEntity2D vis = new PhysicsBodyEntity2D(body);
-    add(vis);
+    SpawnPool.Spawn s = circlePool.acquire();
+    s.body.getCircle().r = r;
+    s.body.setPosition(x, y);
+    s.body.setMass(mass); s.body.setRestitution(rest);
+    addSpawn(s, props);
+  }
+
+  /** Puts a pooled spawn into the world under its {@code name} prop, or its pooled name when unnamed or taken. */
+  private void addSpawn(SpawnPool.Spawn s, Map<String,Object> props) {
+    String name = toStr(props.get("name"), null);
+    EntityHandle h = name == null || name.isBlank() ? null : handle(name);
+    if (h == null || h.entity != null) h = handle(s.pooledName);
+    if (h.entity != null) removeEntity(h.name);
+    s.info.name = h.name;
+    s.info.onTrigger = toStr(props.get("onTrigger"), null);
+    physicsInfos.put(s.body, s.info);
+    world.addBody(s.body);
+    add(s.entity);
+    h.entity = s.entity;
+    h.body = s.body;
   }
 
   private void useItem(Map<String,Object> props) {
@@ -1018,7 +1401,7 @@ public class JesScene2D extends Scene2DBase {
     if (itemId == null || itemId.isBlank()) return;
     if (target == null || target.isBlank()) target = user;
 
-    Inventory inv = inventories.get(user);
+    Inventory inv = inventoryOf(user);
     if (inv == null) return;
     if (!inv.remove(itemId, 1)) return;
 
@@ -1032,7 +1415,7 @@ public class JesScene2D extends Scene2DBase {
       heal(target, hpRestore, itemId);
     }
 
-    Stats stats = statsByEntity.get(target);
+    Stats stats = statsOf(target);
     if (stats != null) {
       double mpRestore = toNum(ip.get("mpRestore"), 0);
       if (mpRestore > 0) {
@@ -1071,28 +1454,21 @@ public class JesScene2D extends Scene2DBase {
       if (!s.equalsIgnoreCase(slot)) return;
     }
 
-    Inventory inv = inventories.get(user);
+    EntityHandle uh = handle(user);
+    Inventory inv = uh.inventory;
     if (inv == null || !inv.remove(itemId, 1)) return;
 
-    Equipment eq = equipmentByEntity.get(user);
-    if (eq == null) {
-      eq = new Equipment();
-      equipmentByEntity.put(user, eq);
-    }
+    if (uh.equipment == null) setEquipment(user, new Equipment());
+    Equipment eq = uh.equipment;
 
     String previous = eq.get(slot);
     eq.set(slot, itemId);
-    recomputeEquipmentBonuses(user);
 
     if (previous != null && !previous.isBlank()) {
       Item prevItem = items.get(previous);
       int maxStackPrev = getMaxStackForItem(prevItem);
-      Inventory inv2 = inventories.get(user);
-      if (inv2 == null) {
-        inv2 = new Inventory();
-        inventories.put(user, inv2);
-      }
-      inv2.addBounded(previous, 1, maxStackPrev);
+      if (uh.inventory == null) uh.inventory = new Inventory();
+      uh.inventory.addBounded(previous, 1, maxStackPrev);
     }
   }
 
@@ -1101,44 +1477,38 @@ public class JesScene2D extends Scene2DBase {
     String slot = toStr(props.get("slot"), null);
     if (user == null || user.isBlank()) return;
     if (slot == null || slot.isBlank()) return;
-    Equipment eq = equipmentByEntity.get(user);
+    EntityHandle uh = lookup(user);
+    Equipment eq = uh == null ? null : uh.equipment;
     if (eq == null) return;
     String current = eq.get(slot);
     if (current == null || current.isBlank()) return;
     eq.set(slot, null);
-    recomputeEquipmentBonuses(user);
 
     Item item = items.get(current);
     int maxStack = getMaxStackForItem(item);
-    Inventory inv = inventories.get(user);
-    if (inv == null) {
-      inv = new Inventory();
-      inventories.put(user, inv);
+    if (uh.inventory == null) uh.inventory = new Inventory();
+    uh.inventory.addBounded(current, 1, maxStack);
+  }
+
+  /** Rebuilds every equipment modifier of {@code h}; slot changes after this arrive one at a time. */
+  private void syncEquipmentModifiers(EntityHandle h) {
+    Stats stats = h.stats;
+    if (stats == null) return;
+    for (String source : new ArrayList<>(stats.getModifiers().keySet())) {
+      if (source.startsWith("equip:")) stats.removeModifier(source);
     }
-    inv.addBounded(current, 1, maxStack);
+    if (h.equipment == null) return;
+    for (Map.Entry<String,String> e : h.equipment.getSlots().entrySet()) applyEquipSlot(h, e.getKey(), e.getValue());
   }
 
-  private void recomputeEquipmentBonuses(String name) {
-    if (name == null || name.isBlank()) return;
-    Stats stats = statsByEntity.get(name);
+  private void applyEquipSlot(EntityHandle h, String slot, String itemId) {
+    Stats stats = h.stats;
     if (stats == null) return;
-    Equipment eq = equipmentByEntity.get(name);
-    stats.setAtkBonus(0.0);
-    stats.setDefBonus(0.0);
-    stats.setSpeedBonus(0.0);
-    if (eq == null) return;
-    for (String slot : eq.getSlots().keySet()) {
-      String itemId = eq.get(slot);
-      if (itemId == null || itemId.isBlank()) continue;
-      Item item = items.get(itemId);
-      if (item == null) continue;
-      Map<String,Object> ip = item.getProps();
-      double atkBonus = toNum(ip.get("atkBonus"), 0);
-      double defBonus = toNum(ip.get("defBonus"), 0);
-      double speedBonus = toNum(ip.get("speedBonus"), 0);
-      if (atkBonus != 0) stats.setAtkBonus(stats.getAtkBonus() + atkBonus);
-      if (defBonus != 0) stats.setDefBonus(stats.getDefBonus() + defBonus);
-      if (speedBonus != 0) stats.setSpeedBonus(stats.getSpeedBonus() + speedBonus);
+    Item item = itemId == null ? null : items.get(itemId);
+    if (item == null) {
+      stats.removeModifier("equip:" + slot);
+    } else {
+      stats.setModifier("equip:" + slot, item.getAtkBonus(), item.getDefBonus(), item.getSpeedBonus());
     }
   }
 
@@ -1169,21 +1539,14 @@ public class JesScene2D extends Scene2DBase {
   }
   
   private boolean isBlockedWorld(double x, double y) {
-    if (collisionTilemaps.isEmpty() || gridW == 0 || gridH == 0) return false;
+    if (collisionGrid.isEmpty() || gridW == 0 || gridH == 0) return false;
     int tx = (int) Math.floor(x / gridW);
     int ty = (int) Math.floor(y / gridH);
     return isBlockedTile(tx, ty);
   }
 
   private boolean isBlockedTile(int tx, int ty) {
-    if (collisionTilemaps.isEmpty()) return false;
-    for (TileMap2D tm : collisionTilemaps) {
-      if (tx < 0 || ty < 0 || tx >= tm.getCols() || ty >= tm.getRows()) {
-        return true;
-      }
-      if (tm.getTile(tx, ty) >= 0) return true;
-    }
-    return false;
+    return collisionGrid.isBlocked(tx, ty);
   }
 
   public boolean isWorldBlocked(double x, double y) { return isBlockedWorld(x, y); }
@@ -1209,68 +1572,56 @@ public class JesScene2D extends Scene2DBase {
     return true;
   }
 
+  /** Intermediate tiles between the start and goal tiles (both excluded); empty when no path is found. */
   public List<int[]> findPathTiles(double sx, double sy, double tx, double ty, int maxNodes) {
-    List<int[]> empty = new ArrayList<>();
-    if (gridW <= 0 || gridH <= 0) return empty;
+    GridPathfinder.PathBuffer buf = new GridPathfinder.PathBuffer();
+    List<int[]> path = new ArrayList<>();
+    if (!findPath(sx, sy, tx, ty, maxNodes, buf)) return path;
+    for (int i = 0; i < buf.size() - 1; i++) path.add(new int[]{ buf.getX(i), buf.getY(i) });
+    return path;
+  }
+
+  /** Allocation-free variant: writes the tiles after the start up to and including the goal into {@code out}. */
+  public boolean findPath(double sx, double sy, double tx, double ty, int maxNodes, GridPathfinder.PathBuffer out) {
+    out.clear();
+    if (gridW <= 0 || gridH <= 0) return false;
     int startX = (int) Math.floor(sx / gridW);
     int startY = (int) Math.floor(sy / gridH);
     int goalX = (int) Math.floor(tx / gridW);
     int goalY = (int) Math.floor(ty / gridH);
-    if (startX == goalX && startY == goalY) return empty;
-    record Node(int x, int y, int g, int f, Node parent) {}
-    java.util.PriorityQueue<Node> open = new java.util.PriorityQueue<>(java.util.Comparator.comparingInt(n -> n.f));
-    java.util.Set<String> closed = new java.util.HashSet<>();
-    open.add(new Node(startX, startY, 0, Math.abs(goalX - startX) + Math.abs(goalY - startY), null));
-    int explored = 0;
-    while (!open.isEmpty() && explored < maxNodes) {
-      Node n = open.poll(); explored++;
-      if (n.x == goalX && n.y == goalY) {
-        List<int[]> path = new ArrayList<>();
-        Node cur = n.parent;
-        while (cur != null && !(cur.x == startX && cur.y == startY)) {
-          path.add(0, new int[]{cur.x, cur.y});
-          cur = cur.parent;
-        }
-        return path;
-      }
-      String key = n.x + "," + n.y;
-      if (!closed.add(key)) continue;
-      int[][] dirs = new int[][]{{1,0},{-1,0},{0,1},{0,-1}};
-      for (int[] d : dirs) {
-        int nx = n.x + d[0];
-        int ny = n.y + d[1];
-        if (isBlockedTile(nx, ny)) continue;
-        int g = n.g + 1;
-        int h = Math.abs(goalX - nx) + Math.abs(goalY - ny);
-        open.add(new Node(nx, ny, g, g + h, n));
-      }
+    if (isLongRange(startX, startY, goalX, goalY)) {
+      return hierarchy.findPath(startX, startY, goalX, goalY, Integer.MAX_VALUE, out);
     }
-    return empty;
+    return pathfinder.findPath(startX, startY, goalX, goalY, maxNodes, out);
   }
 
-  private void checkTriggersAt(double x, double y) {
-    if (triggerLayers.isEmpty() || gridW == 0 || gridH == 0) return;
-    int tx = (int) Math.floor(x / gridW);
-    int ty = (int) Math.floor(y / gridH);
-    for (TriggerLayer tl : triggerLayers) {
-      TileMap2D tm = tl.tilemap;
-      if (tm == null) continue;
-      int tile = tm.getTile(tx, ty);
-      if (tile < 0) continue;
-      Map<String,Object> props = new HashMap<>(tl.props);
-      props.put("tileX", (double) tx);
-      props.put("tileY", (double) ty);
-      props.put("tile", (double) tile);
-      if (tl.mapName != null && !tl.mapName.isBlank()) {
-        props.put("map", tl.mapName);
-      }
-      invokeCall(tl.call, props);
+  private boolean isLongRange(int sx, int sy, int gx, int gy) {
+    return hierarchy != null && Math.abs(gx - sx) + Math.abs(gy - sy) > hierarchy.getClusterSize() * 2;
+  }
+
+  /** AI re-plans every blocked step, so long-range queries only refine the first abstract leg. */
+  private boolean findAiPath(double ex, double ey, double tx, double ty) {
+    aiPath.clear();
+    if (gridW <= 0 || gridH <= 0) return false;
+    int startX = (int) Math.floor(ex / gridW);
+    int startY = (int) Math.floor(ey / gridH);
+    int goalX = (int) Math.floor(tx / gridW);
+    int goalY = (int) Math.floor(ty / gridH);
+    if (isLongRange(startX, startY, goalX, goalY)) {
+      return hierarchy.findPath(startX, startY, goalX, goalY, 1, aiPath);
     }
+    return pathfinder.findPath(startX, startY, goalX, goalY, 512, aiPath);
+  }
+
+  private void checkTriggersAt(double x, double y) {
+    if (triggers.isEmpty() || gridW == 0 || gridH == 0) return;
+    TriggerIndex.Trigger[] hits = triggers.at((int) Math.floor(x / gridW), (int) Math.floor(y / gridH));
+    if (hits == null) return;
+    for (TriggerIndex.Trigger t : hits) dispatchCall(t.call(), t.props());
   }
 
   private void moveHero(Map<String,Object> props) {
-    if (playerName == null || playerName.isBlank()) return;
-    Entity2D e = named.get(playerName);
+    Entity2D e = player();
     if (e == null) return;
     String dir = toStr(props.get("dir"), "down");
     double dx = 0;
@@ -1303,9 +1654,8 @@ public class JesScene2D extends Scene2DBase {
   }
 
   private void interact() {
-    if (playerName == null || playerName.isBlank()) return;
     if (gridW == 0 || gridH == 0) return;
-    Entity2D hero = named.get(playerName);
+    Entity2D hero = player();
     if (hero == null) return;
     int heroTx = (int) Math.floor(hero.getX() / gridW);
     int heroTy = (int) Math.floor(hero.getY() / gridH);
@@ -1321,10 +1671,11 @@ public class JesScene2D extends Scene2DBase {
     }
     String npcName = null;
     CharacterEntity2D npcEntity = null;
-    for (Map.Entry<String, Entity2D> entry : named.entrySet()) {
-      String name = entry.getKey();
-      if (name == null || name.equals(playerName)) continue;
-      Entity2D ent = entry.getValue();
+    for (int i = 0; i < handleSlots.size(); i++) {
+      EntityHandle h = handleSlots.get(i);
+      if (h == playerHandle) continue;
+      String name = h.name;
+      Entity2D ent = h.entity;
       if (!(ent instanceof CharacterEntity2D)) continue;
       int ex = (int) Math.floor(ent.getX() / gridW);
       int ey = (int) Math.floor(ent.getY() / gridH);
@@ -1406,33 +1757,92 @@ public class JesScene2D extends Scene2DBase {
   }
 
   private void updateAi(long deltaMs) {
-    if (aiByEntity.isEmpty()) return;
+    if (aiScheduler.size() == 0) return;
     double dt = deltaMs / 1000.0;
     if (dt <= 0) return;
-    for (Map.Entry<String,Ai2D> entry : aiByEntity.entrySet()) {
-      String name = entry.getKey();
-      Ai2D ai = entry.getValue();
-      if (ai == null) continue;
-      Entity2D e = named.get(name);
+    aiClockMs += deltaMs;
+    countChasersByTarget();
+    // visible world rectangle, matching the camera transform in Scene2DBase.render
+    com.jvn.core.graphics.Camera2D cam = getCamera();
+    boolean culled = cam != null && viewW > 0 && viewH > 0;
+    double zoom = culled ? cam.getZoom() : 1.0;
+    double left = culled ? cam.getX() / zoom : 0;
+    double top = culled ? cam.getY() / zoom : 0;
+    double right = culled ? (cam.getX() + viewW) / zoom : 0;
+    double bottom = culled ? (cam.getY() + viewH) / zoom : 0;
+    aiScheduler.beginFrame();
+    for (int k = 0, n = aiScheduler.size(); k < n; k++) {
+      AiScheduler.Agent agent = aiScheduler.next(k);
+      Ai2D ai = agent.getAi();
+      if (ai.getBehavior() == Ai2D.Behavior.NONE) continue;
+      Entity2D e = agent.self.entity;
       if (e == null) continue;
-      String type = ai.getType();
-      if (type == null) type = "";
-      String tLower = type.toLowerCase();
-      if ("chase".equals(tLower) || "chasehero".equals(tLower) || "chase_and_attack".equals(tLower)) {
-        updateAiChaseAndAttack(name, e, ai, dt, deltaMs);
-      } else if ("patrol".equals(tLower) || "patrol_chase".equals(tLower)) {
-        updateAiPatrol(name, e, ai, dt, deltaMs, "patrol_chase".equals(tLower));
-      } else if ("guard".equals(tLower) || tLower.contains("flee")) {
-        updateAiChaseAndAttack(name, e, ai, dt, deltaMs);
-      }
-    }
+      AiScheduler.Lod lod = culled ? AiScheduler.classify(e.getX(), e.getY(), left, top, right, bottom) : AiScheduler.Lod.NEAR;
+      long stepMs = aiScheduler.step(agent, lod, deltaMs);
+      if (stepMs <= 0) continue;
+      double stepDt = stepMs / 1000.0;
+      switch (ai.getBehavior()) {
+        case CHASE, GUARD, FLEE -> updateAiChaseAndAttack(agent, e, stepDt, stepMs);
+        case PATROL -> updateAiPatrol(agent, e, stepDt, stepMs, false);
+        case PATROL_CHASE -> updateAiPatrol(agent, e, stepDt, stepMs, true);
+        default -> { }
+      }
+    }
+  }
+
+  /** The agent's target handle (its own target, else the player), re-resolved only when the target name changes. */
+  private EntityHandle aiTarget(AiScheduler.Agent agent) {
+    String t = agent.getAi().getTarget();
+    if (t == null || t.isBlank()) t = playerName;
+    if (t == null || t.isBlank()) return null;
+    if (agent.target == null || !t.equals(agent.targetName)) {
+      agent.targetName = t;
+      agent.target = handle(t);
+    }
+    return agent.target;
+  }
+
+  private void countChasersByTarget() {
+    if (flowFieldMinChasers <= 0 || collisionGrid.isEmpty()) return;
+    int n = aiScheduler.size();
+    for (int i = 0; i < n; i++) {
+      EntityHandle t = aiTarget(aiScheduler.get(i));
+      if (t != null) t.chasers = 0;
+    }
+    for (int i = 0; i < n; i++) {
+      AiScheduler.Agent agent = aiScheduler.get(i);
+      if (!agent.getAi().getBehavior().tracksTarget()) continue;
+      EntityHandle t = aiTarget(agent);
+      if (t != null) t.chasers++;
+    }
+  }
+
+  private boolean usesFlowField(EntityHandle target) {
+    return flowFieldMinChasers > 0 && target.chasers >= flowFieldMinChasers;
+  }
+
+  /** Writes the next tile toward the target from the shared flow field into {@code aiPath}. */
+  private boolean sampleFlowField(EntityHandle targetHandle, Entity2D target, double ex, double ey) {
+    aiPath.clear();
+    if (gridW <= 0 || gridH <= 0) return false;
+    int goalX = (int) Math.floor(target.getX() / gridW);
+    int goalY = (int) Math.floor(target.getY() / gridH);
+    if (targetHandle.flowField == null) targetHandle.flowField = new FlowField2D(collisionGrid);
+    FlowField2D field = targetHandle.flowField;
+    boolean due = aiClockMs - field.getComputedAtMs() >= flowFieldIntervalMs;
+    if (due && field.isStale(goalX, goalY)) field.compute(goalX, goalY, aiClockMs);
+    int next = field.nextTile((int) Math.floor(ex / gridW), (int) Math.floor(ey / gridH));
+    if (next < 0) return false;
+    aiPath.add(next % field.getCols(), next / field.getCols());
+    return true;
   }
 
   private void updateCameraFollow(long deltaMs) {
     if (cameraFollowTarget == null || cameraFollowTarget.isBlank()) return;
     com.jvn.core.graphics.Camera2D cam = getCamera();
     if (cam == null) return;
-    Entity2D t = named.get(cameraFollowTarget);
+    if (cameraFollowHandle == null || !cameraFollowHandle.name.equals(cameraFollowTarget)) cameraFollowHandle = handle(cameraFollowTarget);
+    Entity2D t = cameraFollowHandle.entity;
     if (t == null) return;
     double lerp = cameraFollowLerp;
     double p = Math.max(0.0, Math.min(1.0, lerp));
@@ -1459,13 +1869,12 @@ public class JesScene2D extends Scene2DBase {
     cam.setPosition(nx, ny);
   }
 
-  private void updateAiChaseAndAttack(String name, Entity2D e, Ai2D ai, double dt, long deltaMs) {
-    String targetName = ai.getTarget();
-    if (targetName == null || targetName.isBlank()) {
-      targetName = playerName;
-    }
-    if (targetName == null || targetName.isBlank()) return;
-    Entity2D target = named.get(targetName);
+  private void updateAiChaseAndAttack(AiScheduler.Agent agent, Entity2D e, double dt, long deltaMs) {
+    Ai2D ai = agent.getAi();
+    EntityHandle self = agent.self;
+    EntityHandle targetHandle = aiTarget(agent);
+    if (targetHandle == null) return;
+    Entity2D target = targetHandle.entity;
     if (target == null) return;
 
     double ex = e.getX();
@@ -1478,19 +1887,23 @@ public class JesScene2D extends Scene2DBase {
 
     double aggroRange = ai.getAggroRange();
     if (aggroRange > 0 && dist > aggroRange) return;
-    if (ai.isRequiresLineOfSight() && !hasLineOfSight(ex, ey, tx, ty)) return;
+    if (ai.isRequiresLineOfSight()) {
+      if (aiScheduler.tryThink()) ai.setTargetInSight(hasLineOfSight(ex, ey, tx, ty));
+      if (!ai.isTargetInSight()) return;
+    }
 
+    boolean towardTarget = true;
     double guardRadius = ai.getGuardRadius();
     if (guardRadius > 0) {
-      double[] spawn = spawnPositions.get(name);
-      if (spawn != null && spawn.length >= 2) {
-        double sx = spawn[0];
-        double sy = spawn[1];
+      if (self.hasSpawn) {
+        double sx = self.spawnX;
+        double sy = self.spawnY;
         double distFromSpawn = Math.hypot(ex - sx, ey - sy);
         if (distFromSpawn > guardRadius && dist > guardRadius) {
           // Return to guard center
           dx = sx - ex; dy = sy - ey; dist = Math.hypot(dx, dy);
           tx = sx; ty = sy;
+          towardTarget = false;
         }
       }
     }
@@ -1505,16 +1918,18 @@ public class JesScene2D extends Scene2DBase {
     ai.setAttackCooldownMs(cooldown);
 
     if (!shouldFlee && dist <= attackRange) {
+      ai.setDetouring(false);
+      ai.clearWaypoint();
       double interval = ai.getAttackIntervalMs();
       if (interval <= 0) interval = 1000.0;
       if (cooldown <= 0) {
         double amount = ai.getAttackAmount();
         if (amount <= 0) {
-          Stats s = statsByEntity.get(name);
+          Stats s = self.stats;
           if (s != null) amount = s.getAtk();
         }
         if (amount > 0) {
-          applyDamage(targetName, amount, name);
+          applyDamage(targetHandle.name, amount, self.name);
         }
         ai.setAttackCooldownMs(interval);
       }
@@ -1523,7 +1938,7 @@ public class JesScene2D extends Scene2DBase {
 
     double speed = ai.getMoveSpeed();
     if (speed <= 0) {
-      Stats s = statsByEntity.get(name);
+      Stats s = self.stats;
       if (s != null) speed = s.getSpeed();
     }
     if (speed <= 0) {
@@ -1549,51 +1964,83 @@ public class JesScene2D extends Scene2DBase {
 
     double maxStep = speed * dt;
     if (maxStep <= 0) return;
+    if (!shouldFlee && ai.isDetouring()) {
+      // keep following the detour tile by tile until the target is back in sight
+      if (!ai.hasWaypoint()) {
+        if (!aiScheduler.tryThink()) return;
+        if (hasLineOfSight(ex, ey, tx, ty) || !routeAi(targetHandle, target, towardTarget, ex, ey, tx, ty)) {
+          ai.setDetouring(false);
+        } else {
+          ai.setWaypoint(aiPath.getX(0), aiPath.getY(0));
+        }
+      }
+      if (ai.hasWaypoint()) {
+        stepTowardTile(e, ai, ai.getWaypointX(), ai.getWaypointY(), maxStep);
+        return;
+      }
+    }
     double step = Math.min(maxStep, dist);
     double nx = ex + dirX * step;
     double ny = ey + dirY * step;
     if (isBlockedWorld(nx, ny)) {
-      // attempt simple grid pathfinding fallback
-      List<int[]> path = findPathTiles(ex, ey, tx, ty, 512);
-      if (!path.isEmpty()) {
-        int[] next = path.get(0);
-        double px = next[0] * gridW + gridW * 0.5;
-        double py = next[1] * gridH + gridH * 0.5;
-        double pdx = px - ex;
-        double pdy = py - ey;
-        double pdist = Math.hypot(pdx, pdy);
-        if (pdist > 0) {
-          double step2 = Math.min(maxStep, pdist);
-          nx = ex + pdx * (step2 / pdist);
-          ny = ey + pdy * (step2 / pdist);
-        } else return;
-        if (isBlockedWorld(nx, ny)) return;
-      } else {
-        return;
+      // detour around the obstacle via a path search or the target's shared flow field
+      if (!aiScheduler.tryThink() || !routeAi(targetHandle, target, towardTarget && !shouldFlee, ex, ey, tx, ty)) return;
+      if (!shouldFlee) {
+        ai.setDetouring(true);
+        ai.setWaypoint(aiPath.getX(0), aiPath.getY(0));
       }
+      stepTowardTile(e, ai, aiPath.getX(0), aiPath.getY(0), maxStep);
+      return;
+    }
+    e.setPosition(nx, ny);
+  }
+
+  private boolean routeAi(EntityHandle targetHandle, Entity2D target, boolean mayShareField, double ex, double ey, double tx, double ty) {
+    return mayShareField && usesFlowField(targetHandle)
+        ? sampleFlowField(targetHandle, target, ex, ey)
+        : findAiPath(ex, ey, tx, ty);
+  }
+
+  private void stepTowardTile(Entity2D e, Ai2D ai, int tileX, int tileY, double maxStep) {
+    double px = tileX * gridW + gridW * 0.5;
+    double py = tileY * gridH + gridH * 0.5;
+    double pdx = px - e.getX();
+    double pdy = py - e.getY();
+    double pdist = Math.hypot(pdx, pdy);
+    if (pdist <= maxStep) {
+      ai.clearWaypoint();
+      if (!isBlockedWorld(px, py)) e.setPosition(px, py);
+      return;
+    }
+    double nx = e.getX() + pdx * (maxStep / pdist);
+    double ny = e.getY() + pdy * (maxStep / pdist);
+    if (isBlockedWorld(nx, ny)) {
+      ai.clearWaypoint();
+      return;
     }
     e.setPosition(nx, ny);
   }
 
-  private void updateAiPatrol(String name, Entity2D e, Ai2D ai, double dt, long deltaMs, boolean chaseOnAggro) {
-    String targetName = chaseOnAggro ? (ai.getTarget() == null || ai.getTarget().isBlank() ? playerName : ai.getTarget()) : null;
-    if (targetName != null) {
-      Entity2D target = named.get(targetName);
+  private void updateAiPatrol(AiScheduler.Agent agent, Entity2D e, double dt, long deltaMs, boolean chaseOnAggro) {
+    Ai2D ai = agent.getAi();
+    EntityHandle self = agent.self;
+    EntityHandle targetHandle = chaseOnAggro ? aiTarget(agent) : null;
+    if (targetHandle != null) {
+      Entity2D target = targetHandle.entity;
       if (target != null) {
         double dx = target.getX() - e.getX();
         double dy = target.getY() - e.getY();
         double dist = Math.hypot(dx, dy);
         double aggro = ai.getAggroRange();
         if (aggro > 0 && dist <= aggro) {
-          updateAiChaseAndAttack(name, e, ai, dt, deltaMs);
+          updateAiChaseAndAttack(agent, e, dt, deltaMs);
           return;
         }
       }
     }
     // Wander/patrol around spawn
-    double[] spawn = spawnPositions.get(name);
-    double sx = spawn != null && spawn.length >= 2 ? spawn[0] : e.getX();
-    double sy = spawn != null && spawn.length >= 2 ? spawn[1] : e.getY();
+    double sx = self.hasSpawn ? self.spawnX : e.getX();
+    double sy = self.hasSpawn ? self.spawnY : e.getY();
     ai.setPatrolElapsed(ai.getPatrolElapsed() + deltaMs);
     if (!ai.hasPatrolGoal() || ai.getPatrolElapsed() >= ai.getPatrolIntervalMs()) {
       ai.setPatrolElapsed(0);
@@ -1609,7 +2056,7 @@ public class JesScene2D extends Scene2DBase {
       double dist = Math.hypot(dx, dy);
       double speed = ai.getMoveSpeed();
       if (speed <= 0) {
-        Stats s = statsByEntity.get(name);
+        Stats s = self.stats;
         if (s != null) speed = s.getSpeed();
       }
       if (speed <= 0) speed = 60.0;
@@ -1632,7 +2079,7 @@ public class JesScene2D extends Scene2DBase {
     if (target == null || target.isBlank()) return;
     double amount = toNum(props.get("amount"), Double.NaN);
     if (Double.isNaN(amount) || amount <= 0) {
-      Stats s = statsByEntity.get(attacker);
+      Stats s = statsOf(attacker);
       if (s != null) amount = s.getAtk();
     }
     if (amount <= 0) return;
@@ -1644,26 +2091,23 @@ public class JesScene2D extends Scene2DBase {
     if (ball != null) {
       removeEntity(ball);
       // Track simple score
-      incrementVar("score", 1);
+      scriptVars.add(scoreSlot, 1);
       updateScoreLabel();
     }
   }
 
   private void resetToSpawn() {
-    for (Map.Entry<String, Entity2D> entry : new java.util.HashMap<>(named).entrySet()) {
-      String name = entry.getKey();
-      Entity2D e = entry.getValue();
-      double[] spawn = spawnPositions.get(name);
-      if (spawn != null && spawn.length >= 2) {
-        e.setPosition(spawn[0], spawn[1]);
-      }
-      if (bodyByName.containsKey(name)) {
-        RigidBody2D b = bodyByName.get(name);
-        if (spawn != null && spawn.length >= 2) b.setPosition(spawn[0], spawn[1]);
-        b.setVelocity(0, 0);
+    for (int i = 0; i < handleSlots.size(); i++) {
+      EntityHandle h = handleSlots.get(i);
+      Entity2D e = h.current();
+      if (e == null) continue;
+      if (h.hasSpawn) e.setPosition(h.spawnX, h.spawnY);
+      if (h.body != null) {
+        if (h.hasSpawn) h.body.setPosition(h.spawnX, h.spawnY);
+        h.body.setVelocity(0, 0);
       }
     }
-    scriptVars.put("score", 0.0);
+    scriptVars.set(scoreSlot, 0.0);
     updateScoreLabel();
   }
 
@@ -1671,27 +2115,22 @@ public class JesScene2D extends Scene2DBase {
     String target = toStr(props.get("target"), null);
     String text = toStr(props.get("text"), null);
     if (target == null || text == null) return;
-    Entity2D e = named.get(target);
+    Entity2D e = entity(target);
     if (e instanceof com.jvn.core.scene2d.Label2D lbl) {
       lbl.setText(text);
     }
   }
 
-  private void incrementVar(String key, double amount) {
-    if (key == null) return;
-    double cur = scriptVars.getOrDefault(key, 0.0);
-    scriptVars.put(key, cur + amount);
-  }
-
   private void updateScoreLabel() {
-    double score = scriptVars.getOrDefault("score", 0.0);
-    setLabelText(java.util.Map.of("target", "score_label", "text", "Score: " + ((int) score)));
+    if (scoreLabel == null) scoreLabel = handle("score_label");
+    if (scoreLabel.entity instanceof com.jvn.core.scene2d.Label2D lbl) {
+      lbl.setText("Score: " + ((int) scriptVars.get(scoreSlot)));
+    }
   }
 
   private void warpMap(Map<String,Object> props) {
-    if (playerName == null || playerName.isBlank()) return;
     if (gridW == 0 || gridH == 0) return;
-    Entity2D hero = named.get(playerName);
+    Entity2D hero = player();
     if (hero == null) return;
 
     double wx;
@@ -1715,6 +2154,8 @@ public class JesScene2D extends Scene2DBase {
       return; // no usable coordinates
     }
 
+    // land on loaded ground: the destination regions decode now instead of streaming in over the next frames
+    for (RegionStreamer rs : regionStreamers) rs.loadAround(wx, wy);
     hero.setPosition(wx, wy);
   }
 
@@ -1726,17 +2167,19 @@ public class JesScene2D extends Scene2DBase {
     double h = toNum(props.get("h"), 40);
     double mass = toNum(props.get("mass"), 1);
     double rest = toNum(props.get("restitution"), 0.2);
-    RigidBody2D body = RigidBody2D.box(x, y, w, h);
-    body.setMass(mass); body.setRestitution(rest);
-    world.addBody(body);
-    PhysicsBodyEntity2D vis = new PhysicsBodyEntity2D(body);
-    add(vis);
+    SpawnPool.Spawn s = boxPool.acquire();
+    s.body.getAabb().w = w;
+    s.body.getAabb().h = h;
+    s.body.setPosition(x, y);
+    s.body.setMass(mass); s.body.setRestitution(rest);
+    addSpawn(s, props);
   }
 
   public void applyDamage(String name, double amount, String source) {
     if (name == null) return;
     if (amount <= 0) return;
-    Stats stats = statsByEntity.get(name);
+    EntityHandle h = lookup(name);
+    Stats stats = h == null ? null : h.stats;
     if (stats == null) return;
     double currentHp = stats.getHp();
     double maxHp = stats.getMaxHp();
@@ -1755,7 +2198,7 @@ public class JesScene2D extends Scene2DBase {
       }
       if (stats.isRemoveOnDeath()) {
         removeEntity(name);
-        statsByEntity.remove(name);
+        h.stats = null;
       }
     }
   }
@@ -1763,7 +2206,7 @@ public class JesScene2D extends Scene2DBase {
   public void heal(String name, double amount, String source) {
     if (name == null) return;
     if (amount <= 0) return;
-    Stats stats = statsByEntity.get(name);
+    Stats stats = statsOf(name);
     if (stats == null) return;
     double currentHp = stats.getHp();
     double maxHp = stats.getMaxHp();
@@ -1799,21 +2242,29 @@ public class JesScene2D extends Scene2DBase {
   }
 
   // --- State save/load helpers ---
+  /** Full binary checkpoint; later {@link #saveSnapshotDelta()} calls encode only what changed since the last one. */
+  public byte[] saveSnapshot() { return snapshotWriter().writeFull(); }
+  public byte[] saveSnapshotDelta() { return snapshotWriter().writeDelta(); }
+  /** Restores a full snapshot followed by the deltas saved after it, in order. */
+  public void loadSnapshot(byte[] full, byte[]... deltas) { loadState(JesSnapshotReader.read(full, deltas)); }
+  private JesSnapshotWriter snapshotWriter() {
+    if (snapshotWriter == null) snapshotWriter = new JesSnapshotWriter(this);
+    return snapshotWriter;
+  }
+
   public JesSceneState saveState() {
     JesSceneState st = new JesSceneState();
     st.playerName = this.playerName;
     st.playerFacing = this.playerFacing;
-    if (playerName != null) {
-      Entity2D hero = named.get(playerName);
-      if (hero != null) st.playerPosition = new double[]{ hero.getX(), hero.getY() };
-    }
-    for (Map.Entry<String, Entity2D> entry : named.entrySet()) {
-      Entity2D e = entry.getValue();
+    Entity2D hero = player();
+    if (hero != null) st.playerPosition = new double[]{ hero.getX(), hero.getY() };
+    for (EntityHandle h : handleSlots) {
+      Entity2D e = h.current();
       if (e == null) continue;
-      st.entityPositions.put(entry.getKey(), new double[]{ e.getX(), e.getY() });
+      st.entityPositions.put(h.name, new double[]{ e.getX(), e.getY() });
     }
-    for (Map.Entry<String, Stats> entry : statsByEntity.entrySet()) {
-      Stats s = entry.getValue();
+    for (EntityHandle h : handleSlots) {
+      Stats s = h.stats;
       if (s == null) continue;
       JesSceneState.StatsSnapshot snap = new JesSceneState.StatsSnapshot();
       snap.maxHp = s.getMaxHp();
@@ -1828,18 +2279,23 @@ public class JesScene2D extends Scene2DBase {
       snap.speedBonus = s.getSpeedBonus();
       snap.deathCall = s.getDeathCall();
       snap.removeOnDeath = s.isRemoveOnDeath();
-      st.stats.put(entry.getKey(), snap);
+      for (Map.Entry<String, Stats.Modifier> m : s.getModifiers().entrySet()) {
+        if (!m.getKey().startsWith("buff:")) continue;
+        Stats.Modifier b = m.getValue();
+        snap.buffs.put(m.getKey().substring(5), new double[]{ b.atk(), b.def(), b.speed(), buffRemainingMs(b) });
+      }
+      st.stats.put(h.name, snap);
     }
-    for (Map.Entry<String, Inventory> entry : inventories.entrySet()) {
-      Inventory inv = entry.getValue();
+    for (EntityHandle h : handleSlots) {
+      Inventory inv = h.inventory;
       if (inv == null) continue;
-      st.inventories.put(entry.getKey(), new HashMap<>(inv.getItemCounts()));
-      st.inventorySlots.put(entry.getKey(), inv.getSlots());
+      st.inventories.put(h.name, new HashMap<>(inv.getItemCounts()));
+      st.inventorySlots.put(h.name, inv.getSlots());
     }
-    for (Map.Entry<String, Equipment> entry : equipmentByEntity.entrySet()) {
-      Equipment eq = entry.getValue();
+    for (EntityHandle h : handleSlots) {
+      Equipment eq = h.equipment;
       if (eq == null) continue;
-      st.equipment.put(entry.getKey(), new HashMap<>(eq.getSlots()));
+      st.equipment.put(h.name, new HashMap<>(eq.getSlots()));
     }
     return st;
   }
@@ -1848,10 +2304,12 @@ public class JesScene2D extends Scene2DBase {
     if (state == null) return;
     if (state.entityPositions != null) {
       for (Map.Entry<String,double[]> entry : state.entityPositions.entrySet()) {
-        Entity2D e = named.get(entry.getKey());
+        EntityHandle h = lookup(entry.getKey());
+        Entity2D e = h != null ? h.current() : null;
         double[] pos = entry.getValue();
         if (e != null && pos != null && pos.length >= 2) {
           e.setPosition(pos[0], pos[1]);
+          if (h.parked != null && h.body != null) h.body.setPosition(pos[0], pos[1]); // not synced while out of the world
         }
       }
     }
@@ -1859,7 +2317,9 @@ public class JesScene2D extends Scene2DBase {
       for (Map.Entry<String, JesSceneState.StatsSnapshot> entry : state.stats.entrySet()) {
         JesSceneState.StatsSnapshot snap = entry.getValue();
         if (snap == null) continue;
-        Stats s = statsByEntity.computeIfAbsent(entry.getKey(), k -> new Stats());
+        EntityHandle h = handle(entry.getKey());
+        if (h.stats == null) h.stats = new Stats();
+        Stats s = h.stats;
         s.setMaxHp(snap.maxHp);
         s.setHp(snap.hp);
         s.setMaxMp(snap.maxMp);
@@ -1872,13 +2332,27 @@ public class JesScene2D extends Scene2DBase {
         s.setSpeedBonus(snap.speedBonus);
         s.setDeathCall(snap.deathCall);
         s.setRemoveOnDeath(snap.removeOnDeath);
+        // buffs are replaced by the saved ones, with the time they had left
+        for (String source : new ArrayList<>(s.getModifiers().keySet())) {
+          if (source.startsWith("buff:")) s.removeModifier(source);
+        }
+        if (snap.buffs != null) {
+          for (Map.Entry<String, double[]> b : snap.buffs.entrySet()) {
+            double[] v = b.getValue();
+            if (v == null || v.length < 3) continue;
+            applyBuff(entry.getKey(), b.getKey(), v[0], v[1], v[2], v.length > 3 ? v[3] : 0);
+          }
+        }
+        syncEquipmentModifiers(h); // stats created here have none of the equipment's modifiers yet
       }
     }
     if (state.inventories != null) {
       for (Map.Entry<String, Map<String,Integer>> entry : state.inventories.entrySet()) {
         Map<String,Integer> counts = entry.getValue();
         if (counts == null) continue;
-        Inventory inv = inventories.computeIfAbsent(entry.getKey(), k -> new Inventory());
+        EntityHandle h = handle(entry.getKey());
+        if (h.inventory == null) h.inventory = new Inventory();
+        Inventory inv = h.inventory;
         Integer slots = state.inventorySlots.get(entry.getKey());
         if (slots != null) inv.setSlots(slots);
         inv.getItemCounts().clear();
@@ -1889,20 +2363,21 @@ public class JesScene2D extends Scene2DBase {
       for (Map.Entry<String, Map<String,String>> entry : state.equipment.entrySet()) {
         Map<String,String> slots = entry.getValue();
         if (slots == null) continue;
-        Equipment eq = equipmentByEntity.computeIfAbsent(entry.getKey(), k -> new Equipment());
-        eq.getSlots().clear();
-        eq.getSlots().putAll(slots);
-        recomputeEquipmentBonuses(entry.getKey());
+        EntityHandle h = handle(entry.getKey());
+        if (h.equipment == null) setEquipment(entry.getKey(), new Equipment());
+        Equipment eq = h.equipment;
+        eq.clear();
+        for (Map.Entry<String,String> slot : slots.entrySet()) eq.set(slot.getKey(), slot.getValue());
       }
     }
     if (state.playerName != null && !state.playerName.isBlank()) {
-      this.playerName = state.playerName;
+      setPlayerName(state.playerName);
     }
     if (state.playerFacing != null && !state.playerFacing.isBlank()) {
       this.playerFacing = state.playerFacing;
     }
-    if (playerName != null && state.playerPosition != null && state.playerPosition.length >= 2) {
-      Entity2D hero = named.get(playerName);
+    if (state.playerPosition != null && state.playerPosition.length >= 2) {
+      Entity2D hero = player();
       if (hero != null) hero.setPosition(state.playerPosition[0], state.playerPosition[1]);
     }
   }
@@ -1,6 +1,7 @@
 package com.jvn.scripting.jes.runtime;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -29,5 +30,7 @@ public class JesSceneState {
     public double speedBonus;
     public String deathCall;
     public boolean removeOnDeath;
+    /** Active buffs by id: atk, def, speed and the scene time left in ms (0 when it lasts until removed). */
+    public Map<String,double[]> buffs = new LinkedHashMap<>();
   }
 }
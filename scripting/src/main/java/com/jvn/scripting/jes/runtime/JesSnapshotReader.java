@@ -0,0 +1,151 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds a {@link JesSceneState} from snapshots written by {@link JesSnapshotWriter}: one full snapshot followed by
+ * the deltas written after it, in order. The resulting state is applied with {@link JesScene2D#loadState}.
+ */
+public class JesSnapshotReader {
+  private final JesSceneState state = new JesSceneState();
+  private int sequence = -1;
+
+  public JesSceneState getState() { return state; }
+  public int getSequence() { return sequence; }
+
+  public static JesSceneState read(byte[] full, byte[]... deltas) {
+    JesSnapshotReader r = new JesSnapshotReader();
+    r.apply(full);
+    if (deltas != null) for (byte[] d : deltas) r.apply(d);
+    return r.getState();
+  }
+
+  /** Applies a full snapshot (replacing everything) or the delta that directly follows the current sequence. */
+  public void apply(byte[] snapshot) {
+    In in = new In(snapshot);
+    if (snapshot == null || snapshot.length < 6 || in.readInt() != JesSnapshotWriter.MAGIC) {
+      throw new IllegalArgumentException("Not a JES snapshot");
+    }
+    int version = in.readByte();
+    if (version != JesSnapshotWriter.VERSION) throw new IllegalArgumentException("Unsupported JES snapshot version " + version);
+    int kind = in.readByte();
+    int seq = in.readVarInt();
+    if (kind == JesSnapshotWriter.KIND_DELTA) {
+      int base = in.readVarInt();
+      if (base != sequence) throw new IllegalStateException("Delta expects snapshot " + base + " but state is at " + sequence);
+    } else {
+      state.playerName = null;
+      state.playerFacing = null;
+      state.playerPosition = null;
+      state.entityPositions.clear();
+      state.stats.clear();
+      state.inventories.clear();
+      state.inventorySlots.clear();
+      state.equipment.clear();
+    }
+    if (in.readByte() != 0) {
+      state.playerName = in.readString();
+      state.playerFacing = in.readString();
+      state.playerPosition = in.readByte() != 0 ? new double[]{ in.readDouble(), in.readDouble() } : null;
+    }
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      in.readVarInt(); // writer slot, informational
+      readEntity(in, in.readString());
+    }
+    sequence = seq;
+  }
+
+  private void readEntity(In in, String name) {
+    state.entityPositions.remove(name);
+    state.stats.remove(name);
+    state.inventories.remove(name);
+    state.inventorySlots.remove(name);
+    state.equipment.remove(name);
+    int flags = in.readByte();
+    if ((flags & JesSnapshotWriter.HAS_POSITION) != 0) {
+      state.entityPositions.put(name, new double[]{ in.readDouble(), in.readDouble() });
+    }
+    if ((flags & JesSnapshotWriter.HAS_STATS) != 0) {
+      JesSceneState.StatsSnapshot s = new JesSceneState.StatsSnapshot();
+      s.maxHp = in.readDouble();
+      s.hp = in.readDouble();
+      s.maxMp = in.readDouble();
+      s.mp = in.readDouble();
+      s.atk = in.readDouble();
+      s.def = in.readDouble();
+      s.speed = in.readDouble();
+      s.atkBonus = in.readDouble();
+      s.defBonus = in.readDouble();
+      s.speedBonus = in.readDouble();
+      s.deathCall = in.readString();
+      s.removeOnDeath = in.readByte() != 0;
+      int buffs = in.readVarInt();
+      for (int i = 0; i < buffs; i++) {
+        s.buffs.put(in.readString(), new double[]{ in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble() });
+      }
+      state.stats.put(name, s);
+    }
+    if ((flags & JesSnapshotWriter.HAS_INVENTORY) != 0) {
+      state.inventorySlots.put(name, in.readVarInt());
+      int n = in.readVarInt();
+      Map<String, Integer> counts = new HashMap<>();
+      for (int i = 0; i < n; i++) counts.put(in.readString(), in.readVarInt());
+      state.inventories.put(name, counts);
+    }
+    if ((flags & JesSnapshotWriter.HAS_EQUIPMENT) != 0) {
+      int n = in.readVarInt();
+      Map<String, String> slots = new HashMap<>();
+      for (int i = 0; i < n; i++) slots.put(in.readString(), in.readString());
+      state.equipment.put(name, slots);
+    }
+  }
+
+  private static final class In {
+    private final byte[] data;
+    private int pos;
+
+    In(byte[] data) { this.data = data; }
+
+    private void need(int n) {
+      if (pos + n > data.length) throw new IllegalArgumentException("Truncated JES snapshot");
+    }
+
+    int readByte() {
+      need(1);
+      return data[pos++] & 0xFF;
+    }
+
+    int readInt() {
+      need(4);
+      int v = ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+      pos += 4;
+      return v;
+    }
+
+    double readDouble() {
+      long hi = readInt() & 0xFFFFFFFFL;
+      long lo = readInt() & 0xFFFFFFFFL;
+      return Double.longBitsToDouble((hi << 32) | lo);
+    }
+
+    int readVarInt() {
+      int v = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        int b = readByte();
+        v |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) return v;
+      }
+      throw new IllegalArgumentException("Malformed varint in JES snapshot");
+    }
+
+    String readString() {
+      int n = readVarInt();
+      if (n == 0) return null;
+      char[] cs = new char[n - 1];
+      for (int i = 0; i < cs.length; i++) cs[i] = (char) readVarInt();
+      return new String(cs);
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.jvn.core.scene2d.Entity2D;
+
+/**
+ * Encodes {@link JesScene2D} state into compact binary snapshots. A full snapshot holds every entity record; a delta
+ * holds only the records whose encoded bytes changed since the previous snapshot from this writer, plus empty records
+ * for entities that lost all their state. Buffers are reused between calls, so periodic checkpoints allocate only the
+ * returned array. Read the result back with {@link JesSnapshotReader}.
+ *
+ * <p>Layout: magic, version, kind (full/delta), sequence, base sequence (deltas), the scene record (player name,
+ * facing and position; deltas mark it unchanged with a 0 byte), then a count of entity records. Each entity record is
+ * its handle slot, its name and a flags byte saying which of position, stats (with active buffs), inventory and
+ * equipment follow.
+ */
+public class JesSnapshotWriter {
+  static final int MAGIC = 0x4A534E50; // "JSNP"
+  static final int VERSION = 2;
+  static final int KIND_FULL = 0;
+  static final int KIND_DELTA = 1;
+  static final int HAS_POSITION = 1;
+  static final int HAS_STATS = 2;
+  static final int HAS_INVENTORY = 4;
+  static final int HAS_EQUIPMENT = 8;
+
+  private final JesScene2D scene;
+  private final Buf out = new Buf(256);
+  private final Buf record = new Buf(128);
+  private byte[][] previous = new byte[16][];
+  private int[] previousLength = new int[16];
+  private byte[] previousScene = new byte[0];
+  private int previousSceneLength = -1;
+  private int sequence;
+
+  public JesSnapshotWriter(JesScene2D scene) { this.scene = scene; }
+
+  /** Sequence number of the last snapshot written; deltas name it as their base. */
+  public int getSequence() { return sequence; }
+
+  public byte[] writeFull() { return write(true); }
+
+  /** Changes since the previous snapshot; falls back to a full snapshot when there is none yet. */
+  public byte[] writeDelta() { return write(previousSceneLength < 0); }
+
+  private byte[] write(boolean full) {
+    int base = sequence;
+    sequence++;
+    out.reset();
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeByte(full ? KIND_FULL : KIND_DELTA);
+    out.writeVarInt(sequence);
+    if (!full) out.writeVarInt(base);
+
+    record.reset();
+    encodeScene(record);
+    boolean sceneChanged = full || !sameAs(previousScene, previousSceneLength, record);
+    if (sceneChanged) {
+      previousScene = copyInto(previousScene, record);
+      previousSceneLength = record.len;
+      out.writeByte(1);
+      out.write(record);
+    } else {
+      out.writeByte(0);
+    }
+
+    int countPos = out.len;
+    out.writeInt(0);
+    int count = 0;
+    int n = scene.handleCount();
+    if (previous.length < n) {
+      previous = Arrays.copyOf(previous, Math.max(n, previous.length * 2));
+      previousLength = Arrays.copyOf(previousLength, previous.length);
+    }
+    for (int slot = 0; slot < n; slot++) {
+      EntityHandle h = scene.handleAt(slot);
+      record.reset();
+      int flags = encodeEntity(h, record);
+      boolean known = previous[slot] != null;
+      if (!full && known && sameAs(previous[slot], previousLength[slot], record)) continue;
+      // an entity that never had state needs no record, even in a full snapshot
+      if (flags == 0 && (full || !known)) {
+        previous[slot] = null;
+        continue;
+      }
+      if (flags == 0) {
+        previous[slot] = null;
+      } else {
+        previous[slot] = copyInto(previous[slot], record);
+        previousLength[slot] = record.len;
+      }
+      out.writeVarInt(slot);
+      out.writeString(h.name);
+      out.write(record);
+      count++;
+    }
+    out.patchInt(countPos, count);
+    return Arrays.copyOf(out.data, out.len);
+  }
+
+  private void encodeScene(Buf b) {
+    b.writeString(scene.getPlayerName());
+    b.writeString(scene.getPlayerFacing());
+    Entity2D hero = scene.getPlayerName() == null ? null : scene.find(scene.getPlayerName());
+    b.writeByte(hero != null ? 1 : 0);
+    if (hero != null) {
+      b.writeDouble(hero.getX());
+      b.writeDouble(hero.getY());
+    }
+  }
+
+  private int encodeEntity(EntityHandle h, Buf b) {
+    int flags = 0;
+    Entity2D pos = h.current(); // parked entities are saved where they were left
+    if (pos != null) flags |= HAS_POSITION;
+    if (h.stats != null) flags |= HAS_STATS;
+    if (h.inventory != null) flags |= HAS_INVENTORY;
+    if (h.equipment != null) flags |= HAS_EQUIPMENT;
+    b.writeByte(flags);
+    if (pos != null) {
+      b.writeDouble(pos.getX());
+      b.writeDouble(pos.getY());
+    }
+    Stats s = h.stats;
+    if (s != null) {
+      b.writeDouble(s.getMaxHp());
+      b.writeDouble(s.getHp());
+      b.writeDouble(s.getMaxMp());
+      b.writeDouble(s.getMp());
+      b.writeDouble(s.getBaseAtk());
+      b.writeDouble(s.getBaseDef());
+      b.writeDouble(s.getBaseSpeed());
+      b.writeDouble(s.getAtkBonus());
+      b.writeDouble(s.getDefBonus());
+      b.writeDouble(s.getSpeedBonus());
+      b.writeString(s.getDeathCall());
+      b.writeByte(s.isRemoveOnDeath() ? 1 : 0);
+      int buffs = 0;
+      for (String source : s.getModifiers().keySet()) if (source.startsWith("buff:")) buffs++;
+      b.writeVarInt(buffs);
+      for (Map.Entry<String, Stats.Modifier> m : s.getModifiers().entrySet()) {
+        if (!m.getKey().startsWith("buff:")) continue;
+        Stats.Modifier buff = m.getValue();
+        b.writeString(m.getKey().substring(5));
+        b.writeDouble(buff.atk());
+        b.writeDouble(buff.def());
+        b.writeDouble(buff.speed());
+        b.writeDouble(scene.buffRemainingMs(buff));
+      }
+    }
+    Inventory inv = h.inventory;
+    if (inv != null) {
+      b.writeVarInt(inv.getSlots());
+      b.writeVarInt(inv.getItemCounts().size());
+      // sorted, so equal contents always encode to equal bytes whatever the map's iteration order
+      for (Map.Entry<String, Integer> e : sorted(inv.getItemCounts()).entrySet()) {
+        b.writeString(e.getKey());
+        b.writeVarInt(e.getValue() == null ? 0 : e.getValue());
+      }
+    }
+    Equipment eq = h.equipment;
+    if (eq != null) {
+      b.writeVarInt(eq.getSlots().size());
+      for (Map.Entry<String, String> e : sorted(eq.getSlots()).entrySet()) {
+        b.writeString(e.getKey());
+        b.writeString(e.getValue());
+      }
+    }
+    return flags;
+  }
+
+  private static <V> Map<String, V> sorted(Map<String, V> map) {
+    return map.size() < 2 ? map : new TreeMap<>(map);
+  }
+
+  private static boolean sameAs(byte[] prev, int prevLen, Buf cur) {
+    return prev != null && prevLen == cur.len && Arrays.equals(prev, 0, prevLen, cur.data, 0, cur.len);
+  }
+
+  private static byte[] copyInto(byte[] dst, Buf src) {
+    if (dst == null || dst.length < src.len) dst = new byte[Math.max(src.len, 16)];
+    System.arraycopy(src.data, 0, dst, 0, src.len);
+    return dst;
+  }
+
+  /** Growable big-endian byte buffer; strings are stored as a varint length (0 for null) and varint chars. */
+  static final class Buf {
+    byte[] data;
+    int len;
+
+    Buf(int capacity) { data = new byte[capacity]; }
+
+    void reset() { len = 0; }
+
+    private void ensure(int extra) {
+      if (len + extra > data.length) data = Arrays.copyOf(data, Math.max(len + extra, data.length * 2));
+    }
+
+    void writeByte(int v) {
+      ensure(1);
+      data[len++] = (byte) v;
+    }
+
+    void writeInt(int v) {
+      ensure(4);
+      data[len++] = (byte) (v >>> 24);
+      data[len++] = (byte) (v >>> 16);
+      data[len++] = (byte) (v >>> 8);
+      data[len++] = (byte) v;
+    }
+
+    void patchInt(int pos, int v) {
+      data[pos] = (byte) (v >>> 24);
+      data[pos + 1] = (byte) (v >>> 16);
+      data[pos + 2] = (byte) (v >>> 8);
+      data[pos + 3] = (byte) v;
+    }
+
+    void writeLong(long v) {
+      writeInt((int) (v >>> 32));
+      writeInt((int) v);
+    }
+
+    void writeDouble(double v) { writeLong(Double.doubleToLongBits(v)); }
+
+    void writeVarInt(int v) {
+      ensure(5);
+      while ((v & ~0x7F) != 0) {
+        data[len++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      data[len++] = (byte) v;
+    }
+
+    void writeString(String s) {
+      if (s == null) { writeVarInt(0); return; }
+      int n = s.length();
+      writeVarInt(n + 1);
+      for (int i = 0; i < n; i++) writeVarInt(s.charAt(i));
+    }
+
+    void write(Buf other) {
+      ensure(other.len);
+      System.arraycopy(other.data, 0, data, len, other.len);
+      len += other.len;
+    }
+  }
+}
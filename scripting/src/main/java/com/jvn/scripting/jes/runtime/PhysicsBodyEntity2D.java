@@ -19,6 +19,14 @@ public class PhysicsBodyEntity2D extends Entity2D {
   public double getColorB() { return b; }
   public double getColorA() { return a; }
 
+  /** Back to a freshly constructed state, for entities recycled by a {@link SpawnPool}. */
+  void reset() {
+    x = 0; y = 0; rotationDeg = 0; scaleX = 1.0; scaleY = 1.0; z = 0;
+    visible = true; parallaxX = 1.0; parallaxY = 1.0;
+    r = 0.9; g = 0.9; b = 0.9; a = 1.0;
+    sr = 0; sg = 0; sb = 0; sa = 1.0; sw = 0.01;
+  }
+
   @Override
   public void render(Blitter2D blit) {
     if (body == null) return;
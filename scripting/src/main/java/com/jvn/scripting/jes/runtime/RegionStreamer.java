@@ -0,0 +1,347 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.math.Rect;
+import com.jvn.core.physics.PhysicsWorld2D;
+import com.jvn.core.scene2d.Entity2D;
+import com.jvn.core.scene2d.TileLayerFile;
+import com.jvn.core.scene2d.TileMap2D;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams a large JES map region by region around a focus point (the camera, or the player before the first frame).
+ * The map is cut into square regions of {@code regionSize} tiles. Regions within {@code loadRadius} of the focus
+ * region are decoded from their binary layers on a background thread and applied on the game thread in
+ * {@link #update}: tiles are written into the layer maps and collision layers get static colliders for just that
+ * region. Regions further than {@code unloadRadius} away are cleared again, so crossing a region border back and
+ * forth does not reload anything. Streamed entities whose region is not loaded are parked: taken out of the scene and
+ * physics world until their region comes back.
+ *
+ * <p>When collision layers are streamed, the scene's {@link CollisionGrid2D} treats every region that is not loaded
+ * as unknown, hence blocked, so paths are never planned through terrain that has not been read yet. A region that
+ * fails to decode stays unloaded and is retried after {@link #setRetryDelay a delay} that doubles with each failure.
+ */
+public class RegionStreamer {
+  private static final Logger LOG = LoggerFactory.getLogger(RegionStreamer.class);
+  private static final byte UNLOADED = 0;
+  private static final byte LOADING = 1;
+  private static final byte ACTIVE = 2;
+  private static final byte FAILED = 3;
+  private static final int MAX_BACKOFF_SHIFT = 6;
+
+  private record Layer(TileLayerFile file, TileMap2D map, boolean collision) {}
+  private record Decoded(int region, int generation, int[][] cells) {}
+
+  private final JesScene2D scene;
+  private final int cols;
+  private final int rows;
+  private final int regionSize;
+  private final int regionsX;
+  private final int regionsY;
+  private final byte[] state;
+  private final int[] generation;
+  private final int[] failures;
+  private final long[] retryAt; // System.nanoTime() after which a failed region is requested again
+  private final List<List<Rect>> colliders; // per region, null while it has none
+  private final int[] tracked;
+  private int trackedCount;
+  private final List<Layer> layers = new ArrayList<>();
+  private final List<EntityHandle> entities = new ArrayList<>();
+  private final ConcurrentLinkedQueue<Decoded> ready = new ConcurrentLinkedQueue<>();
+  private ExecutorService executor;
+  private boolean async = true;
+  private boolean masked; // unloaded collision regions marked unknown in the scene's grid
+  private int failed;
+  private long retryDelayMs = 500;
+  private int loadRadius = 1;
+  private int unloadRadius = 2;
+  private int lastRx = Integer.MIN_VALUE;
+  private int lastRy;
+  private int loads;
+  private int unloads;
+
+  public RegionStreamer(JesScene2D scene, int cols, int rows, int regionSize) {
+    this.scene = scene;
+    this.cols = Math.max(1, cols);
+    this.rows = Math.max(1, rows);
+    this.regionSize = Math.max(1, regionSize);
+    this.regionsX = (this.cols + this.regionSize - 1) / this.regionSize;
+    this.regionsY = (this.rows + this.regionSize - 1) / this.regionSize;
+    int n = regionsX * regionsY;
+    this.state = new byte[n];
+    this.generation = new int[n];
+    this.failures = new int[n];
+    this.retryAt = new long[n];
+    this.colliders = new ArrayList<>(Collections.nCopies(n, null));
+    this.tracked = new int[n];
+  }
+
+  /** Adds a layer whose tiles come from {@code file}; collision layers also get per-region static colliders. */
+  public void addLayer(TileLayerFile file, TileMap2D map, boolean collision) {
+    if (file != null && map != null) layers.add(new Layer(file, map, collision));
+  }
+
+  /** Parks {@code h} whenever its region is not loaded. */
+  public void addEntity(EntityHandle h) { if (h != null && !entities.contains(h)) entities.add(h); }
+
+  /** Regions loaded around the focus region, and the distance past which they are unloaded again (at least one more). */
+  public void setRadius(int load, int unload) {
+    this.loadRadius = Math.max(0, load);
+    this.unloadRadius = Math.max(loadRadius + 1, unload);
+    this.lastRx = Integer.MIN_VALUE;
+  }
+  /** With async off every region decodes on the calling thread, which keeps tools and tests deterministic. */
+  public void setAsync(boolean async) { this.async = async; }
+  /** Wait before a region that failed to decode is tried again; doubles with each further failure. */
+  public void setRetryDelay(long ms) { this.retryDelayMs = Math.max(0, ms); }
+  public int getRegionSize() { return regionSize; }
+  public int getRegionsX() { return regionsX; }
+  public int getRegionsY() { return regionsY; }
+  public int getLoadRadius() { return loadRadius; }
+  public int getUnloadRadius() { return unloadRadius; }
+  public int getLoads() { return loads; }
+  public int getUnloads() { return unloads; }
+  public boolean isActive(int rx, int ry) { return inMap(rx, ry) && state[ry * regionsX + rx] == ACTIVE; }
+  public int getActiveRegions() {
+    int n = 0;
+    for (int i = 0; i < trackedCount; i++) if (state[tracked[i]] == ACTIVE) n++;
+    return n;
+  }
+  /** True when no region is waiting on the background decoder. */
+  public boolean isIdle() {
+    for (int i = 0; i < trackedCount; i++) if (state[tracked[i]] == LOADING) return false;
+    return true;
+  }
+
+  /** True when world point ({@code x}, {@code y}) falls on this map. */
+  public boolean contains(double x, double y) {
+    TileMap2D m = origin();
+    if (m == null) return false;
+    double tx = (x - m.getX()) / m.getTileW();
+    double ty = (y - m.getY()) / m.getTileH();
+    return tx >= 0 && ty >= 0 && tx < cols && ty < rows;
+  }
+
+  /** Applies finished regions, then loads and unloads around the world point ({@code fx}, {@code fy}). */
+  public void update(double fx, double fy) {
+    Decoded d;
+    while ((d = ready.poll()) != null) apply(d);
+    if (layers.isEmpty()) return;
+    maskUnloaded();
+    if (failed > 0) retryFailed();
+    int rx = regionX(fx);
+    int ry = regionY(fy);
+    if (rx != lastRx || ry != lastRy) {
+      // nothing is on screen yet the first time, so that load happens right away
+      boolean sync = !async || lastRx == Integer.MIN_VALUE;
+      lastRx = rx;
+      lastRy = ry;
+      retarget(rx, ry, sync);
+    }
+    updateEntities();
+  }
+
+  /** Loads the neighbourhood of ({@code x}, {@code y}) on the calling thread, e.g. right before warping there. */
+  public void loadAround(double x, double y) {
+    if (layers.isEmpty()) return;
+    maskUnloaded();
+    lastRx = regionX(x);
+    lastRy = regionY(y);
+    retarget(lastRx, lastRy, true);
+    updateEntities();
+  }
+
+  /** Stops the decoder and drops regions still in flight; the next update requests them again. */
+  public void shutdown() {
+    if (executor != null) executor.shutdownNow();
+    executor = null;
+    ready.clear();
+    for (int i = trackedCount - 1; i >= 0; i--) {
+      int r = tracked[i];
+      if (state[r] != LOADING) continue;
+      state[r] = UNLOADED;
+      generation[r]++;
+      tracked[i] = tracked[--trackedCount];
+    }
+    lastRx = Integer.MIN_VALUE;
+  }
+
+  /** The first time round, marks the whole map unknown in the collision grid until its regions load. */
+  private void maskUnloaded() {
+    if (masked || !hasCollision()) return;
+    masked = true;
+    scene.getCollisionGrid().setUnknown(0, 0, cols, rows, true);
+  }
+
+  private boolean hasCollision() {
+    for (int i = 0; i < layers.size(); i++) if (layers.get(i).collision()) return true;
+    return false;
+  }
+
+  private void retryFailed() {
+    long now = System.nanoTime();
+    for (int i = 0; i < trackedCount; i++) {
+      int r = tracked[i];
+      if (state[r] == FAILED && now - retryAt[r] >= 0) request(r % regionsX, r / regionsX, !async);
+    }
+  }
+
+  private void retarget(int rx, int ry, boolean sync) {
+    for (int i = trackedCount - 1; i >= 0; i--) {
+      int r = tracked[i];
+      if (Math.abs(r % regionsX - rx) > unloadRadius || Math.abs(r / regionsX - ry) > unloadRadius) {
+        unload(r);
+        tracked[i] = tracked[--trackedCount];
+      }
+    }
+    request(rx, ry, sync);
+    for (int y = ry - loadRadius; y <= ry + loadRadius; y++) {
+      for (int x = rx - loadRadius; x <= rx + loadRadius; x++) request(x, y, sync);
+    }
+  }
+
+  private void request(int rx, int ry, boolean sync) {
+    if (!inMap(rx, ry)) return;
+    int r = ry * regionsX + rx;
+    if (state[r] == ACTIVE || (state[r] == LOADING && !sync)) return;
+    if (state[r] == FAILED) {
+      if (System.nanoTime() - retryAt[r] < 0) return;
+      failed--;
+    }
+    if (state[r] == UNLOADED) tracked[trackedCount++] = r;
+    state[r] = LOADING;
+    int gen = ++generation[r];
+    if (sync) {
+      apply(decode(r, gen));
+    } else {
+      if (executor == null) executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jes-region-", 0).factory());
+      executor.execute(() -> ready.add(decode(r, gen)));
+    }
+  }
+
+  private Decoded decode(int r, int gen) {
+    int x0 = (r % regionsX) * regionSize;
+    int y0 = (r / regionsX) * regionSize;
+    int[][] cells = new int[layers.size()][];
+    try {
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = new int[regionSize * regionSize];
+        layers.get(i).file().readRect(x0, y0, regionSize, regionSize, cells[i]);
+      }
+    } catch (RuntimeException ex) {
+      // a corrupt region is retried later rather than killing the decoder
+      LOG.warn("Could not decode region {},{}: {}", r % regionsX, r / regionsX, ex.toString());
+      cells = null;
+    }
+    return new Decoded(r, gen, cells);
+  }
+
+  private void apply(Decoded d) {
+    int r = d.region();
+    if (state[r] != LOADING || generation[r] != d.generation()) return; // unloaded or re-requested meanwhile
+    if (d.cells() == null) {
+      state[r] = FAILED;
+      failed++;
+      retryAt[r] = System.nanoTime() + (retryDelayMs << Math.min(failures[r]++, MAX_BACKOFF_SHIFT)) * 1_000_000L;
+      return;
+    }
+    state[r] = ACTIVE;
+    failures[r] = 0;
+    loads++;
+    int x0 = (r % regionsX) * regionSize;
+    int y0 = (r / regionsX) * regionSize;
+    int w = Math.min(regionSize, cols - x0);
+    int h = Math.min(regionSize, rows - y0);
+    PhysicsWorld2D world = scene.getWorld();
+    for (int i = 0; i < layers.size(); i++) {
+      Layer layer = layers.get(i);
+      int[] cells = d.cells()[i];
+      TileMap2D map = layer.map();
+      if (isUniform(cells, w, h)) {
+        if (cells[0] >= 0) map.fillRect(x0, y0, w, h, cells[0]);
+      } else {
+        for (int y = 0; y < h; y++) {
+          for (int x = 0; x < w; x++) {
+            int v = cells[y * regionSize + x];
+            if (v >= 0) map.setTile(x0 + x, y0 + y, v);
+          }
+        }
+      }
+      if (layer.collision()) {
+        List<Rect> rects = colliders.get(r) != null ? colliders.get(r) : new ArrayList<>();
+        colliders.set(r, rects);
+        double tw = map.getTileW();
+        double th = map.getTileH();
+        map.forEachTile(x0, y0, x0 + w, y0 + h, (x, y, idx) -> {
+          Rect rect = new Rect(x * tw, y * th, tw, th);
+          rects.add(rect);
+          world.addStaticRect(rect);
+        });
+      }
+    }
+    if (masked) scene.getCollisionGrid().setUnknown(x0, y0, w, h, false);
+  }
+
+  private void unload(int r) {
+    if (state[r] != ACTIVE) {
+      if (state[r] == FAILED) failed--;
+      state[r] = UNLOADED;
+      generation[r]++;
+      return;
+    }
+    int x0 = (r % regionsX) * regionSize;
+    int y0 = (r / regionsX) * regionSize;
+    int w = Math.min(regionSize, cols - x0);
+    int h = Math.min(regionSize, rows - y0);
+    // unknown before the tiles go, so the grid never sees the region as open
+    if (masked) scene.getCollisionGrid().setUnknown(x0, y0, w, h, true);
+    // clearing whole chunks hands them back to the map's shared empty chunk
+    for (int i = 0; i < layers.size(); i++) layers.get(i).map().fillRect(x0, y0, w, h, -1);
+    if (colliders.get(r) != null) {
+      scene.getWorld().removeStaticRects(colliders.get(r));
+      colliders.set(r, null);
+    }
+    state[r] = UNLOADED;
+    generation[r]++;
+    unloads++;
+  }
+
+  private void updateEntities() {
+    for (int i = 0; i < entities.size(); i++) {
+      EntityHandle h = entities.get(i);
+      Entity2D e = h.entity != null ? h.entity : h.parked;
+      if (e == null) continue;
+      int rx = regionX(e.getX());
+      int ry = regionY(e.getY());
+      boolean loaded = !inMap(rx, ry) || state[ry * regionsX + rx] == ACTIVE;
+      if (h.entity != null && !loaded) scene.parkEntity(h);
+      else if (h.parked != null && loaded) scene.unparkEntity(h);
+    }
+  }
+
+  private boolean isUniform(int[] cells, int w, int h) {
+    for (int y = 0; y < h; y++) {
+      for (int x = 0; x < w; x++) if (cells[y * regionSize + x] != cells[0]) return false;
+    }
+    return true;
+  }
+
+  private TileMap2D origin() { return layers.isEmpty() ? null : layers.get(0).map(); }
+  private boolean inMap(int rx, int ry) { return rx >= 0 && ry >= 0 && rx < regionsX && ry < regionsY; }
+  private int regionX(double wx) {
+    TileMap2D m = origin();
+    return (int) Math.floor((wx - m.getX()) / (m.getTileW() * regionSize));
+  }
+  private int regionY(double wy) {
+    TileMap2D m = origin();
+    return (int) Math.floor((wy - m.getY()) / (m.getTileH() * regionSize));
+  }
+}
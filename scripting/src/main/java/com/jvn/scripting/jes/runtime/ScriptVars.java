@@ -0,0 +1,52 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Numeric script variables addressed by slot: a name resolves to an index once and values live in a double array. */
+public class ScriptVars {
+  private final Map<String, Integer> slots = new HashMap<>();
+  private String[] names = new String[8];
+  private double[] values = new double[8];
+  private int size;
+
+  /** Slot for {@code name}, allocating one (initialised to 0) on first use. */
+  public int slot(String name) {
+    Integer s = slots.get(name);
+    if (s != null) return s;
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+      names = Arrays.copyOf(names, size * 2);
+    }
+    names[size] = name;
+    slots.put(name, size);
+    return size++;
+  }
+
+  /** Slot for {@code name}, or -1 when it was never assigned. */
+  public int find(String name) {
+    Integer s = slots.get(name);
+    return s == null ? -1 : s;
+  }
+
+  public double get(int slot) { return values[slot]; }
+  public void set(int slot, double value) { values[slot] = value; }
+  public double add(int slot, double amount) { return values[slot] += amount; }
+
+  public double get(String name) {
+    int s = find(name);
+    return s < 0 ? 0.0 : values[s];
+  }
+  public void set(String name, double value) { values[slot(name)] = value; }
+
+  public int size() { return size; }
+  public String nameAt(int slot) { return names[slot]; }
+
+  public Map<String, Double> toMap() {
+    Map<String, Double> m = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) m.put(names[i], values[i]);
+    return m;
+  }
+}
@@ -0,0 +1,95 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.ArrayDeque;
+
+import com.jvn.core.physics.RigidBody2D;
+
+/**
+ * Free list of spawned physics objects of one shape. A pooled {@link Spawn} keeps its entity, body and physics info
+ * together for its whole life, so spawning and removing projectiles or pickups reuses them instead of allocating new
+ * ones. Unnamed spawns are registered under a pooled name ({@code circle#3}) that travels with the object, which keeps
+ * the scene's handle table bounded by the peak number of live spawns. Idle spawns beyond the capacity are dropped.
+ */
+public class SpawnPool {
+  static final class Spawn {
+    final SpawnPool pool;
+    final String pooledName;
+    final RigidBody2D body;
+    final PhysicsBodyEntity2D entity;
+    final JesScene2D.PhysicsInfo info;
+    boolean live;
+
+    Spawn(SpawnPool pool, String pooledName, RigidBody2D body) {
+      this.pool = pool;
+      this.pooledName = pooledName;
+      this.body = body;
+      this.entity = new PhysicsBodyEntity2D(body);
+      this.info = new JesScene2D.PhysicsInfo(pooledName, null);
+      info.spawn = this;
+    }
+  }
+
+  private final RigidBody2D.ShapeType shape;
+  private final String prefix;
+  private final ArrayDeque<Spawn> idle = new ArrayDeque<>();
+  private final ArrayDeque<String> freeNames = new ArrayDeque<>();
+  private int capacity;
+  private int created;
+  private int reused;
+
+  public SpawnPool(RigidBody2D.ShapeType shape, int capacity) {
+    this.shape = shape;
+    this.prefix = shape == RigidBody2D.ShapeType.CIRCLE ? "circle#" : "box#";
+    this.capacity = Math.max(0, capacity);
+  }
+
+  public RigidBody2D.ShapeType getShape() { return shape; }
+  public int getCapacity() { return capacity; }
+  /** Most idle spawns kept for reuse; {@code 0} turns pooling off. */
+  public void setCapacity(int capacity) {
+    this.capacity = Math.max(0, capacity);
+    while (idle.size() > this.capacity) freeNames.add(idle.pollFirst().pooledName);
+  }
+  /** Fills the pool up to its capacity so the first spawns of a scene allocate nothing. */
+  public void prewarm() { while (idle.size() < capacity) idle.add(create()); }
+
+  public int idle() { return idle.size(); }
+  /** Spawns allocated and spawns served from the pool since the scene started. */
+  public int getCreated() { return created; }
+  public int getReused() { return reused; }
+
+  Spawn acquire() {
+    Spawn s = idle.pollLast();
+    if (s == null) s = create();
+    else reused++;
+    s.live = true;
+    return s;
+  }
+
+  /**
+   * Resets a spawn and keeps it for reuse; returns false when the pool is full and the spawn was dropped, in which
+   * case the caller should forget its physics info.
+   */
+  boolean release(Spawn s) {
+    if (s == null || !s.live) return true;
+    s.live = false;
+    s.entity.reset();
+    s.body.reset();
+    s.info.name = s.pooledName;
+    s.info.onTrigger = null;
+    if (idle.size() >= capacity) {
+      freeNames.add(s.pooledName);
+      return false;
+    }
+    idle.add(s);
+    return true;
+  }
+
+  private Spawn create() {
+    String name = freeNames.pollFirst();
+    if (name == null) name = prefix + created;
+    created++;
+    RigidBody2D body = shape == RigidBody2D.ShapeType.CIRCLE ? RigidBody2D.circle(0, 0, 10) : RigidBody2D.box(0, 0, 40, 40);
+    return new Spawn(this, name, body);
+  }
+}
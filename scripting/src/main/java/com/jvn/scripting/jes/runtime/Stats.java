@@ -1,6 +1,17 @@
 package com.jvn.scripting.jes.runtime;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Combat stats of a JES entity. Attack, defense and speed are derived from the base value, a flat bonus and the
+ * named modifiers applied by equipment slots and buffs. The derived totals are kept up to date when one of those
+ * inputs changes, so the getters used by damage and movement code are plain field reads.
+ */
 public class Stats {
+  /** Stat contribution from one source, such as an equipped slot or a buff. */
+  public record Modifier(double atk, double def, double speed) {}
+
   private double maxHp;
   private double hp;
   private double maxMp;
@@ -13,6 +24,14 @@ public class Stats {
   private double atkBonus;
   private double defBonus;
   private double speedBonus;
+  private final Map<String, Modifier> modifiers = new LinkedHashMap<>();
+  private double modAtk;
+  private double modDef;
+  private double modSpeed;
+  private double totalAtk;
+  private double totalDef;
+  private double totalSpeed;
+  private int revision;
 
   public double getMaxHp() { return maxHp; }
 
@@ -50,32 +69,92 @@ public class Stats {
     }
   }
 
-  public double getAtk() { return atk + atkBonus; }
+  public double getAtk() { return totalAtk; }
   public double getBaseAtk() { return atk; }
 
-  public void setAtk(double atk) { this.atk = atk; }
+  public void setAtk(double atk) { this.atk = atk; derive(); }
 
+  /** Flat attack bonus on top of the base value; modifiers are tracked separately. */
   public double getAtkBonus() { return atkBonus; }
 
-  public void setAtkBonus(double atkBonus) { this.atkBonus = atkBonus; }
+  public void setAtkBonus(double atkBonus) { this.atkBonus = atkBonus; derive(); }
 
-  public double getDef() { return def + defBonus; }
+  public double getDef() { return totalDef; }
   public double getBaseDef() { return def; }
 
-  public void setDef(double def) { this.def = def; }
+  public void setDef(double def) { this.def = def; derive(); }
 
   public double getDefBonus() { return defBonus; }
 
-  public void setDefBonus(double defBonus) { this.defBonus = defBonus; }
+  public void setDefBonus(double defBonus) { this.defBonus = defBonus; derive(); }
 
-  public double getSpeed() { return speed + speedBonus; }
+  public double getSpeed() { return totalSpeed; }
   public double getBaseSpeed() { return speed; }
 
-  public void setSpeed(double speed) { this.speed = speed; }
+  public void setSpeed(double speed) { this.speed = speed; derive(); }
 
   public double getSpeedBonus() { return speedBonus; }
 
-  public void setSpeedBonus(double speedBonus) { this.speedBonus = speedBonus; }
+  public void setSpeedBonus(double speedBonus) { this.speedBonus = speedBonus; derive(); }
+
+  /**
+   * Adds or replaces the modifier from {@code source}. A modifier of all zeros removes the source. Returns the
+   * modifier now in place, which {@link #removeModifier(String, Modifier)} can use to remove exactly this one.
+   */
+  public Modifier setModifier(String source, double atk, double def, double speed) {
+    if (source == null) return null;
+    if (atk == 0 && def == 0 && speed == 0) {
+      removeModifier(source);
+      return null;
+    }
+    Modifier m = new Modifier(atk, def, speed);
+    modifiers.put(source, m);
+    sumModifiers();
+    return m;
+  }
+
+  public Modifier getModifier(String source) { return source == null ? null : modifiers.get(source); }
+
+  public boolean removeModifier(String source) {
+    if (source == null || modifiers.remove(source) == null) return false;
+    sumModifiers();
+    return true;
+  }
+
+  /** Removes {@code source} only while {@code expected} is still its modifier, e.g. when a timed buff expires. */
+  public boolean removeModifier(String source, Modifier expected) {
+    if (source == null || expected == null || modifiers.get(source) != expected) return false;
+    return removeModifier(source);
+  }
+
+  public Map<String, Modifier> getModifiers() { return java.util.Collections.unmodifiableMap(modifiers); }
+  public double getModifierAtk() { return modAtk; }
+  public double getModifierDef() { return modDef; }
+  public double getModifierSpeed() { return modSpeed; }
+  /** Bumped whenever a derived stat may have changed, so callers can cache values computed from them. */
+  public int getRevision() { return revision; }
+
+  private void sumModifiers() {
+    double a = 0;
+    double d = 0;
+    double s = 0;
+    for (Modifier m : modifiers.values()) {
+      a += m.atk();
+      d += m.def();
+      s += m.speed();
+    }
+    modAtk = a;
+    modDef = d;
+    modSpeed = s;
+    derive();
+  }
+
+  private void derive() {
+    totalAtk = atk + atkBonus + modAtk;
+    totalDef = def + defBonus + modDef;
+    totalSpeed = speed + speedBonus + modSpeed;
+    revision++;
+  }
 
   public String getDeathCall() { return deathCall; }
 
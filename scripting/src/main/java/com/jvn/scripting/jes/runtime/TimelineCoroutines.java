@@ -0,0 +1,157 @@
+package com.jvn.scripting.jes.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs scripted behaviours as coroutines, each on its own virtual thread. Control is handed back and forth
+ * explicitly, so exactly one of the game thread and the coroutines runs at a time and coroutine code may touch the
+ * scene freely. A coroutine parks until its wait condition is met — the next frame, a timer on the shared
+ * {@link TimerWheel}, or an explicit {@link Coroutine#wake()} — and {@link #update} resumes only those that are ready,
+ * so thousands of parked behaviours cost nothing per frame.
+ */
+public class TimelineCoroutines {
+  /** Body of a coroutine; returning ends it. */
+  public interface Body {
+    void run(Coroutine co);
+  }
+
+  /** Thrown inside a coroutine that is cancelled while parked; bodies should let it propagate. */
+  static final class Cancelled extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    Cancelled() { super(null, null, false, false); }
+  }
+
+  public final class Coroutine {
+    private final Body body;
+    private final Semaphore turn = new Semaphore(0);
+    private final Semaphore back = new Semaphore(0);
+    private Thread thread;
+    private boolean queued;
+    private boolean done;
+    private boolean cancelled;
+    private int parks;
+    private Throwable failure; // thrown by the body, rethrown on the game thread
+
+    private Coroutine(Body body) { this.body = body; }
+
+    public boolean isDone() { return done; }
+    /** How often this coroutine has yielded; loops compare it to tell whether an iteration waited at all. */
+    public int getParks() { return parks; }
+
+    /** Yields until the next frame and returns that frame's delta. */
+    public long awaitFrame() {
+      frameWaiters.add(this);
+      park();
+      return frameDeltaMs;
+    }
+
+    /** Yields until {@code ms} of scene time have passed. */
+    public void sleep(double ms) {
+      timers.schedule(ms, this::wake);
+      park();
+    }
+
+    /** Yields until someone calls {@link #wake()}. */
+    public void park() {
+      if (Thread.currentThread() != thread) throw new IllegalStateException("park() called outside its coroutine");
+      if (cancelled) throw new Cancelled();
+      parks++;
+      back.release();
+      turn.acquireUninterruptibly();
+      if (cancelled) throw new Cancelled();
+    }
+
+    /** Makes a parked coroutine ready; it resumes during the current or next {@link #update}. */
+    public void wake() {
+      if (done || queued) return;
+      queued = true;
+      ready.add(this);
+    }
+
+    private void runBody() {
+      turn.acquireUninterruptibly();
+      try {
+        if (!cancelled) body.run(this);
+      } catch (Cancelled ignored) {
+      } catch (RuntimeException | Error e) {
+        failure = e;
+      } finally {
+        done = true;
+        back.release();
+      }
+    }
+  }
+
+  private final TimerWheel timers;
+  private final Set<Coroutine> live = new HashSet<>();
+  private final ArrayDeque<Coroutine> ready = new ArrayDeque<>();
+  private List<Coroutine> frameWaiters = new ArrayList<>();
+  private List<Coroutine> nextFrame = new ArrayList<>();
+  private long frameDeltaMs;
+
+  public TimelineCoroutines(TimerWheel timers) { this.timers = timers; }
+
+  /** Creates a coroutine; it first runs during the next {@link #update}. */
+  public Coroutine start(Body body) {
+    Coroutine co = new Coroutine(body);
+    co.thread = Thread.ofVirtual().name("jes-timeline").unstarted(co::runBody);
+    co.thread.start();
+    live.add(co);
+    co.wake();
+    return co;
+  }
+
+  /** Coroutines started and not yet finished. */
+  public int active() { return live.size(); }
+
+  /**
+   * Resumes every coroutine waiting for a frame or woken since the last call, including ones woken while this runs.
+   * Advance the timer wheel first so expired sleeps are ready. An exception thrown by a coroutine body ends that
+   * coroutine and is rethrown here; coroutines not yet resumed stay ready for the next call.
+   */
+  public void update(long deltaMs) {
+    frameDeltaMs = deltaMs;
+    List<Coroutine> due = frameWaiters;
+    frameWaiters = nextFrame;
+    nextFrame = due;
+    for (int i = 0; i < due.size(); i++) due.get(i).wake();
+    due.clear();
+    Coroutine co;
+    while ((co = ready.poll()) != null) {
+      co.queued = false;
+      resume(co);
+    }
+  }
+
+  /** Ends every coroutine, unwinding parked ones before returning; a coroutine cancelling itself ends at its next yield. */
+  public void cancelAll() {
+    ready.clear();
+    frameWaiters.clear();
+    for (Coroutine co : live) {
+      if (co.done) continue;
+      co.cancelled = true;
+      if (co.thread == Thread.currentThread()) continue;
+      co.turn.release();
+      co.back.acquireUninterruptibly();
+    }
+    live.clear();
+  }
+
+  private void resume(Coroutine co) {
+    if (co.done) return;
+    co.turn.release();
+    co.back.acquireUninterruptibly();
+    if (!co.done) return;
+    live.remove(co);
+    Throwable failure = co.failure;
+    co.failure = null;
+    if (failure instanceof RuntimeException re) throw re;
+    if (failure instanceof Error err) throw err;
+  }
+}
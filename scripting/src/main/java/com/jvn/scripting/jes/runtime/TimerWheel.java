@@ -0,0 +1,140 @@
+package com.jvn.scripting.jes.runtime;
+
+/**
+ * Hierarchical timer wheel with millisecond ticks: 256 one-tick slots, then three levels of 64 slots that cascade down
+ * as time reaches them. Scheduling and cancelling are O(1) and a parked timer costs nothing until its slot comes up,
+ * so advancing time is independent of how many timers are pending.
+ */
+public class TimerWheel {
+  private static final int ROOT_BITS = 8;
+  private static final int LEVEL_BITS = 6;
+  private static final int ROOT_SIZE = 1 << ROOT_BITS;
+  private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+  private static final int LEVELS = 4;
+  private static final long MAX_SPAN = 1L << (ROOT_BITS + LEVEL_BITS * (LEVELS - 1));
+
+  public static final class Timer {
+    private final Runnable task;
+    private long expires;
+    private Timer prev;
+    private Timer next;
+    private Timer[] slotList;
+    private int slot;
+
+    Timer(Runnable task) { this.task = task; }
+
+    public boolean isPending() { return slotList != null; }
+  }
+
+  private final Timer[][] wheels = new Timer[LEVELS][];
+  /** Next tick to be processed; a timer expiring on tick t fires once time has advanced past t. */
+  private long now;
+  private int pending;
+
+  public TimerWheel() {
+    wheels[0] = new Timer[ROOT_SIZE];
+    for (int l = 1; l < LEVELS; l++) wheels[l] = new Timer[LEVEL_SIZE];
+  }
+
+  public long now() { return now; }
+  public int pending() { return pending; }
+
+  /** Runs {@code task} once {@code delayMs} more milliseconds have been advanced (at the earliest on the next advance). */
+  public Timer schedule(double delayMs, Runnable task) {
+    Timer t = new Timer(task);
+    long ticks = (long) Math.ceil(Math.max(0, delayMs));
+    t.expires = now + Math.max(1, ticks) - 1;
+    insert(t);
+    pending++;
+    return t;
+  }
+
+  public boolean cancel(Timer t) {
+    if (t == null || t.slotList == null) return false;
+    unlink(t);
+    pending--;
+    return true;
+  }
+
+  public void clear() {
+    for (Timer[] w : wheels) {
+      for (int i = 0; i < w.length; i++) {
+        while (w[i] != null) unlink(w[i]);
+      }
+    }
+    pending = 0;
+  }
+
+  /** Advances time by {@code ms}, running every timer that expires on the way in deadline order. */
+  public void advance(long ms) {
+    for (long i = 0; i < ms; i++) {
+      if (pending == 0) { now += ms - i; return; }
+      int index = (int) (now & (ROOT_SIZE - 1));
+      if (index == 0) cascadeFrom(1);
+      now++;
+      // tasks may schedule into this slot again, but only for a later revolution of the wheel
+      Timer t;
+      while ((t = firstDue(wheels[0][index])) != null) {
+        unlink(t);
+        pending--;
+        t.task.run();
+      }
+    }
+  }
+
+  private Timer firstDue(Timer t) {
+    while (t != null && t.expires >= now) t = t.next;
+    return t;
+  }
+
+  private void cascadeFrom(int level) {
+    if (level >= LEVELS) return;
+    int index = (int) ((now >>> (ROOT_BITS + LEVEL_BITS * (level - 1))) & (LEVEL_SIZE - 1));
+    if (index == 0) cascadeFrom(level + 1);
+    Timer t = wheels[level][index];
+    wheels[level][index] = null;
+    while (t != null) {
+      Timer next = t.next;
+      t.prev = null;
+      t.next = null;
+      t.slotList = null;
+      insert(t);
+      t = next;
+    }
+  }
+
+  private void insert(Timer t) {
+    long delta = t.expires - now;
+    Timer[] list;
+    int slot;
+    if (delta < 0) {
+      list = wheels[0];
+      slot = (int) (now & (ROOT_SIZE - 1));
+    } else if (delta < ROOT_SIZE) {
+      list = wheels[0];
+      slot = (int) (t.expires & (ROOT_SIZE - 1));
+    } else {
+      // timers beyond the wheel's span park in the last top-level slot and are re-filed each time it cascades
+      long key = delta >= MAX_SPAN ? now + MAX_SPAN - 1 : t.expires;
+      int level = 1;
+      while (level < LEVELS - 1 && delta >= 1L << (ROOT_BITS + LEVEL_BITS * level)) level++;
+      list = wheels[level];
+      slot = (int) ((key >>> (ROOT_BITS + LEVEL_BITS * (level - 1))) & (LEVEL_SIZE - 1));
+    }
+    t.slotList = list;
+    t.slot = slot;
+    t.prev = null;
+    t.next = list[slot];
+    if (t.next != null) t.next.prev = t;
+    list[slot] = t;
+  }
+
+  private void unlink(Timer t) {
+    if (t.prev != null) t.prev.next = t.next;
+    else t.slotList[t.slot] = t.next;
+    if (t.next != null) t.next.prev = t.prev;
+    t.prev = null;
+    t.next = null;
+    t.slotList = null;
+  }
+}
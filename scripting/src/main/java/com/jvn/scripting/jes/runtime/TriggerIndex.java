@@ -0,0 +1,114 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.TileMap2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-cell lookup of the trigger layers in a {@link JesScene2D}. Every filled cell of a trigger layer maps to a
+ * prebuilt {@link Trigger} whose read-only props already carry the layer props plus {@code tileX}, {@code tileY},
+ * {@code tile} and {@code map}, so stepping on a tile is an array lookup that allocates nothing. Cells are kept in
+ * 32x32 chunks that only exist where triggers do, and the index follows tile edits (including region streaming)
+ * through the layers' change listeners.
+ */
+final class TriggerIndex implements TileMap2D.TileChangeListener {
+  private static final int CHUNK_BITS = 5;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /** One call fired by stepping on a cell. */
+  record Trigger(String call, Map<String,Object> props) {}
+
+  private record Layer(String mapName, TileMap2D tilemap, String call, Map<String,Object> props) {}
+
+  private final List<Layer> layers = new ArrayList<>();
+  private Trigger[][][] chunks = new Trigger[0][][];
+  private int chunksX;
+  private int chunksY;
+  private int cellCount;
+
+  void addLayer(String mapName, TileMap2D tm, String call, Map<String,Object> props) {
+    layers.add(new Layer(mapName, tm, call, props == null ? Map.of() : new HashMap<>(props)));
+    tm.addTileChangeListener(this);
+    rebuild();
+  }
+
+  boolean isEmpty() { return layers.isEmpty(); }
+  int getLayerCount() { return layers.size(); }
+  /** Cells that fire at least one trigger. */
+  int getCellCount() { return cellCount; }
+
+  /** Triggers of cell ({@code tx}, {@code ty}) in layer order, or null when stepping there fires nothing. */
+  Trigger[] at(int tx, int ty) {
+    if (tx < 0 || ty < 0) return null;
+    int cx = tx >> CHUNK_BITS;
+    int cy = ty >> CHUNK_BITS;
+    if (cx >= chunksX || cy >= chunksY) return null;
+    Trigger[][] chunk = chunks[cy * chunksX + cx];
+    return chunk == null ? null : chunk[((ty & CHUNK_MASK) << CHUNK_BITS) | (tx & CHUNK_MASK)];
+  }
+
+  @Override
+  public void onTileChanged(TileMap2D map, int x, int y, int oldIndex, int newIndex) {
+    if (x < 0 || y < 0 || (x >> CHUNK_BITS) >= chunksX || (y >> CHUNK_BITS) >= chunksY) return;
+    Trigger[] before = at(x, y);
+    Trigger[] after = null;
+    for (Layer l : layers) {
+      int tile = l.tilemap().getTile(x, y);
+      if (tile >= 0) after = append(after, trigger(l, x, y, tile));
+    }
+    set(x, y, before, after);
+  }
+
+  private void rebuild() {
+    int cols = 0;
+    int rows = 0;
+    for (Layer l : layers) {
+      cols = Math.max(cols, l.tilemap().getCols());
+      rows = Math.max(rows, l.tilemap().getRows());
+    }
+    chunksX = (cols + CHUNK_MASK) >> CHUNK_BITS;
+    chunksY = (rows + CHUNK_MASK) >> CHUNK_BITS;
+    chunks = new Trigger[chunksX * chunksY][][];
+    cellCount = 0;
+    for (Layer l : layers) {
+      TileMap2D tm = l.tilemap();
+      tm.forEachTile(0, 0, tm.getCols(), tm.getRows(), (x, y, tile) -> {
+        Trigger[] before = at(x, y);
+        set(x, y, before, append(before, trigger(l, x, y, tile)));
+      });
+    }
+  }
+
+  private void set(int x, int y, Trigger[] before, Trigger[] after) {
+    int c = (y >> CHUNK_BITS) * chunksX + (x >> CHUNK_BITS);
+    if (chunks[c] == null) {
+      if (after == null) return;
+      chunks[c] = new Trigger[CHUNK_SIZE * CHUNK_SIZE][];
+    }
+    chunks[c][((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK)] = after;
+    if (before == null && after != null) cellCount++;
+    else if (before != null && after == null) cellCount--;
+  }
+
+  private static Trigger[] append(Trigger[] list, Trigger t) {
+    if (list == null) return new Trigger[]{ t };
+    Trigger[] grown = Arrays.copyOf(list, list.length + 1);
+    grown[list.length] = t;
+    return grown;
+  }
+
+  private static Trigger trigger(Layer l, int x, int y, int tile) {
+    Map<String,Object> props = new HashMap<>(l.props());
+    props.put("tileX", (double) x);
+    props.put("tileY", (double) y);
+    props.put("tile", (double) tile);
+    if (l.mapName() != null && !l.mapName().isBlank()) props.put("map", l.mapName());
+    return new Trigger(l.call(), Collections.unmodifiableMap(props));
+  }
+}
@@ -0,0 +1,60 @@
+package com.jvn.scripting.jes.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AiSchedulerTest {
+  @Test
+  public void resolvesBehaviourOnce() {
+    Ai2D ai = new Ai2D();
+    ai.setType("ChaseHero");
+    assertEquals(Ai2D.Behavior.CHASE, ai.getBehavior());
+    ai.setType("patrol_chase");
+    assertEquals(Ai2D.Behavior.PATROL_CHASE, ai.getBehavior());
+    ai.setType("coward_flee");
+    assertEquals(Ai2D.Behavior.FLEE, ai.getBehavior());
+    ai.setType("idle");
+    assertEquals(Ai2D.Behavior.NONE, ai.getBehavior());
+    assertFalse(Ai2D.Behavior.PATROL.tracksTarget());
+  }
+
+  @Test
+  public void distantAgentsAccumulateSkippedTime() {
+    AiScheduler s = new AiScheduler();
+    s.setLodIntervals(2, 4);
+    s.add("far", new Ai2D());
+    long simulated = 0;
+    int updates = 0;
+    for (int f = 0; f < 8; f++) {
+      s.beginFrame();
+      long ms = s.step(s.next(0), AiScheduler.Lod.DISTANT, 16);
+      if (ms > 0) { simulated += ms; updates++; }
+    }
+    assertEquals(2, updates);
+    assertEquals(8 * 16, simulated);
+
+    assertEquals(AiScheduler.Lod.NEAR, AiScheduler.classify(50, 50, 0, 0, 100, 100));
+    assertEquals(AiScheduler.Lod.OFFSCREEN, AiScheduler.classify(150, 50, 0, 0, 100, 100));
+    assertEquals(AiScheduler.Lod.DISTANT, AiScheduler.classify(500, 50, 0, 0, 100, 100));
+  }
+
+  @Test
+  public void deferredThinkerGoesFirstNextFrame() throws InterruptedException {
+    AiScheduler s = new AiScheduler();
+    s.setThinkBudgetMs(0.000001);
+    for (int i = 0; i < 3; i++) s.add("a" + i, new Ai2D());
+    s.beginFrame();
+    Thread.sleep(1);
+    s.next(0);
+    assertTrue(s.tryThink());
+    s.next(1);
+    assertFalse(s.tryThink());
+    s.next(2);
+    assertFalse(s.tryThink());
+    assertEquals(2, s.getDeferred());
+    s.beginFrame();
+    assertEquals("a1", s.next(0).getName());
+    assertTrue(s.tryThink());
+  }
+}
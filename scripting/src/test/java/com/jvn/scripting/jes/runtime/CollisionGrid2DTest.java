@@ -0,0 +1,51 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CollisionGrid2DTest {
+  @Test
+  public void mergesLayersAndTreatsOutOfBoundsAsBlocked() {
+    TileMap2D a = new TileMap2D(null, 70, 4, 16, 16);
+    TileMap2D b = new TileMap2D(null, 80, 3, 16, 16);
+    a.setTile(1, 1, 0);
+    b.setTile(65, 2, 3);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(a);
+    grid.addLayer(b);
+    assertEquals(70, grid.getCols());
+    assertEquals(3, grid.getRows());
+    assertTrue(grid.isBlocked(1, 1));
+    assertTrue(grid.isBlocked(65, 2));
+    assertFalse(grid.isBlocked(0, 0));
+    assertTrue(grid.isBlocked(-1, 0));
+    assertTrue(grid.isBlocked(70, 0));
+    assertTrue(grid.isBlocked(0, 3));
+  }
+
+  @Test
+  public void tileEditsUpdateGridIncrementally() {
+    TileMap2D a = new TileMap2D(null, 8, 8, 16, 16);
+    TileMap2D b = new TileMap2D(null, 8, 8, 16, 16);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(a);
+    grid.addLayer(b);
+    int v = grid.getVersion();
+    a.setTile(2, 3, 5);
+    b.setTile(2, 3, 1);
+    assertTrue(grid.isBlocked(2, 3));
+    a.setTile(2, 3, -1);
+    assertTrue(grid.isBlocked(2, 3), "still blocked by the second layer");
+    b.setTile(2, 3, -1);
+    assertFalse(grid.isBlocked(2, 3));
+    assertTrue(grid.getVersion() > v);
+  }
+
+  @Test
+  public void emptyGridBlocksNothing() {
+    CollisionGrid2D grid = new CollisionGrid2D();
+    assertFalse(grid.isBlocked(-5, 100));
+  }
+}
@@ -0,0 +1,59 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.Entity2D;
+import com.jvn.core.scene2d.Label2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityHandleTest {
+  @Test
+  public void handleSurvivesRemovalAndRespawn() {
+    JesScene2D scene = new JesScene2D();
+    Entity2D a = new Entity2D();
+    scene.registerEntity("orc", a);
+    Stats stats = new Stats();
+    scene.setStats("orc", stats);
+    EntityHandle h = scene.handle("orc");
+    assertSame(a, h.getEntity());
+    assertSame(stats, h.getStats());
+
+    assertTrue(scene.removeEntity("orc"));
+    assertFalse(h.isPresent());
+    assertNull(scene.find("orc"));
+    assertFalse(scene.names().contains("orc"));
+
+    Entity2D b = new Entity2D();
+    scene.registerEntity("orc", b);
+    assertSame(h, scene.handle("orc"));
+    assertSame(b, h.getEntity());
+    assertSame(h, scene.handleAt(h.getSlot()));
+
+    assertTrue(scene.rename("orc", "boss"));
+    assertNull(scene.find("orc"));
+    assertSame(b, scene.find("boss"));
+  }
+
+  @Test
+  public void scriptVarsUseStableSlots() {
+    ScriptVars vars = new ScriptVars();
+    int hp = vars.slot("hp");
+    for (int i = 0; i < 20; i++) vars.slot("v" + i);
+    assertEquals(hp, vars.slot("hp"));
+    vars.add(hp, 5);
+    vars.add(hp, 2.5);
+    assertEquals(7.5, vars.get("hp"), 1e-9);
+    assertEquals(-1, vars.find("missing"));
+    assertEquals(0.0, vars.get("missing"), 1e-9);
+
+    JesScene2D scene = new JesScene2D();
+    Label2D label = new Label2D("");
+    scene.registerEntity("score_label", label);
+    scene.registerEntity("ball", new Entity2D());
+    scene.invokeCall("pocketBall", Map.of("other", "ball"));
+    assertEquals(1.0, scene.getVar("score"), 1e-9);
+    assertEquals("Score: 1", label.getText());
+  }
+}
@@ -0,0 +1,56 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.Entity2D;
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowField2DTest {
+  @Test
+  public void distancesFlowAroundWalls() {
+    TileMap2D tm = new TileMap2D(null, 5, 5, 16, 16);
+    for (int y = 0; y < 4; y++) tm.setTile(2, y, 0);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(tm);
+    FlowField2D field = new FlowField2D(grid);
+    field.compute(4, 0, 0);
+    assertEquals(0, field.distanceAt(4, 0));
+    assertEquals(-1, field.distanceAt(2, 0));
+    assertEquals(12, field.distanceAt(0, 0));
+    int next = field.nextTile(0, 0);
+    assertEquals(11, field.distanceAt(next % field.getCols(), next / field.getCols()));
+    assertFalse(field.isStale(4, 0));
+    tm.setTile(2, 4, 0);
+    assertTrue(field.isStale(4, 0));
+  }
+
+  @Test
+  public void crowdSharingTargetRoutesAroundWall() {
+    JesScene2D scene = new JesScene2D();
+    TileMap2D tm = new TileMap2D(null, 20, 12, 16, 16);
+    for (int y = 0; y < 10; y++) tm.setTile(10, y, 0);
+    scene.addCollisionTilemap(tm);
+    scene.setGridSize(16, 16);
+    Entity2D hero = new Entity2D();
+    hero.setPosition(15 * 16 + 8, 2 * 16 + 8);
+    scene.registerEntity("hero", hero);
+    scene.setPlayerName("hero");
+    for (int i = 0; i < 6; i++) {
+      Entity2D e = new Entity2D();
+      e.setPosition(3 * 16 + 8, (1 + i) * 16 + 8);
+      scene.registerEntity("e" + i, e);
+      Ai2D ai = new Ai2D();
+      ai.setType("chase");
+      ai.setMoveSpeed(120);
+      ai.setAttackRange(8);
+      scene.setAi("e" + i, ai);
+    }
+    for (int f = 0; f < 600; f++) scene.update(16);
+    assertNotNull(scene.getFlowField("hero"));
+    for (int i = 0; i < 6; i++) {
+      Entity2D e = scene.find("e" + i);
+      assertTrue(Math.hypot(e.getX() - hero.getX(), e.getY() - hero.getY()) < 24, "e" + i + " should reach the hero");
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridPathfinderTest {
+  private CollisionGrid2D wallWithGap() {
+    // 7x5 map with a vertical wall at x=3 and a single gap at y=4
+    TileMap2D tm = new TileMap2D(null, 7, 5, 16, 16);
+    for (int y = 0; y < 4; y++) tm.setTile(3, y, 0);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(tm);
+    return grid;
+  }
+
+  private void assertValidPath(CollisionGrid2D grid, int sx, int sy, GridPathfinder.PathBuffer path, int gx, int gy) {
+    int px = sx, py = sy;
+    for (int i = 0; i < path.size(); i++) {
+      int x = path.getX(i), y = path.getY(i);
+      assertFalse(grid.isBlocked(x, y));
+      assertTrue(Math.abs(x - px) <= 1 && Math.abs(y - py) <= 1);
+      px = x; py = y;
+    }
+    assertEquals(gx, px);
+    assertEquals(gy, py);
+  }
+
+  @Test
+  public void aStarRoutesThroughGap() {
+    CollisionGrid2D grid = wallWithGap();
+    GridPathfinder pf = new GridPathfinder(grid);
+    GridPathfinder.PathBuffer path = new GridPathfinder.PathBuffer();
+    assertTrue(pf.findPath(0, 0, 6, 0, 1000, path));
+    assertValidPath(grid, 0, 0, path, 6, 0);
+    assertEquals(14, path.size());
+  }
+
+  @Test
+  public void jumpPointMatchesOctileOptimum() {
+    CollisionGrid2D grid = wallWithGap();
+    GridPathfinder pf = new GridPathfinder(grid);
+    pf.setMode(GridPathfinder.Mode.JUMP_POINT);
+    GridPathfinder.PathBuffer path = new GridPathfinder.PathBuffer();
+    assertTrue(pf.findPath(0, 0, 6, 0, 1000, path));
+    assertValidPath(grid, 0, 0, path, 6, 0);
+    assertEquals(10, path.size());
+  }
+
+  @Test
+  public void reportsUnreachableAndNodeCap() {
+    TileMap2D tm = new TileMap2D(null, 5, 5, 16, 16);
+    for (int y = 0; y < 5; y++) tm.setTile(2, y, 0);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(tm);
+    GridPathfinder pf = new GridPathfinder(grid);
+    GridPathfinder.PathBuffer path = new GridPathfinder.PathBuffer();
+    assertFalse(pf.findPath(0, 0, 4, 4, 1000, path));
+    assertTrue(path.isEmpty());
+    assertFalse(pf.findPath(0, 0, 1, 4, 2, path));
+    assertTrue(pf.findPath(0, 0, 1, 4, 1000, path));
+  }
+}
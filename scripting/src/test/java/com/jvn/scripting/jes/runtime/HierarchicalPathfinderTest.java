@@ -0,0 +1,61 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalPathfinderTest {
+  @Test
+  public void findsLongPathAndTracksTileEdits() {
+    // 64x32 map split by a wall at x=30 with one door at y=20
+    TileMap2D tm = new TileMap2D(null, 64, 32, 16, 16);
+    for (int y = 0; y < 32; y++) if (y != 20) tm.setTile(30, y, 0);
+    CollisionGrid2D grid = new CollisionGrid2D();
+    grid.addLayer(tm);
+    HierarchicalPathfinder hpa = HierarchicalPathfinder.create(grid, 8);
+    GridPathfinder.PathBuffer path = new GridPathfinder.PathBuffer();
+
+    assertTrue(hpa.findPath(2, 2, 60, 2, Integer.MAX_VALUE, path));
+    int px = 2, py = 2;
+    boolean usedDoor = false;
+    for (int i = 0; i < path.size(); i++) {
+      int x = path.getX(i), y = path.getY(i);
+      assertEquals(1, Math.abs(x - px) + Math.abs(y - py));
+      assertFalse(grid.isBlocked(x, y));
+      if (x == 30 && y == 20) usedDoor = true;
+      px = x; py = y;
+    }
+    assertEquals(60, px);
+    assertEquals(2, py);
+    assertTrue(usedDoor);
+
+    tm.setTile(30, 20, 0);
+    assertFalse(hpa.findPath(2, 2, 60, 2, Integer.MAX_VALUE, path));
+    tm.setTile(30, 5, -1);
+    assertTrue(hpa.findPath(2, 2, 60, 2, 1, path));
+    assertEquals(1, Math.abs(path.getX(0) - 2) + Math.abs(path.getY(0) - 2));
+  }
+
+  @Test
+  public void localLegsFollowTheScenePathfindingMode() {
+    JesScene2D scene = new JesScene2D();
+    TileMap2D tm = new TileMap2D(null, 64, 32, 16, 16);
+    for (int y = 0; y < 32; y++) if (y != 20) tm.setTile(30, y, 0);
+    scene.addCollisionTilemap(tm);
+    scene.setPathClusterSize(8);
+    HierarchicalPathfinder hpa = scene.getHierarchicalPathfinder();
+    assertEquals(GridPathfinder.Mode.ASTAR, hpa.getMode());
+    scene.setPathfindingMode(GridPathfinder.Mode.JUMP_POINT);
+    assertEquals(GridPathfinder.Mode.JUMP_POINT, hpa.getMode());
+    scene.setPathClusterSize(16); // a rebuilt hierarchy keeps the mode
+    hpa = scene.getHierarchicalPathfinder();
+    assertEquals(GridPathfinder.Mode.JUMP_POINT, hpa.getMode());
+
+    GridPathfinder.PathBuffer path = new GridPathfinder.PathBuffer();
+    assertTrue(hpa.findPath(2, 2, 60, 2, Integer.MAX_VALUE, path));
+    for (int i = 0; i < path.size(); i++) assertFalse(scene.getCollisionGrid().isBlocked(path.getX(i), path.getY(i)));
+    assertEquals(60, path.getX(path.size() - 1));
+    assertEquals(2, path.getY(path.size() - 1));
+  }
+}
@@ -55,4 +55,50 @@ public class JesSceneStateTest {
     assertEquals("sword", scene.getEquipment("hero").get("weapon"));
     assertEquals("up", scene.getPlayerFacing());
   }
+
+  @Test
+  public void buffsAreSavedWithTheTimeTheyHaveLeft() {
+    JesScene2D scene = new JesScene2D();
+    Stats stats = new Stats();
+    stats.setAtk(4);
+    scene.setStats("hero", stats);
+    scene.applyBuff("hero", "rage", 3, 0, 0, 1000);
+    scene.applyBuff("hero", "blessing", 0, 2, 0, 0); // until removed
+    scene.update(400);
+    JesSceneState saved = scene.saveState();
+    assertArrayEquals(new double[]{ 3, 0, 0, 600 }, saved.stats.get("hero").buffs.get("rage"), 1e-9);
+    assertEquals(0.0, saved.stats.get("hero").buffs.get("blessing")[3], 1e-9);
+
+    JesScene2D loaded = new JesScene2D();
+    loaded.applyBuff("hero", "stale", 9, 9, 9, 0); // no stats yet: ignored
+    loaded.loadState(saved);
+    Stats restored = loaded.getStats("hero");
+    assertEquals(7.0, restored.getAtk(), 1e-9);
+    assertEquals(2.0, restored.getDef(), 1e-9);
+    loaded.update(500);
+    assertEquals(7.0, restored.getAtk(), 1e-9);
+    loaded.update(200); // past the 600 ms that were left
+    assertEquals(4.0, restored.getAtk(), 1e-9);
+    assertEquals(2.0, restored.getDef(), 1e-9);
+  }
+
+  @Test
+  public void restoredStatsPickUpEquipmentModifiers() {
+    JesScene2D scene = new JesScene2D();
+    Stats stats = new Stats();
+    stats.setAtk(4);
+    scene.setStats("hero", stats);
+    JesSceneState saved = scene.saveState();
+
+    JesScene2D loaded = new JesScene2D();
+    Item sword = new Item();
+    sword.setId("sword");
+    sword.getProps().put("atkBonus", 5.0);
+    loaded.registerItem(sword);
+    Equipment eq = new Equipment();
+    eq.set("weapon", "sword");
+    loaded.setEquipment("hero", eq); // equipped before the entity has stats
+    loaded.loadState(saved);
+    assertEquals(9.0, loaded.getStats("hero").getAtk(), 1e-9);
+  }
 }
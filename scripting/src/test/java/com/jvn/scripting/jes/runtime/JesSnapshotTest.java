@@ -0,0 +1,90 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.Entity2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JesSnapshotTest {
+  private JesScene2D sceneWithCrowd() {
+    JesScene2D scene = new JesScene2D();
+    Entity2D hero = new Entity2D();
+    hero.setPosition(5, 6);
+    scene.registerEntity("hero", hero);
+    scene.setPlayerName("hero");
+    Inventory inv = new Inventory();
+    inv.add("potion", 3);
+    scene.setInventory("hero", inv);
+    for (int i = 0; i < 50; i++) {
+      Entity2D npc = new Entity2D();
+      npc.setPosition(i * 16, 32);
+      scene.registerEntity("npc" + i, npc);
+      Stats s = new Stats();
+      s.setMaxHp(10);
+      s.setHp(10);
+      scene.setStats("npc" + i, s);
+    }
+    return scene;
+  }
+
+  @Test
+  public void deltasCarryOnlyChangedEntities() {
+    JesScene2D scene = sceneWithCrowd();
+    byte[] full = scene.saveSnapshot();
+    byte[] idle = scene.saveSnapshotDelta();
+    assertTrue(idle.length < 16, "unchanged delta should be a bare header, was " + idle.length);
+
+    scene.find("hero").setPosition(40, 41);
+    byte[] moved = scene.saveSnapshotDelta();
+    assertTrue(moved.length * 10 < full.length);
+
+    scene.getInventory("hero").remove("potion", 1);
+    scene.getStats("npc7").setHp(2);
+    scene.removeEntity("npc9");
+    byte[] changed = scene.saveSnapshotDelta();
+
+    JesSceneState state = JesSnapshotReader.read(full, idle, moved, changed);
+    assertArrayEquals(new double[]{ 40, 41 }, state.playerPosition, 1e-9);
+    assertEquals(2, state.inventories.get("hero").get("potion").intValue());
+    assertEquals(2.0, state.stats.get("npc7").hp, 1e-9);
+    assertFalse(state.entityPositions.containsKey("npc9"));
+    assertTrue(state.stats.containsKey("npc9"));
+    assertEquals(49 + 1, state.entityPositions.size());
+
+    JesScene2D restored = sceneWithCrowd();
+    restored.loadSnapshot(full, idle, moved, changed);
+    assertEquals(40.0, restored.find("hero").getX(), 1e-9);
+    assertEquals(2.0, restored.getStats("npc7").getHp(), 1e-9);
+
+    scene.applyBuff("npc3", "haste", 0, 0, 5, 0);
+    byte[] buffed = scene.saveSnapshotDelta();
+    JesSceneState withBuff = JesSnapshotReader.read(full, idle, moved, changed, buffed);
+    assertArrayEquals(new double[]{ 0, 0, 5, 0 }, withBuff.stats.get("npc3").buffs.get("haste"), 1e-9);
+    restored.loadSnapshot(full, idle, moved, changed, buffed);
+    assertEquals(5.0, restored.getStats("npc3").getModifierSpeed(), 1e-9);
+  }
+
+  @Test
+  public void inventoryOrderDoesNotChangeBytes() {
+    // "Aa" and "BB" share a hash code, so a HashMap iterates them in insertion order
+    JesScene2D first = sceneWithCrowd();
+    first.getInventory("hero").add("Aa", 1);
+    first.getInventory("hero").add("BB", 2);
+    JesScene2D second = sceneWithCrowd();
+    second.getInventory("hero").add("BB", 2);
+    second.getInventory("hero").add("Aa", 1);
+    assertArrayEquals(first.saveSnapshot(), second.saveSnapshot());
+  }
+
+  @Test
+  public void rejectsDeltaOutOfOrder() {
+    JesScene2D scene = sceneWithCrowd();
+    byte[] full = scene.saveSnapshot();
+    scene.find("hero").setPosition(1, 1);
+    scene.saveSnapshotDelta();
+    scene.find("hero").setPosition(2, 2);
+    byte[] second = scene.saveSnapshotDelta();
+    assertThrows(IllegalStateException.class, () -> JesSnapshotReader.read(full, second));
+    assertThrows(IllegalArgumentException.class, () -> JesSnapshotReader.read(new byte[]{ 1, 2, 3, 4, 5, 6 }));
+  }
+}
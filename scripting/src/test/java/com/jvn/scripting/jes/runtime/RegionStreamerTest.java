@@ -0,0 +1,160 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.Panel2D;
+import com.jvn.core.scene2d.TileLayerFile;
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionStreamerTest {
+  private static TileLayerFile groundWithWalls() throws Exception {
+    TileMap2D src = new TileMap2D(null, 256, 256, 16, 16);
+    src.fillRect(0, 0, 256, 256, 1);
+    for (int i = 0; i < 256; i += 32) src.setTile(i, i, 7); // one wall tile per diagonal region
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TileLayerFile.write(src, out, 32);
+    return TileLayerFile.read(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  @Test
+  public void loadsNeighbourhoodAndUnloadsBehind() throws Exception {
+    TileLayerFile file = groundWithWalls();
+    JesScene2D scene = new JesScene2D();
+    TileMap2D ground = new TileMap2D(null, 256, 256, 16, 16);
+    TileMap2D walls = new TileMap2D(null, 256, 256, 16, 16);
+    RegionStreamer rs = new RegionStreamer(scene, 256, 256, 32);
+    rs.setAsync(false);
+    rs.setRadius(1, 2);
+    rs.addLayer(file, ground, false);
+    rs.addLayer(file, walls, true);
+
+    rs.update(10 * 16, 10 * 16);
+    assertEquals(4, rs.getActiveRegions());
+    assertEquals(1, ground.getTile(63, 63));
+    assertEquals(-1, ground.getTile(64, 10));
+    assertEquals(7, walls.getTile(32, 32));
+    assertEquals(64 * 64, scene.getWorld().getStaticRectCount());
+
+    rs.update(40 * 16, 40 * 16); // next region over: everything stays within the unload radius
+    assertEquals(9, rs.getActiveRegions());
+    assertEquals(0, rs.getUnloads());
+
+    rs.update(200 * 16, 200 * 16);
+    assertFalse(rs.isActive(0, 0));
+    assertEquals(-1, ground.getTile(0, 0));
+    assertTrue(ground.isChunkEmpty(0, 0));
+    assertEquals(1, walls.getTile(200, 200));
+    assertEquals(rs.getActiveRegions() * 32 * 32, scene.getWorld().getStaticRectCount());
+  }
+
+  @Test
+  public void parksEntitiesOutsideLoadedRegions() throws Exception {
+    JesScene2D scene = new JesScene2D();
+    TileMap2D ground = new TileMap2D(null, 256, 256, 16, 16);
+    RegionStreamer rs = new RegionStreamer(scene, 256, 256, 32);
+    rs.setAsync(false);
+    rs.addLayer(groundWithWalls(), ground, false);
+    scene.addRegionStreamer(rs);
+    Panel2D crate = new Panel2D(16, 16);
+    crate.setPosition(20, 20);
+    scene.add(crate);
+    scene.registerEntity("crate", crate);
+    scene.streamEntity("crate");
+
+    rs.update(20, 20);
+    assertSame(crate, scene.find("crate"));
+    rs.update(3000, 3000);
+    assertNull(scene.find("crate"));
+    assertTrue(scene.handle("crate").isParked());
+    // parked entities still take part in saves and loads, and keep their handle
+    JesSceneState saved = scene.saveState();
+    assertArrayEquals(new double[]{ 20, 20 }, saved.entityPositions.get("crate"), 1e-9);
+    saved.entityPositions.put("crate", new double[]{ 24, 28 });
+    scene.loadState(saved);
+    assertEquals(24, crate.getX(), 1e-9);
+    assertEquals(28, crate.getY(), 1e-9);
+    scene.registerEntity("crate", new Panel2D(8, 8));
+    assertSame(crate, scene.handle("crate").parked);
+    rs.loadAround(30, 30);
+    assertSame(crate, scene.find("crate"));
+    assertEquals(1, ground.getTile(1, 1));
+  }
+
+  @Test
+  public void decodesRegionsInTheBackground() throws Exception {
+    JesScene2D scene = new JesScene2D();
+    TileMap2D ground = new TileMap2D(null, 256, 256, 16, 16);
+    RegionStreamer rs = new RegionStreamer(scene, 256, 256, 32);
+    rs.addLayer(groundWithWalls(), ground, false);
+    rs.update(0, 0); // the first neighbourhood loads right away
+    assertEquals(1, ground.getTile(1, 0));
+
+    rs.update(128 * 16, 128 * 16);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!rs.isIdle() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+      rs.update(128 * 16, 128 * 16);
+    }
+    assertTrue(rs.isIdle());
+    assertEquals(1, ground.getTile(129, 128));
+    assertEquals(-1, ground.getTile(0, 0));
+    rs.shutdown();
+  }
+
+  @Test
+  public void unloadedCollisionRegionsBlockPaths() throws Exception {
+    JesScene2D scene = new JesScene2D();
+    TileMap2D walls = new TileMap2D(null, 256, 256, 16, 16);
+    scene.addCollisionTilemap(walls);
+    RegionStreamer rs = new RegionStreamer(scene, 256, 256, 32);
+    rs.setAsync(false);
+    rs.setRadius(0, 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TileLayerFile.write(new TileMap2D(null, 256, 256, 16, 16), out, 32); // no walls at all
+    rs.addLayer(TileLayerFile.read(new ByteArrayInputStream(out.toByteArray())), walls, true);
+
+    CollisionGrid2D grid = scene.getCollisionGrid();
+    rs.update(10 * 16, 10 * 16);
+    assertFalse(grid.isBlocked(10, 10));
+    assertTrue(grid.isBlocked(100, 100)); // never loaded
+    rs.update(100 * 16, 100 * 16);
+    assertFalse(grid.isBlocked(100, 100));
+    assertTrue(grid.isBlocked(10, 10)); // unloaded again
+    assertTrue(grid.isUnknown(10, 10));
+  }
+
+  @Test
+  public void regionsThatFailToDecodeAreRetried() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TileMap2D src = new TileMap2D(null, 64, 64, 16, 16);
+    src.fillRect(0, 0, 64, 64, 1);
+    TileLayerFile.write(src, out, 32);
+    byte[] bytes = out.toByteArray();
+    byte[] good = bytes.clone();
+    int chunk0 = 17 + 5 * 4; // data of the first of four chunks, after the header and chunk index
+    Arrays.fill(bytes, chunk0, chunk0 + 5, (byte) 0xFF); // a varint that never ends
+    TileLayerFile file = TileLayerFile.open(ByteBuffer.wrap(bytes));
+
+    JesScene2D scene = new JesScene2D();
+    TileMap2D ground = new TileMap2D(null, 64, 64, 16, 16);
+    RegionStreamer rs = new RegionStreamer(scene, 64, 64, 32);
+    rs.setAsync(false);
+    rs.setRadius(0, 1);
+    rs.setRetryDelay(0);
+    rs.addLayer(file, ground, false);
+    rs.update(0, 0);
+    assertFalse(rs.isActive(0, 0));
+    assertEquals(0, rs.getLoads());
+
+    System.arraycopy(good, 0, bytes, 0, bytes.length); // the data becomes readable again
+    rs.update(0, 0);
+    assertTrue(rs.isActive(0, 0));
+    assertEquals(1, ground.getTile(0, 0));
+  }
+}
@@ -0,0 +1,62 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.input.Input;
+import com.jvn.core.physics.RigidBody2D;
+import com.jvn.scripting.jes.JesLoader;
+import com.jvn.scripting.jes.JesParser;
+import com.jvn.scripting.jes.JesTokenizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpawnPoolTest {
+  @Test
+  public void removedSpawnsAreRecycled() throws Exception {
+    String src = """
+      scene "Pool" {
+        circlePoolSize: 2
+        timeline { spawnCircle { x: 10 y: 10 r: 5 } spawnCircle { name: "shot" x: 20 y: 20 r: 3 restitution: 0.9 } }
+      }
+      """;
+    JesScene2D js = JesLoader.load(src);
+    SpawnPool pool = js.getCirclePool();
+    assertEquals(2, pool.idle());
+    js.setInput(new Input());
+    js.update(16);
+    js.update(16);
+    assertEquals(0, pool.idle());
+    assertEquals(2, js.getWorld().getBodies().size());
+    PhysicsBodyEntity2D shot = (PhysicsBodyEntity2D) js.find("shot");
+    assertNotNull(js.find("circle#1"));
+    assertEquals(0.9, shot.getBody().getRestitution(), 1e-9);
+
+    shot.setColor(1, 0, 0, 0.5);
+    assertTrue(js.removeEntity("shot"));
+    assertNull(js.find("shot"));
+    assertEquals(1, pool.idle());
+    assertEquals(0.9, shot.getColorR(), 1e-9);
+    assertEquals(0.2, shot.getBody().getRestitution(), 1e-9);
+
+    String again = "scene \"S\" { timeline { spawnCircle { x: 50 y: 60 r: 8 } } }";
+    js.setTimeline(new JesParser(new JesTokenizer(again).tokenize()).parseProgram().scenes.get(0).timeline);
+    js.update(16);
+    assertSame(shot, js.find("circle#0"));
+    assertEquals(8, shot.getBody().getCircle().r, 1e-9);
+    assertEquals(50, shot.getBody().getX(), 1e-9);
+    assertEquals(2, pool.getCreated());
+    assertEquals(3, pool.getReused());
+  }
+
+  @Test
+  public void fullPoolDropsReleasedSpawns() {
+    SpawnPool pool = new SpawnPool(RigidBody2D.ShapeType.AABB, 1);
+    SpawnPool.Spawn a = pool.acquire();
+    SpawnPool.Spawn b = pool.acquire();
+    assertEquals("box#0", a.pooledName);
+    assertTrue(pool.release(a));
+    assertFalse(pool.release(b));
+    assertEquals(1, pool.idle());
+    pool.acquire();
+    assertEquals("box#1", pool.acquire().pooledName); // dropped name is handed out again
+  }
+}
@@ -0,0 +1,66 @@
+package com.jvn.scripting.jes.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatsTest {
+  private static Item item(String id, double atk, double def) {
+    Item item = new Item();
+    item.setId(id);
+    item.getProps().put("type", "equipment");
+    item.getProps().put("atkBonus", atk);
+    item.getProps().put("defBonus", def);
+    return item;
+  }
+
+  @Test
+  public void equipmentChangesUpdateDerivedStats() {
+    JesScene2D scene = new JesScene2D();
+    scene.registerItem(item("sword", 5, 0));
+    scene.registerItem(item("shield", 0, 3));
+    Stats stats = new Stats();
+    stats.setAtk(10);
+    stats.setDef(2);
+    scene.setStats("hero", stats);
+    Equipment eq = new Equipment();
+    eq.set("hand", "sword");
+    scene.setEquipment("hero", eq);
+    assertEquals(15, stats.getAtk(), 1e-9);
+    assertEquals(0, stats.getAtkBonus(), 1e-9);
+
+    int before = stats.getRevision();
+    eq.set("offhand", "shield");
+    assertEquals(5, stats.getDef(), 1e-9);
+    assertTrue(stats.getRevision() > before);
+    eq.set("hand", null);
+    assertEquals(10, stats.getAtk(), 1e-9);
+    assertNull(stats.getModifier("equip:hand"));
+    assertThrows(UnsupportedOperationException.class, () -> eq.getSlots().put("x", "y"));
+  }
+
+  @Test
+  public void timedBuffsExpireUnlessRefreshed() {
+    JesScene2D scene = new JesScene2D();
+    Stats stats = new Stats();
+    stats.setSpeed(2);
+    scene.setStats("hero", stats);
+    scene.setPlayerName("hero");
+
+    scene.invokeCall("buff", Map.of("id", "haste", "speed", 3.0, "durationMs", 100.0));
+    assertEquals(5, stats.getSpeed(), 1e-9);
+    scene.update(60);
+    scene.applyBuff("hero", "haste", 0, 0, 3, 100); // refreshed: the first timer must not remove it
+    scene.update(60);
+    assertEquals(5, stats.getSpeed(), 1e-9);
+    scene.update(60);
+    assertEquals(2, stats.getSpeed(), 1e-9);
+
+    scene.applyBuff("hero", "rage", 4, 0, 0, 0);
+    assertEquals(4, stats.getAtk(), 1e-9);
+    assertTrue(scene.removeBuff("hero", "rage"));
+    assertEquals(0, stats.getAtk(), 1e-9);
+  }
+}
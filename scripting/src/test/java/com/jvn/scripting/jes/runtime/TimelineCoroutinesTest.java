@@ -0,0 +1,90 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.Sprite2D;
+import com.jvn.scripting.jes.JesLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineCoroutinesTest {
+  @Test
+  public void coroutineTimelineWaitsThenAnimates() throws Exception {
+    String src = """
+      scene "Demo" {
+        timelineMode: coroutine
+        entity "s" { component Sprite2D { x: 0 y: 0 w: 10 h: 10 image: "a.png" } }
+        timeline { wait 100 waitForCall "go" move "s" { x: 10 y: 0 dur: 100 } }
+      }
+      """;
+    JesScene2D js = JesLoader.load(src);
+    Sprite2D s = (Sprite2D) js.find("s");
+    js.update(60);
+    js.update(60);
+    js.update(60);
+    assertEquals(0.0, s.getX(), 1e-6); // parked on waitForCall
+    js.invokeCall("go", Map.of());
+    js.update(50); // the move starts on this frame
+    assertEquals(0.0, s.getX(), 1e-6);
+    js.update(50);
+    assertEquals(5.0, s.getX(), 1e-6);
+    js.update(60);
+    assertEquals(10.0, s.getX(), 1e-6);
+    assertEquals(0, js.getCoroutines().active());
+  }
+
+  @Test
+  public void onlyReadyCoroutinesResume() {
+    TimerWheel timers = new TimerWheel();
+    TimelineCoroutines cos = new TimelineCoroutines(timers);
+    int[] resumed = new int[1];
+    for (int i = 0; i < 2000; i++) {
+      cos.start(co -> {
+        resumed[0]++;
+        co.sleep(1000);
+        resumed[0]++;
+      });
+    }
+    TimelineCoroutines.Coroutine manual = cos.start(co -> { co.park(); resumed[0]++; });
+    cos.update(16);
+    assertEquals(2000, resumed[0]);
+    timers.advance(500);
+    cos.update(16);
+    assertEquals(2000, resumed[0]); // nobody is due
+    manual.wake();
+    cos.update(16);
+    assertEquals(2001, resumed[0]);
+    timers.advance(500);
+    cos.update(16);
+    assertEquals(4001, resumed[0]);
+    assertEquals(0, cos.active());
+  }
+
+  @Test
+  public void cancelUnwindsParkedCoroutines() {
+    TimelineCoroutines cos = new TimelineCoroutines(new TimerWheel());
+    boolean[] after = new boolean[1];
+    TimelineCoroutines.Coroutine co = cos.start(c -> { c.park(); after[0] = true; });
+    cos.update(16);
+    cos.cancelAll();
+    assertTrue(co.isDone());
+    assertFalse(after[0]);
+    assertEquals(0, cos.active());
+  }
+
+  @Test
+  public void bodyFailuresAreRethrownOnTheGameThread() {
+    TimelineCoroutines cos = new TimelineCoroutines(new TimerWheel());
+    TimelineCoroutines.Coroutine co = cos.start(c -> {
+      c.awaitFrame();
+      throw new IllegalStateException("boom");
+    });
+    cos.update(16);
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> cos.update(16));
+    assertEquals("boom", e.getMessage());
+    assertTrue(co.isDone());
+    assertEquals(0, cos.active());
+    cos.update(16); // reported once
+  }
+}
@@ -0,0 +1,65 @@
+package com.jvn.scripting.jes.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+  @Test
+  public void firesInDeadlineOrderAcrossLevels() {
+    TimerWheel w = new TimerWheel();
+    List<String> fired = new ArrayList<>();
+    w.schedule(70_000, () -> fired.add("long"));
+    w.schedule(300, () -> fired.add("mid"));
+    w.schedule(10, () -> fired.add("short"));
+    TimerWheel.Timer cancelled = w.schedule(20, () -> fired.add("cancelled"));
+    assertTrue(w.cancel(cancelled));
+    assertEquals(3, w.pending());
+
+    w.advance(9);
+    assertTrue(fired.isEmpty());
+    w.advance(1);
+    assertEquals(List.of("short"), fired);
+    w.advance(289);
+    assertEquals(1, fired.size());
+    w.advance(1);
+    assertEquals(List.of("short", "mid"), fired);
+    for (int i = 0; i < 70; i++) w.advance(1000);
+    assertEquals(List.of("short", "mid", "long"), fired);
+    assertEquals(0, w.pending());
+  }
+
+  @Test
+  public void parallelChildrenParkUntilDue() throws Exception {
+    String src = """
+      scene "Demo" {
+        timeline {
+          parallel {
+            wait 100000
+            waitForCall "never"
+            call "ping" { delay: 100 }
+          }
+        }
+      }
+      """;
+    JesScene2D js = com.jvn.scripting.jes.JesLoader.load(src);
+    List<String> pings = new ArrayList<>();
+    js.registerCall("ping", props -> pings.add("ping"));
+    js.update(60);
+    js.update(50);
+    assertTrue(pings.isEmpty());
+    js.update(60);
+    assertEquals(List.of("ping"), pings);
+
+    List<String> later = new ArrayList<>();
+    js.registerCall("later", props -> later.add("later"));
+    js.invokeCallLater("later", null, 40);
+    js.update(30);
+    assertTrue(later.isEmpty());
+    js.update(30);
+    assertEquals(1, later.size());
+  }
+}
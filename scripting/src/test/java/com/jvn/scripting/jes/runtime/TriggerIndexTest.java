@@ -0,0 +1,51 @@
+package com.jvn.scripting.jes.runtime;
+
+import com.jvn.core.scene2d.TileMap2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TriggerIndexTest {
+  @Test
+  public void prebuildsPropsPerCell() {
+    TileMap2D doors = new TileMap2D(null, 100, 100, 16, 16);
+    doors.setTile(3, 4, 2);
+    TileMap2D chests = new TileMap2D(null, 40, 40, 16, 16);
+    chests.setTile(3, 4, 9);
+    TriggerIndex index = new TriggerIndex();
+    index.addLayer("town", doors, "warpMap", Map.of("toTileX", 1.0));
+    index.addLayer(null, chests, "openChest", null);
+
+    TriggerIndex.Trigger[] hits = index.at(3, 4);
+    assertEquals(2, hits.length);
+    assertEquals("warpMap", hits[0].call());
+    assertEquals(1.0, hits[0].props().get("toTileX"));
+    assertEquals(4.0, hits[0].props().get("tileY"));
+    assertEquals("town", hits[0].props().get("map"));
+    assertEquals(9.0, hits[1].props().get("tile"));
+    assertFalse(hits[1].props().containsKey("map"));
+    assertThrows(UnsupportedOperationException.class, () -> hits[0].props().put("x", 1));
+    // the same prebuilt entry comes back on every step
+    assertSame(hits, index.at(3, 4));
+    assertNull(index.at(5, 5));
+    assertNull(index.at(500, 5));
+  }
+
+  @Test
+  public void followsTileEdits() {
+    TileMap2D layer = new TileMap2D(null, 64, 64, 16, 16);
+    TriggerIndex index = new TriggerIndex();
+    index.addLayer("m", layer, "step", null);
+    assertEquals(0, index.getCellCount());
+    layer.setTile(40, 40, 1);
+    assertEquals("step", index.at(40, 40)[0].call());
+    layer.fillRect(0, 0, 4, 4, 3);
+    assertEquals(17, index.getCellCount());
+    assertEquals(3.0, index.at(2, 2)[0].props().get("tile"));
+    layer.setTile(40, 40, -1);
+    assertNull(index.at(40, 40));
+    assertEquals(16, index.getCellCount());
+  }
+}